@@ -1,12 +1,17 @@
 package org.globalbioticinteractions.elton;
 
+import org.eol.globi.db.GraphServiceProfile;
 import org.eol.globi.tool.CmdGenerateReportNeo4j2;
 import org.eol.globi.tool.CmdIndexTaxa;
 import org.eol.globi.tool.CmdIndexTaxonStrings;
 import org.eol.globi.tool.CmdInterpretTaxa;
 import org.eol.globi.tool.CmdNeo4J;
+import org.eol.globi.tool.StageScheduler;
 import picocli.CommandLine;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 @CommandLine.Command(
         name = "link",
         description = "link compiled interaction datasets",
@@ -19,17 +24,64 @@ import picocli.CommandLine;
 )
 public class CmdLink extends CmdNeo4J {
 
+    // parts of the graph read or written by link stages
+    private static final String DATASETS = "datasets";
+    // report* properties of dataset nodes
+    private static final String DATASET_REPORTS = "datasetReports";
+    private static final String STUDIES = "studies";
+    private static final String SPECIMENS = "specimens";
+    // taxon nodes, with their names, ids and paths, and their same as relations
+    private static final String TAXA = "taxa";
+    // aggregate (path) ids and names of taxa, stored as externalIds and nameIds taxon properties
+    private static final String TAXON_IDS = "taxonIds";
+    private static final String CLASSIFICATIONS = "classifications";
+    private static final String TAXON_INTERACTIONS = "taxonInteractions";
+    private static final String TAXON_PATHS = "taxonPaths";
+    private static final String TAXON_NAME_SUGGESTIONS = "taxonNameSuggestions";
+    private static final String REPORTS = "reports";
+
+    @CommandLine.Option(
+            names = {"-serialStages"},
+            description = "run link stages one after another (default: run independent stages concurrently)",
+            hidden = true
+    )
+    private boolean serialStages;
 
     @Override
     public void run() {
-        configureAndRun(new CmdInterpretTaxa());
-        configureAndRun(new CmdIndexTaxa());
-        configureAndRun(new CmdIndexTaxonStrings());
+        // initialize shared graph before running stages concurrently
+        getGraphServiceFactory();
+        getNodeFactoryFactory();
+
+        StageScheduler stages = new StageScheduler()
+                .add("interpret",
+                        Arrays.asList(STUDIES, SPECIMENS, CLASSIFICATIONS),
+                        Arrays.asList(DATASETS, TAXA, CLASSIFICATIONS),
+                        () -> configureAndRun(new CmdInterpretTaxa()))
+                .add("indexTaxa",
+                        Arrays.asList(STUDIES, SPECIMENS, TAXA, CLASSIFICATIONS),
+                        Arrays.asList(TAXA, CLASSIFICATIONS, TAXON_INTERACTIONS),
+                        () -> configureAndRun(new CmdIndexTaxa()))
+                .add("indexTaxonStrings",
+                        Collections.singletonList(TAXA),
+                        Arrays.asList(TAXON_IDS, TAXON_PATHS, TAXON_NAME_SUGGESTIONS),
+                        () -> configureAndRun(new CmdIndexTaxonStrings()));
         if ("2".equals(getNeo4jVersion())) {
-            configureAndRun(new CmdGenerateReportNeo4j2());
+            stages.add("report",
+                    Arrays.asList(DATASETS, DATASET_REPORTS, STUDIES, SPECIMENS, TAXA, CLASSIFICATIONS),
+                    Arrays.asList(DATASET_REPORTS, REPORTS),
+                    () -> configureAndRun(new CmdGenerateReportNeo4j2()));
+        }
+        if (serialStages) {
+            stages.runSerially();
+        } else {
+            stages.run();
         }
     }
 
-
+    @Override
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.LINK;
+    }
 
 }
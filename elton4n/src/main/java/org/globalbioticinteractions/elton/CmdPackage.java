@@ -3,26 +3,50 @@ package org.globalbioticinteractions.elton;
 import org.eol.globi.tool.CmdExportInteractionsTSV;
 import org.eol.globi.tool.CmdExportNeo4j2;
 import org.eol.globi.tool.CmdExportNeo4J;
+import org.eol.globi.tool.StageScheduler;
 import picocli.CommandLine;
 
+import java.util.Collections;
+
 @CommandLine.Command(
         name = "package",
         description = "package interaction datasets into data products"
 )
 public class CmdPackage extends CmdExportNeo4J {
 
+    // exporters only read the graph, and write into their own parts of the export dir
+    private static final String GRAPH = "graph";
+    private static final String TSV_FILES = "tsv";
+    private static final String DATA_PRODUCT_FILES = "dataProducts";
+
     @Override
     public void run() {
-        if ("2".equals(getNeo4jVersion())) {
-            configAndRun(new CmdExportInteractionsTSV());
-            configAndRun(new CmdExportNeo4j2());
-        } else {
-            configAndRun(new CmdExportInteractionsTSV());
+        // initialize shared graph before running stages concurrently
+        getGraphServiceFactory();
+        getNodeFactoryFactory();
+
+        boolean includePackage = "2".equals(getNeo4jVersion());
+        // concurrent stages share the export threads, instead of each using all of them
+        int exportThreadsPerStage = Math.max(1, getExportThreads() / (includePackage ? 2 : 1));
+
+        StageScheduler stages = new StageScheduler()
+                .add("interactions",
+                        Collections.singletonList(GRAPH),
+                        Collections.singletonList(TSV_FILES),
+                        () -> configAndRun(new CmdExportInteractionsTSV(), exportThreadsPerStage));
+        if (includePackage) {
+            stages.add("package",
+                    Collections.singletonList(GRAPH),
+                    Collections.singletonList(DATA_PRODUCT_FILES),
+                    () -> configAndRun(new CmdExportNeo4j2(), exportThreadsPerStage));
         }
+        stages.run();
     }
 
-    private void configAndRun(CmdExportNeo4J cmdExportInteractionsTSV) {
+    private void configAndRun(CmdExportNeo4J cmdExportInteractionsTSV, int exportThreads) {
         cmdExportInteractionsTSV.setBaseDir(getBaseDir());
+        cmdExportInteractionsTSV.setSegmentDir(getSegmentDir());
+        cmdExportInteractionsTSV.setExportThreads(exportThreads);
         configureAndRun(cmdExportInteractionsTSV);
     }
 
@@ -1,11 +1,17 @@
 package org.globalbioticinteractions.elton;
 
+import org.apache.commons.io.FileUtils;
 import org.eol.globi.tool.CmdCompile;
+import org.eol.globi.util.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 import picocli.codegen.docgen.manpage.ManPageGenerator;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 import static java.lang.System.exit;
 
 @CommandLine.Command(name = "elton4n",
@@ -23,6 +29,14 @@ import static java.lang.System.exit;
 )
 
 public class Elton4N implements CommandLine.IVersionProvider {
+    private static final Logger LOG = LoggerFactory.getLogger(Elton4N.class);
+
+    @CommandLine.Option(
+            names = {"-metricsReport"},
+            description = "write metrics (e.g., counts, timings, commit latencies) of all stages as json to this file at the end of the run",
+            hidden = true
+    )
+    private File metricsReport;
 
     public String[] getVersion() {
         return new String[]{getVersionString()};
@@ -44,7 +58,29 @@ public class Elton4N implements CommandLine.IVersionProvider {
     }
 
     public static int run(String[] args) {
-        return new CommandLine(new Elton4N()).execute(args);
+        Elton4N elton4N = new Elton4N();
+        CommandLine commandLine = new CommandLine(elton4N);
+        commandLine.setExecutionStrategy(parseResult -> {
+            MetricRegistry.getDefault().reset();
+            try {
+                return new CommandLine.RunLast().execute(parseResult);
+            } finally {
+                elton4N.reportMetrics();
+            }
+        });
+        return commandLine.execute(args);
+    }
+
+    private void reportMetrics() {
+        String metrics = MetricRegistry.getDefault().toJson();
+        LOG.info("metrics: " + metrics);
+        if (metricsReport != null) {
+            try {
+                FileUtils.writeStringToFile(metricsReport, metrics, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                LOG.error("failed to write metrics report to [" + metricsReport.getAbsolutePath() + "]", e);
+            }
+        }
     }
 
 }
@@ -0,0 +1,156 @@
+package org.globalbioticinteractions.elton;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.eol.globi.data.NodeFactory;
+import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.data.NodeFactoryNeo4j2;
+import org.eol.globi.db.GraphServiceFactory;
+import org.eol.globi.domain.DatasetNode;
+import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.Study;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.TaxonImpl;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetConstant;
+import org.globalbioticinteractions.dataset.DatasetImpl;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class CmdLinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void resetGraphServiceFactory() {
+        new CmdLink().setGraphServiceFactory(null);
+    }
+
+    @Test
+    public void scheduledSameAsSerial() throws Exception {
+        List<String> serial = link("-serialStages");
+        assertThat(serial.size() > 20, is(true));
+        assertThat(serial.stream().anyMatch(description -> description.contains("reportTaxonIds")), is(true));
+        assertThat(serial.stream().anyMatch(description -> description.contains(DatasetConstant.LINKED_TAXON_CACHE_HASH)), is(true));
+        assertThat(link(), is(serial));
+    }
+
+    private List<String> link(String... options) throws Exception {
+        GraphServiceFactory factory = graphServiceFactory(folder.newFolder());
+        try {
+            compile(factory.getGraphService());
+
+            CmdLink cmd = new CmdLink();
+            List<String> args = new ArrayList<>();
+            Collections.addAll(args, "-nameIndexCache", folder.newFolder().getAbsolutePath());
+            Collections.addAll(args, options);
+            new CommandLine(cmd).parseArgs(args.toArray(new String[0]));
+            cmd.setGraphServiceFactory(factory);
+            cmd.run();
+
+            return describe(factory.getGraphService());
+        } finally {
+            factory.close();
+        }
+    }
+
+    private static void compile(GraphDatabaseService graphDb) throws NodeFactoryException {
+        String[] names = {"Homo sapiens", "Ariopsis felis", "Mus musculus", "Canis lupus"};
+        try (Transaction tx = graphDb.beginTx()) {
+            NodeFactory nodeFactory = new NodeFactoryNeo4j2(graphDb);
+            Dataset dataset = nodeFactory.getOrCreateDataset(new DatasetImpl("some/namespace", resourceName -> {
+                throw new IOException("no resources available");
+            }, URI.create("some:uri")));
+            // imported datasets have their reports stored with the dataset node
+            ((DatasetNode) dataset).getUnderlyingNode().setProperty(DatasetConstant.IMPORTED_CONTENT_HASH, "some:hash");
+            for (int i = 0; i < 12; i++) {
+                StudyImpl study = new StudyImpl("some title" + (i % 3));
+                study.setOriginatingDataset(dataset);
+                Study studyNode = nodeFactory.getOrCreateStudy(study);
+                Specimen predator = nodeFactory.createSpecimen(studyNode, new TaxonImpl(names[i % names.length]));
+                Specimen prey = nodeFactory.createSpecimen(studyNode, new TaxonImpl(names[(i + 1) % names.length]));
+                predator.interactsWith(prey, InteractType.ATE);
+            }
+            tx.success();
+        }
+    }
+
+    private static List<String> describe(GraphDatabaseService graphDb) {
+        List<String> descriptions = new ArrayList<>();
+        try (Transaction tx = graphDb.beginTx()) {
+            for (Node node : graphDb.getAllNodes()) {
+                descriptions.add(describe(node));
+            }
+            for (Relationship relationship : graphDb.getAllRelationships()) {
+                descriptions.add(describe(relationship.getStartNode())
+                        + " -[" + relationship.getType().name() + " " + new TreeMap<>(relationship.getAllProperties()) + "]-> "
+                        + describe(relationship.getEndNode()));
+            }
+            for (String indexName : graphDb.index().nodeIndexNames()) {
+                descriptions.add("index [" + indexName + "]");
+            }
+            tx.success();
+        }
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+
+    private static String describe(Node node) {
+        List<String> labels = new ArrayList<>();
+        for (Label label : node.getLabels()) {
+            labels.add(label.name());
+        }
+        Collections.sort(labels);
+        Map<String, Object> properties = new TreeMap<>();
+        node.getAllProperties().forEach((key, value) -> properties.put(key, value.getClass().isArray() ? ArrayUtils.toString(value) : value));
+        // differs by time of compilation
+        properties.remove(DatasetConstant.LAST_SEEN_AT);
+        return labels + " " + properties;
+    }
+
+    private static GraphServiceFactory graphServiceFactory(File graphDbDir) {
+        return new GraphServiceFactory() {
+
+            private GraphDatabaseService graphDb = null;
+
+            @Override
+            public GraphDatabaseService getGraphService() {
+                if (graphDb == null) {
+                    graphDb = new GraphDatabaseFactory().newEmbeddedDatabase(graphDbDir);
+                }
+                return graphDb;
+            }
+
+            @Override
+            public void close() {
+                if (graphDb != null) {
+                    graphDb.shutdown();
+                    graphDb = null;
+                }
+            }
+        };
+    }
+
+}
@@ -10,6 +10,7 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -87,4 +88,23 @@ public class Elton4NTest {
         );
     }
 
-}
\ No newline at end of file
+    @Test
+    public void metricsReport() throws IOException {
+        File report = new File(folder, "metrics.json");
+        assertThat(
+                Elton4N.run(new String[]{
+                        "-metricsReport", report.getAbsolutePath(),
+                        "compile",
+                        "-datasetDir", folder.getAbsolutePath(),
+                        "-graphDbDir", folder.getAbsolutePath(),
+                        "-exportDir", folder.getAbsolutePath()
+                }),
+                Is.is(0)
+        );
+
+        String metrics = FileUtils.readFileToString(report, StandardCharsets.UTF_8);
+        assertThat(metrics.startsWith("{\"counters\":"), Is.is(true));
+        assertThat(metrics.contains("\"indexer.IndexerDataset\":{\"count\":1"), Is.is(true));
+    }
+
+}
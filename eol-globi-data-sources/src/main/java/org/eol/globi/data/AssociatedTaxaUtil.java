@@ -40,6 +40,8 @@ public final class AssociatedTaxaUtil {
             "[Ff]eeding on")
             + ")([ ])([^;]+)");
 
+    private final static String ASSOCIATION_PATTERN_FIRST_CHARS = "rRCcfFoOgGvV";
+
     public static List<Map<String, String>> expandIfNeeded(Map<String, String> properties) {
         try {
             return new PropertyEnricher() {
@@ -93,14 +95,16 @@ public final class AssociatedTaxaUtil {
             attemptParsingAssociationString(trimmedPart, properties);
             int after = properties.size();
             if (before == after) {
+                // qualified names like "Genus species: Family" or "Family:Genus:species" always contain a colon
+                boolean mayBeQualified = StringUtils.contains(trimmedPart, ':');
                 Matcher matcher = DatasetImporterForDwCA.PATTERN_ASSOCIATED_TAXA_IDEA.matcher(trimmedPart);
-                if (matcher.find()) {
+                if (mayBeQualified && matcher.find()) {
                     String genus = StringUtils.trim(matcher.group(1));
                     String specificEpithet = StringUtils.trim(matcher.group(2));
                     addDefaultInteractionForAssociatedTaxon(properties, genus + " " + specificEpithet, interactionTypeNameDefault);
                 } else {
                     Matcher matcher1 = DatasetImporterForDwCA.PATTERN_ASSOCIATED_TAXA_EAE.matcher(trimmedPart);
-                    if (matcher1.find()) {
+                    if (mayBeQualified && matcher1.find()) {
                         String genus = StringUtils.trim(matcher1.group(2));
                         String specificEpithet = StringUtils.trim(matcher1.group(3));
                         addDefaultInteractionForAssociatedTaxon(properties, genus + " " + specificEpithet, interactionTypeNameDefault);
@@ -161,6 +165,9 @@ public final class AssociatedTaxaUtil {
     }
 
     public static List<Map<String, String>> attemptParsingAssociationString(String associatedTaxa, List<Map<String, String>> properties) {
+        if (!mayMatchAssociationPatterns(associatedTaxa)) {
+            return properties;
+        }
         Matcher matcher = ASSOCIATION_PATTERNS.matcher(associatedTaxa);
         if (matcher.find()) {
             properties.add(new HashMap<String, String>() {{
@@ -170,4 +177,11 @@ public final class AssociatedTaxaUtil {
         }
         return properties;
     }
+
+    static boolean mayMatchAssociationPatterns(String associatedTaxa) {
+        // all association patterns, except "feeding on", are anchored at the start of the value
+        return StringUtils.isNotEmpty(associatedTaxa)
+                && (StringUtils.indexOf(ASSOCIATION_PATTERN_FIRST_CHARS, associatedTaxa.charAt(0)) != -1
+                || StringUtils.contains(associatedTaxa, "eeding on"));
+    }
 }
@@ -0,0 +1,28 @@
+package org.eol.globi.data;
+
+import org.globalbioticinteractions.dataset.Dataset;
+
+/**
+ * Keeps track of datasets that were completely imported, so that unchanged datasets
+ * can be skipped when importing again, and interrupted imports can be resumed.
+ */
+
+public interface DatasetImportCheckpoints {
+
+    /**
+     * @return true if the exact same content of given dataset was completely imported before
+     */
+    boolean isImported(Dataset dataset) throws NodeFactoryException;
+
+    /**
+     * marks the current content of given dataset as completely imported
+     */
+    void setImported(Dataset dataset) throws NodeFactoryException;
+
+    /**
+     * removes records of a previous, changed or partial, import of given dataset, if any,
+     * so that it can be imported again without duplicating records
+     */
+    void removeImported(Dataset dataset) throws NodeFactoryException;
+
+}
@@ -49,6 +49,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -74,6 +75,7 @@ import static org.eol.globi.data.DatasetImporterForTSV.TARGET_FIELD_NUMBER;
 import static org.eol.globi.data.DatasetImporterForTSV.TARGET_LIFE_STAGE_NAME;
 import static org.eol.globi.data.DatasetImporterForTSV.TARGET_OCCURRENCE_ID;
 import static org.eol.globi.data.DatasetImporterForTSV.TARGET_SEX_NAME;
+import static org.eol.globi.data.OccurrenceRemarksPrefilter.isCandidate;
 import static org.eol.globi.service.TaxonUtil.SOURCE_TAXON_CLASS;
 import static org.eol.globi.service.TaxonUtil.SOURCE_TAXON_FAMILY;
 import static org.eol.globi.service.TaxonUtil.SOURCE_TAXON_GENUS;
@@ -404,64 +406,64 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
     }
 
     static void addCandidatesFromRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks) throws IOException {
+        addCandidatesFromRemarks(interactionCandidates, occurrenceRemarks, OccurrenceRemarksPrefilter::candidateParsersFor);
+    }
+
+    static void addCandidatesFromRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks, ToLongFunction<String> prefilter) throws IOException {
         if (StringUtils.isNotBlank(occurrenceRemarks)) {
-            addUSNMStyleHostOccurrenceRemarks(interactionCandidates, occurrenceRemarks);
-            addRoyalSaskatchewanMuseumOwlPelletCollectionStyleRemarks(interactionCandidates, occurrenceRemarks);
-            String[] remarks = StringUtils.split(occurrenceRemarks, ";,.\":\'");
-            for (String remark : remarks) {
-                addKilledByPetsRemarks(interactionCandidates, remark);
-                addKilledByHumansRemarks(interactionCandidates, remark);
+            long candidates = prefilter.applyAsLong(occurrenceRemarks);
+            if (isCandidate(candidates, OccurrenceRemarksPrefilter.USNM_HOST)) {
+                addUSNMStyleHostOccurrenceRemarks(interactionCandidates, occurrenceRemarks);
+            }
+            if (isCandidate(candidates, OccurrenceRemarksPrefilter.OWL_PELLET)) {
+                addRoyalSaskatchewanMuseumOwlPelletCollectionStyleRemarks(interactionCandidates, occurrenceRemarks);
+            }
+            if (isCandidate(candidates, OccurrenceRemarksPrefilter.PER_REMARK)) {
+                String[] remarks = StringUtils.split(occurrenceRemarks, ";,.\":\'");
+                for (String remark : remarks) {
+                    long remarkCandidates = prefilter.applyAsLong(remark);
+                    addKilledByPetsRemarks(interactionCandidates, remark, remarkCandidates);
+                    addKilledByHumansRemarks(interactionCandidates, remark, remarkCandidates);
+                }
             }
         }
     }
 
-    private static void addKilledByHumansRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks) {
-        Map<String, String> properties = parseKilledByWindow(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+    private static void addKilledByHumansRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks, long candidates) {
+        if (isCandidate(candidates, OccurrenceRemarksPrefilter.KILLED_BY_WINDOW)) {
+            appendRemarksCandidate(interactionCandidates, parseKilledByWindow(occurrenceRemarks));
         }
-        properties = parseHitByCarRemarks(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if (isCandidate(candidates, OccurrenceRemarksPrefilter.HIT_BY_CAR)) {
+            appendRemarksCandidate(interactionCandidates, parseHitByCarRemarks(occurrenceRemarks));
         }
-        properties = parseHitByVehicleRemarks(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if (isCandidate(candidates, OccurrenceRemarksPrefilter.HIT_BY_VEHICLE)) {
+            appendRemarksCandidate(interactionCandidates, parseHitByVehicleRemarks(occurrenceRemarks));
         }
-        properties = parseEuthanizedRemarks(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if (isCandidate(candidates, OccurrenceRemarksPrefilter.EUTHANIZED)) {
+            appendRemarksCandidate(interactionCandidates, parseEuthanizedRemarks(occurrenceRemarks));
         }
-        properties = parseHighVoltageRemarks(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if (isCandidate(candidates, OccurrenceRemarksPrefilter.HIGH_VOLTAGE)) {
+            appendRemarksCandidate(interactionCandidates, parseHighVoltageRemarks(occurrenceRemarks));
         }
-
-
     }
 
-    private static void addKilledByPetsRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks) {
-        Map<String, String> properties = parseKilledByCat(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+    private static void addKilledByPetsRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks, long candidates) {
+        if (isCandidate(candidates, OccurrenceRemarksPrefilter.KILLED_BY_CAT)) {
+            appendRemarksCandidate(interactionCandidates, parseKilledByCat(occurrenceRemarks));
         }
-        properties = parseKilledByDog(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if (isCandidate(candidates, OccurrenceRemarksPrefilter.KILLED_BY_DOG)) {
+            appendRemarksCandidate(interactionCandidates, parseKilledByDog(occurrenceRemarks));
         }
-        properties = new AttackRemarksParser().parse(occurrenceRemarks);
+        if (isCandidate(candidates, OccurrenceRemarksPrefilter.ATTACK)) {
+            appendRemarksCandidate(interactionCandidates, new AttackRemarksParser().parse(occurrenceRemarks));
+        }
+    }
+
+    private static void appendRemarksCandidate(List<Map<String, String>> interactionCandidates, Map<String, String> properties) {
         if (MapUtils.isNotEmpty(properties)) {
             appendResourceType(properties, DwcTerm.occurrenceRemarks);
             interactionCandidates.add(properties);
         }
-
     }
 
     private boolean isDependency() {
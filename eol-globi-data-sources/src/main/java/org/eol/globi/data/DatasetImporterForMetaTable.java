@@ -24,11 +24,13 @@ import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.TreeMap;
 import java.util.IllegalFormatException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.eol.globi.data.DatasetImporterForTSV.REFERENCE_DOI;
 import static org.eol.globi.data.DatasetImporterForTSV.REFERENCE_URL;
@@ -47,6 +49,8 @@ public class DatasetImporterForMetaTable extends DatasetImporterWithListener {
     public static final String LATITUDE = "http://rs.tdwg.org/dwc/terms/decimalLatitude";
     public static final String EVENT_DATE = "http://rs.tdwg.org/dwc/terms/eventDate";
 
+    private static final DateTimeFormatter ISO_DATE_TIME_UTC = ISODateTimeFormat.dateTime().withZoneUTC();
+
     private Dataset dataset;
 
     public DatasetImporterForMetaTable(ParserFactory parserFactory, NodeFactory nodeFactory) {
@@ -198,6 +202,29 @@ public class DatasetImporterForMetaTable extends DatasetImporterWithListener {
             }
         }
 
+        final Set<String> nullValues = new HashSet<>(parseNullValues(config.get("null")));
+        final Column[] columns = columnNames.toArray(new Column[0]);
+        final ColumnConverter[] converters = compileConverters(columnNames);
+
+        final List<String> msgs = new ArrayList<>();
+        ImportLogger importLogProxy = new ImportLogger() {
+
+            @Override
+            public void warn(LogContext ctx, String message) {
+                msgs.add(message);
+            }
+
+            @Override
+            public void info(LogContext ctx, String message) {
+
+            }
+
+            @Override
+            public void severe(LogContext ctx, String message) {
+                msgs.add(message);
+            }
+        };
+
         try {
             while ((line = csvParse.getLine()) != null) {
                 Map<String, String> mappedLine = new TreeMap<>(defaults);
@@ -211,32 +238,10 @@ public class DatasetImporterForMetaTable extends DatasetImporterWithListener {
                     }
                 }
 
-                final JsonNode nullValues = config.get("null");
-                final List<String> nullValueArray = parseNullValues(nullValues);
-
-                final List<String> msgs = new ArrayList<>();
-                ImportLogger importLogProxy = new ImportLogger() {
-
-                    @Override
-                    public void warn(LogContext ctx, String message) {
-                        msgs.add(message);
-                    }
-
-                    @Override
-                    public void info(LogContext ctx, String message) {
-
-                    }
-
-                    @Override
-                    public void severe(LogContext ctx, String message) {
-                        msgs.add(message);
-                    }
-                };
-
-                for (int i = 0; i < columnNames.size() && i < line.length; i++) {
-                    final String value = nullValueArray.contains(line[i]) ? null : line[i];
-                    final Column column = columnNames.get(i);
-                    parseColumnValue(importLogProxy, mappedLine, value, column);
+                msgs.clear();
+                for (int i = 0; i < columns.length && i < line.length; i++) {
+                    final String value = nullValues.contains(line[i]) ? null : line[i];
+                    parseColumnValue(importLogProxy, mappedLine, value, columns[i], converters[i]);
                 }
 
                 if (importLogger != null) {
@@ -254,11 +259,15 @@ public class DatasetImporterForMetaTable extends DatasetImporterWithListener {
     }
 
     public static void parseColumnValue(ImportLogger importLogger, Map<String, String> mappedLine, String value, Column column) {
+        parseColumnValue(importLogger, mappedLine, value, column, converterFor(column));
+    }
+
+    private static void parseColumnValue(ImportLogger importLogger, Map<String, String> mappedLine, String value, Column column, ColumnConverter converter) {
         try {
             if (StringUtils.isNotBlank(column.getOriginalName())) {
                 mappedLine.put(column.getOriginalName(), value);
             }
-            String parsedValue = parseValue(valueOrDefault(value, column), column);
+            String parsedValue = converter.convert(valueOrDefault(value, column));
             mappedLine.put(column.getName(), parsedValue);
         } catch (IllegalArgumentException ex) {
             logParseWarning(importLogger, mappedLine, value, column);
@@ -302,85 +311,117 @@ public class DatasetImporterForMetaTable extends DatasetImporterWithListener {
     }
 
     public static String parseValue(String value, Column column) throws IllegalFormatException {
-        String convertedValue = null;
-        if (StringUtils.isNotBlank(value)) {
-            if ("long".equalsIgnoreCase(column.getDataTypeBase())) {
-                if (!NumberUtils.isDigits(value)) {
+        return converterFor(column).convert(value);
+    }
+
+    public static String handleDateType(String value, Column column) {
+        return dateConverterFor(column.getDataTypeFormat()).convert(value);
+    }
+
+    static ColumnConverter[] compileConverters(List<Column> columns) {
+        ColumnConverter[] converters = new ColumnConverter[columns.size()];
+        for (int i = 0; i < converters.length; i++) {
+            converters[i] = converterFor(columns.get(i));
+        }
+        return converters;
+    }
+
+    static ColumnConverter converterFor(Column column) {
+        ColumnConverter converter;
+        try {
+            converter = typedConverterFor(column);
+        } catch (IllegalArgumentException ex) {
+            // malformed column definitions (e.g., invalid date formats) fail on parsing values only
+            converter = value -> {
+                throw ex;
+            };
+        }
+        final ColumnConverter typedConverter = converter;
+        final boolean digitsOnly = "long".equalsIgnoreCase(column.getDataTypeBase());
+        return value -> {
+            String convertedValue = null;
+            if (StringUtils.isNotBlank(value)) {
+                if (digitsOnly && !NumberUtils.isDigits(value)) {
                     return null;
                 }
+                convertedValue = typedConverter.convert(value);
             }
+            return StringUtils.trim(convertedValue);
+        };
+    }
 
-            convertedValue = populateValueUrlOrNull(value, column, convertedValue);
-
-            if (null == convertedValue) {
-                if ("https://marinemetadata.org/references/nodctaxacodes".equals(column.getDataTypeId())) {
-                    final String[] parts = value.trim().split("[^0-9]");
-                    if (parts.length == 0) {
-                        throw new IllegalNODCTaxonCodeException("expected numeric NDOC taxon code, but got [" + value + "]");
-                    }
-                    convertedValue = TaxonomyProvider.NATIONAL_OCEANOGRAPHIC_DATA_CENTER.getIdPrefix() + parts[0].replace("00", "");
-                } else if ("http://purl.bioontology.org/ontology/NCBITAXON".equals(column.getDataTypeId())) {
-                    final String id = value.trim();
-                    if (NumberUtils.isDigits(id)) {
-                        convertedValue = TaxonomyProvider.NCBI.getIdPrefix() + id;
-                    }
-                } else if ("http://eol.org/schema/taxonID".equals(column.getDataTypeId())) {
-                    convertedValue = TaxonomyProvider.ID_PREFIX_EOL + value.trim();
-                } else if ("date".equals(column.getDataTypeBase())) {
-                    convertedValue = handleDateType(value, column);
-                } else {
-                    convertedValue = value;
+    private static ColumnConverter typedConverterFor(Column column) {
+        ColumnConverter converter;
+        if (StringUtils.isNotBlank(column.getValueUrl())) {
+            String replaced = column.getValueUrl().replaceFirst("\\{" + column.getName() + "}", "");
+            TaxonomyProvider provider = ExternalIdUtil.taxonomyProviderFor(replaced);
+            final String valuePrefix = provider == null ? replaced : provider.getIdPrefix();
+            converter = value -> valuePrefix + value;
+        } else if ("https://marinemetadata.org/references/nodctaxacodes".equals(column.getDataTypeId())) {
+            converter = value -> {
+                final String[] parts = value.trim().split("[^0-9]");
+                if (parts.length == 0) {
+                    throw new IllegalNODCTaxonCodeException("expected numeric NDOC taxon code, but got [" + value + "]");
                 }
-            }
+                return TaxonomyProvider.NATIONAL_OCEANOGRAPHIC_DATA_CENTER.getIdPrefix() + parts[0].replace("00", "");
+            };
+        } else if ("http://purl.bioontology.org/ontology/NCBITAXON".equals(column.getDataTypeId())) {
+            converter = value -> {
+                final String id = value.trim();
+                return NumberUtils.isDigits(id)
+                        ? TaxonomyProvider.NCBI.getIdPrefix() + id
+                        : null;
+            };
+        } else if ("http://eol.org/schema/taxonID".equals(column.getDataTypeId())) {
+            converter = value -> TaxonomyProvider.ID_PREFIX_EOL + value.trim();
+        } else if ("date".equals(column.getDataTypeBase())) {
+            converter = dateConverterFor(column.getDataTypeFormat());
+        } else {
+            converter = value -> value;
         }
-        return StringUtils.trim(convertedValue);
+        return converter;
     }
 
-    public static String handleDateType(String value, Column column) {
-        DateTime parsedDate = null;
-        String dataTypeFormat = column.getDataTypeFormat();
-        if (StringUtils.isBlank(dataTypeFormat)) {
-            parsedDate = DateTimeFormat.fullDateTime().withZoneUTC().parseDateTime(value);
-        } else {
-            DateTimeFormatter dateTimeFormatter = DateTimeFormat
-                    .forPattern(dataTypeFormat)
-                    .withZoneUTC();
-            try {
+    private static ColumnConverter dateConverterFor(String dataTypeFormat) {
+        final DateTimeFormatter dateTimeFormatter = StringUtils.isBlank(dataTypeFormat)
+                ? DateTimeFormat.fullDateTime().withZoneUTC()
+                : DateTimeFormat.forPattern(dataTypeFormat).withZoneUTC();
+
+        final List<DateTimeFormatter> fallbackFormatters = new ArrayList<>();
+        if (StringUtils.equals(dataTypeFormat, "MM/dd/YYYY")) {
+            for (String formatAttempt : Arrays.asList("MM/YYYY", "YYYY")) {
+                fallbackFormatters.add(DateTimeFormat.forPattern(formatAttempt).withZoneUTC());
+            }
+        }
+
+        final boolean hasFormat = StringUtils.isNotBlank(dataTypeFormat);
+        return value -> {
+            DateTime parsedDate = null;
+            if (!hasFormat) {
                 parsedDate = dateTimeFormatter.parseDateTime(value);
-            } catch (IllegalArgumentException ex) {
-                if (StringUtils.equals(dataTypeFormat, "MM/dd/YYYY")) {
-                    List<String> formatAttempts = Arrays.asList("MM/YYYY", "YYYY");
-                    for (String formatAttempt : formatAttempts) {
-                        DateTimeFormatter dateTimeFormatterAltered = DateTimeFormat
-                                .forPattern(formatAttempt)
-                                .withZoneUTC();
+            } else {
+                try {
+                    parsedDate = dateTimeFormatter.parseDateTime(value);
+                } catch (IllegalArgumentException ex) {
+                    for (DateTimeFormatter fallbackFormatter : fallbackFormatters) {
                         try {
-                            parsedDate = dateTimeFormatterAltered.parseDateTime(value);
+                            parsedDate = fallbackFormatter.parseDateTime(value);
                         } catch (IllegalArgumentException e) {
                             // ignore
                         }
                     }
-                    if (parsedDate == null) {
+                    if (!fallbackFormatters.isEmpty() && parsedDate == null) {
                         throw ex;
                     }
                 }
             }
-        }
 
-        if (parsedDate == null) {
-            throw new IllegalArgumentException("failed to parse date [" + value + "]");
-        }
-
-        return parsedDate.toString(ISODateTimeFormat.dateTime().withZoneUTC());
-    }
+            if (parsedDate == null) {
+                throw new IllegalArgumentException("failed to parse date [" + value + "]");
+            }
 
-    private static String populateValueUrlOrNull(String value, Column column, String convertedValue) {
-        if (StringUtils.isNotBlank(column.getValueUrl())) {
-            String replaced = column.getValueUrl().replaceFirst("\\{" + column.getName() + "}", "");
-            TaxonomyProvider provider = ExternalIdUtil.taxonomyProviderFor(replaced);
-            convertedValue = (provider == null ? replaced : provider.getIdPrefix()) + value;
-        }
-        return convertedValue;
+            return parsedDate.toString(ISO_DATE_TIME_UTC);
+        };
     }
 
     public void setDataset(Dataset dataset) {
@@ -391,6 +432,13 @@ public class DatasetImporterForMetaTable extends DatasetImporterWithListener {
         return dataset;
     }
 
+    /**
+     * converts a raw cell value according to a column definition that was interpreted beforehand
+     */
+    interface ColumnConverter {
+        String convert(String value) throws IllegalArgumentException;
+    }
+
     interface TableParserFactory {
         CSVParse createParser(JsonNode config, Dataset dataset) throws IOException;
     }
@@ -22,6 +22,7 @@ public class DatasetImporterForRegistry extends NodeBasedImporter {
 
     private final DatasetRegistry registry;
     private Predicate<Dataset> datasetFilter = x -> true;
+    private DatasetImportCheckpoints checkpoints = null;
 
     public DatasetImporterForRegistry(ParserFactory parserFactory, NodeFactory nodeFactory, DatasetRegistry registry) {
         super(parserFactory, nodeFactory);
@@ -55,16 +56,24 @@ public class DatasetImporterForRegistry extends NodeBasedImporter {
         try {
             LOG.info("[" + namespace + "] checking status...");
             Dataset dataset = new DatasetFactory(getRegistry()).datasetFor(namespace);
-            if (datasetFilter.test(dataset)) {
+            if (!datasetFilter.test(dataset)) {
+                LOG.info("[" + namespace + "] is deprecated, not importing.");
+            } else if (checkpoints != null && checkpoints.isImported(dataset)) {
+                LOG.info("[" + namespace + "] is unchanged since last import, not importing.");
+            } else {
                 StopWatch stopWatch = new StopWatch();
                 stopWatch.start();
                 LOG.info("[" + namespace + "] is active, importing...");
+                if (checkpoints != null) {
+                    checkpoints.removeImported(dataset);
+                }
                 getNodeFactory().getOrCreateDataset(dataset);
                 importData(dataset);
+                if (checkpoints != null) {
+                    checkpoints.setImported(dataset);
+                }
                 stopWatch.stop();
                 LOG.info("[" + namespace + "] imported in " + stopWatch.getTime(TimeUnit.SECONDS) + "s");
-            } else {
-                LOG.info("[" + namespace + "] is deprecated, not importing.");
             }
         } catch (StudyImporterException | DatasetRegistryException ex) {
             String msg = "failed to import data from repo [" + namespace + "]";
@@ -93,4 +102,8 @@ public class DatasetImporterForRegistry extends NodeBasedImporter {
     public void setDatasetFilter(Predicate<Dataset> datasetFilter) {
         this.datasetFilter = datasetFilter;
     }
+
+    public void setCheckpoints(DatasetImportCheckpoints checkpoints) {
+        this.checkpoints = checkpoints;
+    }
 }
@@ -192,15 +192,17 @@ public class DatasetImporterForTSV extends DatasetImporterWithListener {
 
 
     private void importRepository(String namespace, String sourceCitation) throws IOException, StudyImporterException {
+        // dataset citation (including access date) is the same for all records, so only generate it once
+        String datasetCitation = CitationUtil.sourceCitationLastAccessed(getDataset(), sourceCitation == null ? "" : sourceCitation + ". ");
         ArrayList<IOException> parserExceptions = new ArrayList<>();
-        importResource(namespace, sourceCitation, "/interactions.tsv", '\t', parserExceptions);
-        importResource(namespace, sourceCitation, "/interactions.csv", ',', parserExceptions);
+        importResource(namespace, datasetCitation, "/interactions.tsv", '\t', parserExceptions);
+        importResource(namespace, datasetCitation, "/interactions.csv", ',', parserExceptions);
         if (parserExceptions.size() > 1) {
             throw new IOException("failed to access/parse [/interactions.tsv] and [/interactions.csv]", parserExceptions.get(0));
         }
     }
 
-    private void importResource(String namespace, String sourceCitation, String resourceName, char newDelim, List<IOException> parserExceptions) throws IOException, StudyImporterException {
+    private void importResource(String namespace, String datasetCitation, String resourceName, char newDelim, List<IOException> parserExceptions) throws IOException, StudyImporterException {
         URI resourceURI = URI.create(resourceName);
         LabeledCSVParser parser = null;
         try {
@@ -215,18 +217,19 @@ public class DatasetImporterForTSV extends DatasetImporterWithListener {
             parserExceptions.add(new IOException("failed to access [" + resourceURI.toString() + "]", ex));
         }
         if (parser != null) {
-            importResource(namespace, sourceCitation, getInteractionListener(), resourceURI, parser);
+            importResource(namespace, datasetCitation, getInteractionListener(), resourceURI, parser);
         }
     }
 
-    private void importResource(String namespace, String sourceCitation, InteractionListener interactionListener, URI resourceURI, LabeledCSVParser parser) throws IOException, StudyImporterException {
+    private void importResource(String namespace, String datasetCitation, InteractionListener interactionListener, URI resourceURI, LabeledCSVParser parser) throws IOException, StudyImporterException {
+        String resourceURIString = resourceURI.toString();
         while (parser.getLine() != null) {
             final Map<String, String> link = new TreeMap<>();
             final String referenceDoi = StringUtils.replace(parser.getValueByLabel(REFERENCE_DOI), " ", "");
             InteractUtil.putNotBlank(link, REFERENCE_DOI, referenceDoi);
             InteractUtil.putNotBlank(link, REFERENCE_CITATION, CSVTSVUtil.valueOrNull(parser, REFERENCE_CITATION));
             InteractUtil.putNotBlank(link, REFERENCE_URL, CSVTSVUtil.valueOrNull(parser, REFERENCE_URL));
-            InteractUtil.putNotBlank(link, DATASET_CITATION, CitationUtil.sourceCitationLastAccessed(getDataset(), sourceCitation == null ? "" : sourceCitation + ". "));
+            InteractUtil.putNotBlank(link, DATASET_CITATION, datasetCitation);
 
             InteractUtil.putNotBlank(link, SOURCE_TAXON_ID, StringUtils.trimToNull(parser.getValueByLabel(SOURCE_TAXON_ID)));
             InteractUtil.putNotBlank(link, TARGET_TAXON_ID, StringUtils.trimToNull(parser.getValueByLabel(TARGET_TAXON_ID)));
@@ -245,7 +248,7 @@ public class DatasetImporterForTSV extends DatasetImporterWithListener {
             InteractUtil.putNotBlank(link, ARGUMENT_TYPE_ID, argumentTypeId);
 
             InteractUtil.putNotBlank(link, RESOURCE_LINE_NUMBER, Integer.toString(parser.getLastLineNumber()));
-            InteractUtil.putNotBlank(link, RESOURCE_URI, resourceURI.toString());
+            InteractUtil.putNotBlank(link, RESOURCE_URI, resourceURIString);
 
             attemptToGenerateReferencePropertiesIfMissing(namespace, link);
 
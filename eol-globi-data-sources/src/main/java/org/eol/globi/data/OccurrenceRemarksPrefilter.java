@@ -0,0 +1,69 @@
+package org.eol.globi.data;
+
+import org.eol.globi.util.KeywordMatcher;
+
+import java.util.TreeMap;
+
+/**
+ * Cheaply selects the occurrence remarks parsers that could possibly match some remarks:
+ * each parser is only attempted when the remarks contain at least one of its anchor tokens.
+ *
+ * Anchor tokens are case-insensitive substrings that every match of a parser necessarily contains,
+ * so skipping a parser never changes the parsed results.
+ */
+
+final class OccurrenceRemarksPrefilter {
+
+    static final long NONE = 0L;
+    static final long ALL = ~0L;
+
+    static final long USNM_HOST = 1L;
+    static final long OWL_PELLET = 1L << 1;
+    static final long KILLED_BY_CAT = 1L << 2;
+    static final long KILLED_BY_DOG = 1L << 3;
+    static final long ATTACK = 1L << 4;
+    static final long KILLED_BY_WINDOW = 1L << 5;
+    static final long HIT_BY_CAR = 1L << 6;
+    static final long HIT_BY_VEHICLE = 1L << 7;
+    static final long EUTHANIZED = 1L << 8;
+    static final long HIGH_VOLTAGE = 1L << 9;
+
+    static final long PER_REMARK = KILLED_BY_CAT
+            | KILLED_BY_DOG
+            | ATTACK
+            | KILLED_BY_WINDOW
+            | HIT_BY_CAR
+            | HIT_BY_VEHICLE
+            | EUTHANIZED
+            | HIGH_VOLTAGE;
+
+    private static final KeywordMatcher ANCHORS = new KeywordMatcher(new TreeMap<String, Long>() {{
+        put("{", USNM_HOST);
+        put("pellet", OWL_PELLET);
+        put("cat kill", KILLED_BY_CAT);
+        put("dog kill", KILLED_BY_DOG);
+        put("attack", ATTACK);
+        put("window strike", KILLED_BY_WINDOW);
+        put("window kill", KILLED_BY_WINDOW);
+        put("hit by car", HIT_BY_CAR);
+        put("hit by vehicle", HIT_BY_VEHICLE);
+        put("hbv", HIT_BY_VEHICLE);
+        put("road kill", HIT_BY_VEHICLE);
+        put("dead on road", HIT_BY_VEHICLE);
+        put("euthanized", EUTHANIZED);
+        put("high voltage", HIGH_VOLTAGE);
+        put("hvt", HIGH_VOLTAGE);
+    }});
+
+    private OccurrenceRemarksPrefilter() {
+    }
+
+    static long candidateParsersFor(String remarks) {
+        return ANCHORS.match(remarks);
+    }
+
+    static boolean isCandidate(long candidates, long parser) {
+        return (candidates & parser) != 0;
+    }
+
+}
@@ -19,7 +19,7 @@ import org.eol.globi.domain.TaxonImpl;
 import org.eol.globi.domain.TermImpl;
 import org.eol.globi.geo.LatLng;
 import org.eol.globi.service.GeoNamesService;
-import org.eol.globi.util.DateUtil;
+import org.eol.globi.util.EventDateParser;
 import org.eol.globi.util.InvalidLocationException;
 import org.gbif.dwc.terms.DwcTerm;
 import org.globalbioticinteractions.doi.DOI;
@@ -89,6 +89,7 @@ public class InteractionImporter implements InteractionListener {
     private final ImportLogger logger;
     private final NodeFactory nodeFactory;
     private final GeoNamesService geoNamesService;
+    private final EventDateParser eventDateParser = new EventDateParser();
 
 
     public InteractionImporter(NodeFactory factory, ImportLogger logger, GeoNamesService geonamesService) {
@@ -279,19 +280,21 @@ public class InteractionImporter implements InteractionListener {
             try {
                 String eventDateFixed = applySymbiotaDateTimeFix(eventDate);
                 if (StringUtils.isNotBlank(eventDateFixed)) {
-                    final DateTime dateTime = DateUtil
+                    final DateTime dateTime = eventDateParser
                             .parseDateUTC(eventDateFixed);
 
-                    String msg = DateUtil.validateDate(eventDate, dateTime);
+                    if (dateTime == null) {
+                        logWarningIfPossible(link, "invalid date string [" + eventDate + "]");
+                    } else {
+                        String msg = eventDateParser.validateDate(eventDate, dateTime);
 
-                    if (StringUtils.isNoneBlank(msg)) {
-                        logWarningIfPossible(link, msg);
+                        if (StringUtils.isNoneBlank(msg)) {
+                            logWarningIfPossible(link, msg);
+                        }
+                        nodeFactory.setUnixEpochProperty(target, dateTime.toDate());
                     }
-                    nodeFactory.setUnixEpochProperty(target, dateTime.toDate());
                 }
 
-            } catch (IllegalArgumentException ex) {
-                logWarningIfPossible(link, "invalid date string [" + eventDate + "]");
             } catch (NodeFactoryException e) {
                 throw new StudyImporterException("failed to set time for [" + eventDate + "]", e);
             }
@@ -11,16 +11,21 @@ import org.eol.globi.data.SpecimenCitationEnricher;
 import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.service.GeoNamesService;
 import org.eol.globi.util.InteractUtil;
+import org.eol.globi.util.MetricRegistry;
 import org.globalbioticinteractions.dataset.Dataset;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class InteractionListenerImpl implements InteractionListener {
 
+    private static final MetricRegistry.Counter RECEIVED = MetricRegistry.getDefault().counter("interactions.received");
+
     private final List<InteractionListener> processors;
+    private final List<MetricRegistry.Timer> processorTimers;
     private final List<Map<String, String>> outbox = new ArrayList<>();
     private final List<Map<String, String>> inbox = new ArrayList<>();
 
@@ -48,6 +53,17 @@ public class InteractionListenerImpl implements InteractionListener {
                         new DOIReferenceExtractor(queue, logger),
                         new InteractionImporter(nodeFactory, logger, geoNamesService)
                 );
+        this.processorTimers = processors
+                .stream()
+                .map(processor -> MetricRegistry.getDefault().timer("interactions.processor." + getProcessorName(processor)))
+                .collect(Collectors.toList());
+    }
+
+    private static String getProcessorName(InteractionListener processor) {
+        // e.g., the mapping listener may just pass interactions through to the queue
+        return processor.getClass().isSynthetic()
+                ? "passThrough"
+                : processor.getClass().getSimpleName();
     }
 
     public InteractionListener createMappingListener(ImportLogger logger, Dataset dataset, InteractionListener queue) {
@@ -66,17 +82,21 @@ public class InteractionListenerImpl implements InteractionListener {
 
     @Override
     public void on(Map<String, String> interaction) throws StudyImporterException {
+        RECEIVED.inc();
         outbox.add(interaction);
         try {
-            for (InteractionListener processor : processors) {
+            for (int i = 0; i < processors.size(); i++) {
                 if (outbox.isEmpty()) {
                     break;
                 } else {
                     inbox.addAll(outbox);
                     outbox.clear();
                 }
-                for (Map<String, String> incomingInteractions : inbox) {
-                    processor.on(incomingInteractions);
+                InteractionListener processor = processors.get(i);
+                try (MetricRegistry.Timer.Context ignored = processorTimers.get(i).time()) {
+                    for (Map<String, String> incomingInteractions : inbox) {
+                        processor.on(incomingInteractions);
+                    }
                 }
                 inbox.clear();
             }
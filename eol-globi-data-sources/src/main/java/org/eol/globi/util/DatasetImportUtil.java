@@ -1,5 +1,7 @@
 package org.eol.globi.util;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.eol.globi.process.InteractionListener;
@@ -19,8 +21,14 @@ import org.eol.globi.service.StudyImporterFactoryImpl;
 import org.globalbioticinteractions.dataset.Dataset;
 import org.mapdb.DBMaker;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class DatasetImportUtil {
     private static final Logger LOG = LoggerFactory.getLogger(DatasetImportUtil.class);
@@ -43,6 +51,15 @@ public class DatasetImportUtil {
                                      NodeFactory nodeFactory,
                                      ImportLogger logger,
                                      GeoNamesService geoNamesService) throws StudyImporterException {
+        createImporter(studyImporterConfigurator, dataset, nodeFactory, logger, geoNamesService)
+                .importStudy();
+    }
+
+    private static DatasetImporter createImporter(StudyImporterConfigurator studyImporterConfigurator,
+                                                  Dataset dataset,
+                                                  NodeFactory nodeFactory,
+                                                  ImportLogger logger,
+                                                  GeoNamesService geoNamesService) throws StudyImporterException {
         nodeFactory.getOrCreateDataset(dataset);
 
         NodeFactory nodeFactoryForDataset = new NodeFactoryWithDatasetContext(nodeFactory, dataset);
@@ -61,8 +78,7 @@ public class DatasetImportUtil {
         if (geoNamesService != null) {
             datasetImporter.setGeoNamesService(geoNamesService);
         }
-
-        datasetImporter.importStudy();
+        return datasetImporter;
     }
 
     public static void resolveAndImportDatasets(List<Dataset> datasetDependencies,
@@ -70,25 +86,44 @@ public class DatasetImportUtil {
                                                 ImportLogger logger,
                                                 NodeFactory nodeFactory,
                                                 String archiveLocation) throws StudyImporterException {
+        resolveAndImportDatasets(datasetDependencies, datasetsWithDependencies, logger, nodeFactory, archiveLocation, true);
+    }
 
-        final Map<Pair<String, String>, Map<String, String>> interactionsWithUnresolvedOccurrenceIds = DBMaker.newTempTreeMap();
-
-
-        final String msgPrefix0 = "indexing unresolved occurrence references of [" + archiveLocation + "]";
-        LOG.info(msgPrefix0 + "...");
-        indexDatasets(datasetsWithDependencies, logger, nodeFactory, new InteractionListenerCollectUnresolvedOccurrenceIds(interactionsWithUnresolvedOccurrenceIds));
-        LOG.info(msgPrefix0 + " done: indexed [" + interactionsWithUnresolvedOccurrenceIds.size() + "] unresolved occurrences");
+    static void resolveAndImportDatasets(List<Dataset> datasetDependencies,
+                                         List<Dataset> datasetsWithDependencies,
+                                         ImportLogger logger,
+                                         NodeFactory nodeFactory,
+                                         String archiveLocation,
+                                         boolean replaySpilledInteractions) throws StudyImporterException {
 
-        final String msgPrefix1 = "indexing dependencies of [" + archiveLocation + "]";
-        LOG.info(msgPrefix1 + "...");
-        indexDatasets(datasetDependencies, logger, nodeFactory, new InteractionListenerIndexing(interactionsWithUnresolvedOccurrenceIds));
-        pruneKeysWithEmptyValues(interactionsWithUnresolvedOccurrenceIds, logger);
-        LOG.info(msgPrefix1 + " done: resolved [" + interactionsWithUnresolvedOccurrenceIds.size() + "] occurrence references");
+        final Map<Pair<String, String>, Map<String, String>> interactionsWithUnresolvedOccurrenceIds = DBMaker.newTempTreeMap();
 
-        final String msgPrefix = "importing datasets for [" + archiveLocation + "]";
-        LOG.info(msgPrefix + "...");
-        importDatasets(interactionsWithUnresolvedOccurrenceIds, datasetsWithDependencies, logger, nodeFactory);
-        LOG.info(msgPrefix + " done.");
+        File spillDir = replaySpilledInteractions ? createSpillDir() : null;
+        try {
+            // interactions streams of datasets parsed in the first pass are spilled,
+            // so that later passes can replay them instead of re-running their importers
+            final Map<String, File> spilledInteractions = new TreeMap<>();
+
+            final String msgPrefix0 = "indexing unresolved occurrence references of [" + archiveLocation + "]";
+            LOG.info(msgPrefix0 + "...");
+            indexDatasets(datasetsWithDependencies, logger, nodeFactory, new InteractionListenerCollectUnresolvedOccurrenceIds(interactionsWithUnresolvedOccurrenceIds), spilledInteractions, spillDir);
+            LOG.info(msgPrefix0 + " done: indexed [" + interactionsWithUnresolvedOccurrenceIds.size() + "] unresolved occurrences");
+
+            final String msgPrefix1 = "indexing dependencies of [" + archiveLocation + "]";
+            LOG.info(msgPrefix1 + "...");
+            indexDatasets(datasetDependencies, logger, nodeFactory, new InteractionListenerIndexing(interactionsWithUnresolvedOccurrenceIds), spilledInteractions);
+            pruneKeysWithEmptyValues(interactionsWithUnresolvedOccurrenceIds, logger);
+            LOG.info(msgPrefix1 + " done: resolved [" + interactionsWithUnresolvedOccurrenceIds.size() + "] occurrence references");
+
+            final String msgPrefix = "importing datasets for [" + archiveLocation + "]";
+            LOG.info(msgPrefix + "...");
+            importDatasets(interactionsWithUnresolvedOccurrenceIds, datasetsWithDependencies, logger, nodeFactory, spilledInteractions);
+            LOG.info(msgPrefix + " done.");
+        } finally {
+            if (spillDir != null) {
+                FileUtils.deleteQuietly(spillDir);
+            }
+        }
     }
 
     private static void pruneKeysWithEmptyValues(Map<Pair<String, String>, Map<String, String>> interactionsWithUnresolvedOccurrenceIds, ImportLogger logger) {
@@ -103,9 +138,13 @@ public class DatasetImportUtil {
     }
 
     public static void importDatasets(Map<Pair<String, String>, Map<String, String>> interactionsWithUnresolvedOccurrenceIds, List<Dataset> datasets, ImportLogger logger, NodeFactory nodeFactory) throws StudyImporterException {
+        importDatasets(interactionsWithUnresolvedOccurrenceIds, datasets, logger, nodeFactory, Collections.emptyMap());
+    }
+
+    private static void importDatasets(Map<Pair<String, String>, Map<String, String>> interactionsWithUnresolvedOccurrenceIds, List<Dataset> datasets, ImportLogger logger, NodeFactory nodeFactory, Map<String, File> spilledInteractions) {
         for (Dataset dataset : datasets) {
             try {
-                importDataset(studyImporter -> {
+                DatasetImporter datasetImporter = createImporter(studyImporter -> {
                     if (studyImporter instanceof DatasetImporterWithListener) {
                         final InteractionListenerResolving interactionListener = new InteractionListenerResolving(
                                 interactionsWithUnresolvedOccurrenceIds,
@@ -113,31 +152,89 @@ public class DatasetImportUtil {
                         ((DatasetImporterWithListener) studyImporter).setInteractionListener(interactionListener);
                     }
 
-                }, dataset, nodeFactory, logger);
+                }, dataset, nodeFactory, logger, null);
+                importOrReplay(datasetImporter, dataset, spilledInteractions);
             } catch (StudyImporterException | IllegalStateException ex) {
                 LogUtil.logError(logger, ex);
             }
         }
     }
 
-    private static void indexDatasets(List<Dataset> datasets, ImportLogger logger, NodeFactory nodeFactory, InteractionListener indexingListener) {
+    private static void indexDatasets(List<Dataset> datasets, ImportLogger logger, NodeFactory nodeFactory, InteractionListener indexingListener, Map<String, File> spilledInteractions) {
+        indexDatasets(datasets, logger, nodeFactory, indexingListener, spilledInteractions, null);
+    }
+
+    private static void indexDatasets(List<Dataset> datasets, ImportLogger logger, NodeFactory nodeFactory, InteractionListener indexingListener, Map<String, File> spilledInteractions, File spillDir) {
         for (Dataset dataset : datasets) {
             if (needsIndexing(dataset)) {
                 try {
-                    importDataset(studyImporter -> {
+                    DatasetImporter datasetImporter = createImporter(studyImporter -> {
                         studyImporter.setLogger(logger);
                         if (studyImporter instanceof DatasetImporterWithListener) {
                             ((DatasetImporterWithListener) studyImporter)
                                     .setInteractionListener(indexingListener);
                         }
-                    }, dataset, nodeFactory, logger);
-                } catch (StudyImporterException | IllegalStateException ex) {
+                    }, dataset, nodeFactory, logger, null);
+                    if (spillDir == null) {
+                        importOrReplay(datasetImporter, dataset, spilledInteractions);
+                    } else {
+                        importAndSpill(datasetImporter, dataset, spilledInteractions, spillDir);
+                    }
+                } catch (StudyImporterException | IllegalStateException | IOException ex) {
                     LogUtil.logError(logger, ex);
                 }
             }
         }
     }
 
+    private static void importAndSpill(DatasetImporter datasetImporter, Dataset dataset, Map<String, File> spilledInteractions, File spillDir) throws StudyImporterException, IOException {
+        String spillKey = spillKeyFor(dataset);
+        if (spillKey != null && datasetImporter instanceof DatasetImporterWithListener) {
+            DatasetImporterWithListener importerWithListener = (DatasetImporterWithListener) datasetImporter;
+            File spillFile = File.createTempFile("interactions", ".bin", spillDir);
+            try (InteractionListenerSpilling spillingListener = new InteractionListenerSpilling(spillFile, importerWithListener.getInteractionListener())) {
+                importerWithListener.setInteractionListener(spillingListener);
+                importerWithListener.setLogger(spillingListener.spillingLogger(importerWithListener.getLogger()));
+                datasetImporter.importStudy();
+            }
+            // only replay interactions of datasets that were parsed without error
+            spilledInteractions.put(spillKey, spillFile);
+        } else {
+            datasetImporter.importStudy();
+        }
+    }
+
+    private static void importOrReplay(DatasetImporter datasetImporter, Dataset dataset, Map<String, File> spilledInteractions) throws StudyImporterException {
+        String spillKey = spillKeyFor(dataset);
+        File spillFile = spillKey == null ? null : spilledInteractions.get(spillKey);
+        if (spillFile != null && datasetImporter instanceof DatasetImporterWithListener) {
+            DatasetImporterWithListener importerWithListener = (DatasetImporterWithListener) datasetImporter;
+            long replayed = InteractionListenerSpilling.replay(
+                    spillFile,
+                    importerWithListener.getInteractionListener(),
+                    importerWithListener.getLogger());
+            LOG.info("replayed [" + replayed + "] interaction(s) of [" + dataset.getArchiveURI() + "]");
+        } else {
+            datasetImporter.importStudy();
+        }
+    }
+
+    private static String spillKeyFor(Dataset dataset) {
+        URI archiveURI = dataset.getArchiveURI();
+        JsonNode config = dataset.getConfig();
+        return archiveURI == null || config == null
+                ? null
+                : archiveURI.toString() + "|" + config.toString();
+    }
+
+    private static File createSpillDir() throws StudyImporterException {
+        try {
+            return Files.createTempDirectory("globi-interactions").toFile();
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to create directory for spilling interactions", e);
+        }
+    }
+
     public static boolean needsIndexing(Dataset dataset) {
         return StringUtils.equals(dataset.getOrDefault(DatasetImporterForRSS.HAS_DEPENDENCIES, null), "true");
     }
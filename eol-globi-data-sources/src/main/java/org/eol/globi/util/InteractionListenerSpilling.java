@@ -0,0 +1,233 @@
+package org.eol.globi.util;
+
+import org.eol.globi.data.ImportLogger;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.LogContext;
+import org.eol.globi.process.InteractionListener;
+import org.eol.globi.process.InteractionListenerClosable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the interactions it receives to a local spill file before passing them on,
+ * so that the interaction stream of a dataset can later be replayed without re-running its importer.
+ *
+ * Interactions are stored in their original iteration order. Property names are written
+ * only once per spill file and referenced by index afterwards to keep spill files compact.
+ * Messages logged by the importer while spilling (see {@link #spillingLogger(ImportLogger)}) are
+ * stored in between the interactions, so that a replay has the same log side effects as a re-import.
+ */
+
+public class InteractionListenerSpilling implements InteractionListenerClosable {
+
+    private static final int NULL_LENGTH = -1;
+    private static final int NEW_KEY = -1;
+    private static final int LOG_RECORD = -2;
+
+    private static final byte LEVEL_INFO = 0;
+    private static final byte LEVEL_WARN = 1;
+    private static final byte LEVEL_SEVERE = 2;
+
+    private final InteractionListener interactionListener;
+    private final DataOutputStream out;
+    private final Map<String, Integer> keyIndex = new HashMap<>();
+    private long numberOfInteractions = 0;
+    private IOException logFailure = null;
+
+    public InteractionListenerSpilling(File spillFile, InteractionListener interactionListener) throws IOException {
+        this.interactionListener = interactionListener;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+    }
+
+    @Override
+    public void on(Map<String, String> interaction) throws StudyImporterException {
+        try {
+            out.writeInt(interaction.size());
+            for (Map.Entry<String, String> property : interaction.entrySet()) {
+                writeKey(property.getKey());
+                writeString(out, property.getValue());
+            }
+            numberOfInteractions++;
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to spill interaction", e);
+        }
+        interactionListener.on(interaction);
+    }
+
+    public long getNumberOfInteractions() {
+        return numberOfInteractions;
+    }
+
+    /**
+     * @return logger that spills messages before passing them on to given (optional) logger
+     */
+
+    public ImportLogger spillingLogger(ImportLogger logger) {
+        return new ImportLogger() {
+            @Override
+            public void warn(LogContext ctx, String message) {
+                spillLogRecord(LEVEL_WARN, ctx, message);
+                if (logger != null) {
+                    logger.warn(ctx, message);
+                }
+            }
+
+            @Override
+            public void info(LogContext ctx, String message) {
+                spillLogRecord(LEVEL_INFO, ctx, message);
+                if (logger != null) {
+                    logger.info(ctx, message);
+                }
+            }
+
+            @Override
+            public void severe(LogContext ctx, String message) {
+                spillLogRecord(LEVEL_SEVERE, ctx, message);
+                if (logger != null) {
+                    logger.severe(ctx, message);
+                }
+            }
+        };
+    }
+
+    private void spillLogRecord(byte level, LogContext ctx, String message) {
+        try {
+            out.writeInt(LOG_RECORD);
+            out.writeByte(level);
+            writeString(out, ctx == null ? null : ctx.toString());
+            writeString(out, message);
+        } catch (IOException e) {
+            // loggers cannot fail, so report on close instead
+            logFailure = logFailure == null ? e : logFailure;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+        if (logFailure != null) {
+            throw new IOException("failed to spill log message", logFailure);
+        }
+    }
+
+    public static long replay(File spillFile, InteractionListener interactionListener) throws StudyImporterException {
+        return replay(spillFile, interactionListener, null);
+    }
+
+    public static long replay(File spillFile, InteractionListener interactionListener, ImportLogger logger) throws StudyImporterException {
+        long replayed = 0;
+        List<String> keys = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)))) {
+            int numberOfProperties;
+            while ((numberOfProperties = readSize(in)) != NULL_LENGTH) {
+                if (numberOfProperties == LOG_RECORD) {
+                    replayLogRecord(in, logger);
+                } else {
+                    Map<String, String> interaction = new LinkedHashMap<>();
+                    for (int i = 0; i < numberOfProperties; i++) {
+                        String key = readKey(in, keys);
+                        interaction.put(key, readString(in));
+                    }
+                    interactionListener.on(interaction);
+                    replayed++;
+                }
+            }
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to replay interactions from [" + spillFile.getAbsolutePath() + "]", e);
+        }
+        return replayed;
+    }
+
+    private static void replayLogRecord(DataInputStream in, ImportLogger logger) throws IOException {
+        byte level = in.readByte();
+        String ctx = readString(in);
+        String message = readString(in);
+        if (logger != null) {
+            LogContext logContext = ctx == null ? null : new LogContextSpilled(ctx);
+            if (level == LEVEL_SEVERE) {
+                logger.severe(logContext, message);
+            } else if (level == LEVEL_WARN) {
+                logger.warn(logContext, message);
+            } else {
+                logger.info(logContext, message);
+            }
+        }
+    }
+
+    private void writeKey(String key) throws IOException {
+        Integer index = keyIndex.get(key);
+        if (index == null) {
+            keyIndex.put(key, keyIndex.size());
+            out.writeInt(NEW_KEY);
+            writeString(out, key);
+        } else {
+            out.writeInt(index);
+        }
+    }
+
+    private static String readKey(DataInputStream in, List<String> keys) throws IOException {
+        int index = in.readInt();
+        if (index == NEW_KEY) {
+            String key = readString(in);
+            keys.add(key);
+            return key;
+        }
+        return keys.get(index);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readSize(DataInputStream in) throws IOException {
+        try {
+            return in.readInt();
+        } catch (EOFException e) {
+            return NULL_LENGTH;
+        }
+    }
+
+    private static class LogContextSpilled implements LogContext {
+        private final String context;
+
+        LogContextSpilled(String context) {
+            this.context = context;
+        }
+
+        @Override
+        public String toString() {
+            return context;
+        }
+    }
+
+}
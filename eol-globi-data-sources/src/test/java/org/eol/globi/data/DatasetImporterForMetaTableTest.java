@@ -2,16 +2,19 @@ package org.eol.globi.data;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.StopWatch;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eol.globi.domain.InteractType;
 import org.eol.globi.domain.LogContext;
 import org.eol.globi.service.DatasetLocal;
 import org.eol.globi.service.TaxonUtil;
+import org.eol.globi.tool.NullImportLogger;
 import org.eol.globi.util.InteractTypeMapper;
 import org.eol.globi.util.ResourceServiceLocal;
 import org.eol.globi.util.ResourceServiceLocalAndRemote;
 import org.globalbioticinteractions.dataset.DatasetWithResourceMapping;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -20,6 +23,8 @@ import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -271,6 +276,27 @@ public class DatasetImporterForMetaTableTest {
         assertThat(parsedString, is("1929-03-01T00:00:00.000Z"));
     }
 
+    @Test
+    public void compileConvertersWithMalformedDateFormat() {
+        final DatasetImporterForMetaTable.Column column = new DatasetImporterForMetaTable.Column("foo", "http://rs.tdwg.org/dwc/terms/eventDate");
+        column.setDataTypeBase("date");
+        column.setDataTypeFormat("qq");
+        DatasetImporterForMetaTable.ColumnConverter[] converters = DatasetImporterForMetaTable.compileConverters(Collections.singletonList(column));
+        assertThat(converters.length, is(1));
+        assertThat(converters[0].convert(" "), is(nullValue()));
+
+        HashMap<String, String> mappedLine = new HashMap<>();
+        List<String> msgs = new ArrayList<>();
+        DatasetImporterForMetaTable.parseColumnValue(new NullImportLogger() {
+            @Override
+            public void warn(LogContext ctx, String message) {
+                msgs.add(message);
+            }
+        }, mappedLine, "01/01/2019", column);
+        assertThat(msgs.size(), is(1));
+        assertThat(mappedLine.containsKey("foo"), is(false));
+    }
+
     @Test
     public void parseValueEOL() {
         final DatasetImporterForMetaTable.Column column = new DatasetImporterForMetaTable.Column("foo", "string");
@@ -420,4 +446,49 @@ public class DatasetImporterForMetaTableTest {
     }
 
 
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkManyColumns() {
+        List<DatasetImporterForMetaTable.Column> columns = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            DatasetImporterForMetaTable.Column dateColumn = new DatasetImporterForMetaTable.Column("date" + i, "http://rs.tdwg.org/dwc/terms/eventDate");
+            dateColumn.setDataTypeBase("date");
+            dateColumn.setDataTypeFormat("MM/dd/YYYY");
+            columns.add(dateColumn);
+            DatasetImporterForMetaTable.Column longColumn = new DatasetImporterForMetaTable.Column("long" + i, "long");
+            longColumn.setDataTypeBase("long");
+            columns.add(longColumn);
+            DatasetImporterForMetaTable.Column valueUrlColumn = new DatasetImporterForMetaTable.Column("taxon" + i, "string");
+            valueUrlColumn.setValueUrl("http://eol.org/pages/{taxon" + i + "}");
+            columns.add(valueUrlColumn);
+            columns.add(new DatasetImporterForMetaTable.Column("string" + i, "string"));
+            values.addAll(Arrays.asList("02/01/1929", "123", "456", "some value"));
+        }
+
+        int rows = 20000;
+        for (int round = 0; round < 3; round++) {
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            for (int j = 0; j < rows; j++) {
+                for (int i = 0; i < columns.size(); i++) {
+                    DatasetImporterForMetaTable.parseValue(values.get(i), columns.get(i));
+                }
+            }
+            stopWatch.stop();
+            System.out.println("parsed [" + rows + "] rows with [" + columns.size() + "] columns interpreting column definitions for each value in [" + stopWatch.getTime() + "] ms");
+
+            stopWatch.reset();
+            stopWatch.start();
+            DatasetImporterForMetaTable.ColumnConverter[] converters = DatasetImporterForMetaTable.compileConverters(columns);
+            for (int j = 0; j < rows; j++) {
+                for (int i = 0; i < converters.length; i++) {
+                    converters[i].convert(values.get(i));
+                }
+            }
+            stopWatch.stop();
+            System.out.println("parsed [" + rows + "] rows with [" + columns.size() + "] columns using precompiled converters in [" + stopWatch.getTime() + "] ms");
+        }
+    }
+
 }
\ No newline at end of file
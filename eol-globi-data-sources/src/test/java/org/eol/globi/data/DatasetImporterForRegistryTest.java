@@ -15,7 +15,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -89,4 +91,59 @@ public class DatasetImporterForRegistryTest {
         importer.importStudy();
     }
 
+    @Test
+    public void skipImportedDatasets() throws StudyImporterException {
+        DatasetImporterForRegistry importer = new DatasetImporterForRegistry(
+                null,
+                null,
+                new DatasetRegistry() {
+                    @Override
+                    public Iterable<String> findNamespaces() throws DatasetRegistryException {
+                        return Collections.singletonList("some/namespace");
+                    }
+
+                    @Override
+                    public void findNamespaces(Consumer<String> namespaceConsumer) throws DatasetRegistryException {
+                        for (String namespace : findNamespaces()) {
+                            namespaceConsumer.accept(namespace);
+                        }
+                    }
+
+                    @Override
+                    public Dataset datasetFor(String namespace) throws DatasetRegistryException {
+                        return new DatasetWithResourceMapping("some/namespace", URI.create("some:uri"), new ResourceServiceLocalAndRemote(in -> in)) {
+                            @Override
+                            public InputStream retrieve(URI resource) throws IOException {
+                                if (!StringUtils.endsWith(resource.toString(), "globi.json")) {
+                                    throw new IOException();
+                                }
+                                return IOUtils.toInputStream("{\"some\":\"thing\"}", StandardCharsets.UTF_8);
+                            }
+                        };
+                    }
+                });
+
+        List<String> checked = new ArrayList<>();
+        importer.setCheckpoints(new DatasetImportCheckpoints() {
+            @Override
+            public boolean isImported(Dataset dataset) {
+                checked.add(dataset.getNamespace());
+                return true;
+            }
+
+            @Override
+            public void setImported(Dataset dataset) {
+                throw new IllegalStateException("should not re-import dataset [" + dataset.getNamespace() + "]");
+            }
+
+            @Override
+            public void removeImported(Dataset dataset) {
+                throw new IllegalStateException("should not remove imported dataset [" + dataset.getNamespace() + "]");
+            }
+        });
+        importer.importStudy();
+
+        assertThat(checked, Is.is(Collections.singletonList("some/namespace")));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package org.eol.globi.data;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class OccurrenceRemarksPrefilterTest {
+
+    private static final ToLongFunction<String> NO_PREFILTER = remarks -> OccurrenceRemarksPrefilter.ALL;
+
+    @Test
+    public void noCandidates() {
+        assertThat(OccurrenceRemarksPrefilter.candidateParsersFor("Collected at light trap"), is(OccurrenceRemarksPrefilter.NONE));
+    }
+
+    @Test
+    public void someCandidates() {
+        long candidates = OccurrenceRemarksPrefilter.candidateParsersFor("HBV (hit by vehicle), Euthanized");
+        assertThat(candidates, is(OccurrenceRemarksPrefilter.HIT_BY_VEHICLE | OccurrenceRemarksPrefilter.EUTHANIZED));
+    }
+
+    @Test
+    public void sameCandidatesWithAndWithoutPrefilter() throws IOException {
+        for (String remarks : readCorpus()) {
+            assertThat("remarks [" + remarks + "]",
+                    candidatesFor(remarks, OccurrenceRemarksPrefilter::candidateParsersFor),
+                    is(candidatesFor(remarks, NO_PREFILTER)));
+        }
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmark() throws IOException {
+        List<String> corpus = readCorpus();
+        int rounds = 2000;
+        long withoutPrefilter = timeCorpus(corpus, rounds, NO_PREFILTER);
+        long withPrefilter = timeCorpus(corpus, rounds, OccurrenceRemarksPrefilter::candidateParsersFor);
+        System.out.println("parsed [" + corpus.size() * rounds + "] remarks without prefilter in [" + withoutPrefilter + "] ms");
+        System.out.println("parsed [" + corpus.size() * rounds + "] remarks with prefilter in [" + withPrefilter + "] ms");
+    }
+
+    private static long timeCorpus(List<String> corpus, int rounds, ToLongFunction<String> prefilter) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        for (int i = 0; i < rounds; i++) {
+            for (String remarks : corpus) {
+                candidatesFor(remarks, prefilter);
+            }
+        }
+        stopWatch.stop();
+        return stopWatch.getTime();
+    }
+
+    private static List<Object> candidatesFor(String remarks, ToLongFunction<String> prefilter) {
+        List<Map<String, String>> candidates = new ArrayList<>();
+        List<Object> result = new ArrayList<>();
+        try {
+            DatasetImporterForDwCA.addCandidatesFromRemarks(candidates, remarks, prefilter);
+        } catch (IOException e) {
+            result.add(e.getMessage());
+        }
+        result.addAll(candidates);
+        return result;
+    }
+
+    private List<String> readCorpus() throws IOException {
+        try (InputStream is = getClass().getResourceAsStream("occurrence-remarks-corpus.txt")) {
+            return IOUtils.readLines(is, StandardCharsets.UTF_8);
+        }
+    }
+
+}
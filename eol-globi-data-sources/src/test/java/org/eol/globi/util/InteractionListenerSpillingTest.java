@@ -0,0 +1,116 @@
+package org.eol.globi.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.data.DatasetImporterForTSV;
+import org.eol.globi.data.ImportLogger;
+import org.eol.globi.data.LogUtil;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.LogContext;
+import org.eol.globi.service.TaxonUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class InteractionListenerSpillingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void spillAndReplay() throws IOException, StudyImporterException {
+        List<Map<String, String>> interactions = new ArrayList<>();
+        interactions.add(new TreeMap<String, String>() {{
+            put(TaxonUtil.SOURCE_TAXON_NAME, "Homo sapiens");
+            put(DatasetImporterForTSV.TARGET_OCCURRENCE_ID, "occurrence123");
+        }});
+        interactions.add(new HashMap<String, String>() {{
+            put(TaxonUtil.SOURCE_TAXON_NAME, "Ariopsis felis");
+            put(TaxonUtil.TARGET_TAXON_NAME, null);
+            put(DatasetImporterForTSV.REFERENCE_CITATION, "Blaise, P. (2011). Ça marche? 魚");
+            put(DatasetImporterForTSV.INTERACTION_TYPE_NAME, StringUtils.repeat("eats", 100000));
+        }});
+        interactions.add(new TreeMap<>());
+
+        List<Map<String, String>> received = new ArrayList<>();
+        File spillFile = folder.newFile();
+        try (InteractionListenerSpilling listener = new InteractionListenerSpilling(spillFile, received::add)) {
+            for (Map<String, String> interaction : interactions) {
+                listener.on(interaction);
+            }
+            assertThat(listener.getNumberOfInteractions(), is(3L));
+        }
+        assertThat(received, is(interactions));
+
+        List<Map<String, String>> replayed = new ArrayList<>();
+        long numberReplayed = InteractionListenerSpilling.replay(spillFile, replayed::add);
+
+        assertThat(numberReplayed, is(3L));
+        assertThat(replayed, is(interactions));
+        assertThat(new ArrayList<>(replayed.get(0).keySet()), is(new ArrayList<>(interactions.get(0).keySet())));
+    }
+
+    @Test
+    public void replayEmpty() throws IOException, StudyImporterException {
+        File spillFile = folder.newFile();
+        new InteractionListenerSpilling(spillFile, interaction -> {
+        }).close();
+
+        List<Map<String, String>> replayed = new ArrayList<>();
+        assertThat(InteractionListenerSpilling.replay(spillFile, replayed::add), is(0L));
+        assertThat(replayed.size(), is(0));
+    }
+
+    @Test
+    public void replayLogMessagesInOrder() throws IOException, StudyImporterException {
+        List<String> log = new ArrayList<>();
+        File spillFile = folder.newFile();
+        try (InteractionListenerSpilling listener = new InteractionListenerSpilling(spillFile, interaction -> log.add("interaction"))) {
+            ImportLogger logger = listener.spillingLogger(recordingLogger(log));
+            logger.info(null, "started");
+            listener.on(Collections.singletonMap(TaxonUtil.SOURCE_TAXON_NAME, "Homo sapiens"));
+            logger.warn(LogUtil.contextFor(Collections.singletonMap("line", "2")), "malformed line");
+            logger.severe(null, "failed");
+        }
+        List<String> expected = Arrays.asList("info\tnull\tstarted", "interaction", "warn\t{\"line\":\"2\"}\tmalformed line", "severe\tnull\tfailed");
+        assertThat(log, is(expected));
+
+        List<String> replayedLog = new ArrayList<>();
+        long numberReplayed = InteractionListenerSpilling.replay(spillFile, interaction -> replayedLog.add("interaction"), recordingLogger(replayedLog));
+
+        assertThat(numberReplayed, is(1L));
+        assertThat(replayedLog, is(expected));
+    }
+
+    private static ImportLogger recordingLogger(List<String> log) {
+        return new ImportLogger() {
+            @Override
+            public void warn(LogContext ctx, String message) {
+                log.add("warn\t" + ctx + "\t" + message);
+            }
+
+            @Override
+            public void info(LogContext ctx, String message) {
+                log.add("info\t" + ctx + "\t" + message);
+            }
+
+            @Override
+            public void severe(LogContext ctx, String message) {
+                log.add("severe\t" + ctx + "\t" + message);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,235 @@
+package org.eol.globi.util;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.Map;
+
+/**
+ * Parses and validates event dates like {@link DateUtil#parseDateUTC(String)} and {@link DateUtil#validateDate(String, DateTime)},
+ * but without throwing exceptions for unparseable dates.
+ *
+ * Common ISO-8601 forms (e.g., 2002, 2002-07, 2002-07-02, 20020702, 2002-07-02T10:11:12.345Z) are parsed without using Joda formatters,
+ * and results are memoized, because a dataset usually only has a handful of distinct event dates.
+ *
+ * Not thread-safe: intended to be used by a single importer at a time.
+ */
+
+public class EventDateParser {
+
+    private static final int MAX_MEMOIZED_DEFAULT = 256;
+
+    private static final Object NOT_PARSEABLE = new Object();
+    private static final String NO_ISSUE = "";
+
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final Map<String, Object> parsed;
+    private final Map<String, String> validated;
+
+    public EventDateParser() {
+        this(MAX_MEMOIZED_DEFAULT);
+    }
+
+    public EventDateParser(int maxMemoized) {
+        this.parsed = new LruMap<>(maxMemoized);
+        this.validated = new LruMap<>(maxMemoized);
+    }
+
+    /**
+     * @return parsed date, or null if date cannot be parsed by {@link DateUtil#parseDateUTC(String)}
+     */
+
+    public DateTime parseDateUTC(String eventDate) {
+        if (eventDate == null) {
+            return null;
+        }
+        Object dateTime = parsed.get(eventDate);
+        if (dateTime == null) {
+            dateTime = parseFastOrNull(eventDate);
+            if (dateTime == null) {
+                dateTime = parseSlow(eventDate);
+            }
+            parsed.put(eventDate, dateTime);
+        }
+        return dateTime == NOT_PARSEABLE ? null : (DateTime) dateTime;
+    }
+
+    /**
+     * @return same message as {@link DateUtil#validateDate(String, DateTime)} for given event date and its parsed date
+     */
+
+    public String validateDate(String eventDate, DateTime dateTime) {
+        // messages only depend on the event date and its parsed date, and a date in the future stays in the future
+        String msg = validated.get(eventDate);
+        if (msg == null) {
+            msg = DateUtil.validateDate(eventDate, dateTime);
+            validated.put(eventDate, msg == null ? NO_ISSUE : msg);
+        }
+        return NO_ISSUE.equals(msg) ? null : msg;
+    }
+
+    private static Object parseSlow(String eventDate) {
+        try {
+            return DateUtil.parseDateUTC(eventDate);
+        } catch (IllegalArgumentException ex) {
+            return NOT_PARSEABLE;
+        }
+    }
+
+    static DateTime parseFastOrNull(String eventDate) {
+        if (eventDate == null) {
+            return null;
+        }
+        String firstInRange = DateUtil.splitPossibleRange(eventDate);
+        if (firstInRange == null) {
+            return null;
+        }
+
+        DateTime dateTime = null;
+        int length = firstInRange.length();
+        if (hasExtendedFormat(firstInRange)) {
+            dateTime = parseExtendedOrNull(firstInRange);
+        } else if (firstInRange.indexOf('T') < 0) {
+            if (eventDate.length() == 8) {
+                if (length == 8 && isDigits(firstInRange, 0, 8)) {
+                    dateTime = dateOrNull(digits(firstInRange, 0, 4), digits(firstInRange, 4, 6), digits(firstInRange, 6, 8));
+                }
+            } else if (eventDate.length() == 6) {
+                if (length == 6 && isDigits(firstInRange, 0, 6)) {
+                    dateTime = dateOrNull(digits(firstInRange, 0, 4), digits(firstInRange, 4, 6), 1);
+                }
+            } else if (length == 4 && isDigits(firstInRange, 0, 4)) {
+                dateTime = dateOrNull(digits(firstInRange, 0, 4), 1, 1);
+            }
+        }
+        return dateTime;
+    }
+
+    private static boolean hasExtendedFormat(String firstInRange) {
+        return firstInRange.indexOf('-') >= 0 || firstInRange.indexOf(':') >= 0;
+    }
+
+    // yyyy-MM, yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss[.SSS][Z|+HH:mm|-HH:mm]
+    private static DateTime parseExtendedOrNull(String value) {
+        int length = value.length();
+        if (length < 7 || !isDigits(value, 0, 4) || value.charAt(4) != '-' || !isDigits(value, 5, 7)) {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 7);
+        if (length == 7) {
+            return dateOrNull(year, month, 1);
+        }
+
+        if (length < 10 || value.charAt(7) != '-' || !isDigits(value, 8, 10)) {
+            return null;
+        }
+        int day = digits(value, 8, 10);
+        if (length == 10) {
+            return dateOrNull(year, month, day);
+        }
+
+        if (length < 19
+                || value.charAt(10) != 'T'
+                || !isDigits(value, 11, 13)
+                || value.charAt(13) != ':'
+                || !isDigits(value, 14, 16)
+                || value.charAt(16) != ':'
+                || !isDigits(value, 17, 19)) {
+            return null;
+        }
+        int hour = digits(value, 11, 13);
+        int minute = digits(value, 14, 16);
+        int second = digits(value, 17, 19);
+
+        int index = 19;
+        int millis = 0;
+        if (index < length && value.charAt(index) == '.') {
+            int fractionStart = ++index;
+            while (index < length && isDigit(value.charAt(index))) {
+                index++;
+            }
+            int fractionDigits = index - fractionStart;
+            if (fractionDigits < 1 || fractionDigits > 3) {
+                return null;
+            }
+            millis = digits(value, fractionStart, index);
+            for (int i = fractionDigits; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+
+        int offsetMinutes = 0;
+        if (index < length) {
+            char zone = value.charAt(index);
+            if (zone == 'Z' && index + 1 == length) {
+                offsetMinutes = 0;
+            } else if ((zone == '+' || zone == '-')
+                    && index + 6 == length
+                    && isDigits(value, index + 1, index + 3)
+                    && value.charAt(index + 3) == ':'
+                    && isDigits(value, index + 4, index + 6)) {
+                int offsetHours = digits(value, index + 1, index + 3);
+                int offsetMinutesOfHour = digits(value, index + 4, index + 6);
+                if (offsetHours > 23 || offsetMinutesOfHour > 59) {
+                    return null;
+                }
+                offsetMinutes = (zone == '-' ? -1 : 1) * (offsetHours * 60 + offsetMinutesOfHour);
+            } else {
+                return null;
+            }
+        }
+
+        if (!isValidDate(year, month, day) || hour > 23 || minute > 59 || second > 59) {
+            return null;
+        }
+        DateTime localTime = new DateTime(year, month, day, hour, minute, second, millis, DateTimeZone.UTC);
+        return offsetMinutes == 0
+                ? localTime
+                : new DateTime(localTime.getMillis() - offsetMinutes * 60000L, DateTimeZone.UTC);
+    }
+
+    private static DateTime dateOrNull(int year, int month, int day) {
+        return isValidDate(year, month, day)
+                ? new DateTime(year, month, day, 0, 0, DateTimeZone.UTC)
+                : null;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        int daysInMonth = month == 2 && isLeapYear(year) ? 29 : DAYS_IN_MONTH[month - 1];
+        return day <= daysInMonth;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static boolean isDigits(String value, int start, int end) {
+        if (value.length() < end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int digits(String value, int start, int end) {
+        int number = 0;
+        for (int i = start; i < end; i++) {
+            number = number * 10 + (value.charAt(i) - '0');
+        }
+        return number;
+    }
+
+}
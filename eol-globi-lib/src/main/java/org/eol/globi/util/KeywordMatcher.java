@@ -0,0 +1,114 @@
+package org.eol.globi.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds all (ascii case-insensitive) occurrences of a fixed set of keywords
+ * in a single pass using an Aho-Corasick automaton.
+ *
+ * Each keyword is associated with a bit mask: matching some text returns the
+ * bitwise OR of the masks of all keywords found in that text.
+ */
+
+public class KeywordMatcher {
+
+    private static final int ALPHABET_SIZE = 128;
+
+    private final int[][] transitions;
+    private final long[] outputs;
+
+    public KeywordMatcher(Map<String, Long> keywordMasks) {
+        List<int[]> gotos = new ArrayList<>();
+        List<Long> masks = new ArrayList<>();
+        gotos.add(newState());
+        masks.add(0L);
+
+        for (Map.Entry<String, Long> keywordMask : keywordMasks.entrySet()) {
+            String keyword = keywordMask.getKey();
+            if (keyword == null || keyword.isEmpty()) {
+                throw new IllegalArgumentException("keywords must be non-empty");
+            }
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int c = toLowerAscii(keyword.charAt(i));
+                if (c < 0) {
+                    throw new IllegalArgumentException("only ascii keywords are supported, but found [" + keyword + "]");
+                }
+                if (gotos.get(state)[c] < 0) {
+                    gotos.get(state)[c] = gotos.size();
+                    gotos.add(newState());
+                    masks.add(0L);
+                }
+                state = gotos.get(state)[c];
+            }
+            masks.set(state, masks.get(state) | keywordMask.getValue());
+        }
+
+        transitions = gotos.toArray(new int[gotos.size()][]);
+        outputs = new long[masks.size()];
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = masks.get(i);
+        }
+        buildFailureTransitions();
+    }
+
+    public long match(CharSequence text) {
+        long found = 0L;
+        if (text != null) {
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int c = toLowerAscii(text.charAt(i));
+                state = c < 0 ? 0 : transitions[state][c];
+                found |= outputs[state];
+            }
+        }
+        return found;
+    }
+
+    private void buildFailureTransitions() {
+        int[] failure = new int[transitions.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET_SIZE; c++) {
+            int next = transitions[0][c];
+            if (next < 0) {
+                transitions[0][c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            outputs[state] |= outputs[failure[state]];
+            for (int c = 0; c < ALPHABET_SIZE; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure[state]][c];
+                } else {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET_SIZE];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int toLowerAscii(char c) {
+        if (c >= ALPHABET_SIZE) {
+            return -1;
+        }
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+}
@@ -0,0 +1,27 @@
+package org.eol.globi.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map that holds at most a given number of entries, evicting the least recently used (read or written) entry
+ * once full, e.g., to memoize lookups without running out of memory.
+ *
+ * Like {@link LinkedHashMap}, this map is not thread-safe, and reads change the order of entries.
+ */
+
+public class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+    private final int maxEntries;
+
+    public LruMap(int maxEntries) {
+        super(16, 0.75f, true);
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxEntries;
+    }
+
+}
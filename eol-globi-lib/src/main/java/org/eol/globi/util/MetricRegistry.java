@@ -0,0 +1,232 @@
+package org.eol.globi.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lightweight, in-process registry of named counters, histograms and timers,
+ * used to report where a run spends its time (e.g., rows parsed, names resolved, cache hits, commit latency).
+ *
+ * Metrics are thread-safe and cheap to update. Like loggers, they are usually obtained from the
+ * {@link #getDefault()} registry by name, with names prefixed by the stage they belong to (e.g., "resolveNames.commit").
+ */
+
+public class MetricRegistry {
+
+    private static final MetricRegistry DEFAULT = new MetricRegistry();
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public static MetricRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    /**
+     * Resets all metrics to zero, but keeps them registered, so that references held by their users remain valid.
+     */
+
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(Histogram::reset);
+        timers.values().forEach(timer -> timer.histogram.reset());
+    }
+
+    /**
+     * @return snapshot of all metrics, sorted by name, with timings in milliseconds
+     */
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.getCount()));
+
+        Map<String, Object> histogramValues = new TreeMap<>();
+        histograms.forEach((name, histogram) -> histogramValues.put(name, histogram.toMap(1.0)));
+
+        Map<String, Object> timerValues = new TreeMap<>();
+        timers.forEach((name, timer) -> timerValues.put(name, timer.histogram.toMap(TimeUnit.MILLISECONDS.toNanos(1))));
+
+        Map<String, Object> metrics = new TreeMap<>();
+        metrics.put("counters", counterValues);
+        metrics.put("histograms", histogramValues);
+        metrics.put("timersInMillis", timerValues);
+        return metrics;
+    }
+
+    public String toJson() {
+        try {
+            return new ObjectMapper().writeValueAsString(toMap());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("failed to serialize metrics", e);
+        }
+    }
+
+    public static class Counter {
+        private final LongAdder count = new LongAdder();
+
+        public void inc() {
+            count.increment();
+        }
+
+        public void inc(long n) {
+            count.add(n);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        private void reset() {
+            count.reset();
+        }
+    }
+
+    /**
+     * Tracks distribution of non-negative values in power of two buckets,
+     * so percentiles are estimates that are at most a factor two too high.
+     */
+
+    public static class Histogram {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+        private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void update(long value) {
+            long nonNegative = Math.max(0, value);
+            count.increment();
+            sum.add(nonNegative);
+            min.accumulateAndGet(nonNegative, Math::min);
+            max.accumulateAndGet(nonNegative, Math::max);
+            buckets[bucketOf(nonNegative)].increment();
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        private void reset() {
+            count.reset();
+            sum.reset();
+            min.set(Long.MAX_VALUE);
+            max.set(Long.MIN_VALUE);
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMin() {
+            return getCount() == 0 ? 0 : min.get();
+        }
+
+        public long getMax() {
+            return getCount() == 0 ? 0 : max.get();
+        }
+
+        public long getPercentile(double percentile) {
+            long total = getCount();
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length && total > 0; i++) {
+                seen += buckets[i].sum();
+                if (seen >= Math.max(1, rank)) {
+                    return Math.min(getMax(), upperBoundOf(i));
+                }
+            }
+            return getMax();
+        }
+
+        private Map<String, Object> toMap(double unit) {
+            long total = getCount();
+            Map<String, Object> values = new TreeMap<>();
+            values.put("count", total);
+            values.put("sum", round(getSum() / unit));
+            values.put("min", round(getMin() / unit));
+            values.put("max", round(getMax() / unit));
+            values.put("mean", total == 0 ? 0.0 : round(getSum() / unit / total));
+            values.put("p50", round(getPercentile(0.5) / unit));
+            values.put("p95", round(getPercentile(0.95) / unit));
+            values.put("p99", round(getPercentile(0.99) / unit));
+            return values;
+        }
+
+        private static int bucketOf(long value) {
+            return value == 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(value) - 1;
+        }
+
+        private static long upperBoundOf(int bucket) {
+            return bucket >= Long.SIZE - 2 ? Long.MAX_VALUE : (2L << bucket) - 1;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 1000.0) / 1000.0;
+        }
+    }
+
+    public static class Timer {
+        private final Histogram histogram = new Histogram();
+
+        public void update(long duration, TimeUnit unit) {
+            histogram.update(unit.toNanos(duration));
+        }
+
+        public Context time() {
+            return new Context(this);
+        }
+
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        public long getTotalTime(TimeUnit unit) {
+            return unit.convert(histogram.getSum(), TimeUnit.NANOSECONDS);
+        }
+
+        public static class Context implements AutoCloseable {
+            private final Timer timer;
+            private final long start = System.nanoTime();
+
+            private Context(Timer timer) {
+                this.timer = timer;
+            }
+
+            @Override
+            public void close() {
+                timer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+}
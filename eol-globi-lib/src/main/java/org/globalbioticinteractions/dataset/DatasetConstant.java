@@ -6,6 +6,9 @@ public final class DatasetConstant {
     public static final String DEPRECATED = "deprecated";
     public static final String LAST_SEEN_AT = "lastSeenAt";
     public static final String CONTENT_HASH = "contentHash";
+    public static final String IMPORTED_CONTENT_HASH = "importedContentHash";
+    // fingerprint of the taxon cache and map that names were last linked with
+    public static final String LINKED_TAXON_CACHE_HASH = "linkedTaxonCacheHash";
     public static final String CITATION = "citation";
     public static final String NAMESPACE = "namespace";
     public static final String ARCHIVE_URI = "archiveURI";
@@ -0,0 +1,140 @@
+package org.eol.globi.util;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.time.StopWatch;
+import org.joda.time.DateTime;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNotNull;
+
+public class EventDateParserTest {
+
+    @Test
+    public void parseDateUTC() {
+        DateTime dateTime = new EventDateParser().parseDateUTC("2002-07-02");
+        assertNotNull(dateTime);
+        assertThat(dateTime.toString(), is("2002-07-02T00:00:00.000Z"));
+    }
+
+    @Test
+    public void parseDateUTCWithOffset() {
+        DateTime dateTime = EventDateParser.parseFastOrNull("2002-12-31T23:30:00-01:00");
+        assertNotNull(dateTime);
+        assertThat(dateTime.toString(), is("2003-01-01T00:30:00.000Z"));
+    }
+
+    @Test
+    public void fastPathForCommonForms() {
+        assertThat(EventDateParser.parseFastOrNull("2002").toString(), is("2002-01-01T00:00:00.000Z"));
+        assertThat(EventDateParser.parseFastOrNull("2002-07").toString(), is("2002-07-01T00:00:00.000Z"));
+        assertThat(EventDateParser.parseFastOrNull("2002-07-02/2003-01-07").toString(), is("2002-07-02T00:00:00.000Z"));
+        assertThat(EventDateParser.parseFastOrNull("20020702").toString(), is("2002-07-02T00:00:00.000Z"));
+        assertThat(EventDateParser.parseFastOrNull("201604").toString(), is("2016-04-01T00:00:00.000Z"));
+        assertThat(EventDateParser.parseFastOrNull("2002-07-02T10:11:12.5Z").toString(), is("2002-07-02T10:11:12.500Z"));
+        assertThat(EventDateParser.parseFastOrNull("20201119T221644Z"), is(nullValue()));
+    }
+
+    @Test
+    public void parseInvalidDate() {
+        EventDateParser parser = new EventDateParser();
+        assertThat(parser.parseDateUTC("2002-02-30"), is(nullValue()));
+        assertThat(parser.parseDateUTC("2002-02-30"), is(nullValue()));
+        assertThat(parser.parseDateUTC(""), is(nullValue()));
+        assertThat(parser.parseDateUTC(null), is(nullValue()));
+    }
+
+    @Test
+    public void validateDate() {
+        EventDateParser parser = new EventDateParser();
+        String eventDate = "1973-07-01/1973-09-31";
+        DateTime dateTime = parser.parseDateUTC(eventDate);
+        String expectedMsg = "issue handling date range [1973-07-01/1973-09-31]: Cannot parse \"1973-09-31\": Value 31 for dayOfMonth must be in the range [1,30]";
+        assertThat(parser.validateDate(eventDate, dateTime), is(expectedMsg));
+        assertThat(parser.validateDate(eventDate, dateTime), is(expectedMsg));
+        assertThat(parser.validateDate("2002-07-02", parser.parseDateUTC("2002-07-02")), is(nullValue()));
+    }
+
+    @Test
+    public void sameAsDateUtil() throws IOException {
+        EventDateParser parser = new EventDateParser(4);
+        for (int i = 0; i < 2; i++) {
+            for (String eventDate : readCorpus()) {
+                DateTime expected = parseOrNull(eventDate);
+                DateTime actual = parser.parseDateUTC(eventDate);
+                assertThat("event date [" + eventDate + "]", actual, is(expected));
+                if (expected != null) {
+                    assertThat("event date [" + eventDate + "]",
+                            parser.validateDate(eventDate, actual),
+                            is(DateUtil.validateDate(eventDate, expected)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fastPathSameAsDateUtil() throws IOException {
+        for (String eventDate : readCorpus()) {
+            DateTime actual = EventDateParser.parseFastOrNull(eventDate);
+            if (actual != null) {
+                assertThat("event date [" + eventDate + "]", actual, is(parseOrNull(eventDate)));
+            }
+        }
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmark() throws IOException {
+        List<String> corpus = readCorpus();
+        int rounds = 2000;
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        for (int i = 0; i < rounds; i++) {
+            for (String eventDate : corpus) {
+                DateTime dateTime = parseOrNull(eventDate);
+                if (dateTime != null) {
+                    DateUtil.validateDate(eventDate, dateTime);
+                }
+            }
+        }
+        stopWatch.stop();
+        System.out.println("parsed [" + corpus.size() * rounds + "] event dates using DateUtil in [" + stopWatch.getTime() + "] ms");
+
+        stopWatch.reset();
+        stopWatch.start();
+        for (int i = 0; i < rounds; i++) {
+            EventDateParser parser = new EventDateParser();
+            for (String eventDate : corpus) {
+                DateTime dateTime = parser.parseDateUTC(eventDate);
+                if (dateTime != null) {
+                    parser.validateDate(eventDate, dateTime);
+                }
+            }
+        }
+        stopWatch.stop();
+        System.out.println("parsed [" + corpus.size() * rounds + "] event dates using EventDateParser (not memoized across rounds) in [" + stopWatch.getTime() + "] ms");
+    }
+
+    private static DateTime parseOrNull(String eventDate) {
+        try {
+            return DateUtil.parseDateUTC(eventDate);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private List<String> readCorpus() throws IOException {
+        try (InputStream is = getClass().getResourceAsStream("event-date-corpus.txt")) {
+            return IOUtils.readLines(is, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.eol.globi.util;
+
+import org.junit.Test;
+
+import java.util.TreeMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class KeywordMatcherTest {
+
+    private static final KeywordMatcher MATCHER = new KeywordMatcher(new TreeMap<String, Long>() {{
+        put("he", 1L);
+        put("she", 2L);
+        put("his", 4L);
+        put("hers", 8L);
+        put("hit by car", 16L);
+    }});
+
+    @Test
+    public void noMatch() {
+        assertThat(MATCHER.match("nothing to see"), is(0L));
+        assertThat(MATCHER.match(""), is(0L));
+        assertThat(MATCHER.match(null), is(0L));
+    }
+
+    @Test
+    public void overlappingMatches() {
+        assertThat(MATCHER.match("ushers"), is(1L | 2L | 8L));
+    }
+
+    @Test
+    public void caseInsensitive() {
+        assertThat(MATCHER.match("Was HIT BY CAR yesterday"), is(16L));
+    }
+
+    @Test
+    public void nonAsciiResetsMatch() {
+        assertThat(MATCHER.match("hit byécar"), is(0L));
+        assertThat(MATCHER.match("éhisé"), is(4L));
+    }
+
+    @Test
+    public void sharedMask() {
+        KeywordMatcher matcher = new KeywordMatcher(new TreeMap<String, Long>() {{
+            put("road kill", 1L);
+            put("hbv", 1L);
+            put("{", 2L);
+        }});
+        assertThat(matcher.match("HBV"), is(1L));
+        assertThat(matcher.match("{ \"hostGen\": \"Felis\" }"), is(2L));
+        assertThat(matcher.match("road kill {"), is(3L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonAsciiKeyword() {
+        new KeywordMatcher(new TreeMap<String, Long>() {{
+            put("été", 1L);
+        }});
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.eol.globi.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class LruMapTest {
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        Map<String, Long> map = new LruMap<>(2);
+        map.put("one", 1L);
+        map.put("two", 2L);
+        map.get("one");
+        map.put("three", 3L);
+
+        assertThat(map.size(), is(2));
+        assertThat(new ArrayList<>(map.keySet()), is(Arrays.asList("one", "three")));
+    }
+
+    @Test
+    public void keepUpToMaxEntries() {
+        Map<Integer, Integer> map = new LruMap<>(100);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        assertThat(map.size(), is(100));
+        assertThat(map.containsKey(899), is(false));
+        assertThat(map.containsKey(900), is(true));
+    }
+
+}
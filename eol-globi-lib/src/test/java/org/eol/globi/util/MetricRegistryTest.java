@@ -0,0 +1,87 @@
+package org.eol.globi.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class MetricRegistryTest {
+
+    @Test
+    public void counter() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("taxonCache.hits").inc();
+        registry.counter("taxonCache.hits").inc(2);
+        assertThat(registry.counter("taxonCache.hits").getCount(), is(3L));
+        assertThat(registry.counter("taxonCache.misses").getCount(), is(0L));
+    }
+
+    @Test
+    public void histogram() {
+        MetricRegistry.Histogram histogram = new MetricRegistry().histogram("batchSize");
+        for (int i = 1; i <= 100; i++) {
+            histogram.update(i);
+        }
+        assertThat(histogram.getCount(), is(100L));
+        assertThat(histogram.getSum(), is(5050L));
+        assertThat(histogram.getMin(), is(1L));
+        assertThat(histogram.getMax(), is(100L));
+        // estimates are upper bounds of power of two buckets
+        assertThat(histogram.getPercentile(0.5), is(63L));
+        assertThat(histogram.getPercentile(0.99), is(100L));
+    }
+
+    @Test
+    public void emptyHistogram() {
+        MetricRegistry.Histogram histogram = new MetricRegistry().histogram("empty");
+        assertThat(histogram.getMin(), is(0L));
+        assertThat(histogram.getMax(), is(0L));
+        assertThat(histogram.getPercentile(0.5), is(0L));
+    }
+
+    @Test
+    public void timer() {
+        MetricRegistry.Timer timer = new MetricRegistry().timer("resolveNames.commit");
+        timer.update(2, TimeUnit.SECONDS);
+        try (MetricRegistry.Timer.Context ignored = timer.time()) {
+            // do nothing
+        }
+        assertThat(timer.getCount(), is(2L));
+        assertThat(timer.getTotalTime(TimeUnit.SECONDS), is(2L));
+    }
+
+    @Test
+    public void toJson() throws IOException {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("interactions.received").inc(10);
+        registry.timer("resolveNames.commit").update(1500, TimeUnit.MICROSECONDS);
+        registry.histogram("batchSize").update(7);
+
+        JsonNode report = new ObjectMapper().readTree(registry.toJson());
+
+        assertThat(report.at("/counters/interactions.received").asLong(), is(10L));
+        assertThat(report.at("/timersInMillis/resolveNames.commit/count").asLong(), is(1L));
+        assertThat(report.at("/timersInMillis/resolveNames.commit/sum").asDouble(), is(1.5));
+        assertThat(report.at("/histograms/batchSize/max").asLong(), is(7L));
+    }
+
+    @Test
+    public void reset() {
+        MetricRegistry registry = new MetricRegistry();
+        MetricRegistry.Counter counter = registry.counter("some.counter");
+        counter.inc();
+        registry.histogram("some.histogram").update(12);
+        registry.reset();
+        assertThat(counter.getCount(), is(0L));
+        assertThat(registry.histogram("some.histogram").getMax(), is(0L));
+
+        counter.inc();
+        assertThat(registry.counter("some.counter").getCount(), is(1L));
+    }
+
+}
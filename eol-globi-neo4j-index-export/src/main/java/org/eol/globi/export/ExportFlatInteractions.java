@@ -1,5 +1,6 @@
 package org.eol.globi.export;
 
+import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.RelTypes;
@@ -10,11 +11,18 @@ import org.neo4j.graphdb.GraphDatabaseService;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class ExportFlatInteractions implements GraphExporter {
 
+    private static final String DATASET_IDS = "datasetIds";
+    private static final int MAX_PARTITIONS = 256;
+
     private final ExportUtil.ValueJoiner joiner;
     private final String filename;
     private final String neo4jVersion;
@@ -26,6 +34,8 @@ public class ExportFlatInteractions implements GraphExporter {
     private final RelTypes taxonRelation;
 
     private RelTypes argumentType = RelTypes.SUPPORTS;
+    private File segmentDir = null;
+    private int numberOfThreads = 1;
     private String argumentTypeId = PropertyAndValueDictionary.SUPPORTS;
 
     public ExportFlatInteractions(ExportUtil.ValueJoiner joiner, String filename) {
@@ -159,12 +169,27 @@ public class ExportFlatInteractions implements GraphExporter {
 
     @Override
     public void export(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
-        String prefix = getPrefix();
-        ExportUtil.export(
-                graphService,
-                new File(baseDir, filename),
-                createExportQueries(prefix),
-                joiner);
+        File file = new File(baseDir, filename);
+        String query = createExportQueries(getPartitionPrefix()).get(0);
+        List<SegmentedExport.DatasetSegment> datasets = findDatasets(graphService);
+        if (segmentDir == null) {
+            List<Long> datasetIds = new ArrayList<>();
+            for (SegmentedExport.DatasetSegment dataset : datasets) {
+                datasetIds.add(dataset.getId());
+            }
+            ExportUtil.export(graphService, file, query, createPartitions(datasetIds), joiner, numberOfThreads);
+        } else {
+            try {
+                new SegmentedExport(query, DATASET_IDS, joiner, numberOfThreads, new ExportSegments(new File(segmentDir, filename)))
+                        .export(graphService, datasets, file, new File(baseDir, getChangesFilename()));
+            } catch (IOException e) {
+                throw new StudyImporterException("failed to export to [" + file.getAbsolutePath() + "]", e);
+            }
+        }
+    }
+
+    String getChangesFilename() {
+        return StringUtils.substringBefore(filename, ".") + "-changes." + StringUtils.substringAfter(filename, ".");
     }
 
     private String getPrefix() {
@@ -173,6 +198,64 @@ public class ExportFlatInteractions implements GraphExporter {
                 : "";
     }
 
+    private String getPartitionPrefix() {
+        return "2".equals(neo4jVersion)
+                ? "CYPHER 2.3 START dataset = node({" + DATASET_IDS + "}) "
+                : "MATCH (dataset) WHERE id(dataset) IN {" + DATASET_IDS + "} WITH dataset ";
+    }
+
+    private List<SegmentedExport.DatasetSegment> findDatasets(GraphDatabaseService graphService) {
+        // exported dataset properties, and taxa the names of the dataset are linked with, change exported rows too
+        List<String> properties = Arrays.asList(
+                DatasetConstant.CITATION,
+                DatasetConstant.ARCHIVE_URI,
+                DatasetConstant.DOI,
+                DatasetConstant.LAST_SEEN_AT,
+                DatasetConstant.LINKED_TAXON_CACHE_HASH);
+        StringBuilder returnClause = new StringBuilder("RETURN DISTINCT id(dataset) as id" +
+                ", dataset." + DatasetConstant.NAMESPACE + " as namespace" +
+                ", dataset." + DatasetConstant.IMPORTED_CONTENT_HASH + " as contentHash");
+        for (String property : properties) {
+            returnClause.append(", dataset.").append(property).append(" as ").append(property);
+        }
+        String query = "2".equals(neo4jVersion)
+                ? getPrefix() + returnClause
+                : "MATCH (dataset)<-[:IN_DATASET]-() " + returnClause;
+        List<SegmentedExport.DatasetSegment> datasets = new ArrayList<>();
+        graphService.execute(query).forEachRemaining(row -> {
+            Map<String, String> values = new TreeMap<>();
+            for (String property : properties) {
+                Object value = row.get(property);
+                if (value != null) {
+                    values.put(property, value.toString());
+                }
+            }
+            datasets.add(new SegmentedExport.DatasetSegment(
+                    (String) row.get("namespace"),
+                    (Long) row.get("id"),
+                    (String) row.get("contentHash"),
+                    values));
+        });
+        return datasets;
+    }
+
+    /**
+     * Splits datasets, in the order they are found, into consecutive partitions.
+     * Because the export query does not order its results, partitioned exports
+     * have the same rows as the serial export, grouped by partition.
+     */
+
+    static List<Map<String, Object>> createPartitions(List<Long> datasetIds) {
+        int numberOfPartitions = Math.max(1, Math.min(datasetIds.size(), MAX_PARTITIONS));
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        for (int i = 0; i < numberOfPartitions; i++) {
+            int from = i * datasetIds.size() / numberOfPartitions;
+            int to = (i + 1) * datasetIds.size() / numberOfPartitions;
+            partitions.add(Collections.singletonMap(DATASET_IDS, new ArrayList<>(datasetIds.subList(from, to))));
+        }
+        return partitions;
+    }
+
     void export(GraphDatabaseService graphService, ExportUtil.Appender appender) throws IOException {
         String prefix = getPrefix();
         ExportUtil.export(
@@ -200,4 +283,23 @@ public class ExportFlatInteractions implements GraphExporter {
         return argumentTypeId;
     }
 
+    /**
+     * @param segmentDir location of per-dataset segments of previous exports, or null to export all datasets
+     */
+
+    public ExportFlatInteractions setSegmentDir(File segmentDir) {
+        this.segmentDir = segmentDir;
+        return this;
+    }
+
+    /**
+     * @param numberOfThreads number of threads exporting datasets concurrently, each in a transaction of its own,
+     *                        so that changes not yet committed are only exported by a single thread (default)
+     */
+
+    public ExportFlatInteractions setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+        return this;
+    }
+
 }
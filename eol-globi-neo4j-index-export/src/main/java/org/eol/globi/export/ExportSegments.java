@@ -0,0 +1,95 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directory of exported segments (gzipped rows) of a single export file, keyed by content,
+ * along with an index of the segment of each dataset in the most recent export.
+ */
+
+class ExportSegments {
+
+    private static final String SEGMENT_EXTENSION = ".gz";
+    private static final String INDEX_FILENAME = "segments.tsv";
+
+    private final File dir;
+
+    ExportSegments(File dir) {
+        this.dir = dir;
+    }
+
+    File get(String key) {
+        File segment = new File(dir, key + SEGMENT_EXTENSION);
+        return segment.exists() ? segment : null;
+    }
+
+    File createTempFile() throws IOException {
+        ExportUtil.mkdirIfNeeded(dir);
+        return File.createTempFile(".segment", ".tmp", dir);
+    }
+
+    File put(String key, File tmpFile) throws IOException {
+        File segment = new File(dir, key + SEGMENT_EXTENSION);
+        Files.move(tmpFile.toPath(), segment.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return segment;
+    }
+
+    /**
+     * @return segment keys by dataset namespace, in the order of the most recent export
+     */
+
+    Map<String, String> readIndex() throws IOException {
+        Map<String, String> index = new LinkedHashMap<>();
+        File indexFile = new File(dir, INDEX_FILENAME);
+        if (indexFile.exists()) {
+            for (String line : FileUtils.readLines(indexFile, StandardCharsets.UTF_8)) {
+                String[] namespaceAndKey = StringUtils.split(line, '\t');
+                if (namespaceAndKey.length == 2) {
+                    index.put(namespaceAndKey[0], namespaceAndKey[1]);
+                }
+            }
+        }
+        return index;
+    }
+
+    void writeIndex(Map<String, String> index) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, String> namespaceAndKey : index.entrySet()) {
+            lines.add(namespaceAndKey.getKey() + "\t" + namespaceAndKey.getValue());
+        }
+        File tmpFile = createTempFile();
+        FileUtils.writeLines(tmpFile, StandardCharsets.UTF_8.name(), lines, "\n");
+        Files.move(tmpFile.toPath(), new File(dir, INDEX_FILENAME).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes segments, and left over temporary files, not referenced by given keys.
+     */
+
+    void retainOnly(Collection<String> keys) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                boolean isSegment = name.endsWith(SEGMENT_EXTENSION);
+                String key = StringUtils.removeEnd(name, SEGMENT_EXTENSION);
+                if ((isSegment && !keys.contains(key)) || name.startsWith(".segment")) {
+                    FileUtils.deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+}
@@ -13,6 +13,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
@@ -24,7 +25,6 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.GZIPOutputStream;
 
 public final class ExportUtil {
 
@@ -36,7 +36,7 @@ public final class ExportUtil {
         try {
             mkdirIfNeeded(file.getParentFile());
             final FileOutputStream out = new FileOutputStream(file);
-            GZIPOutputStream os = new GZIPOutputStream(out);
+            ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(out);
             final Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
             Appender appender = AppenderWriter.of(writer, joiner);
 
@@ -51,6 +51,23 @@ public final class ExportUtil {
         }
     }
 
+    /**
+     * @param numberOfThreads number of partitions exported concurrently, each in a transaction of its own (see {@link PartitionedExport})
+     */
+
+    public static void export(GraphDatabaseService graphService, File file, String cypherQuery, List<Map<String, Object>> partitions, ValueJoiner joiner, int numberOfThreads) throws StudyImporterException {
+        try {
+            mkdirIfNeeded(file.getParentFile());
+            try (OutputStream os = new ParallelGZIPOutputStream(new FileOutputStream(file))) {
+                // keep partially exported partitions out of the export dir
+                new PartitionedExport(cypherQuery, joiner, numberOfThreads)
+                        .export(graphService, partitions, FileUtils.getTempDirectory(), os);
+            }
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to export to [" + file.getAbsolutePath() + "]", e);
+        }
+    }
+
     public static void export(Appender appender, GraphDatabaseService graphService, String query) throws IOException {
         export(appender, graphService, Collections.singletonList(query));
     }
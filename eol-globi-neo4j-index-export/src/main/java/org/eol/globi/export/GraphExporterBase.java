@@ -2,6 +2,7 @@ package org.eol.globi.export;
 
 import org.apache.commons.io.FileUtils;
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.util.MetricRegistry;
 import org.neo4j.graphdb.GraphDatabaseService;
 
 import java.io.File;
@@ -17,7 +18,9 @@ public abstract class GraphExporterBase implements GraphExporter {
             throw new StudyImporterException("failed to create output dir [" + baseDir.getAbsolutePath() + "]", e);
         }
 
-        doExport(graphService, baseDir, neo4jVersion);
+        try (MetricRegistry.Timer.Context ignored = MetricRegistry.getDefault().timer("export." + getClass().getSimpleName()).time()) {
+            doExport(graphService, baseDir, neo4jVersion);
+        }
     }
 
     abstract public void doExport(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException;
@@ -1,12 +1,9 @@
 package org.eol.globi.export;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.eol.globi.data.StudyImporterException;
-import org.eol.globi.domain.StudyNode;
-import org.eol.globi.util.NodeListener;
-import org.eol.globi.util.NodeUtil;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,14 +16,27 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.zip.GZIPOutputStream;
 
 public class GraphExporterImpl extends GraphExporterBase {
     private static final Logger LOG = LoggerFactory.getLogger(GraphExporterImpl.class);
 
+    private static final int ONCE = 1;
+
+    private File segmentDir = null;
+    private int numberOfThreads = 1;
+
+    public GraphExporterImpl setSegmentDir(File segmentDir) {
+        this.segmentDir = segmentDir;
+        return this;
+    }
+
+    public GraphExporterImpl setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+        return this;
+    }
+
     @Override
     public void doExport(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
         LOG.info("site maps generating... ");
@@ -49,18 +59,16 @@ public class GraphExporterImpl extends GraphExporterBase {
         exportNCBILinkOut(graphService, baseDir, neo4jVersion);
         LOG.info("ncbi linkout files generated. ");
 
-        exportNames(graphService, baseDir);
-
         GraphExporterUtil.exportInteractionsAndCitations(
                 graphService,
                 baseDir,
                 "csv",
                 new ExportUtil.CsvValueJoiner(),
-                "2");
+                "2",
+                segmentDir,
+                numberOfThreads);
 
-        exportDataOntology(graphService, baseDir);
-        exportDarwinCoreAggregatedByStudy(graphService, baseDir);
-        exportDarwinCoreAll(graphService, baseDir);
+        exportStudies(graphService, baseDir);
     }
 
     private void exportNCBILinkOut(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
@@ -76,112 +84,108 @@ public class GraphExporterImpl extends GraphExporterBase {
         });
     }
 
-    private void exportNames(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
+    // names, nquads and darwin core archives are exported in a single traversal of all studies
+    private void exportStudies(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
         File taxaDir = new File(baseDir, "taxa");
+        File aggregatedByStudyDir = new File(baseDir, "aggregatedByStudy");
+        File allDir = new File(baseDir, "all");
         mkdir(taxaDir);
-        exportNames(graphService, taxaDir, new ExportTaxonMap(), "taxonMap.tsv.gz");
-        exportNames(graphService, taxaDir, new ExportTaxonCache(), "taxonCache.tsv.gz");
-        //exportNames(studies, baseDir, new ExportUnmatchedTaxonNames(), "taxa/taxonUnmatched.tsv");
-    }
+        mkdir(aggregatedByStudyDir);
+        mkdir(allDir);
 
-    private void mkdir(File dir) throws StudyImporterException {
+        Map<String, DarwinCoreExporter> aggregatedByStudy = new HashMap<String, DarwinCoreExporter>() {
+            {
+                put("association.tsv", new ExporterAssociationAggregates());
+                put("occurrence.tsv", new ExporterOccurrenceAggregates());
+                put("references.tsv", new ExporterReferences());
+                put("taxa.tsv", new ExporterTaxaDistinct());
+            }
+        };
+
+        Map<String, DarwinCoreExporter> all = new HashMap<String, DarwinCoreExporter>() {
+            {
+                put("association.tsv", new ExporterAssociations());
+                put("occurrence.tsv", new ExporterOccurrences());
+                put("references.tsv", new ExporterReferences());
+                put("taxa.tsv", new ExporterTaxaDistinct());
+                put("measurementOrFact.tsv", new ExporterMeasurementOrFact());
+            }
+        };
+
+        Map<File, OutputStreamWriter> writers = new LinkedHashMap<>();
         try {
-            FileUtils.forceMkdir(dir);
+            StudyExportTraversal traversal = new StudyExportTraversal();
+            addSink(traversal, writers, new File(taxaDir, "taxonMap.tsv.gz"), new ExportTaxonMap(), new ExportUtil.TsvValueJoiner(), ONCE);
+            addSink(traversal, writers, new File(taxaDir, "taxonCache.tsv.gz"), new ExportTaxonCache(), new ExportUtil.TsvValueJoiner(), ONCE);
+            //addSink(traversal, writers, new File(taxaDir, "taxonUnmatched.tsv"), new ExportUnmatchedTaxonNames(), new ExportUtil.TsvValueJoiner(), ONCE);
+
+            // limit to number of nquads translated studies for now
+            addSink(traversal, writers, new File(baseDir, "interactions.nq.gz"), new ExporterRDF(), new ExportUtil.NQuadValueJoiner(), 100);
+
+            addDarwinCoreSinks(traversal, writers, aggregatedByStudyDir, aggregatedByStudy);
+            addDarwinCoreSinks(traversal, writers, allDir, all);
+
+            LOG.info("exporting studies to [" + writers.size() + "] files...");
+            traversal.export(graphService);
+            LOG.info("exporting studies to [" + writers.size() + "] files done.");
+
+            for (Map.Entry<File, OutputStreamWriter> writer : writers.entrySet()) {
+                closeStream(writer.getKey(), writer.getValue());
+            }
+            writers.clear();
+
+            exportDarwinCoreMeta(aggregatedByStudyDir, aggregatedByStudy);
+            exportDarwinCoreMeta(allDir, all);
         } catch (IOException e) {
-            throw new StudyImporterException("failed to create output dir [" + dir + "]", e);
+            throw new StudyImporterException("failed to export studies", e);
+        } finally {
+            writers.values().forEach(IOUtils::closeQuietly);
         }
     }
 
-    private void exportNames(GraphDatabaseService graphService, File baseDir, StudyExporter exporter, String filename) throws StudyImporterException {
-        try {
-            File filePath = new File(baseDir, filename);
-            OutputStreamWriter writer = openStream(filePath);
-            NodeUtil.findStudies(graphService, new NodeListener() {
-                final AtomicBoolean isFirst = new AtomicBoolean(true);
-
-                @Override
-                public void on(Node node) {
-                    boolean includeHeader = isFirst.getAndSet(false);
-                    try {
-                        exporter.exportStudy(new StudyNode(node), ExportUtil.AppenderWriter.of(writer), includeHeader);
-                    } catch (IOException e) {
-                        throw new IllegalStateException("failed to export names to [" + filePath + "]");
-                    }
-
-                }
-            });
-            closeStream(filePath, writer);
-        } catch (IOException e) {
-            throw new StudyImporterException("failed to export unmatched source taxa", e);
+    private void addDarwinCoreSinks(StudyExportTraversal traversal, Map<File, OutputStreamWriter> writers, File archiveDir, Map<String, DarwinCoreExporter> exporters) throws IOException {
+        for (Map.Entry<String, DarwinCoreExporter> exporter : exporters.entrySet()) {
+            addSink(traversal,
+                    writers,
+                    new File(archiveDir, exporter.getKey()),
+                    exporter.getValue(),
+                    new ExportUtil.TsvValueJoiner(),
+                    isExportedOnce(exporter.getValue()) ? ONCE : StudyExportTraversal.ALL_STUDIES);
         }
     }
 
-    private void exportDarwinCoreAggregatedByStudy(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
-        exportDarwinCoreArchive(graphService,
-                new File(baseDir,"aggregatedByStudy"), new HashMap<String, DarwinCoreExporter>() {
-                    {
-                        put("association.tsv", new ExporterAssociationAggregates());
-                        put("occurrence.tsv", new ExporterOccurrenceAggregates());
-                        put("references.tsv", new ExporterReferences());
-                        put("taxa.tsv", new ExporterTaxaDistinct());
-                    }
-                }
-        );
+    // these exporters query the whole graph when exporting the first study
+    private static boolean isExportedOnce(StudyExporter exporter) {
+        return exporter instanceof ExporterAssociationAggregates
+                || exporter instanceof ExporterOccurrenceAggregates
+                || exporter instanceof ExporterTaxaDistinct;
     }
 
-    private void exportDarwinCoreAll(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
-        exportDarwinCoreArchive(graphService, new File(baseDir, "all"), new HashMap<String, DarwinCoreExporter>() {
-            {
-                put("association.tsv", new ExporterAssociations());
-                put("occurrence.tsv", new ExporterOccurrences());
-                put("references.tsv", new ExporterReferences());
-                put("taxa.tsv", new ExporterTaxaDistinct());
-                put("measurementOrFact.tsv", new ExporterMeasurementOrFact());
-            }
-        });
+    private void addSink(StudyExportTraversal traversal, Map<File, OutputStreamWriter> writers, File exportFile, StudyExporter exporter, ExportUtil.ValueJoiner joiner, int maxStudies) throws IOException {
+        OutputStreamWriter writer = openStream(exportFile);
+        writers.put(exportFile, writer);
+        traversal.add(exportFile.getParentFile().getName() + "/" + exportFile.getName(),
+                exporter,
+                ExportUtil.AppenderWriter.of(writer, joiner),
+                maxStudies);
     }
 
-    private void exportDataOntology(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
+    private void mkdir(File dir) throws StudyImporterException {
         try {
-            ExporterRDF studyExporter = new ExporterRDF();
-            File exportFile = new File(baseDir, "interactions.nq.gz");
-            OutputStreamWriter writer = openStream(exportFile);
-            String msg = "writing nquads archive to [" + exportFile + "]";
-            LOG.info(msg + "...");
-            AtomicInteger studyCounter = new AtomicInteger(0);
-            NodeUtil.findStudies(graphService, node -> {
-                try {
-                    int studyCount = studyCounter.getAndIncrement();
-                    // limit to number of nquads translated studies for now
-                    if (studyCount < 100) {
-                        studyExporter.exportStudy(
-                                new StudyNode(node),
-                                ExportUtil.AppenderWriter.of(writer, new ExportUtil.NQuadValueJoiner()),
-                                true);
-                    }
-                } catch (IOException e) {
-                    throw new IllegalStateException("failed to export interactions to [" + exportFile.getAbsolutePath() + "]", e);
-                }
-
-            });
-            LOG.info(msg + " done.");
-            closeStream(exportFile, writer);
+            FileUtils.forceMkdir(dir);
         } catch (IOException e) {
-            throw new StudyImporterException("failed to export as owl", e);
+            throw new StudyImporterException("failed to create output dir [" + dir + "]", e);
         }
     }
 
-    private void exportDarwinCoreArchive(GraphDatabaseService graphDatabaseService, File baseDir, Map<String, DarwinCoreExporter> exporters) throws StudyImporterException {
-        try {
-            FileUtils.forceMkdir(baseDir);
-            FileWriter darwinCoreMeta = writeMetaHeader(baseDir);
-            for (Map.Entry<String, DarwinCoreExporter> exporter : exporters.entrySet()) {
-                export(graphDatabaseService, baseDir, exporter.getKey(), exporter.getValue(), darwinCoreMeta);
-            }
-            writeMetaFooter(darwinCoreMeta);
-        } catch (IOException e) {
-            throw new StudyImporterException("failed to export result to csv file", e);
+    private void exportDarwinCoreMeta(File archiveDir, Map<String, DarwinCoreExporter> exporters) throws IOException {
+        LOG.info("darwin core meta file writing... ");
+        FileWriter darwinCoreMeta = writeMetaHeader(archiveDir);
+        for (Map.Entry<String, DarwinCoreExporter> exporter : exporters.entrySet()) {
+            exporter.getValue().exportDarwinCoreMetaTable(darwinCoreMeta, exporter.getKey());
         }
+        writeMetaFooter(darwinCoreMeta);
+        LOG.info("darwin core meta file written. ");
     }
 
     private void writeMetaFooter(FileWriter darwinCoreMeta) throws IOException {
@@ -197,31 +201,6 @@ public class GraphExporterImpl extends GraphExporterBase {
         return darwinCoreMeta;
     }
 
-    private void export(GraphDatabaseService graphService, File exportPath, String filename, DarwinCoreExporter studyExporter, FileWriter darwinCoreMeta) throws IOException {
-        File exportFile = new File(exportPath, filename);
-        OutputStreamWriter writer = openStream(exportFile);
-
-        NodeUtil.findStudies(graphService, new NodeListener() {
-            final AtomicBoolean isFirst = new AtomicBoolean(true);
-
-            @Override
-            public void on(Node node) {
-                try {
-                    studyExporter.exportStudy(new StudyNode(node),
-                            ExportUtil.AppenderWriter.of(writer), isFirst.getAndSet(false));
-                } catch (IOException e) {
-                    throw new IllegalStateException("failed to export to [" + exportFile.getAbsolutePath() + "]", e);
-                }
-
-            }
-        });
-        closeStream(exportFile, writer);
-
-        LOG.info("darwin core meta file writing... ");
-        studyExporter.exportDarwinCoreMetaTable(darwinCoreMeta, filename);
-        LOG.info("darwin core meta file written. ");
-    }
-
     private void closeStream(File exportFile, OutputStreamWriter writer) throws IOException {
         writer.flush();
         writer.close();
@@ -232,7 +211,7 @@ public class GraphExporterImpl extends GraphExporterBase {
         OutputStream fos = new BufferedOutputStream(new FileOutputStream(exportFile));
         String exportFilePath = exportFile.getAbsolutePath();
         if (exportFilePath.endsWith(".gz")) {
-            fos = new GZIPOutputStream(fos);
+            fos = new ParallelGZIPOutputStream(fos);
         }
         OutputStreamWriter writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
         LOG.info("export data to [" + exportFilePath + "] started...");
@@ -8,11 +8,23 @@ import java.io.File;
 public class GraphExporterInteractionsTSVImpl extends GraphExporterBase {
 
     private final String neo4jVersion;
+    private File segmentDir = null;
+    private int numberOfThreads = 1;
 
     public GraphExporterInteractionsTSVImpl(String neo4jVersion) {
         this.neo4jVersion = neo4jVersion;
     }
 
+    public GraphExporterInteractionsTSVImpl setSegmentDir(File segmentDir) {
+        this.segmentDir = segmentDir;
+        return this;
+    }
+
+    public GraphExporterInteractionsTSVImpl setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+        return this;
+    }
+
     @Override
     public void doExport(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
         GraphExporterUtil.exportInteractionsAndCitations(
@@ -20,7 +32,9 @@ public class GraphExporterInteractionsTSVImpl extends GraphExporterBase {
                 baseDir,
                 "tsv",
                 new ExportUtil.TsvValueJoiner(),
-                neo4jVersion
+                neo4jVersion,
+                segmentDir,
+                numberOfThreads
         );
     }
 
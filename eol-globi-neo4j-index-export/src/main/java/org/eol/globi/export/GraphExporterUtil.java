@@ -22,6 +22,21 @@ public class GraphExporterUtil {
                                                       String extension,
                                                       ExportUtil.ValueJoiner joiner,
                                                       String neo4jVersion) throws StudyImporterException {
+        exportInteractionsAndCitations(graphService, baseDir, extension, joiner, neo4jVersion, null, 1);
+    }
+
+    /**
+     * @param segmentDir      location of per-dataset interaction segments of a previous export, or null to export all interactions
+     * @param numberOfThreads number of threads exporting interactions of datasets concurrently, each reading committed changes only
+     */
+
+    public static void exportInteractionsAndCitations(GraphDatabaseService graphService,
+                                                      File baseDir,
+                                                      String extension,
+                                                      ExportUtil.ValueJoiner joiner,
+                                                      String neo4jVersion,
+                                                      File segmentDir,
+                                                      int numberOfThreads) throws StudyImporterException {
         File formatBaseDir = new File(baseDir, extension);
         try {
             FileUtils.forceMkdir(formatBaseDir);
@@ -34,7 +49,9 @@ public class GraphExporterUtil {
                 "interactions." + extension + ".gz",
                 joiner,
                 RelTypes.CLASSIFIED_AS,
-                neo4jVersion);
+                neo4jVersion,
+                segmentDir,
+                numberOfThreads);
 
         exportSupportingInteractions(
                 graphService,
@@ -42,7 +59,9 @@ public class GraphExporterUtil {
                 "verbatim-interactions." + extension + ".gz",
                 joiner,
                 RelTypes.ORIGINALLY_DESCRIBED_AS,
-                neo4jVersion);
+                neo4jVersion,
+                segmentDir,
+                numberOfThreads);
 
         exportRefutedInteractions(
                 graphService,
@@ -50,7 +69,9 @@ public class GraphExporterUtil {
                 "refuted-interactions." + extension + ".gz",
                 joiner,
                 RelTypes.CLASSIFIED_AS,
-                neo4jVersion);
+                neo4jVersion,
+                segmentDir,
+                numberOfThreads);
 
         exportRefutedInteractions(
                 graphService,
@@ -58,7 +79,9 @@ public class GraphExporterUtil {
                 "refuted-verbatim-interactions." + extension + ".gz",
                 joiner,
                 RelTypes.ORIGINALLY_DESCRIBED_AS,
-                neo4jVersion);
+                neo4jVersion,
+                segmentDir,
+                numberOfThreads);
 
         exportCitations(
                 graphService,
@@ -75,11 +98,13 @@ public class GraphExporterUtil {
                 neo4jVersion);
     }
 
-    private static void exportSupportingInteractions(GraphDatabaseService graphService, File baseDir, String filename, ExportUtil.ValueJoiner joiner, RelTypes taxonRelation, String neo4jVersion) throws StudyImporterException {
+    private static void exportSupportingInteractions(GraphDatabaseService graphService, File baseDir, String filename, ExportUtil.ValueJoiner joiner, RelTypes taxonRelation, String neo4jVersion, File segmentDir, int numberOfThreads) throws StudyImporterException {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
         LOG.info("[" + filename + "] generating... ");
         new ExportFlatInteractions(joiner, filename, taxonRelation, neo4jVersion)
+                .setSegmentDir(segmentDir)
+                .setNumberOfThreads(numberOfThreads)
                 .export(graphService, baseDir, neo4jVersion);
         stopWatch.stop();
         LOG.info("[" + filename + "] generated in " + stopWatch.getTime(TimeUnit.SECONDS) + "s.");
@@ -115,13 +140,17 @@ public class GraphExporterUtil {
             File baseDir, String filename,
             ExportUtil.ValueJoiner joiner,
             RelTypes taxonRelation,
-            String neo4jVersion) throws StudyImporterException {
+            String neo4jVersion,
+            File segmentDir,
+            int numberOfThreads) throws StudyImporterException {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
         LOG.info("[" + filename + "] generating... ");
         new ExportFlatInteractions(joiner, filename, taxonRelation, neo4jVersion)
                 .setArgumentType(RelTypes.REFUTES)
                 .setArgumentTypeId(PropertyAndValueDictionary.REFUTES)
+                .setSegmentDir(segmentDir)
+                .setNumberOfThreads(numberOfThreads)
                 .export(graphService, baseDir, neo4jVersion);
         stopWatch.stop();
         LOG.info("[" + filename + "] generated in " + stopWatch.getTime(TimeUnit.SECONDS) + "s.");
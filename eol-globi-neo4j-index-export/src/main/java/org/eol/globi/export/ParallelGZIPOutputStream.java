@@ -0,0 +1,194 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip output stream that compresses fixed size blocks on a shared pool of worker threads, and writes
+ * each compressed block as a complete gzip member, in order (similar to pigz).
+ *
+ * Concatenated gzip members are a valid gzip file (see RFC 1952), so the output can be read
+ * with gunzip or {@link java.util.zip.GZIPInputStream}. Because blocks are compressed independently,
+ * the output is slightly larger than that of a single {@link GZIPOutputStream}.
+ *
+ * Pending blocks (submitted, but not yet written) are bounded across all streams to two per compressor thread,
+ * so that many concurrently open streams do not oversubscribe compressors or buffer many blocks each.
+ */
+
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+    static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final int NUMBER_OF_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final ExecutorService COMPRESSORS = Executors.newFixedThreadPool(NUMBER_OF_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "gzip-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final AtomicInteger PENDING_TOTAL = new AtomicInteger();
+
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final AtomicInteger pendingTotal;
+    private final int maxPending;
+    private final ExecutorService executor;
+
+    private byte[] block;
+    private int blockLength = 0;
+    private boolean hasMembers = false;
+    private boolean finished = false;
+
+    public ParallelGZIPOutputStream(OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE, COMPRESSORS, PENDING_TOTAL, 2 * NUMBER_OF_THREADS);
+    }
+
+    ParallelGZIPOutputStream(OutputStream out, int blockSize, ExecutorService executor, int maxPending) {
+        this(out, blockSize, executor, new AtomicInteger(), maxPending);
+    }
+
+    ParallelGZIPOutputStream(OutputStream out, int blockSize, ExecutorService executor, AtomicInteger pendingTotal, int maxPending) {
+        super(out);
+        this.block = new byte[blockSize];
+        this.executor = executor;
+        this.pendingTotal = pendingTotal;
+        this.maxPending = maxPending;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == block.length) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int length = Math.min(len, block.length - blockLength);
+            System.arraycopy(b, off, block, blockLength, length);
+            blockLength += length;
+            off += length;
+            len -= length;
+            if (blockLength == block.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Writes all blocks compressed so far, without ending the current block early:
+     * flushing after every few lines would only add gzip members, and make compression worse.
+     */
+
+    @Override
+    public void flush() throws IOException {
+        while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+            writeMember(pending.removeFirst());
+        }
+        out.flush();
+    }
+
+    /**
+     * Appends already compressed gzip members (e.g., a previously exported gzip file) as is,
+     * after the data written so far.
+     */
+
+    void appendMembers(InputStream members) throws IOException {
+        ensureOpen();
+        if (blockLength > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeMember(pending.removeFirst());
+        }
+        if (IOUtils.copyLarge(members, out) > 0) {
+            hasMembers = true;
+        }
+    }
+
+    public void finish() throws IOException {
+        if (!finished) {
+            if (blockLength > 0 || !hasMembers) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeMember(pending.removeFirst());
+            }
+            out.flush();
+            finished = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            for (Future<byte[]> member : pending) {
+                member.cancel(true);
+                pendingTotal.decrementAndGet();
+            }
+            pending.clear();
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        // streams only wait for their own blocks, so that streams written by the same thread cannot block each other
+        while (!pending.isEmpty() && pendingTotal.get() >= maxPending) {
+            writeMember(pending.removeFirst());
+        }
+        final byte[] uncompressed = block;
+        final int length = blockLength;
+        pending.addLast(executor.submit(() -> compress(uncompressed, length)));
+        pendingTotal.incrementAndGet();
+        hasMembers = true;
+        block = new byte[uncompressed.length];
+        blockLength = 0;
+    }
+
+    private void writeMember(Future<byte[]> member) throws IOException {
+        try {
+            out.write(member.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("failed to compress", e.getCause());
+        } finally {
+            pendingTotal.decrementAndGet();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("write beyond end of stream");
+        }
+    }
+
+    static byte[] compress(byte[] uncompressed, int length) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+        try (GZIPOutputStream member = new GZIPOutputStream(compressed, 64 * 1024)) {
+            member.write(uncompressed, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+}
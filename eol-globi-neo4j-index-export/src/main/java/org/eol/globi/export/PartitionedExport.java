@@ -0,0 +1,114 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exports the results of a single query executed for many partitions (e.g., sets of datasets) concurrently,
+ * with partition parameters passed as query parameters.
+ *
+ * Each partition is written to its own temporary file, and partitions are merged in order, so that
+ * the output is the same as that of running the query for each partition in turn, with a single header.
+ *
+ * Concurrently exported partitions are queried in transactions of their own, so changes that are not committed yet,
+ * e.g., those made in a transaction of the calling thread, are not exported. A single thread exports partitions
+ * in turn, on the calling thread.
+ */
+
+class PartitionedExport {
+
+    private final String query;
+    private final ExportUtil.ValueJoiner joiner;
+    private final int numberOfThreads;
+
+    PartitionedExport(String query, ExportUtil.ValueJoiner joiner, int numberOfThreads) {
+        this.query = query;
+        this.joiner = joiner;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    void export(GraphDatabaseService graphService, List<Map<String, Object>> partitions, File tmpDir, OutputStream out) throws IOException {
+        if (numberOfThreads > 1) {
+            exportConcurrently(graphService, partitions, tmpDir, out);
+        } else {
+            exportSerially(graphService, partitions, out);
+        }
+    }
+
+    private void exportSerially(GraphDatabaseService graphService, List<Map<String, Object>> partitions, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (int i = 0; i < partitions.size(); i++) {
+            ExportUtil.writeResults(ExportUtil.AppenderWriter.of(writer, joiner), graphService, query, partitions.get(i), i == 0);
+        }
+        writer.flush();
+    }
+
+    private void exportConcurrently(GraphDatabaseService graphService, List<Map<String, Object>> partitions, File tmpDir, OutputStream out) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        Deque<Future<File>> pending = new ArrayDeque<>();
+        List<File> partFiles = Collections.synchronizedList(new ArrayList<>());
+        try {
+            int maxPending = 2 * numberOfThreads;
+            for (int i = 0; i < partitions.size(); i++) {
+                final Map<String, Object> params = partitions.get(i);
+                final boolean includeHeader = i == 0;
+                pending.addLast(executor.submit(() -> {
+                    File partFile = File.createTempFile(".partition", ".tmp", tmpDir);
+                    partFiles.add(partFile);
+                    exportPartition(graphService, params, includeHeader, partFile);
+                    return partFile;
+                }));
+                while (pending.size() > maxPending) {
+                    merge(pending.removeFirst(), out);
+                }
+            }
+            while (!pending.isEmpty()) {
+                merge(pending.removeFirst(), out);
+            }
+        } finally {
+            executor.shutdownNow();
+            for (File partFile : partFiles) {
+                FileUtils.deleteQuietly(partFile);
+            }
+        }
+    }
+
+    private void exportPartition(GraphDatabaseService graphService, Map<String, Object> params, boolean includeHeader, File partFile) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(partFile), StandardCharsets.UTF_8))) {
+            ExportUtil.writeResults(ExportUtil.AppenderWriter.of(writer, joiner), graphService, query, params, includeHeader);
+        }
+    }
+
+    private static void merge(Future<File> partition, OutputStream out) throws IOException {
+        try {
+            File partFile = partition.get();
+            FileUtils.copyFile(partFile, out);
+            FileUtils.deleteQuietly(partFile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while exporting partition", e);
+        } catch (ExecutionException e) {
+            throw new IOException("failed to export partition", e.getCause());
+        }
+    }
+
+}
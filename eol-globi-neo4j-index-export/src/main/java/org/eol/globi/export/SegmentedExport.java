@@ -0,0 +1,296 @@
+package org.eol.globi.export;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.LineIterator;
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.util.MetricRegistry;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the results of a query, one segment (gzipped rows) per dataset, into a single gzipped file.
+ *
+ * Segments are kept between exports, keyed by the content hash of the imported dataset along with
+ * the exported properties of the dataset (e.g., last seen at, archive URI) and the fingerprint of the taxon cache and map
+ * its names were linked with, so that only datasets that changed since the previous export are queried again: segments of
+ * other datasets are appended to the export file as is.
+ *
+ * Rows of a segment are sorted, so that rows added and removed since the previous export can be found by merging the
+ * previous and current segment of a dataset. These changes are written to a changes file, with the rows of the export
+ * preceded by a change (added/removed) column.
+ *
+ * Datasets without a content hash are always exported again.
+ *
+ * As for {@link PartitionedExport}, datasets are exported concurrently in transactions of their own if more than
+ * one thread is used, so only committed changes are exported.
+ */
+
+class SegmentedExport {
+
+    static final String CHANGE = "change";
+    static final String ADDED = "added";
+    static final String REMOVED = "removed";
+
+    private static final int MAX_SORTED_ROWS_IN_MEMORY = 10000;
+
+    private final String query;
+    private final String datasetIdsParam;
+    private final ExportUtil.ValueJoiner joiner;
+    private final int numberOfThreads;
+    private final ExportSegments segments;
+
+    SegmentedExport(String query, String datasetIdsParam, ExportUtil.ValueJoiner joiner, int numberOfThreads, ExportSegments segments) {
+        this.query = query;
+        this.datasetIdsParam = datasetIdsParam;
+        this.joiner = joiner;
+        this.numberOfThreads = numberOfThreads;
+        this.segments = segments;
+    }
+
+    void export(GraphDatabaseService graphService, List<DatasetSegment> datasets, File file, File changesFile) throws IOException {
+        Map<String, String> previousIndex = segments.readIndex();
+        Map<String, String> index = new LinkedHashMap<>();
+        String header = getHeader(graphService);
+
+        ExportUtil.mkdirIfNeeded(file.getParentFile());
+        ExecutorService executor = numberOfThreads > 1
+                ? Executors.newFixedThreadPool(numberOfThreads)
+                : null;
+        try (ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(new FileOutputStream(file))) {
+            out.write((header + "\n").getBytes(StandardCharsets.UTF_8));
+            Deque<Map.Entry<String, Future<String>>> pending = new ArrayDeque<>();
+            for (DatasetSegment dataset : datasets) {
+                pending.addLast(new AbstractMap.SimpleImmutableEntry<>(
+                        dataset.getNamespace(),
+                        getOrExportSegment(graphService, dataset, executor)));
+                while (pending.size() > 2 * numberOfThreads) {
+                    appendSegment(pending.removeFirst(), out, index);
+                }
+            }
+            while (!pending.isEmpty()) {
+                appendSegment(pending.removeFirst(), out, index);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        writeChanges(previousIndex, index, header, changesFile);
+        segments.writeIndex(index);
+        segments.retainOnly(index.values());
+    }
+
+    private String getHeader(GraphDatabaseService graphService) {
+        Result result = graphService.execute(query, Collections.singletonMap(datasetIdsParam, Collections.emptyList()));
+        try {
+            return joiner.join(result.columns().stream());
+        } finally {
+            result.close();
+        }
+    }
+
+    private Future<String> getOrExportSegment(GraphDatabaseService graphService, DatasetSegment dataset, ExecutorService executor) throws IOException {
+        String key = StringUtils.isBlank(dataset.getContentHash())
+                ? null
+                : DigestUtils.sha256Hex(query
+                + "\n" + dataset.getNamespace()
+                + "\n" + dataset.getContentHash()
+                + "\n" + dataset.getProperties());
+        Future<String> segment;
+        if (key != null && segments.get(key) != null) {
+            MetricRegistry.getDefault().counter("export.segments.reused").inc();
+            segment = CompletableFuture.completedFuture(key);
+        } else if (executor == null) {
+            segment = CompletableFuture.completedFuture(exportSegment(graphService, dataset, key));
+        } else {
+            segment = executor.submit(() -> exportSegment(graphService, dataset, key));
+        }
+        return segment;
+    }
+
+    private String exportSegment(GraphDatabaseService graphService, DatasetSegment dataset, String key) throws IOException {
+        MetricRegistry.getDefault().counter("export.segments.exported").inc();
+        File tmpFile = segments.createTempFile();
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        digest.update(query.getBytes(StandardCharsets.UTF_8));
+        try (SortedRows rows = new SortedRows(segments::createTempFile, MAX_SORTED_ROWS_IN_MEMORY);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(new DigestOutputStream(new GZIPOutputStream(new FileOutputStream(tmpFile)), digest), StandardCharsets.UTF_8))) {
+            ExportUtil.writeResults(
+                    values -> rows.add(joiner.join(values)),
+                    graphService,
+                    query,
+                    Collections.singletonMap(datasetIdsParam, Collections.singletonList(dataset.getId())),
+                    false);
+            rows.writeTo(writer);
+        } catch (IOException | RuntimeException e) {
+            FileUtils.deleteQuietly(tmpFile);
+            throw e;
+        }
+        String segmentKey = key == null ? "rows-" + Hex.encodeHexString(digest.digest()) : key;
+        segments.put(segmentKey, tmpFile);
+        return segmentKey;
+    }
+
+    private void appendSegment(Map.Entry<String, Future<String>> pending, ParallelGZIPOutputStream out, Map<String, String> index) throws IOException {
+        try {
+            String key = pending.getValue().get();
+            try (InputStream segment = new FileInputStream(segments.get(key))) {
+                out.appendMembers(segment);
+            }
+            index.put(pending.getKey(), key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while exporting dataset [" + pending.getKey() + "]", e);
+        } catch (ExecutionException e) {
+            throw new IOException("failed to export dataset [" + pending.getKey() + "]", e.getCause());
+        }
+    }
+
+    private void writeChanges(Map<String, String> previousIndex, Map<String, String> index, String header, File changesFile) throws IOException {
+        Set<String> namespaces = new LinkedHashSet<>(index.keySet());
+        namespaces.addAll(previousIndex.keySet());
+        try (Writer changes = new BufferedWriter(new OutputStreamWriter(new ParallelGZIPOutputStream(new FileOutputStream(changesFile)), StandardCharsets.UTF_8))) {
+            changes.write(changePrefix(CHANGE) + header + "\n");
+            for (String namespace : namespaces) {
+                String previousKey = previousIndex.get(namespace);
+                String key = index.get(namespace);
+                if (!Objects.equals(previousKey, key)) {
+                    writeChanges(changes, previousKey, key);
+                }
+            }
+        }
+    }
+
+    // rows of segments are sorted, so rows only found in either segment are found in a single pass
+    private void writeChanges(Writer changes, String previousKey, String key) throws IOException {
+        try (RowIterator previousRows = rowIterator(previousKey); RowIterator rows = rowIterator(key)) {
+            String previousRow = previousRows.next();
+            String row = rows.next();
+            while (previousRow != null || row != null) {
+                int order = previousRow == null ? 1 : (row == null ? -1 : previousRow.compareTo(row));
+                if (order < 0) {
+                    changes.write(changePrefix(REMOVED) + previousRow + "\n");
+                    previousRow = previousRows.next();
+                } else if (order > 0) {
+                    changes.write(changePrefix(ADDED) + row + "\n");
+                    row = rows.next();
+                } else {
+                    previousRow = previousRows.next();
+                    row = rows.next();
+                }
+            }
+        }
+    }
+
+    private RowIterator rowIterator(String key) throws IOException {
+        File segment = key == null ? null : segments.get(key);
+        InputStream is = segment == null
+                ? new ByteArrayInputStream(new byte[0])
+                : new GZIPInputStream(new FileInputStream(segment));
+        // quoted csv values may span lines
+        return new RowIterator(new LineIterator(new InputStreamReader(is, StandardCharsets.UTF_8)), joiner instanceof ExportUtil.CsvValueJoiner);
+    }
+
+    /**
+     * @return change value followed by a value separator, so that it can precede exported rows
+     */
+
+    private String changePrefix(String change) {
+        return joiner.join(Stream.of(change, ""));
+    }
+
+    private static class RowIterator implements Closeable {
+        private final LineIterator lines;
+        private final boolean quotedLineBreaks;
+
+        RowIterator(LineIterator lines, boolean quotedLineBreaks) {
+            this.lines = lines;
+            this.quotedLineBreaks = quotedLineBreaks;
+        }
+
+        String next() {
+            String row = lines.hasNext() ? lines.next() : null;
+            while (quotedLineBreaks && row != null && StringUtils.countMatches(row, '"') % 2 == 1 && lines.hasNext()) {
+                row = row + "\n" + lines.next();
+            }
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            lines.close();
+        }
+    }
+
+    static class DatasetSegment {
+        private final String namespace;
+        private final long id;
+        private final String contentHash;
+        private final Map<String, String> properties;
+
+        /**
+         * @param properties exported properties of the dataset
+         */
+
+        DatasetSegment(String namespace, long id, String contentHash, Map<String, String> properties) {
+            this.namespace = namespace;
+            this.id = id;
+            this.contentHash = contentHash;
+            this.properties = new TreeMap<>(properties);
+        }
+
+        String getNamespace() {
+            return namespace;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        String getContentHash() {
+            return contentHash;
+        }
+
+        Map<String, String> getProperties() {
+            return properties;
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts rows, in natural order, that do not necessarily fit in memory: rows are sorted in batches of
+ * a given maximum size, batches are written to temporary files, and batches are merged when writing the sorted rows.
+ * At most a given number of batches are merged at once (into another temporary batch, if more remain),
+ * so that the number of open files stays bounded for any number of rows.
+ */
+
+class SortedRows implements Closeable {
+
+    static final int MAX_BATCHES_PER_MERGE = 64;
+
+    interface TmpFileFactory {
+        File create() throws IOException;
+    }
+
+    private interface RowWriter {
+        void write(String row) throws IOException;
+    }
+
+    private final TmpFileFactory tmpFileFactory;
+    private final int maxRowsInMemory;
+    private final int maxBatchesPerMerge;
+    private final List<String> rows = new ArrayList<>();
+    private final List<File> batches = new ArrayList<>();
+
+    SortedRows(TmpFileFactory tmpFileFactory, int maxRowsInMemory) {
+        this(tmpFileFactory, maxRowsInMemory, MAX_BATCHES_PER_MERGE);
+    }
+
+    SortedRows(TmpFileFactory tmpFileFactory, int maxRowsInMemory, int maxBatchesPerMerge) {
+        this.tmpFileFactory = tmpFileFactory;
+        this.maxRowsInMemory = maxRowsInMemory;
+        this.maxBatchesPerMerge = Math.max(2, maxBatchesPerMerge);
+    }
+
+    void add(String row) throws IOException {
+        rows.add(row);
+        if (rows.size() >= maxRowsInMemory) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * Writes all added rows in order, each followed by a newline.
+     */
+
+    void writeTo(Writer writer) throws IOException {
+        if (batches.isEmpty()) {
+            Collections.sort(rows);
+            for (String row : rows) {
+                writer.write(row);
+                writer.write("\n");
+            }
+        } else {
+            writeBatch();
+            merge(writer);
+        }
+    }
+
+    private void merge(Writer writer) throws IOException {
+        while (batches.size() > maxBatchesPerMerge) {
+            List<File> merged = new ArrayList<>(batches.subList(0, maxBatchesPerMerge));
+            File batch = tmpFileFactory.create();
+            batches.add(batch);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(batch)))) {
+                merge(merged, row -> writeRow(out, row));
+            }
+            batches.subList(0, maxBatchesPerMerge).clear();
+            merged.forEach(FileUtils::deleteQuietly);
+        }
+        merge(batches, row -> {
+            writer.write(row);
+            writer.write("\n");
+        });
+    }
+
+    private static void merge(List<File> batchesToBeMerged, RowWriter writer) throws IOException {
+        List<BatchReader> readers = new ArrayList<>();
+        try {
+            PriorityQueue<BatchReader> queue = new PriorityQueue<>(Comparator.comparing(BatchReader::getRow));
+            for (File batch : batchesToBeMerged) {
+                BatchReader reader = new BatchReader(batch);
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                BatchReader reader = queue.poll();
+                writer.write(reader.getRow());
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+        } finally {
+            readers.forEach(IOUtils::closeQuietly);
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        Collections.sort(rows);
+        File batch = tmpFileFactory.create();
+        batches.add(batch);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(batch)))) {
+            for (String row : rows) {
+                writeRow(out, row);
+            }
+        }
+        rows.clear();
+    }
+
+    private static void writeRow(DataOutputStream out, String row) throws IOException {
+        byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public void close() {
+        rows.clear();
+        batches.forEach(FileUtils::deleteQuietly);
+        batches.clear();
+    }
+
+    private static class BatchReader implements Closeable {
+        private final DataInputStream in;
+        private String row;
+
+        BatchReader(File batch) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(batch)));
+        }
+
+        boolean next() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException ex) {
+                row = null;
+                return false;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            row = new String(bytes, StandardCharsets.UTF_8);
+            return true;
+        }
+
+        String getRow() {
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+}
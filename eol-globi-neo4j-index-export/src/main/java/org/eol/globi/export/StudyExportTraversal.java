@@ -0,0 +1,77 @@
+package org.eol.globi.export;
+
+import org.eol.globi.domain.StudyNode;
+import org.eol.globi.util.MetricRegistry;
+import org.eol.globi.util.NodeUtil;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports all studies to many sinks (e.g., files) in a single traversal: each visited study is handed to
+ * all registered sinks, instead of traversing all studies once for every sink.
+ *
+ * Sinks declare how many studies they need: exporters that query the whole graph once (e.g., taxon maps)
+ * only need the first study, and are skipped for the remaining studies.
+ */
+
+class StudyExportTraversal {
+
+    static final int ALL_STUDIES = Integer.MAX_VALUE;
+
+    private final List<Sink> sinks = new ArrayList<>();
+
+    StudyExportTraversal add(String name, StudyExporter exporter, ExportUtil.Appender appender) {
+        return add(name, exporter, appender, ALL_STUDIES);
+    }
+
+    StudyExportTraversal add(String name, StudyExporter exporter, ExportUtil.Appender appender, int maxStudies) {
+        sinks.add(new Sink(name, exporter, appender, maxStudies));
+        return this;
+    }
+
+    void export(GraphDatabaseService graphService) {
+        NodeUtil.findStudies(graphService, node -> {
+            StudyNode study = new StudyNode(node);
+            for (Sink sink : sinks) {
+                sink.exportStudy(study);
+            }
+        });
+    }
+
+    private static class Sink {
+        private final String name;
+        private final StudyExporter exporter;
+        private final ExportUtil.Appender appender;
+        private final int maxStudies;
+        private final MetricRegistry.Timer timer;
+
+        private int studyCount = 0;
+
+        Sink(String name, StudyExporter exporter, ExportUtil.Appender appender, int maxStudies) {
+            this.name = name;
+            this.exporter = exporter;
+            this.appender = appender;
+            this.maxStudies = maxStudies;
+            this.timer = MetricRegistry.getDefault().timer("export.file." + name);
+        }
+
+        void exportStudy(StudyNode study) {
+            if (studyCount < maxStudies) {
+                long start = System.nanoTime();
+                try {
+                    exporter.exportStudy(study, appender, studyCount == 0);
+                } catch (IOException e) {
+                    throw new IllegalStateException("failed to export to [" + name + "]", e);
+                } finally {
+                    studyCount++;
+                    timer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+
+}
@@ -50,17 +50,23 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.eol.globi.domain.LocationUtil.fromLocation;
 
-public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
+public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract implements DatasetImportCheckpoints {
 
     private static final Logger LOG = LoggerFactory.getLogger(NodeFactoryNeo4j.class);
     public static final TermImpl NO_MATCH_TERM = new TermImpl(PropertyAndValueDictionary.NO_MATCH, PropertyAndValueDictionary.NO_MATCH);
 
+    static final int REMOVE_BATCH_SIZE = 10000;
+
     private GraphDatabaseService graphDb;
 
+    private int removedNodes = 0;
+
     private TermLookupService termLookupService;
     private TermLookupService envoLookupService;
     private final TermLookupService lifeStageLookupService;
@@ -485,6 +491,152 @@ public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
 
     abstract protected Dataset getOrCreateDatasetNoTx(Dataset originatingDataset) throws NodeFactoryException;
 
+    protected abstract Node findDatasetNode(String namespace);
+
+    @Override
+    public boolean isImported(Dataset dataset) {
+        boolean isImported = false;
+        String contentHash = dataset.getOrDefault(DatasetConstant.CONTENT_HASH, null);
+        Node datasetNode = findDatasetNode(dataset.getNamespace());
+        if (datasetNode != null) {
+            String importedContentHash = NodeUtil.getPropertyStringValueOrDefault(datasetNode, DatasetConstant.IMPORTED_CONTENT_HASH, null);
+            isImported = StringUtils.isNotBlank(contentHash) && StringUtils.equals(contentHash, importedContentHash);
+        }
+        return isImported;
+    }
+
+    /**
+     * Removes the studies of given dataset along with their interactions and specimens, and locations,
+     * seasons and original taxa no longer referenced by other specimens. Shared nodes (e.g., datasets,
+     * resolved taxa, external ids, environments) are kept.
+     *
+     * The checkpoint of the dataset is removed first, so that an interrupted removal is resumed on next import.
+     * {@link #onRemovedBatch()} is called once the checkpoint is removed, and then after each batch of
+     * (at most about {@link #REMOVE_BATCH_SIZE}) removed nodes.
+     */
+
+    @Override
+    public void removeImported(Dataset dataset) throws NodeFactoryException {
+        Node datasetNode = findDatasetNode(dataset.getNamespace());
+        if (datasetNode != null) {
+            datasetNode.removeProperty(DatasetConstant.IMPORTED_CONTENT_HASH);
+            List<Long> studyNodeIds = new ArrayList<>();
+            for (Relationship inDataset : datasetNode.getRelationships(Direction.INCOMING, NodeUtil.asNeo4j(RelTypes.IN_DATASET))) {
+                studyNodeIds.add(inDataset.getStartNode().getId());
+            }
+            removedNodes = 0;
+            onRemovedBatch();
+            if (!studyNodeIds.isEmpty()) {
+                LOG.info("[" + dataset.getNamespace() + "] changed or was partially imported before: removing [" + studyNodeIds.size() + "] previously imported studies...");
+                for (Long studyNodeId : studyNodeIds) {
+                    removeStudy(studyNodeId);
+                }
+                LOG.info("[" + dataset.getNamespace() + "] removed [" + studyNodeIds.size() + "] previously imported studies.");
+            }
+        }
+    }
+
+    /**
+     * Called while removing previously imported records, when removed nodes may be committed. Does nothing by
+     * default: node factories that own their transactions commit here, so that removing a large dataset does not
+     * take a single (unbounded) transaction.
+     */
+
+    protected void onRemovedBatch() {
+
+    }
+
+    protected void removeStudy(long studyNodeId) {
+        Node studyNode = getGraphDb().getNodeById(studyNodeId);
+        // specimens are usually both collected and supported by a study
+        Set<Long> specimenNodeIds = new LinkedHashSet<>();
+        for (Relationship rel : studyNode.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(new RelTypes[]{RelTypes.COLLECTED, RelTypes.SUPPORTS, RelTypes.REFUTES}))) {
+            specimenNodeIds.add(rel.getEndNode().getId());
+        }
+        for (Long specimenNodeId : specimenNodeIds) {
+            removeSpecimen(specimenNodeId);
+            onRemovedBatchIfFull();
+        }
+
+        studyNode = getGraphDb().getNodeById(studyNodeId);
+        List<Long> interactionNodeIds = new ArrayList<>();
+        for (Relationship derivedFrom : studyNode.getRelationships(Direction.INCOMING, NodeUtil.asNeo4j(RelTypes.DERIVED_FROM))) {
+            interactionNodeIds.add(derivedFrom.getStartNode().getId());
+        }
+        for (Long interactionNodeId : interactionNodeIds) {
+            removeNode(getGraphDb().getNodeById(interactionNodeId));
+            onRemovedBatchIfFull();
+        }
+        studyNode = getGraphDb().getNodeById(studyNodeId);
+        unindexStudyNode(studyNode);
+        removeNode(studyNode);
+        onRemovedBatchIfFull();
+    }
+
+    protected void removeSpecimen(long specimenNodeId) {
+        Node specimenNode = getGraphDb().getNodeById(specimenNodeId);
+        for (Relationship rel : relationshipsOf(specimenNode)) {
+            Node otherNode = rel.getOtherNode(specimenNode);
+            rel.delete();
+            if (rel.isType(NodeUtil.asNeo4j(RelTypes.HAS_PARTICIPANT))) {
+                removeNode(otherNode);
+            } else if (rel.isType(NodeUtil.asNeo4j(RelTypes.COLLECTED_AT))) {
+                if (!otherNode.hasRelationship(Direction.INCOMING, NodeUtil.asNeo4j(RelTypes.COLLECTED_AT))) {
+                    unindexLocationNode(otherNode);
+                    removeNode(otherNode);
+                }
+            } else if (rel.isType(NodeUtil.asNeo4j(RelTypes.ORIGINALLY_DESCRIBED_AS))
+                    || rel.isType(NodeUtil.asNeo4j(RelTypes.CAUGHT_DURING))) {
+                if (!otherNode.hasRelationship()) {
+                    otherNode.delete();
+                    removedNodes++;
+                }
+            }
+        }
+        specimenNode.delete();
+        removedNodes++;
+    }
+
+    private void onRemovedBatchIfFull() {
+        if (removedNodes >= REMOVE_BATCH_SIZE) {
+            removedNodes = 0;
+            onRemovedBatch();
+        }
+    }
+
+    private void removeNode(Node node) {
+        for (Relationship rel : relationshipsOf(node)) {
+            rel.delete();
+        }
+        node.delete();
+        removedNodes++;
+    }
+
+    private static List<Relationship> relationshipsOf(Node node) {
+        List<Relationship> rels = new ArrayList<>();
+        for (Relationship rel : node.getRelationships()) {
+            rels.add(rel);
+        }
+        return rels;
+    }
+
+    protected abstract void unindexStudyNode(Node studyNode);
+
+    protected abstract void unindexLocationNode(Node locationNode);
+
+    @Override
+    public void setImported(Dataset dataset) throws NodeFactoryException {
+        String contentHash = dataset.getOrDefault(DatasetConstant.CONTENT_HASH, null);
+        if (StringUtils.isNotBlank(contentHash)) {
+            Dataset datasetNode = getOrCreateDatasetNoTx(dataset);
+            if (datasetNode instanceof DatasetNode) {
+                ((DatasetNode) datasetNode)
+                        .getUnderlyingNode()
+                        .setProperty(DatasetConstant.IMPORTED_CONTENT_HASH, contentHash);
+            }
+        }
+    }
+
     protected void validate(Location location) throws NodeFactoryException {
         if (location.getLatitude() != null
                 && !LocationUtil.isValidLatitude(location.getLatitude())) {
@@ -74,17 +74,23 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
     protected Dataset getOrCreateDatasetNoTx(Dataset originatingDataset) throws NodeFactoryException {
         Dataset datasetCreated = null;
         if (originatingDataset != null && StringUtils.isNotBlank(originatingDataset.getNamespace())) {
-            IndexHits<Node> datasetHits = datasets.get(DatasetConstant.NAMESPACE, originatingDataset.getNamespace());
+            Node node = findDatasetNode(originatingDataset.getNamespace());
 
-            Node datasetNode = datasetHits.hasNext()
-                    ? datasetHits.next()
-                    : createDatasetNode(originatingDataset);
+            Node datasetNode = node == null
+                    ? createDatasetNode(originatingDataset)
+                    : node;
 
             datasetCreated = new DatasetNode(datasetNode);
         }
         return datasetCreated;
     }
 
+    @Override
+    protected Node findDatasetNode(String namespace) {
+        IndexHits<Node> datasetHits = datasets.get(DatasetConstant.NAMESPACE, namespace);
+        return datasetHits.hasNext() ? datasetHits.next() : null;
+    }
+
     @Override
     protected void indexExternalIdNode(String externalId, Node externalIdNode) throws NodeFactoryException {
         indexNonBlankKeyValue(externalIds, externalIdNode, PropertyAndValueDictionary.EXTERNAL_ID, externalId);
@@ -136,6 +142,16 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
 
     }
 
+    @Override
+    protected void unindexLocationNode(Node locationNode) {
+        locations.remove(locationNode);
+    }
+
+    @Override
+    protected void unindexStudyNode(Node studyNode) {
+        studies.remove(studyNode);
+    }
+
     public static void indexNonBlankKeyValue(Index<Node> index, Node node, String key, String value) throws NodeFactoryException {
         if (StringUtils.isNotBlank(value)) {
             try {
@@ -1,5 +1,6 @@
 package org.eol.globi.data;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.domain.DatasetNode;
 import org.eol.globi.domain.Location;
@@ -9,19 +10,48 @@ import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyConstant;
 import org.eol.globi.domain.StudyNode;
+import org.eol.globi.tool.TransactionPerBatch;
+import org.eol.globi.util.NodeIdCollectorNeo4j3;
+import org.eol.globi.util.NodeProcessorImpl;
 import org.globalbioticinteractions.dataset.Dataset;
 import org.globalbioticinteractions.dataset.DatasetConstant;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.helpers.collection.Iterators;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
 
+    static final String LOCATION_KEY = "locationKey";
+    private static final long LOCATION_KEY_BATCH_SIZE = 10000L;
+
+    public static final int MAX_CACHED_NODE_IDS_DEFAULT = 1024;
+
+    private final NodeIdCache studyNodeIds;
+    private final NodeIdCache datasetNodeIds;
+    private final NodeIdCache externalIdNodeIds;
+    private final NodeIdCache locationNodeIds;
+
     public NodeFactoryNeo4j3(GraphDatabaseService graphDb) {
+        this(graphDb, MAX_CACHED_NODE_IDS_DEFAULT);
+    }
+
+    /**
+     * @param maxCachedNodeIds number of recently created or found studies, datasets, external ids and locations of which
+     *                         node ids are cached (per kind), so that repeated lookups are answered without an index seek.
+     *                         Cached ids use memory, in the order of 100 bytes each.
+     */
+
+    public NodeFactoryNeo4j3(GraphDatabaseService graphDb, int maxCachedNodeIds) {
         super(graphDb);
+        this.studyNodeIds = new NodeIdCache(NodeLabel.Reference, StudyConstant.TITLE_IN_NAMESPACE, maxCachedNodeIds);
+        this.datasetNodeIds = new NodeIdCache(NodeLabel.Dataset, DatasetConstant.NAMESPACE, maxCachedNodeIds);
+        this.externalIdNodeIds = new NodeIdCache(NodeLabel.ExternalId, PropertyAndValueDictionary.EXTERNAL_ID, maxCachedNodeIds);
+        this.locationNodeIds = new NodeIdCache(NodeLabel.Location, LOCATION_KEY, maxCachedNodeIds);
     }
 
     public static void initSchema(GraphDatabaseService graphDb) {
@@ -29,17 +59,36 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
         initIndexes(graphDb);
     }
 
-    private static void initIndexes(GraphDatabaseService graphDb) {
+    /**
+     * Creates indexes on properties that nodes are looked up by, without uniqueness constraints.
+     */
+
+    public static void initIndexes(GraphDatabaseService graphDb) {
         createIndexIfNeeded(
                 graphDb,
                 NodeLabel.Location,
                 LocationConstant.LATITUDE
         );
+        createIndexIfNeeded(
+                graphDb,
+                NodeLabel.Location,
+                LOCATION_KEY
+        );
         createIndexIfNeeded(
                 graphDb,
                 NodeLabel.Reference,
                 StudyConstant.TITLE_IN_NAMESPACE
         );
+        createIndexIfNeeded(
+                graphDb,
+                NodeLabel.Dataset,
+                DatasetConstant.NAMESPACE
+        );
+        createIndexIfNeeded(
+                graphDb,
+                NodeLabel.ExternalId,
+                PropertyAndValueDictionary.EXTERNAL_ID
+        );
     }
 
     private static void initConstraints(GraphDatabaseService graphDb) {
@@ -67,7 +116,40 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
 
     @Override
     protected void indexLocation(Location location, Node node) throws NodeFactoryException {
-        // should already be taken care of by constraints: do nothing
+        // key is calculated from stored values, so that it matches the key of any location considered to be the same
+        String locationKey = locationKey(new LocationNode(node));
+        node.setProperty(LOCATION_KEY, locationKey);
+        locationNodeIds.put(locationKey, node);
+    }
+
+    @Override
+    protected void unindexLocationNode(Node locationNode) {
+        // schema indexes are updated on node removal, and cached location node ids are verified on lookup
+    }
+
+    @Override
+    protected void unindexStudyNode(Node studyNode) {
+        // schema indexes are updated on node removal, and cached study node ids are verified on lookup
+    }
+
+    static String locationKey(Location location) {
+        StringBuilder key = new StringBuilder();
+        appendKeyPart(key, location.getLatitude());
+        appendKeyPart(key, location.getLongitude());
+        appendKeyPart(key, location.getAltitude());
+        appendKeyPart(key, location.getFootprintWKT());
+        appendKeyPart(key, location.getLocality());
+        appendKeyPart(key, location.getLocalityId());
+        return DigestUtils.sha256Hex(key.toString());
+    }
+
+    private static void appendKeyPart(StringBuilder key, Object value) {
+        if (value == null) {
+            key.append("-|");
+        } else {
+            String valueString = value.toString();
+            key.append(valueString.length()).append(':').append(valueString).append('|');
+        }
     }
 
     @Override
@@ -82,7 +164,9 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
 
     @Override
     void indexStudyNode(StudyNode studyNode) {
-        // indexing already done via constraint: do nothing
+        // indexing already done via constraint: only remember node id
+        Node node = studyNode.getUnderlyingNode();
+        studyNodeIds.put((String) node.getProperty(StudyConstant.TITLE_IN_NAMESPACE), node);
     }
 
     @Override
@@ -92,12 +176,14 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
 
     @Override
     protected void indexDatasetNode(Dataset dataset, Node datasetNode) {
-        // indexing already done via constraint; do nothing
+        // indexing already done via constraint: only remember node id
+        datasetNodeIds.put(dataset.getNamespace(), datasetNode);
     }
 
     @Override
     protected void indexExternalIdNode(String externalId, Node externalIdNode) {
-        // external ids already indexed through constraint, do nothing.
+        // external ids already indexed through constraint: only remember node id
+        externalIdNodeIds.put(externalId, externalIdNode);
     }
 
     @Override
@@ -115,38 +201,57 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
     }
 
     private Node findStudyNode(Study study) {
-        return getGraphDb().findNode(
-                NodeLabel.Reference,
-                StudyConstant.TITLE_IN_NAMESPACE,
-                getIdInNamespace(study)
-        );
+        return findNode(studyNodeIds, getIdInNamespace(study));
     }
 
     @Override
     public LocationNode findLocation(Location location) throws NodeFactoryException {
         validate(location);
 
+        // as before location keys were introduced, locations without coordinates, locality or locality id are not shared
         Node matchingLocation = null;
-        if (org.eol.globi.domain.LocationUtil.hasLatLng(location)) {
-            Double latitude = location.getLatitude();
-            ResourceIterator<Node> nodes = getGraphDb().findNodes(NodeLabel.Location, LocationConstant.LATITUDE, latitude);
-            matchingLocation = findFirstMatchingLocationIfAvailable(location, nodes);
-        }
-        if (matchingLocation == null) {
-            String locality = location.getLocality();
-            if (StringUtils.isNotBlank(locality)) {
-                ResourceIterator<Node> nodes = getGraphDb().findNodes(NodeLabel.Location, LocationConstant.LOCALITY, locality);
-                matchingLocation = findFirstMatchingLocationIfAvailable(location, nodes);
-            }
+        if (org.eol.globi.domain.LocationUtil.hasLatLng(location)
+                || StringUtils.isNotBlank(location.getLocality())
+                || StringUtils.isNotBlank(location.getLocalityId())) {
+            matchingLocation = findLocationNode(location, locationKey(location));
         }
+        return matchingLocation == null ? null : new LocationNode(matchingLocation);
+    }
+
+    private Node findLocationNode(Location location, String locationKey) {
+        Node cached = locationNodeIds.get(getGraphDb(), locationKey);
+        Node matchingLocation = cached == null
+                ? null
+                : findFirstMatchingLocationIfAvailable(location, Iterators.asResourceIterator(Collections.singletonList(cached).iterator()));
         if (matchingLocation == null) {
-            String localityId = location.getLocalityId();
-            if (StringUtils.isNotBlank(location.getLocalityId())) {
-                ResourceIterator<Node> nodes = getGraphDb().findNodes(NodeLabel.Location, LocationConstant.LOCALITY_ID, localityId);
-                matchingLocation = findFirstMatchingLocationIfAvailable(location, nodes);
-            }
+            matchingLocation = findFirstMatchingLocationIfAvailable(location, getGraphDb().findNodes(NodeLabel.Location, LOCATION_KEY, locationKey));
+            locationNodeIds.put(locationKey, matchingLocation);
         }
-        return matchingLocation == null ? null : new LocationNode(matchingLocation);
+        return matchingLocation;
+    }
+
+    /**
+     * Adds location keys to locations created before location keys were introduced, so that they can be found by key.
+     * Locations are updated in transactions of (at most) {@link #LOCATION_KEY_BATCH_SIZE} locations each, so the
+     * calling thread is expected not to have a transaction open.
+     *
+     * @return number of locations that a location key was added to
+     */
+
+    public static long addMissingLocationKeys(GraphDatabaseService graphDb) {
+        AtomicLong count = new AtomicLong(0);
+        new NodeProcessorImpl(graphDb, LOCATION_KEY_BATCH_SIZE, LOCATION_KEY, "*", "locations", new NodeIdCollectorNeo4j3())
+                .process(node -> {
+                    if (!node.hasProperty(LOCATION_KEY)) {
+                        node.setProperty(LOCATION_KEY, locationKey(new LocationNode(node)));
+                        count.incrementAndGet();
+                    }
+                }, new TransactionPerBatch(graphDb));
+        return count.get();
+    }
+
+    public static boolean hasLocationKeyIndex(GraphDatabaseService graphDb) {
+        return findIndex(graphDb, NodeLabel.Location, LOCATION_KEY) != null;
     }
 
     @Override
@@ -179,6 +284,18 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
     private static void createIndexIfNeeded(GraphDatabaseService graphDb,
                                             NodeLabel label,
                                             String propertyName) {
+        if (findIndex(graphDb, label, propertyName) == null) {
+            graphDb
+                    .schema()
+                    .indexFor(label)
+                    .on(propertyName)
+                    .create();
+        }
+    }
+
+    private static IndexDefinition findIndex(GraphDatabaseService graphDb,
+                                             NodeLabel label,
+                                             String propertyName) {
 
         Iterable<IndexDefinition> indexes = graphDb
                 .schema()
@@ -195,13 +312,7 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
             }
 
         }
-        if (indexMatching == null) {
-            graphDb
-                    .schema()
-                    .indexFor(NodeLabel.Location)
-                    .on(propertyName)
-                    .create();
-        }
+        return indexMatching;
     }
 
     @Override
@@ -209,10 +320,7 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
         Dataset datasetCreated = null;
         if (originatingDataset != null && StringUtils.isNotBlank(originatingDataset.getNamespace())) {
 
-            Node node = getGraphDb()
-                    .findNode(NodeLabel.Dataset,
-                            DatasetConstant.NAMESPACE,
-                            originatingDataset.getNamespace());
+            Node node = findDatasetNode(originatingDataset.getNamespace());
 
             Node datasetNode = node == null
                     ? createDatasetNode(originatingDataset)
@@ -223,11 +331,16 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
         return datasetCreated;
     }
 
+    @Override
+    protected Node findDatasetNode(String namespace) {
+        return findNode(datasetNodeIds, namespace);
+    }
+
     @Override
     protected Node getOrCreateExternalIdNoTx(String externalId) throws NodeFactoryException {
         Node externalIdNode = null;
         if (StringUtils.isNotBlank(externalId)) {
-            Node node = getGraphDb().findNode(NodeLabel.ExternalId, PropertyAndValueDictionary.EXTERNAL_ID, externalId);
+            Node node = findExternalIdNode(externalId);
             externalIdNode = node == null
                     ? createExternalId(externalId)
                     : node;
@@ -235,6 +348,13 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
         return externalIdNode;
     }
 
+    private Node findExternalIdNode(String externalId) {
+        return findNode(externalIdNodeIds, externalId);
+    }
+
+    private Node findNode(NodeIdCache nodeIds, String key) {
+        return nodeIds.getOrFind(getGraphDb(), key);
+    }
 
     @Override
     public Node createEnvironmentNode() {
@@ -0,0 +1,70 @@
+package org.eol.globi.data;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.util.LruMap;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+
+import java.util.Map;
+
+/**
+ * Bounded, least-recently-used cache from natural key (e.g., dataset namespace) to node id.
+ *
+ * Cached ids are verified on lookup: if the node no longer exists, or its id was re-used
+ * for another node after a rolled back transaction, the entry is dropped and null is returned,
+ * so that callers fall back to their index lookups.
+ */
+
+class NodeIdCache {
+
+    private final Label label;
+    private final String keyProperty;
+    private final Map<String, Long> nodeIds;
+
+    NodeIdCache(Label label, String keyProperty, final int maxSize) {
+        this.label = label;
+        this.keyProperty = keyProperty;
+        this.nodeIds = new LruMap<>(maxSize);
+    }
+
+    Node get(GraphDatabaseService graphDb, String key) {
+        Node node = null;
+        Long nodeId = nodeIds.get(key);
+        if (nodeId != null) {
+            node = nodeWithKeyOrNull(graphDb, nodeId, key);
+            if (node == null) {
+                nodeIds.remove(key);
+            }
+        }
+        return node;
+    }
+
+    Node getOrFind(GraphDatabaseService graphDb, String key) {
+        Node node = get(graphDb, key);
+        if (node == null) {
+            node = graphDb.findNode(label, keyProperty, key);
+            put(key, node);
+        }
+        return node;
+    }
+
+    void put(String key, Node node) {
+        if (node != null) {
+            nodeIds.put(key, node.getId());
+        }
+    }
+
+    private Node nodeWithKeyOrNull(GraphDatabaseService graphDb, Long nodeId, String key) {
+        try {
+            Node node = graphDb.getNodeById(nodeId);
+            return node.hasLabel(label) && StringUtils.equals(key, (String) node.getProperty(keyProperty, null))
+                    ? node
+                    : null;
+        } catch (NotFoundException ex) {
+            return null;
+        }
+    }
+
+}
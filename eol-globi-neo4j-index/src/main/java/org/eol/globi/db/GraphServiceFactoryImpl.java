@@ -1,27 +1,38 @@
 package org.eol.globi.db;
 
+import org.apache.commons.lang3.time.StopWatch;
 import org.globalbioticinteractions.dataset.DatasetRegistryLocal;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
-import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.logging.slf4j.Slf4jLogProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.Map;
 
 public class GraphServiceFactoryImpl implements GraphServiceFactory {
 
     private final static Logger LOG = LoggerFactory.getLogger(GraphServiceFactoryImpl.class);
 
     private final File graphDbDir;
+    private final GraphServiceProfile profile;
+    private final boolean warmup;
     private static GraphDatabaseService graphDb;
 
     public GraphServiceFactoryImpl(File graphDbDir) {
+        this(graphDbDir, GraphServiceProfile.DEFAULT, false);
+    }
+
+    public GraphServiceFactoryImpl(File graphDbDir, GraphServiceProfile profile, boolean warmup) {
         if (graphDb != null) {
             throw new IllegalStateException("only one graph service factory allowed, but another is already instantiated");
         }
         this.graphDbDir = graphDbDir;
+        this.profile = profile;
+        this.warmup = warmup;
     }
 
     @Override
@@ -29,7 +40,10 @@ public class GraphServiceFactoryImpl implements GraphServiceFactory {
         GraphServiceUtil.verifyState(graphDb);
 
         if (graphDb == null) {
-            graphDb = startNeo4j(graphDbDir);
+            graphDb = startNeo4j(graphDbDir, profile);
+            if (warmup) {
+                warmup(graphDb);
+            }
         }
         return graphDb;
     }
@@ -42,20 +56,17 @@ public class GraphServiceFactoryImpl implements GraphServiceFactory {
         }
     }
 
-    private static GraphDatabaseService startNeo4j(File graphDbDir) {
-        LOG.info("neo4j starting at [" + graphDbDir.getAbsolutePath() + "]...");
+    private static GraphDatabaseService startNeo4j(File graphDbDir, GraphServiceProfile profile) {
+        LOG.info("neo4j starting at [" + graphDbDir.getAbsolutePath() + "] using [" + profile + "] profile...");
 
-        final GraphDatabaseService graphService = new GraphDatabaseFactory()
+        final GraphDatabaseBuilder builder = new GraphDatabaseFactory()
                 .setUserLogProvider(new Slf4jLogProvider())
-                .newEmbeddedDatabaseBuilder(graphDbDir)
-                .setConfig(GraphDatabaseSettings.keep_logical_logs, "keep_none")
-                .setConfig(GraphDatabaseSettings.logical_log_rotation_threshold, "250M")
-                // note that according to https://neo4j.com/developer/kb/checkpointing-and-log-pruning-interactions/#_triggering_of_checkpointing_and_pruning_events
-                // volumetric checkpointing is not supported in the community edition
-                //.setConfig(GraphDatabaseSettings.check_point_policy, "volumetric")
-                .setConfig(GraphDatabaseSettings.check_point_interval_time, "60s")
-//                .setConfig(GraphDatabaseSettings.check_point_interval_tx, "100000")
-                .newGraphDatabase();
+                .newEmbeddedDatabaseBuilder(graphDbDir);
+        for (Map.Entry<Setting<?>, String> setting : profile.getSettings().entrySet()) {
+            LOG.info("neo4j setting [" + setting.getKey().name() + "] to [" + setting.getValue() + "]");
+            builder.setConfig(setting.getKey(), setting.getValue());
+        }
+        final GraphDatabaseService graphService = builder.newGraphDatabase();
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             LOG.info("neo4j stopping...");
@@ -68,4 +79,13 @@ public class GraphServiceFactoryImpl implements GraphServiceFactory {
         return graphService;
     }
 
-}
\ No newline at end of file
+    private static void warmup(GraphDatabaseService graphDb) {
+        LOG.info("neo4j page cache warming up...");
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        long records = GraphServiceUtil.warmup(graphDb);
+        stopWatch.stop();
+        LOG.info("neo4j page cache warmed up by reading [" + records + "] nodes and relationships in [" + stopWatch.getTime() + "] ms");
+    }
+
+}
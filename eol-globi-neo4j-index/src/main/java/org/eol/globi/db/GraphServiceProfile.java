@@ -0,0 +1,88 @@
+package org.eol.globi.db;
+
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Neo4j settings tuned for the workload of a command.
+ *
+ * Rarer log rotations and checkpoints leave more i/o for imports and linking. For read-heavy exports, the page cache
+ * is sized as a larger fraction of the physical memory not taken by the heap than neo4j's default (half of it).
+ */
+
+public enum GraphServiceProfile {
+
+    // settings used before profiles were introduced
+    DEFAULT(0.0, null, "250M", "60s", null, false),
+    BULK_WRITE(0.0, null, "1G", "15m", "1000000", false),
+    LINK(0.0, null, "500M", "5m", null, false),
+    EXPORT_READ(0.75, GraphDatabaseSettings.TransactionStateMemoryAllocation.ON_HEAP, "250M", "60s", null, true);
+
+    private static final long MIN_PAGE_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private final double pageCacheFraction;
+    private final GraphDatabaseSettings.TransactionStateMemoryAllocation txStateMemoryAllocation;
+    private final String logRotationThreshold;
+    private final String checkPointIntervalTime;
+    private final String checkPointIntervalTx;
+    private final boolean warmupRecommended;
+
+    GraphServiceProfile(double pageCacheFraction,
+                        GraphDatabaseSettings.TransactionStateMemoryAllocation txStateMemoryAllocation,
+                        String logRotationThreshold,
+                        String checkPointIntervalTime,
+                        String checkPointIntervalTx,
+                        boolean warmupRecommended) {
+        this.pageCacheFraction = pageCacheFraction;
+        this.txStateMemoryAllocation = txStateMemoryAllocation;
+        this.logRotationThreshold = logRotationThreshold;
+        this.checkPointIntervalTime = checkPointIntervalTime;
+        this.checkPointIntervalTx = checkPointIntervalTx;
+        this.warmupRecommended = warmupRecommended;
+    }
+
+    /**
+     * @return whether workload is read-heavy enough to benefit from warming up the page cache before starting
+     */
+
+    public boolean isWarmupRecommended() {
+        return warmupRecommended;
+    }
+
+    public Map<Setting<?>, String> getSettings() {
+        return getSettings(physicalMemoryOrZero(), Runtime.getRuntime().maxMemory());
+    }
+
+    Map<Setting<?>, String> getSettings(long physicalMemory, long maxHeap) {
+        Map<Setting<?>, String> settings = new LinkedHashMap<>();
+        settings.put(GraphDatabaseSettings.keep_logical_logs, "keep_none");
+        settings.put(GraphDatabaseSettings.logical_log_rotation_threshold, logRotationThreshold);
+        // note that according to https://neo4j.com/developer/kb/checkpointing-and-log-pruning-interactions/#_triggering_of_checkpointing_and_pruning_events
+        // volumetric checkpointing is not supported in the community edition
+        settings.put(GraphDatabaseSettings.check_point_interval_time, checkPointIntervalTime);
+        if (checkPointIntervalTx != null) {
+            settings.put(GraphDatabaseSettings.check_point_interval_tx, checkPointIntervalTx);
+        }
+        if (txStateMemoryAllocation != null) {
+            settings.put(GraphDatabaseSettings.tx_state_memory_allocation, txStateMemoryAllocation.name());
+        }
+        long pageCacheBytes = (long) ((physicalMemory - maxHeap) * pageCacheFraction);
+        if (pageCacheBytes >= MIN_PAGE_CACHE_BYTES) {
+            settings.put(GraphDatabaseSettings.pagecache_memory, (pageCacheBytes / (1024 * 1024)) + "m");
+        }
+        return settings;
+    }
+
+    private static long physicalMemoryOrZero() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        return os instanceof com.sun.management.OperatingSystemMXBean
+                ? ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize()
+                : 0L;
+    }
+
+}
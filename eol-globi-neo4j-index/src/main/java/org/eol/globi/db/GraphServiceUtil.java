@@ -1,8 +1,9 @@
 package org.eol.globi.db;
 
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.factory.GraphDatabaseFactory;
-import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
 
 import java.io.File;
 
@@ -13,4 +14,28 @@ public final class GraphServiceUtil {
             throw new RuntimeException("graphDb not available");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads all nodes and relationships, including their labels and properties,
+     * so that the store files end up in the page cache (as far as it fits) before read-heavy work starts.
+     *
+     * @return number of nodes and relationships read
+     */
+
+    public static long warmup(GraphDatabaseService graphDb) {
+        long records = 0;
+        try (Transaction tx = graphDb.beginTx()) {
+            for (Node node : graphDb.getAllNodes()) {
+                node.getLabels();
+                node.getAllProperties();
+                records++;
+            }
+            for (Relationship relationship : graphDb.getAllRelationships()) {
+                relationship.getAllProperties();
+                records++;
+            }
+            tx.success();
+        }
+        return records;
+    }
+}
@@ -122,16 +122,20 @@ public class ResolvingTaxonIndexNoTxNeo4j2 extends NonResolvingTaxonIndexNoTxNeo
                 .stream()
                 .map(TaxonUtil::mapToTaxon)
                 .filter(selector)
-                .forEach(sameAsTaxon -> NodeUtil.connectTaxa(
-                        sameAsTaxon,
-                        resolvedTaxon,
-                        getGraphDbService(),
-                        RelTypes.SAME_AS
-                ));
+                .forEach(sameAsTaxon -> connectTaxa(sameAsTaxon, resolvedTaxon));
 
         return resolvedTaxon;
     }
 
+    protected void connectTaxa(Taxon sameAsTaxon, TaxonNode resolvedTaxon) {
+        NodeUtil.connectTaxa(
+                sameAsTaxon,
+                resolvedTaxon,
+                getGraphDbService(),
+                RelTypes.SAME_AS
+        );
+    }
+
     public void setEnricher(PropertyEnricher enricher) {
         this.enricher = enricher;
     }
@@ -9,18 +9,47 @@ import org.eol.globi.domain.Taxon;
 import org.eol.globi.domain.TaxonNode;
 import org.eol.globi.service.PropertyEnricher;
 import org.eol.globi.service.TaxonUtil;
+import org.eol.globi.util.LruMap;
+import org.eol.globi.util.MetricRegistry;
 import org.eol.globi.util.NodeUtil;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.ResourceIterator;
 
+import java.util.Map;
+
 public class ResolvingTaxonIndexNoTxNeo4j3 extends ResolvingTaxonIndexNoTxNeo4j2 {
 
+    private static final MetricRegistry.Counter HITS = MetricRegistry.getDefault().counter("taxonIndex.related.hits");
+    private static final MetricRegistry.Counter MISSES = MetricRegistry.getDefault().counter("taxonIndex.related.misses");
+
+    private static final int MAX_CACHED_TAXA = 100000;
+
+    // name and id lookups are repeated for many specimens (e.g., truncated names),
+    // so remember the relationship through which a taxon was found by key and value
+    private final Map<String, Long> relatedTaxonRelIds = new LruMap<>(MAX_CACHED_TAXA);
+
     public ResolvingTaxonIndexNoTxNeo4j3(PropertyEnricher enricher, GraphDatabaseService graphDbService) {
         super(enricher, graphDbService);
     }
 
+    @Override
+    protected TaxonNode createAndIndexTaxon(Taxon provided, Taxon resolved) throws NodeFactoryException {
+        forget(provided);
+        forget(resolved);
+        return super.createAndIndexTaxon(provided, resolved);
+    }
+
+    @Override
+    protected void connectTaxa(Taxon sameAsTaxon, TaxonNode resolvedTaxon) {
+        forget(sameAsTaxon);
+        forget(resolvedTaxon);
+        super.connectTaxa(sameAsTaxon, resolvedTaxon);
+    }
+
     @Override
     protected void indexTaxon(Taxon provided, TaxonNode resolved) throws NodeFactoryException {
         if (!StringUtils.equals(provided.getName(), resolved.getName())
@@ -33,16 +62,82 @@ public class ResolvingTaxonIndexNoTxNeo4j3 extends ResolvingTaxonIndexNoTxNeo4j2
 
     @Override
     public TaxonNode findTaxonByName(String name) throws NodeFactoryException {
-        return findTaxonOrRelated(PropertyAndValueDictionary.NAME, name, getGraphDbService());
+        return findCachedTaxonOrRelated(PropertyAndValueDictionary.NAME, name);
     }
 
     @Override
     public TaxonNode findTaxonById(String externalId) {
-        return findTaxonOrRelated(PropertyAndValueDictionary.EXTERNAL_ID, externalId, getGraphDbService());
+        return findCachedTaxonOrRelated(PropertyAndValueDictionary.EXTERNAL_ID, externalId);
+    }
+
+    private TaxonNode findCachedTaxonOrRelated(String key, String value) {
+        if (StringUtils.isBlank(value)) {
+            return findTaxonOrRelated(key, value, getGraphDbService());
+        }
+        String cacheKey = cacheKey(key, value);
+        Long relId = relatedTaxonRelIds.get(cacheKey);
+        Relationship rel = relId == null ? null : relatedTaxonRelOrNull(relId, key, value);
+        if (rel == null) {
+            MISSES.inc();
+            rel = findRelatedTaxonRel(key, value, getGraphDbService());
+            if (rel == null) {
+                relatedTaxonRelIds.remove(cacheKey);
+            } else {
+                relatedTaxonRelIds.put(cacheKey, rel.getId());
+            }
+        } else {
+            HITS.inc();
+        }
+        return rel == null ? null : new TaxonNode(rel.getEndNode());
+    }
+
+    /**
+     * @return relationship with given id if it still connects a taxon with given key and value to a related taxon,
+     * or null if the relationship no longer exists or its id was re-used after a rolled back transaction.
+     */
+
+    private Relationship relatedTaxonRelOrNull(long relId, String key, String value) {
+        try {
+            Relationship rel = getGraphDbService().getRelationshipById(relId);
+            boolean isRelatedTaxon = isRelatedTaxonType(rel.getType())
+                    && rel.getEndNode().hasLabel(NodeLabel.Taxon)
+                    && (hasTaxonProperty(rel.getStartNode(), key, value) || hasTaxonProperty(rel.getEndNode(), key, value));
+            return isRelatedTaxon ? rel : null;
+        } catch (NotFoundException ex) {
+            return null;
+        }
+    }
+
+    private static boolean isRelatedTaxonType(RelationshipType type) {
+        return type.name().equals(NodeUtil.asNeo4j(RelTypes.SAME_AS).name())
+                || type.name().equals(NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS).name());
+    }
+
+    private static boolean hasTaxonProperty(Node node, String key, String value) {
+        return node.hasLabel(NodeLabel.Taxon) && StringUtils.equals(value, (String) node.getProperty(key, null));
+    }
+
+    // nodes and relationships created for a taxon may change which taxon is found by its name or id
+    private void forget(Taxon taxon) {
+        if (taxon != null) {
+            relatedTaxonRelIds.remove(cacheKey(PropertyAndValueDictionary.NAME, taxon.getName()));
+            relatedTaxonRelIds.remove(cacheKey(PropertyAndValueDictionary.EXTERNAL_ID, taxon.getExternalId()));
+        }
+    }
+
+    private static String cacheKey(String key, String value) {
+        return key + "=" + value;
     }
 
     public static TaxonNode findTaxonOrRelated(String key, String value, GraphDatabaseService graphDbService) {
-        Node foundNode = null;
+        Relationship rel = findRelatedTaxonRel(key, value, graphDbService);
+        return rel == null
+                ? null
+                : new TaxonNode(rel.getEndNode());
+    }
+
+    private static Relationship findRelatedTaxonRel(String key, String value, GraphDatabaseService graphDbService) {
+        Relationship foundRel = null;
         try (ResourceIterator<Node> foundNames = graphDbService
                 .findNodes(
                         NodeLabel.Taxon,
@@ -57,16 +152,12 @@ public class ResolvingTaxonIndexNoTxNeo4j3 extends ResolvingTaxonIndexNoTxNeo4j2
                                 NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS)
                         );
                 for (Relationship rel : rels) {
-                    foundNode = rel.getEndNode();
-                    if (foundNode != null) {
-                        break;
-                    }
+                    foundRel = rel;
+                    break;
                 }
 
             }
-            return foundNode == null
-                    ? null
-                    : new TaxonNode(foundNode);
+            return foundRel;
         }
     }
 
@@ -1,6 +1,7 @@
 package org.eol.globi.tool;
 
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.db.GraphServiceProfile;
 import org.eol.globi.util.ResourceServiceLocal;
 import org.globalbioticinteractions.dataset.DatasetRegistry;
 import picocli.CommandLine;
@@ -21,11 +22,16 @@ public class CmdCompile extends CmdNeo4J {
         );
 
         try {
-            new IndexerDataset(registry, getNodeFactoryFactory(), getGraphServiceFactory())
+            new IndexerTimed(new IndexerDataset(registry, getNodeFactoryFactory(), getGraphServiceFactory()))
                     .index();
         } catch (StudyImporterException e) {
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.BULK_WRITE;
+    }
+
 }
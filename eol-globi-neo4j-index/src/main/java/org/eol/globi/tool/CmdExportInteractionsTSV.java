@@ -17,6 +17,8 @@ public class CmdExportInteractionsTSV extends CmdExportNeo4J {
     public void run() {
         try {
             new GraphExporterInteractionsTSVImpl(getNeo4jVersion())
+                    .setSegmentDir(getSegmentDirOrNull())
+                    .setNumberOfThreads(getExportThreads())
                     .export(
                             getGraphServiceFactory().getGraphService(),
                             new File(getBaseDir()),
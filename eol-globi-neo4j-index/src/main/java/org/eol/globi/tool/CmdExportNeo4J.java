@@ -1,6 +1,7 @@
 package org.eol.globi.tool;
 
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.db.GraphServiceProfile;
 import org.eol.globi.export.GraphExporterImpl;
 import picocli.CommandLine;
 
@@ -12,5 +13,41 @@ import java.io.File;
 )
 public abstract class CmdExportNeo4J extends CmdNeo4J {
 
+    @CommandLine.Option(
+            names = {"-segmentDir"},
+            description = "location of per-dataset interaction segments kept between exports: segments of datasets with unchanged content, properties and linked taxon cache/map are reused, and changes since the previous export are listed in *-changes.* files"
+    )
+    private String segmentDir;
+
+    @CommandLine.Option(
+            names = {"-exportThreads"},
+            description = "number of threads exporting interactions of datasets concurrently (default: number of available processors)"
+    )
+    private int exportThreads = Runtime.getRuntime().availableProcessors();
+
+    public String getSegmentDir() {
+        return segmentDir;
+    }
+
+    public void setSegmentDir(String segmentDir) {
+        this.segmentDir = segmentDir;
+    }
+
+    public int getExportThreads() {
+        return exportThreads;
+    }
+
+    public void setExportThreads(int exportThreads) {
+        this.exportThreads = exportThreads;
+    }
+
+    protected File getSegmentDirOrNull() {
+        return segmentDir == null ? null : new File(segmentDir);
+    }
+
+    @Override
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.EXPORT_READ;
+    }
 
 }
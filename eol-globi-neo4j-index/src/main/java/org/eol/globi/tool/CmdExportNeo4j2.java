@@ -15,11 +15,14 @@ public class CmdExportNeo4j2 extends CmdExportNeo4J {
     @Override
     public void run() {
         try {
-            new GraphExporterImpl().export(
-                    getGraphServiceFactory().getGraphService(),
-                    new File(getBaseDir()),
-                    getNeo4jVersion()
-            );
+            new GraphExporterImpl()
+                    .setSegmentDir(getSegmentDirOrNull())
+                    .setNumberOfThreads(getExportThreads())
+                    .export(
+                            getGraphServiceFactory().getGraphService(),
+                            new File(getBaseDir()),
+                            getNeo4jVersion()
+                    );
         } catch (StudyImporterException e) {
             throw new RuntimeException(e);
         }
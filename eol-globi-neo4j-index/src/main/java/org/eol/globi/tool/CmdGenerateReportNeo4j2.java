@@ -1,30 +1,27 @@
 package org.eol.globi.tool;
 
 import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.db.GraphServiceProfile;
 import org.eol.globi.util.NodeIdCollectorNeo4j2;
-import org.eol.globi.util.RelationshipListener;
 import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.DatasetNode;
 import org.eol.globi.domain.PropertyAndValueDictionary;
-import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.StudyConstant;
 import org.eol.globi.domain.StudyNode;
-import org.eol.globi.domain.TaxonNode;
 import org.eol.globi.service.CacheService;
-import org.eol.globi.service.TaxonUtil;
-import org.eol.globi.util.NodeTypeDirection;
 import org.eol.globi.util.NodeUtil;
-import org.globalbioticinteractions.dataset.Dataset;
 import org.mapdb.DB;
-import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.graphdb.index.IndexHits;
 import picocli.CommandLine;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -44,24 +41,18 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
     }
 
     public void run(Logger log) {
-
-        TransactionPerBatch transactionPerBatch = new TransactionPerBatch(getGraphDb());
-        transactionPerBatch.onStart();
+        // reports begin their own transactions, so that (re-)computed dataset reports are committed as they go
         log.info("report for collection generating ...");
         generateReportForCollection();
         log.info("report for collection done.");
 
-        transactionPerBatch.onStart();
         log.info("report for sources generating ...");
         generateReportForSourceIndividuals();
         log.info("report for sources done.");
 
-        transactionPerBatch.onStart();
         log.info("report for source organizations generating ...");
         generateReportForSourceOrganizations();
         log.info("report for source organizations done.");
-
-        transactionPerBatch.onFinish();
     }
 
     private GraphDatabaseService getGraphDb() {
@@ -164,35 +155,33 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
             distinctTaxonIdsNoMatch.clear();
 
             NodeUtil.findDatasetsByQuery(getGraphDb(), dataset -> {
-                Iterable<Relationship> studiesInDataset = dataset.getUnderlyingNode().getRelationships(
-                        Direction.INCOMING,
-                        NodeUtil.asNeo4j(RelTypes.IN_DATASET));
-                for (Relationship studyInDataset : studiesInDataset) {
-                    StudyNode study = new StudyNode(studyInDataset.getStartNode());
-                    countInteractionsAndTaxa(distinctTaxonIds, counter, distinctTaxonIdsNoMatch, study.getUnderlyingNode());
-                    studyCounter.count();
+                DatasetReport datasetReport = DatasetReport.getOrCompute(dataset.getUnderlyingNode());
+                addTaxonIds(distinctTaxonIds, datasetReport.getTaxonIds());
+                addTaxonIds(distinctTaxonIdsNoMatch, datasetReport.getTaxonIdsNoMatch());
+                counter.count(datasetReport.getInteractionCount());
+                studyCounter.count(datasetReport.getStudyCount());
+                if (datasetReport.getStudyCount() > 0) {
                     final String namespace = dataset.getNamespace();
                     distinctSources.add(namespace);
                     distinctDatasets.add(namespace);
                 }
             }, "namespace", namespaceHandler.datasetQueryFor(namespaceGroup), new NodeIdCollectorNeo4j2());
 
-            final Node node = getGraphDb().createNode();
-            String sourceIdPrefix = "globi:" + namespaceGroup;
-            node.setProperty(namespaceHandler.getNamespaceKey(), sourceIdPrefix);
-            node.setProperty(PropertyAndValueDictionary.COLLECTION, GLOBI_COLLECTION_NAME);
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS, counter.getCount() / 2);
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA, distinctTaxonIds.size());
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH, distinctTaxonIdsNoMatch.size());
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES, studyCounter.getCount());
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES, distinctSources.size());
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS, distinctDatasets.size());
-
-            getGraphDb()
-                    .index()
-                    .forNodes("reports")
-                    .add(node, namespaceHandler.getNamespaceKey(), sourceIdPrefix);
-
+            try (Transaction tx = getGraphDb().beginTx()) {
+                final Node node = getGraphDb().createNode();
+                String sourceIdPrefix = "globi:" + namespaceGroup;
+                node.setProperty(namespaceHandler.getNamespaceKey(), sourceIdPrefix);
+                node.setProperty(PropertyAndValueDictionary.COLLECTION, GLOBI_COLLECTION_NAME);
+                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS, counter.getCount() / 2);
+                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA, distinctTaxonIds.size());
+                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH, distinctTaxonIdsNoMatch.size());
+                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES, studyCounter.getCount());
+                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES, distinctSources.size());
+                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS, distinctDatasets.size());
+
+                replaceReport(node, namespaceHandler.getNamespaceKey(), sourceIdPrefix);
+                tx.success();
+            }
         }
     }
 
@@ -209,22 +198,38 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
     private void generateCollectionReport(DB reportCache) {
         final Set<Long> distinctTaxonIds = makeOrRemake(reportCache, "distinctTaxonIds");
         final Set<Long> distinctTaxonIdsNoMatch = makeOrRemake(reportCache, "distinctTaxonIdsNoMatch");
+        final Set<Long> datasetIds = makeOrRemake(reportCache, "datasetIds");
         final Counter counter = new Counter();
         final Counter studyCounter = new Counter();
         final Set<String> distinctSources = makeOrRemakeString(reportCache, "distinctSources");
         final Set<String> distinctDatasets = makeOrRemakeString(reportCache, "distinctDatasets");
 
+        // only studies without dataset are traversed here, studies in datasets are counted from (stored) dataset reports
         NodeUtil.findStudies(getGraphDb(), studyNode -> {
-            countInteractionsAndTaxa(distinctTaxonIds, counter, distinctTaxonIdsNoMatch, studyNode);
-            studyCounter.count();
-            final Dataset originatingDataset = new StudyNode(studyNode).getOriginatingDataset();
-            if (originatingDataset != null) {
-                final String namespace = originatingDataset.getNamespace();
+            final Node datasetNode = NodeUtil.getDataSetForStudy(new StudyNode(studyNode));
+            if (datasetNode == null) {
+                counter.count(DatasetReport.countInteractionsAndTaxa(distinctTaxonIds, distinctTaxonIdsNoMatch, studyNode));
+                studyCounter.count();
+            } else {
+                datasetIds.add(datasetNode.getId());
+                final String namespace = new DatasetNode(datasetNode).getNamespace();
                 distinctSources.add(namespace);
                 distinctDatasets.add(namespace);
             }
         });
 
+        // commit dataset reports one dataset at a time, so that (re-)computed reports are kept even if a later one fails
+        for (Long datasetId : datasetIds) {
+            try (Transaction tx = getGraphDb().beginTx()) {
+                DatasetReport datasetReport = DatasetReport.getOrCompute(getGraphDb().getNodeById(datasetId));
+                addTaxonIds(distinctTaxonIds, datasetReport.getTaxonIds());
+                addTaxonIds(distinctTaxonIdsNoMatch, datasetReport.getTaxonIdsNoMatch());
+                counter.count(datasetReport.getInteractionCount());
+                studyCounter.count(datasetReport.getStudyCount());
+                tx.success();
+            }
+        }
+
         try (Transaction tx = getGraphDb().beginTx()) {
             final Node node = getGraphDb().createNode();
             node.setProperty(PropertyAndValueDictionary.COLLECTION, GLOBI_COLLECTION_NAME);
@@ -234,11 +239,31 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
             node.setProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES, studyCounter.getCount());
             node.setProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES, distinctSources.size());
             node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS, distinctDatasets.size());
-            getGraphDb().index().forNodes("reports").add(node, PropertyAndValueDictionary.COLLECTION, GLOBI_COLLECTION_NAME);
+            replaceReport(node, PropertyAndValueDictionary.COLLECTION, GLOBI_COLLECTION_NAME);
             tx.success();
         }
     }
 
+    // reports of previous runs are replaced, so that graphs that are updated incrementally have a single report per key
+    private void replaceReport(Node node, String key, String value) {
+        Index<Node> reports = getGraphDb().index().forNodes("reports");
+        List<Node> previousReports = new ArrayList<>();
+        try (IndexHits<Node> hits = reports.get(key, value)) {
+            hits.forEach(previousReports::add);
+        }
+        for (Node previousReport : previousReports) {
+            reports.remove(previousReport);
+            previousReport.delete();
+        }
+        reports.add(node, key, value);
+    }
+
+    private static void addTaxonIds(Set<Long> ids, long[] idsToBeAdded) {
+        for (long id : idsToBeAdded) {
+            ids.add(id);
+        }
+    }
+
     private Set<Long> makeOrRemake(DB reportCache, String setName) {
         if (reportCache.exists(setName)) {
             reportCache.delete(setName);
@@ -253,36 +278,6 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
         return reportCache.createHashSet(setName).make();
     }
 
-
-    private void countInteractionsAndTaxa(Set<Long> ids, Counter interactionCounter, Set<Long> idsNoMatch, Node studyNode) {
-
-        RelationshipListener handler = specimen -> {
-            Iterable<Relationship> relationships = specimen.getEndNode().getRelationships();
-            for (Relationship relationship : relationships) {
-                InteractType[] types = InteractType.values();
-                for (InteractType type : types) {
-                    if (relationship.isType(NodeUtil.asNeo4j(type))
-                            && !relationship.hasProperty(PropertyAndValueDictionary.INVERTED)) {
-                        interactionCounter.count();
-                        break;
-                    }
-                }
-            }
-            Relationship classifiedAs = specimen.getEndNode().getSingleRelationship(NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS), Direction.OUTGOING);
-            if (classifiedAs != null) {
-                Node taxonNode = classifiedAs.getEndNode();
-                ids.add(taxonNode.getId());
-                if (!TaxonUtil.isResolved(new TaxonNode(taxonNode))) {
-                    idsNoMatch.add(taxonNode.getId());
-                }
-            }
-        };
-
-        NodeUtil.handleCollectedRelationshipsNoTx(
-                new NodeTypeDirection(studyNode),
-                handler);
-    }
-
     private static class Counter {
         int counter = 0;
 
@@ -290,9 +285,18 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
             counter++;
         }
 
+        public void count(int n) {
+            counter += n;
+        }
+
         public int getCount() {
             return counter;
         }
     }
 
+    @Override
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.EXPORT_READ;
+    }
+
 }
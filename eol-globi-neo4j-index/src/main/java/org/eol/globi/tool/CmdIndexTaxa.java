@@ -3,6 +3,7 @@ package org.eol.globi.tool;
 import org.eol.globi.data.NonResolvingTaxonIndexNeo4j3;
 import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.data.TaxonIndex;
+import org.eol.globi.db.GraphServiceProfile;
 import org.eol.globi.taxon.NonResolvingTaxonIndexNeo4j2;
 import org.eol.globi.taxon.TaxonFuzzySearchIndex;
 import org.eol.globi.util.NodeIdCollectorNeo4j2;
@@ -24,12 +25,12 @@ public class CmdIndexTaxa extends CmdNeo4J {
         if ("2".equals(getNeo4jVersion())) {
             final TaxonIndex taxonIndex = new NonResolvingTaxonIndexNeo4j2(getGraphServiceFactory().getGraphService());
             final IndexerNeo4j nameResolver = new NameResolver(getGraphServiceFactory(), new NodeIdCollectorNeo4j2(), taxonIndex);
-            final IndexerNeo4j taxonInteractionIndexer = new TaxonInteractionIndexer(getGraphServiceFactory(), new NodeIdCollectorNeo4j2());
+            final IndexerNeo4j taxonInteractionIndexer = new TaxonInteractionIndexer(getGraphServiceFactory(), new NodeIdCollectorNeo4j2(), Runtime.getRuntime().availableProcessors());
             index(nameResolver, taxonInteractionIndexer);
         } else {
             final TaxonIndex taxonIndex = new NonResolvingTaxonIndexNeo4j3(getGraphServiceFactory().getGraphService());
             final IndexerNeo4j nameResolver = new NameResolver(getGraphServiceFactory(), new NodeIdCollectorNeo4j3(), taxonIndex);
-            final IndexerNeo4j taxonInteractionIndexer = new TaxonInteractionIndexer(getGraphServiceFactory(), new NodeIdCollectorNeo4j3());
+            final IndexerNeo4j taxonInteractionIndexer = new TaxonInteractionIndexer(getGraphServiceFactory(), new NodeIdCollectorNeo4j3(), Runtime.getRuntime().availableProcessors());
             index(nameResolver, taxonInteractionIndexer);
         }
 
@@ -46,4 +47,10 @@ public class CmdIndexTaxa extends CmdNeo4J {
             }
         }
     }
+
+    @Override
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.LINK;
+    }
+
 }
@@ -1,6 +1,7 @@
 package org.eol.globi.tool;
 
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.db.GraphServiceProfile;
 import org.eol.globi.util.NodeIdCollectorNeo4j2;
 import org.eol.globi.util.NodeIdCollectorNeo4j3;
 import picocli.CommandLine;
@@ -19,7 +20,7 @@ public class CmdIndexTaxonStrings extends CmdNeo4J {
     public void run() {
         List<IndexerNeo4j> linkers = new ArrayList<>();
         if ("2".equals(getNeo4jVersion())) {
-            linkers.add(new LinkerTaxonIndexNeo4j2(getGraphServiceFactory(), new NodeIdCollectorNeo4j2()));
+            linkers.add(new LinkerTaxonIndexNeo4j2(getGraphServiceFactory(), new NodeIdCollectorNeo4j2(), Runtime.getRuntime().availableProcessors()));
         } else {
             linkers.add(new LinkerTaxonIndexNeo4j3(getGraphServiceFactory()));
         }
@@ -32,4 +33,10 @@ public class CmdIndexTaxonStrings extends CmdNeo4J {
             }
         }
     }
+
+    @Override
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.LINK;
+    }
+
 }
@@ -1,6 +1,10 @@
 package org.eol.globi.tool;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eol.globi.data.NodeLabel;
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.db.GraphServiceProfile;
 import org.eol.globi.service.ResourceService;
 import org.eol.globi.taxon.ResolvingTaxonIndexNoTxNeo4j2;
 import org.eol.globi.taxon.ResolvingTaxonIndexNoTxNeo4j3;
@@ -8,9 +12,18 @@ import org.eol.globi.taxon.TaxonCacheService;
 import org.eol.globi.util.NodeIdCollectorNeo4j2;
 import org.eol.globi.util.NodeIdCollectorNeo4j3;
 import org.eol.globi.util.ResourceServiceLocal;
+import org.eol.globi.util.ResourceUtil;
+import org.globalbioticinteractions.dataset.DatasetConstant;
+import org.neo4j.graphdb.Transaction;
 import picocli.CommandLine;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
 
 @CommandLine.Command(
         name = "interpret",
@@ -53,9 +66,69 @@ public class CmdInterpretTaxa extends CmdNeo4J {
         }
         try {
             taxonIndexer.index();
-        } catch (StudyImporterException e) {
+            setLinkedTaxonCacheHash(taxonCacheHash(resourceService));
+        } catch (StudyImporterException | IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * @return fingerprint of taxon cache and map: path, size and last modified time of local files,
+     * so that (large) taxon caches are not read again just to be fingerprinted, or content hash of other resources
+     */
+
+    private String taxonCacheHash(ResourceService resourceService) throws IOException {
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        for (String resource : Arrays.asList(getTaxonCachePath(), getTaxonMapPath())) {
+            File file = localFileOrNull(resource);
+            if (file == null) {
+                try (InputStream is = resourceService.retrieve(URI.create(resource))) {
+                    if (is == null) {
+                        throw new IOException("failed to access [" + resource + "]");
+                    }
+                    DigestUtils.updateDigest(digest, is);
+                }
+            } else {
+                DigestUtils.updateDigest(digest, file.getAbsolutePath() + "\t" + file.length() + "\t" + file.lastModified() + "\n");
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static File localFileOrNull(String resource) {
+        URI uri = URI.create(resource);
+        File file = null;
+        if (ResourceUtil.isFileURI(uri)) {
+            file = new File(uri);
+        } else if (uri.getScheme() == null && CmdInterpretTaxa.class.getResource(resource) == null) {
+            // relative to working directory, like resources of the resource service used to interpret names
+            file = new File(System.getProperty("user.dir"), resource);
+        }
+        return file != null && file.isFile() ? file : null;
+    }
+
+    // exported interactions of datasets are only reused if their names were linked with the same taxon cache and map
+    private void setLinkedTaxonCacheHash(String taxonCacheHash) {
+        String query = "2".equals(getNeo4jVersion())
+                ? "CYPHER 2.3 START dataset = node:datasets('namespace:*') "
+                : "MATCH (dataset:" + NodeLabel.Dataset.name() + ") ";
+        String linkedTaxonCacheHash = "dataset." + DatasetConstant.LINKED_TAXON_CACHE_HASH;
+        try (Transaction tx = getGraphServiceFactory().getGraphService().beginTx()) {
+            // only datasets linked with another taxon cache/map are updated
+            getGraphServiceFactory()
+                    .getGraphService()
+                    .execute(query
+                                    + "WHERE " + linkedTaxonCacheHash + " IS NULL OR " + linkedTaxonCacheHash + " <> {hash} "
+                                    + "SET " + linkedTaxonCacheHash + " = {hash}",
+                            Collections.singletonMap("hash", taxonCacheHash))
+                    .close();
+            tx.success();
+        }
+    }
+
+    @Override
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.LINK;
+    }
+
 }
@@ -1,8 +1,11 @@
 package org.eol.globi.tool;
 
 import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.data.NodeFactoryNeo4j3;
 import org.eol.globi.db.GraphServiceFactory;
 import org.eol.globi.db.GraphServiceFactoryImpl;
+import org.eol.globi.db.GraphServiceProfile;
+import org.eol.globi.util.MetricRegistry;
 import picocli.CommandLine;
 
 import java.io.File;
@@ -46,6 +49,28 @@ public abstract class CmdNeo4J implements Cmd {
     )
     private String neo4jVersion;
 
+    @CommandLine.Option(
+            names = {"-nodeIdCacheSize"},
+            description = "number of recently created or found studies, datasets, external ids and locations of which node ids are cached, per kind, to save index lookups during import (NOTE: only used with -neo4jVersion 3)",
+            hidden = true
+    )
+    private int nodeIdCacheSize = NodeFactoryNeo4j3.MAX_CACHED_NODE_IDS_DEFAULT;
+
+    @CommandLine.Option(
+            names = {"-neo4jProfile"},
+            description = "neo4j settings to use, one of ${COMPLETION-CANDIDATES} (default: depends on command)",
+            hidden = true
+    )
+    private GraphServiceProfile neo4jProfile;
+
+    @CommandLine.Option(
+            names = {"-neo4jWarmup"},
+            arity = "1",
+            description = "read entire graph into page cache before starting (default: true for read-heavy commands)",
+            hidden = true
+    )
+    private Boolean neo4jWarmup;
+
     @CommandLine.Option(
             names = {"-taxonCache"},
             defaultValue = "classpath:/org/eol/globi/tool/taxonCacheEmpty.tsv",
@@ -84,28 +109,37 @@ public abstract class CmdNeo4J implements Cmd {
     }
 
 
-    private static NodeFactoryFactory getNodeFactoryFactory(String neo4jVersion, GraphServiceFactory graphServiceFactory) {
+    private static NodeFactoryFactory getNodeFactoryFactory(String neo4jVersion, int nodeIdCacheSize, GraphServiceFactory graphServiceFactory) {
         return StringUtils.equals("2", neo4jVersion)
                 ? new NodeFactoryFactoryTransactingOnDatasetNeo4j2(graphServiceFactory)
-                : new NodeFactoryFactoryTransactingOnDatasetNeo4j3(graphServiceFactory);
+                : new NodeFactoryFactoryTransactingOnDatasetNeo4j3(graphServiceFactory, nodeIdCacheSize);
     }
 
-    private static GraphServiceFactoryImpl getGraphServiceFactory(String graphDbDir) {
+    private static GraphServiceFactoryImpl getGraphServiceFactory(String graphDbDir, GraphServiceProfile profile, boolean warmup) {
         return new GraphServiceFactoryImpl(
-                new File(graphDbDir));
+                new File(graphDbDir), profile, warmup);
+    }
+
+    /**
+     * @return neo4j settings suited for the workload of this command
+     */
+
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.DEFAULT;
     }
 
     protected NodeFactoryFactory getNodeFactoryFactory() {
         if (this.nodeFactoryFactory == null) {
-            this.nodeFactoryFactory = getNodeFactoryFactory(neo4jVersion, getGraphServiceFactory());
+            this.nodeFactoryFactory = getNodeFactoryFactory(neo4jVersion, nodeIdCacheSize, getGraphServiceFactory());
         }
         return nodeFactoryFactory;
     }
 
     protected GraphServiceFactory getGraphServiceFactory() {
         if (graphServiceFactory == null) {
+            GraphServiceProfile profile = neo4jProfile == null ? getDefaultGraphServiceProfile() : neo4jProfile;
             graphServiceFactory =
-                    getGraphServiceFactory(graphDbDir);
+                    getGraphServiceFactory(graphDbDir, profile, neo4jWarmup == null ? profile.isWarmupRecommended() : neo4jWarmup);
         }
         return graphServiceFactory;
     }
@@ -125,7 +159,9 @@ public abstract class CmdNeo4J implements Cmd {
         cmd.setNodeFactoryFactory(getNodeFactoryFactory());
         cmd.setCacheDir(getCacheDir());
         cmd.setNeo4jVersion(getNeo4jVersion());
-        cmd.run();
+        try (MetricRegistry.Timer.Context ignored = MetricRegistry.getDefault().timer("command." + cmd.getClass().getSimpleName()).time()) {
+            cmd.run();
+        }
     }
 
     public String getTaxonCachePath() {
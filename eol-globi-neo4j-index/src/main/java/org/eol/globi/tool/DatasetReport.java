@@ -0,0 +1,183 @@
+package org.eol.globi.tool;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.service.TaxonUtil;
+import org.eol.globi.util.NodeTypeDirection;
+import org.eol.globi.util.NodeUtil;
+import org.eol.globi.util.RelationshipListener;
+import org.globalbioticinteractions.dataset.DatasetConstant;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Report statistics (e.g., number of interactions, distinct taxa) of the studies in a single dataset.
+ *
+ * Statistics are stored with the dataset node, keyed by the content hash of the imported dataset and the hash of
+ * the taxon cache/map its names were linked with, so that reports only need to traverse the studies of datasets
+ * that changed, or were linked again, since the previous report.
+ * Distinct taxa are kept as taxon node ids, so that distinct taxa across datasets can be counted.
+ */
+
+class DatasetReport {
+
+    static final String REPORT_CONTENT_HASH = "reportContentHash";
+    static final String REPORT_INTERACTION_COUNT = "reportInteractionCount";
+    static final String REPORT_STUDY_COUNT = "reportStudyCount";
+    static final String REPORT_TAXON_IDS = "reportTaxonIds";
+    static final String REPORT_TAXON_IDS_NO_MATCH = "reportTaxonIdsNoMatch";
+
+    private final int interactionCount;
+    private final int studyCount;
+    private final long[] taxonIds;
+    private final long[] taxonIdsNoMatch;
+
+    private DatasetReport(int interactionCount, int studyCount, long[] taxonIds, long[] taxonIdsNoMatch) {
+        this.interactionCount = interactionCount;
+        this.studyCount = studyCount;
+        this.taxonIds = taxonIds;
+        this.taxonIdsNoMatch = taxonIdsNoMatch;
+    }
+
+    static DatasetReport getOrCompute(Node datasetNode) {
+        DatasetReport report = getStored(datasetNode);
+        if (report == null) {
+            report = compute(datasetNode);
+            String reportKey = getReportKey(datasetNode);
+            if (reportKey != null) {
+                report.store(datasetNode, reportKey);
+            }
+        }
+        return report;
+    }
+
+    static DatasetReport getStored(Node datasetNode) {
+        String reportKey = getReportKey(datasetNode);
+        DatasetReport report = null;
+        if (reportKey != null
+                && StringUtils.equals(reportKey, (String) datasetNode.getProperty(REPORT_CONTENT_HASH, null))) {
+            report = new DatasetReport(
+                    (Integer) datasetNode.getProperty(REPORT_INTERACTION_COUNT),
+                    (Integer) datasetNode.getProperty(REPORT_STUDY_COUNT),
+                    (long[]) datasetNode.getProperty(REPORT_TAXON_IDS),
+                    (long[]) datasetNode.getProperty(REPORT_TAXON_IDS_NO_MATCH));
+        }
+        return report;
+    }
+
+    static DatasetReport compute(Node datasetNode) {
+        Set<Long> taxonIds = new TreeSet<>();
+        Set<Long> taxonIdsNoMatch = new TreeSet<>();
+        int interactionCount = 0;
+        int studyCount = 0;
+        Iterable<Relationship> studiesInDataset = datasetNode.getRelationships(
+                Direction.INCOMING,
+                NodeUtil.asNeo4j(RelTypes.IN_DATASET));
+        for (Relationship studyInDataset : studiesInDataset) {
+            interactionCount += countInteractionsAndTaxa(taxonIds, taxonIdsNoMatch, studyInDataset.getStartNode());
+            studyCount++;
+        }
+        return new DatasetReport(interactionCount, studyCount, toArray(taxonIds), toArray(taxonIdsNoMatch));
+    }
+
+    /**
+     * @return number of interaction relationships of specimens in study, with each interaction between two specimens counted twice
+     */
+
+    static int countInteractionsAndTaxa(Set<Long> ids, Set<Long> idsNoMatch, Node studyNode) {
+        final int[] interactionCount = {0};
+        RelationshipListener handler = specimen -> {
+            Iterable<Relationship> relationships = specimen.getEndNode().getRelationships();
+            for (Relationship relationship : relationships) {
+                InteractType[] types = InteractType.values();
+                for (InteractType type : types) {
+                    if (relationship.isType(NodeUtil.asNeo4j(type))
+                            && !relationship.hasProperty(PropertyAndValueDictionary.INVERTED)) {
+                        interactionCount[0]++;
+                        break;
+                    }
+                }
+            }
+            Relationship classifiedAs = specimen.getEndNode().getSingleRelationship(NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS), Direction.OUTGOING);
+            if (classifiedAs != null) {
+                Node taxonNode = classifiedAs.getEndNode();
+                ids.add(taxonNode.getId());
+                if (!isResolved(taxonNode)) {
+                    idsNoMatch.add(taxonNode.getId());
+                }
+            }
+        };
+
+        NodeUtil.handleCollectedRelationshipsNoTx(
+                new NodeTypeDirection(studyNode),
+                handler);
+        return interactionCount[0];
+    }
+
+    void store(Node datasetNode, String reportKey) {
+        datasetNode.setProperty(REPORT_INTERACTION_COUNT, interactionCount);
+        datasetNode.setProperty(REPORT_STUDY_COUNT, studyCount);
+        datasetNode.setProperty(REPORT_TAXON_IDS, taxonIds);
+        datasetNode.setProperty(REPORT_TAXON_IDS_NO_MATCH, taxonIdsNoMatch);
+        datasetNode.setProperty(REPORT_CONTENT_HASH, reportKey);
+    }
+
+    int getInteractionCount() {
+        return interactionCount;
+    }
+
+    int getStudyCount() {
+        return studyCount;
+    }
+
+    long[] getTaxonIds() {
+        return taxonIds;
+    }
+
+    long[] getTaxonIdsNoMatch() {
+        return taxonIdsNoMatch;
+    }
+
+    /**
+     * Reads taxon properties without wrapping the node in a {@link org.eol.globi.domain.TaxonNode}, which (re-)adds
+     * the taxon label, and so locks the taxon node for writing while reports are generated.
+     */
+
+    private static boolean isResolved(Node taxonNode) {
+        Map<String, String> properties = new TreeMap<>();
+        for (String key : new String[]{PropertyAndValueDictionary.NAME, PropertyAndValueDictionary.EXTERNAL_ID, PropertyAndValueDictionary.PATH}) {
+            properties.put(key, NodeUtil.getPropertyStringValueOrDefault(taxonNode, key, null));
+        }
+        return TaxonUtil.isResolved(properties);
+    }
+
+    /**
+     * @return content hash of imported dataset, followed by hash of linked taxon cache/map (if any),
+     * because linking names again changes which taxa are resolved; or null if content hash is unknown
+     */
+
+    static String getReportKey(Node datasetNode) {
+        String contentHash = NodeUtil.getPropertyStringValueOrDefault(datasetNode, DatasetConstant.IMPORTED_CONTENT_HASH, null);
+        String linkedTaxonCacheHash = NodeUtil.getPropertyStringValueOrDefault(datasetNode, DatasetConstant.LINKED_TAXON_CACHE_HASH, null);
+        String reportKey = null;
+        if (StringUtils.isNotBlank(contentHash)) {
+            reportKey = StringUtils.isBlank(linkedTaxonCacheHash)
+                    ? contentHash
+                    : contentHash + ":" + linkedTaxonCacheHash;
+        }
+        return reportKey;
+    }
+
+    private static long[] toArray(Set<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+}
@@ -8,6 +8,7 @@ import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.eol.globi.data.CharsetConstant;
+import org.eol.globi.data.DatasetImportCheckpoints;
 import org.eol.globi.data.DatasetImporterForRegistry;
 import org.eol.globi.data.ParserFactoryLocal;
 import org.eol.globi.data.StudyImporterException;
@@ -70,6 +71,9 @@ public class IndexerDataset implements IndexerNeo4j {
                     nodeFactory,
                     registry);
             importer.setDatasetFilter(x -> !DatasetUtil.isDeprecated(x));
+            if (nodeFactory instanceof DatasetImportCheckpoints) {
+                importer.setCheckpoints((DatasetImportCheckpoints) nodeFactory);
+            }
             importer.setDataset(new DatasetLocal(new ResourceServiceLocal(inStream -> inStream)));
             importer.setLogger(new NullImportLogger());
             importer.importStudy();
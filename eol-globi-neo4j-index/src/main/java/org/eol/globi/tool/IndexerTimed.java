@@ -2,6 +2,7 @@ package org.eol.globi.tool;
 
 import org.apache.commons.lang3.time.StopWatch;
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.util.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,7 +22,7 @@ public class IndexerTimed implements IndexerNeo4j {
         stopWatch.start();
         String linkName = indexer.getClass().getSimpleName();
         LOG.info(linkName + " started...");
-        try {
+        try (MetricRegistry.Timer.Context ignored = MetricRegistry.getDefault().timer("indexer." + linkName).time()) {
             indexer.index();
         } finally {
             stopWatch.stop();
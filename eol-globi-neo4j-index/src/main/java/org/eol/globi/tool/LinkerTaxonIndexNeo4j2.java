@@ -8,6 +8,7 @@ import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.TaxonNode;
 import org.eol.globi.taxon.TaxonFuzzySearchIndexNeo4j2;
 import org.eol.globi.util.NodeIdCollector;
+import org.eol.globi.util.NodeProcessorImpl;
 import org.eol.globi.util.NodeUtil;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -26,41 +27,50 @@ import java.util.stream.Collectors;
 public class LinkerTaxonIndexNeo4j2 implements IndexerNeo4j {
 
     public static final String INDEX_TAXON_NAMES_AND_IDS = "taxonPaths";
+
+    // index entries are written on commit, so start with large transactions
+    private static final long INITIAL_BATCH_SIZE = 10000L;
+
     private final GraphServiceFactory factory;
     private NodeIdCollector nodeIdCollector;
+    private final int numberOfThreads;
 
     public LinkerTaxonIndexNeo4j2(GraphServiceFactory factory, NodeIdCollector nodeIdCollector) {
+        this(factory, nodeIdCollector, 1);
+    }
+
+    public LinkerTaxonIndexNeo4j2(GraphServiceFactory factory, NodeIdCollector nodeIdCollector, int numberOfThreads) {
         this.factory = factory;
         this.nodeIdCollector = nodeIdCollector;
+        this.numberOfThreads = numberOfThreads;
     }
 
     @Override
     public void index() {
         GraphDatabaseService graphDb = factory.getGraphService();
-        initIndexes(graphDb);
+        Index<Node> taxonPathsIndex;
+        TaxonFuzzySearchIndexNeo4j2 fuzzySearchIndex;
+        try (Transaction tx = graphDb.beginTx()) {
+            // index proxies resolve the transaction of the calling thread, so they can be shared across batches and threads
+            taxonPathsIndex = getTaxonPathsIndex(graphDb);
+            fuzzySearchIndex = getFuzzySearchIndex(graphDb);
+            tx.success();
+        }
 
-        NodeUtil.processNodes(
-                1000L,
+        // batch listener is notified after every taxon node, and commits once its adaptive batch size is reached,
+        // instead of after every fixed batch of nodes
+        new NodeProcessorImpl(
                 graphDb,
-                node -> onTaxonNode(
-                        getTaxonPathsIndex(graphDb),
-                        getFuzzySearchIndex(graphDb),
-                        node
-                )
-                ,
+                1L,
                 "*",
                 "*",
                 "taxons",
-                new TransactionPerBatch(graphDb),
-                nodeIdCollector);
-    }
-
-    private void initIndexes(GraphDatabaseService graphDb) {
-        try (Transaction tx = graphDb.beginTx()) {
-            getTaxonPathsIndex(graphDb);
-            getFuzzySearchIndex(graphDb);
-            tx.success();
-        }
+                nodeIdCollector
+        ).process(
+                node -> onTaxonNode(taxonPathsIndex, fuzzySearchIndex, node),
+                () -> new AdaptiveTransactionPerBatch(graphDb, INDEX_TAXON_NAMES_AND_IDS, INITIAL_BATCH_SIZE),
+                numberOfThreads
+        );
     }
 
     private TaxonFuzzySearchIndexNeo4j2 getFuzzySearchIndex(GraphDatabaseService graphDb) {
@@ -1,9 +1,11 @@
 package org.eol.globi.tool;
 
 import org.apache.commons.lang.time.StopWatch;
+import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.NodeFactoryException;
 import org.eol.globi.data.TaxonIndex;
 import org.eol.globi.db.GraphServiceFactory;
+import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.SpecimenNode;
 import org.eol.globi.domain.Study;
@@ -11,21 +13,31 @@ import org.eol.globi.domain.StudyConstant;
 import org.eol.globi.domain.StudyNode;
 import org.eol.globi.domain.Taxon;
 import org.eol.globi.domain.TaxonNode;
+import org.eol.globi.service.TaxonUtil;
 import org.eol.globi.util.BatchListener;
+import org.eol.globi.util.LruMap;
+import org.eol.globi.util.MetricRegistry;
 import org.eol.globi.util.NodeIdCollector;
 import org.eol.globi.util.NodeListener;
 import org.eol.globi.util.NodeUtil;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class NameResolver implements IndexerNeo4j {
     private static final Logger LOG = LoggerFactory.getLogger(NameResolver.class);
+    private static final MetricRegistry.Counter RESOLVED = MetricRegistry.getDefault().counter("resolveNames.resolved");
+    private static final MetricRegistry.Counter MEMOIZED = MetricRegistry.getDefault().counter("resolveNames.memoized");
+
+    private static final int MAX_MEMOIZED_NAMES = 100000;
 
     private final TaxonIndex taxonIndex;
     private final TaxonFilter taxonFilter;
@@ -61,13 +73,20 @@ public class NameResolver implements IndexerNeo4j {
         watchForBatch.start();
         final AtomicLong nameCount = new AtomicLong(0L);
 
-        final TransactionPerBatch batchListener = new TransactionPerBatch(graphService);
+        // commits after resolved names, sized by commit latency instead of by batch size,
+        // so a transaction may span many (small) studies: studies no longer start a transaction of their own
+        final AdaptiveTransactionPerBatch batchListener = new AdaptiveTransactionPerBatch(graphService, "resolveNames", batchSize);
+        final Map<String, MemoizedTaxon> resolvedTaxa = new LruMap<>(MAX_MEMOIZED_NAMES);
+        final LinkProgress progress = new LinkProgress(LOG::info, batchSize.intValue());
+        progress.start();
 
         NodeListener listener = node -> nameCount.set(resolveNamesInStudy(batchSize,
                 watchForBatch,
                 nameCount.get(),
                 node,
-                batchListener));
+                batchListener,
+                resolvedTaxa,
+                progress));
 
         LOG.info("resolving names...");
 
@@ -90,8 +109,9 @@ public class NameResolver implements IndexerNeo4j {
                                      StopWatch watchForBatch,
                                      Long nameCount,
                                      Node studyNode,
-                                     BatchListener batchListener) {
-        batchListener.onStart();
+                                     BatchListener batchListener,
+                                     Map<String, MemoizedTaxon> resolvedTaxa,
+                                     LinkProgress progress) {
         final Study study1 = new StudyNode(studyNode);
         final Iterable<Relationship> specimenNodes = NodeUtil.getSpecimensSupportedAndRefutedBy(study1);
         for (Relationship specimenNode : specimenNodes) {
@@ -105,7 +125,7 @@ public class NameResolver implements IndexerNeo4j {
                     final TaxonNode describedAsTaxon = new TaxonNode(describedAs.getEndNode());
                     try {
                         if (taxonFilter.shouldInclude(describedAsTaxon)) {
-                            Taxon resolvedTaxon = taxonIndex.getOrCreateTaxon(describedAsTaxon);
+                            Taxon resolvedTaxon = getOrCreateTaxon(describedAsTaxon, resolvedTaxa, studyNode.getGraphDatabase());
                             if (resolvedTaxon != null) {
                                 specimen.classifyAs(resolvedTaxon);
                             }
@@ -113,10 +133,10 @@ public class NameResolver implements IndexerNeo4j {
                     } catch (NodeFactoryException e) {
                         LOG.warn("failed to create taxon with name [" + describedAsTaxon.getName() + "] and id [" + describedAsTaxon.getExternalId() + "]", e);
                     } finally {
+                        progress.progress();
                         nameCount++;
+                        batchListener.onStart();
                         if (nameCount % batchSize == 0) {
-                            batchListener.onFinish();
-                            ;
                             watchForBatch.stop();
                             final long duration = watchForBatch.getTime();
                             if (duration > 0) {
@@ -124,7 +144,6 @@ public class NameResolver implements IndexerNeo4j {
                             }
                             watchForBatch.reset();
                             watchForBatch.start();
-                            batchListener.onStart();
                         }
                     }
                 }
@@ -133,6 +152,56 @@ public class NameResolver implements IndexerNeo4j {
         return nameCount;
     }
 
+    Taxon getOrCreateTaxon(TaxonNode describedAsTaxon, Map<String, MemoizedTaxon> resolvedTaxa, GraphDatabaseService graphService) throws NodeFactoryException {
+        // same original names (and ids) are used by many specimens, so only resolve them once
+        String key = new TreeMap<>(TaxonUtil.taxonToMap(describedAsTaxon)).toString();
+        MemoizedTaxon memoized = resolvedTaxa.get(key);
+        Node memoizedNode = memoized == null ? null : memoized.nodeOrNull(graphService);
+        Taxon resolvedTaxon;
+        if (memoizedNode == null) {
+            RESOLVED.inc();
+            resolvedTaxon = taxonIndex.getOrCreateTaxon(describedAsTaxon);
+            if (resolvedTaxon instanceof TaxonNode) {
+                resolvedTaxa.put(key, new MemoizedTaxon((TaxonNode) resolvedTaxon));
+            } else if (memoized != null) {
+                resolvedTaxa.remove(key);
+            }
+        } else {
+            MEMOIZED.inc();
+            resolvedTaxon = new TaxonNode(memoizedNode);
+        }
+        return resolvedTaxon;
+    }
+
+    /**
+     * Resolved taxon node, remembered by id along with its name and id: the memo outlives the (batch) transaction
+     * that created the node, so a node that was rolled back (or whose id was reused since) no longer matches.
+     */
+
+    static class MemoizedTaxon {
+        private final long nodeId;
+        private final String name;
+        private final String externalId;
+
+        MemoizedTaxon(TaxonNode taxon) {
+            this.nodeId = taxon.getUnderlyingNode().getId();
+            this.name = taxon.getName();
+            this.externalId = taxon.getExternalId();
+        }
+
+        Node nodeOrNull(GraphDatabaseService graphService) {
+            try {
+                Node node = graphService.getNodeById(nodeId);
+                return StringUtils.equals(name, NodeUtil.getPropertyStringValueOrDefault(node, PropertyAndValueDictionary.NAME, null))
+                        && StringUtils.equals(externalId, NodeUtil.getPropertyStringValueOrDefault(node, PropertyAndValueDictionary.EXTERNAL_ID, null))
+                        ? node
+                        : null;
+            } catch (NotFoundException ex) {
+                return null;
+            }
+        }
+    }
+
     public static String getProgressMsg(Long count, long duration) {
         return String.format("[%.2f] taxon/s over [%.2f] s", (float) count * 1000.0 / duration, duration / 1000.0);
     }
@@ -65,6 +65,35 @@ public class NodeFactoryFactoryTransactingOnDatasetNeo4j2 implements NodeFactory
                     return graphServiceFactory.getGraphService().beginTx();
                 }
 
+                @Override
+                public boolean isImported(Dataset dataset) {
+                    startBatchTransactionIfNeeded();
+                    return super.isImported(dataset);
+                }
+
+                @Override
+                public void setImported(Dataset dataset) throws NodeFactoryException {
+                    startBatchTransactionIfNeeded();
+                    super.setImported(dataset);
+                }
+
+                @Override
+                public void removeImported(Dataset dataset) throws NodeFactoryException {
+                    startBatchTransactionIfNeeded();
+                    super.removeImported(dataset);
+                }
+
+                @Override
+                protected void onRemovedBatch() {
+                    tx.getAndUpdate(transaction -> {
+                        if (transaction != null) {
+                            transaction.success();
+                            transaction.close();
+                        }
+                        return beginTx();
+                    });
+                }
+
                 @Override
                 public SpecimenNode createSpecimen(Study study, Taxon taxon, RelTypes... types) throws NodeFactoryException {
                     startBatchTransactionIfNeeded();
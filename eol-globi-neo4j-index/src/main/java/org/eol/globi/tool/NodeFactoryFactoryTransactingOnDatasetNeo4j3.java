@@ -7,22 +7,41 @@ import org.eol.globi.db.GraphServiceFactory;
 import org.globalbioticinteractions.dataset.Dataset;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class NodeFactoryFactoryTransactingOnDatasetNeo4j3 implements NodeFactoryFactory {
+    private static final long INDEXES_ONLINE_TIMEOUT_HOURS = 24;
+    private static final Logger LOG = LoggerFactory.getLogger(NodeFactoryFactoryTransactingOnDatasetNeo4j3.class);
+
     private GraphServiceFactory graphServiceFactory;
+    private final int maxCachedNodeIds;
 
     public NodeFactoryFactoryTransactingOnDatasetNeo4j3(GraphServiceFactory graphServiceFactory) {
+        this(graphServiceFactory, NodeFactoryNeo4j3.MAX_CACHED_NODE_IDS_DEFAULT);
+    }
+
+    /**
+     * Indexes (but no uniqueness constraints) are created before the first dataset is imported.
+     *
+     * @param maxCachedNodeIds number of node ids cached per kind of node, see {@link NodeFactoryNeo4j3}
+     */
+
+    public NodeFactoryFactoryTransactingOnDatasetNeo4j3(GraphServiceFactory graphServiceFactory, int maxCachedNodeIds) {
         this.graphServiceFactory = graphServiceFactory;
+        this.maxCachedNodeIds = maxCachedNodeIds;
     }
 
     @Override
     public NodeFactory create(GraphDatabaseService service) {
         GraphDatabaseService graphService = graphServiceFactory.getGraphService();
+        createIndexesInOwnTransaction(graphService);
         try (Transaction tx = graphService.beginTx()) {
-            NodeFactory nodeFactory = new NodeFactoryNeo4j3(graphService) {
+            NodeFactory nodeFactory = new NodeFactoryNeo4j3(graphService, maxCachedNodeIds) {
                 final AtomicReference<Transaction> tx = new AtomicReference<>();
                 final AtomicBoolean closing = new AtomicBoolean(false);
 
@@ -41,6 +60,41 @@ public class NodeFactoryFactoryTransactingOnDatasetNeo4j3 implements NodeFactory
                     return super.getOrCreateDataset(dataset);
                 }
 
+                @Override
+                public boolean isImported(Dataset dataset) {
+                    startTransactionIfNeeded();
+                    return super.isImported(dataset);
+                }
+
+                @Override
+                public void setImported(Dataset dataset) throws NodeFactoryException {
+                    startTransactionIfNeeded();
+                    super.setImported(dataset);
+                }
+
+                @Override
+                public void removeImported(Dataset dataset) throws NodeFactoryException {
+                    startTransactionIfNeeded();
+                    super.removeImported(dataset);
+                }
+
+                @Override
+                protected void onRemovedBatch() {
+                    tx.getAndUpdate(transaction -> {
+                        if (transaction != null) {
+                            transaction.success();
+                            transaction.close();
+                        }
+                        return graphServiceFactory.getGraphService().beginTx();
+                    });
+                }
+
+                void startTransactionIfNeeded() {
+                    tx.getAndUpdate(transaction -> transaction == null
+                            ? graphServiceFactory.getGraphService().beginTx()
+                            : transaction);
+                }
+
                 @Override
                 public void close() {
                     closing.set(true);
@@ -57,4 +111,50 @@ public class NodeFactoryFactoryTransactingOnDatasetNeo4j3 implements NodeFactory
         }
 
     }
+
+    private static void createIndexesInOwnTransaction(GraphDatabaseService graphService) {
+        // schema updates cannot share a transaction with data updates, and the calling thread may have a transaction open
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                createIndexes(graphService);
+            } catch (RuntimeException ex) {
+                failure.set(ex);
+            }
+        }, "create-indexes");
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while creating indexes", ex);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private static void createIndexes(GraphDatabaseService graphService) {
+        LOG.info("creating indexes...");
+        boolean hasLocationKeys;
+        try (Transaction tx = graphService.beginTx()) {
+            hasLocationKeys = NodeFactoryNeo4j3.hasLocationKeyIndex(graphService);
+            NodeFactoryNeo4j3.initIndexes(graphService);
+            tx.success();
+        }
+        if (!hasLocationKeys) {
+            // graph may have been compiled before location keys were introduced
+            long count = NodeFactoryNeo4j3.addMissingLocationKeys(graphService);
+            LOG.info("added location keys to [" + count + "] locations");
+        }
+        awaitIndexesOnline(graphService);
+        LOG.info("creating indexes done.");
+    }
+
+    private static void awaitIndexesOnline(GraphDatabaseService graphService) {
+        try (Transaction tx = graphService.beginTx()) {
+            graphService.schema().awaitIndexesOnline(INDEXES_ONLINE_TIMEOUT_HOURS, TimeUnit.HOURS);
+            tx.success();
+        }
+    }
 }
@@ -0,0 +1,202 @@
+package org.eol.globi.tool;
+
+import org.eol.globi.util.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs stages (e.g., commands) as soon as the stages they depend on have completed.
+ *
+ * Each stage declares which resources (e.g., parts of the graph, or exported files) it reads and writes.
+ * A stage depends on an earlier declared stage if either writes a resource that the other reads or writes,
+ * so independent stages run concurrently, and results are the same as when running all stages in declaration order.
+ */
+
+public class StageScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(StageScheduler.class);
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    public StageScheduler add(String name, Collection<String> reads, Collection<String> writes, Runnable task) {
+        if (stages.containsKey(name)) {
+            throw new IllegalArgumentException("stage [" + name + "] already exists");
+        }
+        Stage stage = new Stage(name, reads, writes, task);
+        List<Stage> conflicting = new ArrayList<>();
+        for (Stage earlier : stages.values()) {
+            if (conflicts(earlier, stage)) {
+                conflicting.add(earlier);
+            }
+        }
+        // only keep direct dependencies, to keep reported schedule readable
+        for (Stage dependency : conflicting) {
+            if (conflicting.stream().noneMatch(other -> dependsOn(other, dependency))) {
+                stage.dependencies.add(dependency);
+            }
+        }
+        stages.put(name, stage);
+        return this;
+    }
+
+    public void run() {
+        if (stages.isEmpty()) {
+            return;
+        }
+        LOG.info("running stages " + describeDependencies());
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(stages.size());
+        try {
+            Map<Stage, CompletableFuture<Void>> completed = new LinkedHashMap<>();
+            for (Stage stage : stages.values()) {
+                CompletableFuture<?>[] dependencies = stage.dependencies
+                        .stream()
+                        .map(completed::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                completed.put(stage, CompletableFuture
+                        .allOf(dependencies)
+                        .thenRunAsync(() -> runStage(stage, start), executor));
+            }
+            CompletableFuture.allOf(completed.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("failed to run stages", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        LOG.info("ran stages in [" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "] ms with critical path " + describeCriticalPath());
+    }
+
+    /**
+     * Runs all stages one after another, in declaration order, on the calling thread,
+     * e.g., to check that running independent stages concurrently does not change results.
+     */
+
+    public void runSerially() {
+        if (stages.isEmpty()) {
+            return;
+        }
+        LOG.info("running stages serially " + stages.keySet());
+        long start = System.nanoTime();
+        for (Stage stage : stages.values()) {
+            runStage(stage, start);
+        }
+        LOG.info("ran stages serially in [" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "] ms");
+    }
+
+    private void runStage(Stage stage, long schedulerStart) {
+        stage.startNanos = System.nanoTime() - schedulerStart;
+        LOG.info("stage [" + stage.name + "] started at [" + TimeUnit.NANOSECONDS.toMillis(stage.startNanos) + "] ms");
+        try (MetricRegistry.Timer.Context ignored = MetricRegistry.getDefault().timer("stage." + stage.name).time()) {
+            stage.task.run();
+        } finally {
+            stage.endNanos = System.nanoTime() - schedulerStart;
+            LOG.info("stage [" + stage.name + "] completed in [" + TimeUnit.NANOSECONDS.toMillis(stage.endNanos - stage.startNanos) + "] ms");
+        }
+    }
+
+    Map<String, List<String>> getDependencies() {
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        for (Stage stage : stages.values()) {
+            List<String> names = new ArrayList<>();
+            stage.dependencies.forEach(dependency -> names.add(dependency.name));
+            dependencies.put(stage.name, names);
+        }
+        return dependencies;
+    }
+
+    /**
+     * @return longest (by duration) chain of dependent stages of the last run
+     */
+
+    List<String> getCriticalPath() {
+        Map<Stage, Long> finishedAt = new LinkedHashMap<>();
+        Map<Stage, Stage> predecessors = new LinkedHashMap<>();
+        Stage last = null;
+        // stages only depend on earlier declared stages, so declaration order is a topological order
+        for (Stage stage : stages.values()) {
+            long startAt = 0;
+            for (Stage dependency : stage.dependencies) {
+                if (finishedAt.get(dependency) > startAt) {
+                    startAt = finishedAt.get(dependency);
+                    predecessors.put(stage, dependency);
+                }
+            }
+            finishedAt.put(stage, startAt + stage.getDurationNanos());
+            if (last == null || finishedAt.get(stage) > finishedAt.get(last)) {
+                last = stage;
+            }
+        }
+        LinkedList<String> path = new LinkedList<>();
+        for (Stage stage = last; stage != null; stage = predecessors.get(stage)) {
+            path.addFirst(stage.name);
+        }
+        return path;
+    }
+
+    private String describeDependencies() {
+        List<String> descriptions = new ArrayList<>();
+        getDependencies().forEach((name, dependencies) -> descriptions.add(dependencies.isEmpty()
+                ? "[" + name + "]"
+                : "[" + name + "] after " + dependencies));
+        return String.join(", ", descriptions);
+    }
+
+    private String describeCriticalPath() {
+        long totalNanos = 0;
+        for (String name : getCriticalPath()) {
+            totalNanos += stages.get(name).getDurationNanos();
+        }
+        return getCriticalPath() + " of [" + TimeUnit.NANOSECONDS.toMillis(totalNanos) + "] ms";
+    }
+
+    private static boolean conflicts(Stage earlier, Stage later) {
+        return !Collections.disjoint(earlier.writes, later.reads)
+                || !Collections.disjoint(earlier.writes, later.writes)
+                || !Collections.disjoint(earlier.reads, later.writes);
+    }
+
+    private static boolean dependsOn(Stage stage, Stage other) {
+        return stage.dependencies.contains(other)
+                || stage.dependencies.stream().anyMatch(dependency -> dependsOn(dependency, other));
+    }
+
+    private static class Stage {
+        private final String name;
+        private final Set<String> reads;
+        private final Set<String> writes;
+        private final Runnable task;
+        private final List<Stage> dependencies = new ArrayList<>();
+
+        private volatile long startNanos = 0;
+        private volatile long endNanos = 0;
+
+        Stage(String name, Collection<String> reads, Collection<String> writes, Runnable task) {
+            this.name = name;
+            this.reads = new HashSet<>(reads);
+            this.writes = new HashSet<>(writes);
+            this.task = task;
+        }
+
+        long getDurationNanos() {
+            return endNanos - startNanos;
+        }
+    }
+
+}
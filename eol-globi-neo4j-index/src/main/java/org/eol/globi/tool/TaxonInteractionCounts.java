@@ -0,0 +1,256 @@
+package org.eol.globi.tool;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Counts interactions by source taxon node id, interaction type id and target taxon node id.
+ *
+ * Entries are kept in an off-heap open addressing hash table with fixed size slots,
+ * so that no keys or counts are boxed and the table does not add to the heap.
+ *
+ * The table grows up to a maximum number of slots. Once full, counts of all source taxa but the one being counted
+ * are spilled to a temporary file, and the table is reused. So, all interactions of a source taxon are expected to be
+ * counted before those of the next source taxon: spilled counts are final.
+ *
+ * Not thread-safe: use one instance per thread.
+ */
+
+class TaxonInteractionCounts implements Closeable {
+
+    interface Listener {
+        void on(long sourceTaxonId, byte interactTypeId, long targetTaxonId, long count);
+    }
+
+    private static final int SOURCE_OFFSET = 0;
+    private static final int TARGET_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    private static final int TYPE_OFFSET = 20;
+    private static final int SLOT_SIZE = 24;
+
+    static final int INITIAL_SLOTS = 1 << 16;
+
+    // off-heap budget shared by all tables of an indexer: 2^24 slots of 24 bytes take 384MB
+    private static final int MAX_SLOTS_TOTAL = 1 << 24;
+
+    private final int maxSlots;
+    private ByteBuffer slots;
+    private int mask;
+    private int size = 0;
+
+    private File spill = null;
+    private int spilled = 0;
+
+    TaxonInteractionCounts() {
+        this(INITIAL_SLOTS, maxSlotsPerTable(1));
+    }
+
+    TaxonInteractionCounts(int initialSlots, int maxSlots) {
+        this.maxSlots = Math.max(2, maxSlots);
+        allocate(Math.min(this.maxSlots, Integer.highestOneBit(Math.max(2, initialSlots - 1) << 1)));
+    }
+
+    /**
+     * @return maximum number of slots of each table, so that given number of tables stay within the off-heap budget
+     */
+
+    static int maxSlotsPerTable(int numberOfTables) {
+        return Math.max(INITIAL_SLOTS, Integer.highestOneBit(MAX_SLOTS_TOTAL / Math.max(1, numberOfTables)));
+    }
+
+    void increment(long sourceTaxonId, byte interactTypeId, long targetTaxonId) {
+        if (size >= maxSize()) {
+            if (mask + 1 < maxSlots) {
+                grow();
+            } else {
+                spillAllBut(sourceTaxonId);
+                if (size >= maxSize()) {
+                    // a single source taxon fills the table: exceed the budget rather than fail
+                    grow();
+                }
+            }
+        }
+        int offset = find(sourceTaxonId, interactTypeId, targetTaxonId);
+        int count = slots.getInt(offset + COUNT_OFFSET);
+        if (count == 0) {
+            slots.putLong(offset + SOURCE_OFFSET, sourceTaxonId);
+            slots.putLong(offset + TARGET_OFFSET, targetTaxonId);
+            slots.put(offset + TYPE_OFFSET, interactTypeId);
+            size++;
+        }
+        slots.putInt(offset + COUNT_OFFSET, count + 1);
+    }
+
+    /**
+     * @return count of given taxon interaction, not including counts that were spilled
+     */
+
+    long get(long sourceTaxonId, byte interactTypeId, long targetTaxonId) {
+        return slots.getInt(find(sourceTaxonId, interactTypeId, targetTaxonId) + COUNT_OFFSET);
+    }
+
+    /**
+     * @return number of distinct taxon interactions counted, including those that were spilled
+     */
+
+    int size() {
+        return size + spilled;
+    }
+
+    void forEach(Listener listener) {
+        if (spill != null) {
+            forEachSpilled(listener);
+        }
+        for (int slot = 0; slot <= mask; slot++) {
+            int offset = slot * SLOT_SIZE;
+            int count = slots.getInt(offset + COUNT_OFFSET);
+            if (count > 0) {
+                listener.on(slots.getLong(offset + SOURCE_OFFSET),
+                        slots.get(offset + TYPE_OFFSET),
+                        slots.getLong(offset + TARGET_OFFSET),
+                        count);
+            }
+        }
+    }
+
+    // offset of slot with given key, or of empty slot where key should go
+    private int find(long sourceTaxonId, byte interactTypeId, long targetTaxonId) {
+        int slot = hash(sourceTaxonId, interactTypeId, targetTaxonId) & mask;
+        while (true) {
+            int offset = slot * SLOT_SIZE;
+            if (slots.getInt(offset + COUNT_OFFSET) == 0
+                    || (slots.getLong(offset + SOURCE_OFFSET) == sourceTaxonId
+                    && slots.getLong(offset + TARGET_OFFSET) == targetTaxonId
+                    && slots.get(offset + TYPE_OFFSET) == interactTypeId)) {
+                return offset;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int hash(long sourceTaxonId, byte interactTypeId, long targetTaxonId) {
+        long h = sourceTaxonId * 0x9E3779B97F4A7C15L;
+        h ^= (targetTaxonId + interactTypeId) * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int maxSize() {
+        // keep load factor at 3/4
+        return (mask + 1) - ((mask + 1) >>> 2);
+    }
+
+    private void grow() {
+        int numberOfSlots = mask + 1;
+        ByteBuffer previous = slots;
+        allocate(numberOfSlots << 1);
+        for (int slot = 0; slot < numberOfSlots; slot++) {
+            int offset = slot * SLOT_SIZE;
+            int count = previous.getInt(offset + COUNT_OFFSET);
+            if (count > 0) {
+                long sourceTaxonId = previous.getLong(offset + SOURCE_OFFSET);
+                long targetTaxonId = previous.getLong(offset + TARGET_OFFSET);
+                byte interactTypeId = previous.get(offset + TYPE_OFFSET);
+                int newOffset = find(sourceTaxonId, interactTypeId, targetTaxonId);
+                slots.putLong(newOffset + SOURCE_OFFSET, sourceTaxonId);
+                slots.putLong(newOffset + TARGET_OFFSET, targetTaxonId);
+                slots.put(newOffset + TYPE_OFFSET, interactTypeId);
+                slots.putInt(newOffset + COUNT_OFFSET, count);
+            }
+        }
+    }
+
+    private void allocate(int numberOfSlots) {
+        slots = ByteBuffer.allocateDirect(numberOfSlots * SLOT_SIZE);
+        mask = numberOfSlots - 1;
+    }
+
+    private void spillAllBut(long sourceTaxonId) {
+        int kept = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            int offset = slot * SLOT_SIZE;
+            if (slots.getInt(offset + COUNT_OFFSET) > 0 && slots.getLong(offset + SOURCE_OFFSET) == sourceTaxonId) {
+                kept++;
+            }
+        }
+        long[] keptTargets = new long[kept];
+        byte[] keptTypes = new byte[kept];
+        int[] keptCounts = new int[kept];
+        kept = 0;
+        try {
+            if (spill == null) {
+                spill = File.createTempFile("taxonInteractions", ".bin", FileUtils.getTempDirectory());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spill, true)))) {
+                for (int slot = 0; slot <= mask; slot++) {
+                    int offset = slot * SLOT_SIZE;
+                    int count = slots.getInt(offset + COUNT_OFFSET);
+                    if (count > 0) {
+                        if (slots.getLong(offset + SOURCE_OFFSET) == sourceTaxonId) {
+                            keptTargets[kept] = slots.getLong(offset + TARGET_OFFSET);
+                            keptTypes[kept] = slots.get(offset + TYPE_OFFSET);
+                            keptCounts[kept] = count;
+                            kept++;
+                        } else {
+                            out.writeLong(slots.getLong(offset + SOURCE_OFFSET));
+                            out.writeByte(slots.get(offset + TYPE_OFFSET));
+                            out.writeLong(slots.getLong(offset + TARGET_OFFSET));
+                            out.writeInt(count);
+                            spilled++;
+                        }
+                        slots.putInt(offset + COUNT_OFFSET, 0);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("failed to spill taxon interaction counts", ex);
+        }
+        size = 0;
+        for (int i = 0; i < kept; i++) {
+            int offset = find(sourceTaxonId, keptTypes[i], keptTargets[i]);
+            slots.putLong(offset + SOURCE_OFFSET, sourceTaxonId);
+            slots.putLong(offset + TARGET_OFFSET, keptTargets[i]);
+            slots.put(offset + TYPE_OFFSET, keptTypes[i]);
+            slots.putInt(offset + COUNT_OFFSET, keptCounts[i]);
+            size++;
+        }
+    }
+
+    private void forEachSpilled(Listener listener) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(spill)))) {
+            while (true) {
+                long sourceTaxonId;
+                try {
+                    sourceTaxonId = in.readLong();
+                } catch (EOFException ex) {
+                    break;
+                }
+                byte interactTypeId = in.readByte();
+                long targetTaxonId = in.readLong();
+                listener.on(sourceTaxonId, interactTypeId, targetTaxonId, in.readInt());
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("failed to read spilled taxon interaction counts", ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        FileUtils.deleteQuietly(spill);
+        spill = null;
+        spilled = 0;
+    }
+
+}
@@ -5,30 +5,53 @@ import org.eol.globi.db.GraphServiceFactory;
 import org.eol.globi.domain.InteractType;
 import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.SpecimenNode;
+import org.eol.globi.util.NodeIdBitmap;
 import org.eol.globi.util.NodeIdCollector;
 import org.eol.globi.util.NodeProcessorImpl;
 import org.eol.globi.util.NodeUtil;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
-import org.mapdb.Fun;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class TaxonInteractionIndexer implements IndexerNeo4j {
     private static final Logger LOG = LoggerFactory.getLogger(TaxonInteractionIndexer.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final InteractType[] INTERACT_TYPES = InteractType.values();
+    private static final RelationshipType[] INTERACT_REL_TYPES = NodeUtil.asNeo4j(INTERACT_TYPES);
+    private static final Map<String, Byte> INTERACT_TYPE_IDS = interactTypeIds();
+
     private final GraphServiceFactory factory;
-    private NodeIdCollector nodeIdCollector;
+    private final NodeIdCollector nodeIdCollector;
+    private final int numberOfThreads;
 
     TaxonInteractionIndexer(GraphServiceFactory factory, NodeIdCollector nodeIdCollector) {
+        this(factory, nodeIdCollector, 1);
+    }
+
+    TaxonInteractionIndexer(GraphServiceFactory factory, NodeIdCollector nodeIdCollector, int numberOfThreads) {
         this.factory = factory;
         this.nodeIdCollector = nodeIdCollector;
+        this.numberOfThreads = Math.max(1, numberOfThreads);
     }
 
     @Override
@@ -40,40 +63,34 @@ public class TaxonInteractionIndexer implements IndexerNeo4j {
 
 
     private void indexInteractions(GraphDatabaseService graphService) {
-        DB db = DBMaker
-                .newMemoryDirectDB()
-                .compressionEnable()
-                .transactionDisable()
-                .make();
-        final Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions = db
-                .createTreeMap("ottIdMap")
-                .make();
-
-        NodeIdCollector nodeIdCollector = this.nodeIdCollector;
-        collectTaxonInteractions(taxonInteractions, graphService, nodeIdCollector);
-        createTaxonInteractions(taxonInteractions, graphService);
-
-        db.close();
+        List<TaxonInteractionCounts> taxonInteractions = numberOfThreads > 1
+                ? collectTaxonInteractionsInParallel(graphService)
+                : Collections.singletonList(collectTaxonInteractions(graphService));
+        try {
+            createTaxonInteractions(taxonInteractions, graphService);
+        } finally {
+            taxonInteractions.forEach(TaxonInteractionCounts::close);
+        }
     }
 
-    private void createTaxonInteractions(Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions, GraphDatabaseService graphService) {
+    private void createTaxonInteractions(List<TaxonInteractionCounts> taxonInteractions, GraphDatabaseService graphService) {
         StopWatch watchForEntireRun = new StopWatch();
         watchForEntireRun.start();
 
-        TransactionPerBatch transactionPerBatch = new TransactionPerBatch(graphService);
+        AdaptiveTransactionPerBatch transactionPerBatch = new AdaptiveTransactionPerBatch(graphService, "createTaxonInteractions", BATCH_SIZE);
         AtomicLong count = new AtomicLong(0);
-        for (Fun.Tuple3<Long, String, Long> uniqueTaxonInteraction : taxonInteractions.keySet()) {
-            if (count.getAndIncrement() % 1000 == 0) {
+        for (TaxonInteractionCounts partition : taxonInteractions) {
+            partition.forEach((sourceTaxonId, interactTypeId, targetTaxonId, interactionCount) -> {
                 transactionPerBatch.onStart();
-            }
-            final Node sourceTaxon = graphService.getNodeById(uniqueTaxonInteraction.a);
-            final Node targetTaxon = graphService.getNodeById(uniqueTaxonInteraction.c);
-            if (sourceTaxon != null && targetTaxon != null) {
-                final InteractType relType = InteractType.valueOf(uniqueTaxonInteraction.b);
-                final Long interactionCount = taxonInteractions.get(uniqueTaxonInteraction);
-                createInteraction(sourceTaxon, targetTaxon, relType, false, interactionCount);
-                createInteraction(targetTaxon, sourceTaxon, InteractType.inverseOf(relType), true, interactionCount);
-            }
+                count.incrementAndGet();
+                final Node sourceTaxon = graphService.getNodeById(sourceTaxonId);
+                final Node targetTaxon = graphService.getNodeById(targetTaxonId);
+                if (sourceTaxon != null && targetTaxon != null) {
+                    final InteractType relType = INTERACT_TYPES[interactTypeId];
+                    createInteraction(sourceTaxon, targetTaxon, relType, false, interactionCount);
+                    createInteraction(targetTaxon, sourceTaxon, InteractType.inverseOf(relType), true, interactionCount);
+                }
+            });
         }
 
         transactionPerBatch.onFinish();
@@ -88,40 +105,110 @@ public class TaxonInteractionIndexer implements IndexerNeo4j {
         interactRel.setProperty("count", interactionCount);
     }
 
-    private void collectTaxonInteractions(
-            Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions,
-            GraphDatabaseService graphService,
-            NodeIdCollector nodeIdCollector) {
-
+    private TaxonInteractionCounts collectTaxonInteractions(GraphDatabaseService graphService) {
+        TaxonInteractionCounts taxonInteractions = new TaxonInteractionCounts();
         new NodeProcessorImpl(
                 graphService,
-                1000L,
+                (long) BATCH_SIZE,
                 "name",
                 "*",
                 "taxons",
                 nodeIdCollector)
                 .process(taxonNode -> onTaxonNode(taxonInteractions, taxonNode)
                 , new TransactionPerBatch(graphService));
+        return taxonInteractions;
+    }
+
+    private List<TaxonInteractionCounts> collectTaxonInteractionsInParallel(GraphDatabaseService graphService) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try {
+            NodeIdBitmap taxonIds = new NodeIdBitmap();
+            try (Transaction tx = graphService.beginTx()) {
+                nodeIdCollector.collectIds(graphService, "name", "*", "taxons", taxonIds);
+                tx.success();
+            }
+            LOG.info("collecting interactions of [" + taxonIds.cardinality() + "] taxa using [" + numberOfThreads + "] threads...");
+
+            // each taxon is handed out once, so partitions count distinct source taxa and never share keys
+            PrimitiveIterator.OfLong taxonIdIterator = taxonIds.iterator();
+            List<Future<TaxonInteractionCounts>> partitions = new ArrayList<>();
+            for (int i = 0; i < numberOfThreads; i++) {
+                partitions.add(executor.submit(() -> collectTaxonInteractions(graphService, taxonIdIterator)));
+            }
 
+            List<TaxonInteractionCounts> taxonInteractions = new ArrayList<>();
+            for (Future<TaxonInteractionCounts> partition : partitions) {
+                taxonInteractions.add(partition.get());
+            }
+            stopWatch.stop();
+            LOG.info("collected interactions of [" + taxonIds.cardinality() + "] taxa in " + getProgressMsg(taxonIds.cardinality(), stopWatch.getTime()));
+            return taxonInteractions;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while collecting taxon interactions", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("failed to collect taxon interactions", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private TaxonInteractionCounts collectTaxonInteractions(GraphDatabaseService graphService, PrimitiveIterator.OfLong taxonIds) {
+        // tables of all threads share one off-heap budget
+        TaxonInteractionCounts taxonInteractions = new TaxonInteractionCounts(TaxonInteractionCounts.INITIAL_SLOTS, TaxonInteractionCounts.maxSlotsPerTable(numberOfThreads));
+        long[] batch;
+        while ((batch = nextBatch(taxonIds)).length > 0) {
+            try (Transaction tx = graphService.beginTx()) {
+                for (long taxonId : batch) {
+                    onTaxonNode(taxonInteractions, graphService.getNodeById(taxonId));
+                }
+                tx.success();
+            }
+        }
+        return taxonInteractions;
     }
 
-    private void onTaxonNode(Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions, Node sourceTaxon) {
+    private static long[] nextBatch(PrimitiveIterator.OfLong taxonIds) {
+        long[] batch = new long[BATCH_SIZE];
+        int size = 0;
+        synchronized (taxonIds) {
+            while (taxonIds.hasNext() && size < BATCH_SIZE) {
+                batch[size++] = taxonIds.nextLong();
+            }
+        }
+        return size == BATCH_SIZE ? batch : Arrays.copyOf(batch, size);
+    }
+
+    private void onTaxonNode(TaxonInteractionCounts taxonInteractions, Node sourceTaxon) {
+        final long sourceTaxonId = sourceTaxon.getId();
         final Iterable<Relationship> classifiedAs = sourceTaxon.getRelationships(Direction.INCOMING, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
         for (Relationship classifiedA : classifiedAs) {
             Node specimenNode = classifiedA.getStartNode();
-            final Iterable<Relationship> interactions = specimenNode.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(InteractType.values()));
+            final Iterable<Relationship> interactions = specimenNode.getRelationships(Direction.OUTGOING, INTERACT_REL_TYPES);
             for (Relationship interaction : interactions) {
+                final byte interactTypeId = INTERACT_TYPE_IDS.get(interaction.getType().name());
                 final Iterable<Relationship> targetClassifications = interaction.getEndNode().getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
                 for (Relationship targetClassification : targetClassifications) {
-                    final Node targetTaxonNode = targetClassification.getEndNode();
-                    final Fun.Tuple3<Long, String, Long> interactionKey = new Fun.Tuple3<Long, String, Long>(sourceTaxon.getId(), interaction.getType().name(), targetTaxonNode.getId());
-                    final Long distinctInteractions = taxonInteractions.get(interactionKey);
-                    taxonInteractions.put(interactionKey, distinctInteractions == null ? 1L : (distinctInteractions + 1L));
+                    taxonInteractions.increment(sourceTaxonId, interactTypeId, targetClassification.getEndNode().getId());
                 }
             }
         }
     }
 
+    private static Map<String, Byte> interactTypeIds() {
+        if (INTERACT_TYPES.length > Byte.MAX_VALUE + 1) {
+            throw new IllegalStateException("cannot represent [" + INTERACT_TYPES.length + "] interaction types as byte");
+        }
+        Map<String, Byte> interactTypeIds = new HashMap<>();
+        for (InteractType interactType : INTERACT_TYPES) {
+            interactTypeIds.put(interactType.name(), (byte) interactType.ordinal());
+        }
+        return Collections.unmodifiableMap(interactTypeIds);
+    }
+
     private static String getProgressMsg(long count, long duration) {
         return String.format("[%.2f] taxon/s over [%.2f] s", (float) count * 1000.0 / duration, duration / 1000.0);
     }
@@ -1,7 +1,32 @@
 package org.eol.globi.data;
 
+import org.apache.commons.lang3.time.StopWatch;
+import org.eol.globi.db.GraphServiceFactoryProxy;
+import org.eol.globi.domain.DatasetNode;
+import org.eol.globi.domain.LocationConstant;
+import org.eol.globi.domain.LocationImpl;
+import org.eol.globi.domain.LocationNode;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.StudyNode;
+import org.eol.globi.tool.NodeFactoryFactoryTransactingOnDatasetNeo4j3;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetImpl;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.net.URI;
+
 import static junit.framework.TestCase.assertTrue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class NodeFactoryNeo4j3Test extends NodeFactoryNeo4jTest {
 
@@ -26,4 +51,172 @@ public class NodeFactoryNeo4j3Test extends NodeFactoryNeo4jTest {
 
     }
 
+    @Test
+    public void locationKey() {
+        LocationImpl location = new LocationImpl(1.2d, 1.4d, -1.0d, null);
+        location.setLocality("some place");
+        assertThat(NodeFactoryNeo4j3.locationKey(location), is(NodeFactoryNeo4j3.locationKey(copyOf(location))));
+
+        LocationImpl otherLocality = copyOf(location);
+        otherLocality.setLocality("some other place");
+        assertThat(NodeFactoryNeo4j3.locationKey(otherLocality), is(not(NodeFactoryNeo4j3.locationKey(location))));
+
+        LocationImpl noLocality = copyOf(location);
+        noLocality.setLocality(null);
+        LocationImpl localityIdInsteadOfLocality = copyOf(noLocality);
+        localityIdInsteadOfLocality.setLocalityId("some place");
+        assertThat(NodeFactoryNeo4j3.locationKey(localityIdInsteadOfLocality), is(not(NodeFactoryNeo4j3.locationKey(location))));
+    }
+
+    @Test
+    public void createFindLocationByKey() throws NodeFactoryException {
+        LocationImpl location = new LocationImpl(1.2d, 1.4d, null, null);
+        location.setLocalityId("some:id");
+        LocationNode created = getNodeFactory().getOrCreateLocation(location);
+        Node node = created.getUnderlyingNode();
+        assertThat(node.getProperty(NodeFactoryNeo4j3.LOCATION_KEY), is(NodeFactoryNeo4j3.locationKey(location)));
+
+        LocationNode found = (LocationNode) getNodeFactory().findLocation(copyOf(location));
+        assertNotNull(found);
+        assertThat(found.getUnderlyingNode().getId(), is(node.getId()));
+
+        assertNull(getNodeFactory().findLocation(new LocationImpl(1.2d, 1.4d, null, null)));
+    }
+
+    @Test
+    public void findLocationWithoutKey() throws NodeFactoryException {
+        Node legacyNode = getGraphDb().createNode(NodeLabel.Location);
+        LocationImpl location = new LocationImpl(1.2d, 1.4d, null, null);
+        location.setLocality("some place");
+        new LocationNode(legacyNode, location);
+        assertFalse(legacyNode.hasProperty(NodeFactoryNeo4j3.LOCATION_KEY));
+        assertNull(getNodeFactory().findLocation(copyOf(location)));
+
+        assertThat(NodeFactoryNeo4j3.addMissingLocationKeys(getGraphDb()), is(1L));
+
+        LocationNode found = (LocationNode) getNodeFactory().findLocation(copyOf(location));
+        assertNotNull(found);
+        assertThat(found.getUnderlyingNode().getId(), is(legacyNode.getId()));
+        assertThat(NodeFactoryNeo4j3.addMissingLocationKeys(getGraphDb()), is(0L));
+    }
+
+    @Test
+    public void locationsWithoutCoordinatesOrLocalityNotShared() throws NodeFactoryException {
+        LocationImpl location = new LocationImpl(null, null, -1.0d, "POINT(1 2)");
+        LocationNode created = getNodeFactory().getOrCreateLocation(location);
+        assertNull(getNodeFactory().findLocation(copyOf(location)));
+        assertThat(getNodeFactory().getOrCreateLocation(copyOf(location)).getUnderlyingNode().getId(), is(not(created.getUnderlyingNode().getId())));
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkFindLocationWithSameLatitude() throws NodeFactoryException {
+        // node factory as used to compile, creating indexes on start
+        NodeFactory nodeFactory = new NodeFactoryFactoryTransactingOnDatasetNeo4j3(new GraphServiceFactoryProxy(getGraphDb()))
+                .create(getGraphDb());
+        int numberOfLocations = 0;
+        for (int size = 1000; size <= 16000; size *= 2) {
+            for (; numberOfLocations < size; numberOfLocations++) {
+                nodeFactory.getOrCreateLocation(locationAtCentroid(numberOfLocations));
+            }
+
+            int lookups = 1000;
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            for (int i = 0; i < lookups; i++) {
+                assertNotNull(nodeFactory.findLocation(locationAtCentroid(numberOfLocations - 1 - i)));
+            }
+            stopWatch.stop();
+            long withKey = stopWatch.getTime();
+
+            stopWatch.reset();
+            stopWatch.start();
+            for (int i = 0; i < lookups; i++) {
+                LocationImpl location = locationAtCentroid(numberOfLocations - 1 - i);
+                assertNotNull(((NodeFactoryNeo4j) nodeFactory)
+                        .findFirstMatchingLocationIfAvailable(location, getGraphDb().findNodes(NodeLabel.Location, LocationConstant.LATITUDE, location.getLatitude())));
+            }
+            stopWatch.stop();
+            long byLatitude = stopWatch.getTime();
+
+            System.out.println("found [" + lookups + "] out of [" + numberOfLocations + "] locations by key in [" + withKey + "] ms, by latitude in [" + byLatitude + "] ms");
+        }
+    }
+
+    @Test
+    public void findCachedStudyDatasetAndExternalId() throws NodeFactoryException {
+        NodeFactoryNeo4j3 nodeFactory = new NodeFactoryNeo4j3(getGraphDb());
+        Dataset dataset = nodeFactory.getOrCreateDataset(datasetWithNamespace("some/namespace"));
+        StudyImpl study = new StudyImpl("some title");
+        study.setOriginatingDataset(dataset);
+        StudyNode studyNode = nodeFactory.getOrCreateStudy(study);
+        Node externalIdNode = nodeFactory.getOrCreateExternalIdNoTx("some:id");
+
+        assertThat(nodeFactory.getOrCreateStudy(study).getUnderlyingNode().getId(), is(studyNode.getUnderlyingNode().getId()));
+        assertThat(nodeFactory.findDatasetNode("some/namespace").getId(), is(((DatasetNode) dataset).getUnderlyingNode().getId()));
+        assertThat(nodeFactory.getOrCreateExternalIdNoTx("some:id").getId(), is(externalIdNode.getId()));
+
+        externalIdNode.delete();
+        Node recreated = nodeFactory.getOrCreateExternalIdNoTx("some:id");
+        assertThat(recreated.getId(), is(not(externalIdNode.getId())));
+        assertThat(recreated.getProperty(PropertyAndValueDictionary.EXTERNAL_ID), is("some:id"));
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkGetOrCreateStudyDatasetAndExternalId() throws NodeFactoryException, InterruptedException {
+        initSchemaInOwnTransaction();
+        int interactions = 100000;
+        for (int round = 0; round < 2; round++) {
+            long withoutCache = timeGetOrCreate(new NodeFactoryNeo4j3(getGraphDb(), 0), interactions);
+            long withCache = timeGetOrCreate(new NodeFactoryNeo4j3(getGraphDb()), interactions);
+            System.out.println("got or created study, dataset and external id for [" + interactions + "] interactions without cache in [" + withoutCache + "] ms, with cache in [" + withCache + "] ms");
+        }
+    }
+
+    private static long timeGetOrCreate(NodeFactoryNeo4j3 nodeFactory, int interactions) throws NodeFactoryException {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        for (int i = 0; i < interactions; i++) {
+            Dataset dataset = nodeFactory.getOrCreateDataset(datasetWithNamespace("some/namespace" + (i % 10)));
+            StudyImpl study = new StudyImpl("some title" + (i % 5));
+            study.setOriginatingDataset(dataset);
+            nodeFactory.getOrCreateStudy(study);
+            nodeFactory.getOrCreateExternalIdNoTx("some:id" + (i % 20));
+        }
+        stopWatch.stop();
+        return stopWatch.getTime();
+    }
+
+    private static DatasetImpl datasetWithNamespace(String namespace) {
+        return new DatasetImpl(namespace, resourceName -> {
+            throw new IOException("no resources available");
+        }, URI.create("some:uri"));
+    }
+
+    private void initSchemaInOwnTransaction() throws InterruptedException {
+        // schema updates need a transaction of their own
+        Thread initSchema = new Thread(() -> {
+            try (Transaction tx = getGraphDb().beginTx()) {
+                NodeFactoryNeo4j3.initSchema(getGraphDb());
+                tx.success();
+            }
+        });
+        initSchema.start();
+        initSchema.join();
+    }
+
+    private static LocationImpl copyOf(LocationImpl location) {
+        LocationImpl copy = new LocationImpl(location.getLatitude(), location.getLongitude(), location.getAltitude(), location.getFootprintWKT());
+        copy.setLocality(location.getLocality());
+        copy.setLocalityId(location.getLocalityId());
+        return copy;
+    }
+
+    private static LocationImpl locationAtCentroid(int i) {
+        LocationImpl location = new LocationImpl(39.76d, -98.5d, null, null);
+        location.setLocality("locality " + i);
+        return location;
+    }
+
 }
@@ -53,6 +53,7 @@ import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public abstract class NodeFactoryNeo4jTest extends GraphDBNeo4jTestCase {
 
@@ -236,6 +237,71 @@ public abstract class NodeFactoryNeo4jTest extends GraphDBNeo4jTestCase {
         assertDataset(PropertyAndValueDictionary.DCTERMS_BIBLIOGRAPHIC_CITATION);
     }
 
+    @Test
+    public void datasetImportCheckpoint() throws NodeFactoryException {
+        DatasetImpl dataset = new DatasetWithResourceMapping("some/namespace", URI.create("some:uri"), new ResourceServiceLocalAndRemote(inStream -> inStream));
+        ObjectNode objectNode = new ObjectMapper().createObjectNode();
+        objectNode.put(DatasetConstant.CONTENT_HASH, "some-hash");
+        dataset.setConfig(objectNode);
+
+        NodeFactoryNeo4j nodeFactory = (NodeFactoryNeo4j) getNodeFactory();
+        assertFalse(nodeFactory.isImported(dataset));
+
+        nodeFactory.getOrCreateDataset(dataset);
+        assertFalse(nodeFactory.isImported(dataset));
+
+        nodeFactory.setImported(dataset);
+        assertThat(nodeFactory.isImported(dataset), is(true));
+
+        objectNode.put(DatasetConstant.CONTENT_HASH, "some-other-hash");
+        assertFalse(nodeFactory.isImported(dataset));
+    }
+
+    @Test
+    public void removeImported() throws NodeFactoryException {
+        NodeFactoryNeo4j nodeFactory = (NodeFactoryNeo4j) getNodeFactory();
+        Dataset dataset = nodeFactory.getOrCreateDataset(new DatasetWithResourceMapping("some/namespace", URI.create("some:uri"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
+        Dataset otherDataset = nodeFactory.getOrCreateDataset(new DatasetWithResourceMapping("other/namespace", URI.create("other:uri"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
+
+        Location sharedLocation = nodeFactory.getOrCreateLocation(new LocationImpl(1.2d, 1.4d, null, null));
+        Location location = nodeFactory.getOrCreateLocation(new LocationImpl(2.2d, 2.4d, null, null));
+
+        StudyImpl study = new StudyImpl("some study", null, null);
+        study.setOriginatingDataset(dataset);
+        Interaction interaction = nodeFactory.createInteraction(study);
+        SpecimenNode donald = nodeFactory.createSpecimen(interaction, new TaxonImpl("Donalda duckus", null));
+        SpecimenNode mickey = nodeFactory.createSpecimen(interaction, new TaxonImpl("Mickeya mouseus", null));
+        donald.interactsWith(mickey, InteractType.ATE);
+        donald.caughtIn(sharedLocation);
+        mickey.caughtIn(location);
+
+        StudyImpl otherStudy = new StudyImpl("other study", null, null);
+        otherStudy.setOriginatingDataset(otherDataset);
+        SpecimenNode otherSpecimen = nodeFactory.createSpecimen(nodeFactory.createInteraction(otherStudy), new TaxonImpl("Donalda duckus", null));
+        otherSpecimen.caughtIn(sharedLocation);
+
+        long nodeCount = countNodes();
+        int otherDatasetDegree = nodeFactory.findDatasetNode("other/namespace").getDegree();
+
+        nodeFactory.removeImported(dataset);
+
+        assertNull(nodeFactory.findStudy(study));
+        assertNotNull(nodeFactory.findStudy(otherStudy));
+        // study, interaction, two specimens, their original taxa, and one location
+        assertThat(countNodes(), is(nodeCount - 7));
+        assertThat(nodeFactory.findLocation(new LocationImpl(1.2d, 1.4d, null, null)), is(notNullValue()));
+        assertNull(nodeFactory.findLocation(new LocationImpl(2.2d, 2.4d, null, null)));
+        assertThat(nodeFactory.findDatasetNode("some/namespace"), is(notNullValue()));
+        assertThat(nodeFactory.findDatasetNode("other/namespace").getDegree(), is(otherDatasetDegree));
+
+        nodeFactory.removeImported(dataset);
+        assertThat(countNodes(), is(nodeCount - 7));
+    }
+
+    private long countNodes() {
+        return getGraphDb().getAllNodes().stream().count();
+    }
+
     protected void assertDataset(String citationKey) throws NodeFactoryException {
         DatasetImpl dataset = new DatasetWithResourceMapping("some/namespace", URI.create("some:uri"), new ResourceServiceLocalAndRemote(inStream -> inStream));
         ObjectNode objectNode = new ObjectMapper().createObjectNode();
@@ -0,0 +1,70 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNull;
+
+public class NodeIdCacheTest extends GraphDBNeo4jTestCase {
+
+    @Test
+    public void putAndGet() {
+        NodeIdCache cache = new NodeIdCache(NodeLabel.ExternalId, PropertyAndValueDictionary.EXTERNAL_ID, 2);
+        Node node = createExternalIdNode("some:id");
+        cache.put("some:id", node);
+        assertThat(cache.get(getGraphDb(), "some:id").getId(), is(node.getId()));
+        assertNull(cache.get(getGraphDb(), "some:other:id"));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        NodeIdCache cache = new NodeIdCache(NodeLabel.ExternalId, PropertyAndValueDictionary.EXTERNAL_ID, 2);
+        cache.put("one", createExternalIdNode("one"));
+        cache.put("two", createExternalIdNode("two"));
+        cache.get(getGraphDb(), "one");
+        cache.put("three", createExternalIdNode("three"));
+        assertNull(cache.get(getGraphDb(), "two"));
+        assertThat(cache.get(getGraphDb(), "one").getProperty(PropertyAndValueDictionary.EXTERNAL_ID), is("one"));
+        assertThat(cache.get(getGraphDb(), "three").getProperty(PropertyAndValueDictionary.EXTERNAL_ID), is("three"));
+    }
+
+    @Test
+    public void dropDeletedNode() {
+        NodeIdCache cache = new NodeIdCache(NodeLabel.ExternalId, PropertyAndValueDictionary.EXTERNAL_ID, 2);
+        Node node = createExternalIdNode("some:id");
+        cache.put("some:id", node);
+        node.delete();
+        assertNull(cache.get(getGraphDb(), "some:id"));
+    }
+
+    @Test
+    public void dropReusedNode() {
+        NodeIdCache cache = new NodeIdCache(NodeLabel.ExternalId, PropertyAndValueDictionary.EXTERNAL_ID, 2);
+        Node node = createExternalIdNode("some:id");
+        cache.put("some:id", node);
+        node.setProperty(PropertyAndValueDictionary.EXTERNAL_ID, "some:other:id");
+        assertNull(cache.get(getGraphDb(), "some:id"));
+
+        node.setProperty(PropertyAndValueDictionary.EXTERNAL_ID, "some:id");
+        assertNull(cache.get(getGraphDb(), "some:id"));
+    }
+
+    @Test
+    public void dropNodeWithOtherLabel() {
+        NodeIdCache cache = new NodeIdCache(NodeLabel.ExternalId, PropertyAndValueDictionary.EXTERNAL_ID, 2);
+        Node node = getGraphDb().createNode();
+        node.setProperty(PropertyAndValueDictionary.EXTERNAL_ID, "some:id");
+        cache.put("some:id", node);
+        assertNull(cache.get(getGraphDb(), "some:id"));
+    }
+
+    private Node createExternalIdNode(String externalId) {
+        Node node = getGraphDb().createNode(NodeLabel.ExternalId);
+        node.setProperty(PropertyAndValueDictionary.EXTERNAL_ID, externalId);
+        return node;
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.eol.globi.db;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class GraphServiceFactoryImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void startWithProfileAndWarmup() throws Exception {
+        File graphDbDir = folder.newFolder("graph.db");
+        GraphServiceFactoryImpl factory = new GraphServiceFactoryImpl(graphDbDir, GraphServiceProfile.BULK_WRITE, false);
+        try {
+            createGraph(factory.getGraphService(), 100);
+        } finally {
+            factory.close();
+        }
+
+        factory = new GraphServiceFactoryImpl(graphDbDir, GraphServiceProfile.EXPORT_READ, true);
+        try {
+            assertThat(GraphServiceUtil.warmup(factory.getGraphService()), is(199L));
+        } finally {
+            factory.close();
+        }
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkProfiles() throws Exception {
+        int numberOfNodes = 200000;
+        int numberOfRounds = 4;
+        GraphServiceProfile[] profiles = GraphServiceProfile.values();
+        Map<GraphServiceProfile, List<Long>> writeTimes = new TreeMap<>();
+        Map<GraphServiceProfile, List<Long>> readTimes = new TreeMap<>();
+        for (int round = 0; round < numberOfRounds; round++) {
+            for (int i = 0; i < profiles.length; i++) {
+                // rotate order of profiles, so that no profile is consistently run first (or last)
+                GraphServiceProfile profile = profiles[(round + i) % profiles.length];
+                File graphDbDir = folder.newFolder(profile.name() + round);
+
+                StopWatch stopWatch = new StopWatch();
+                stopWatch.start();
+                GraphServiceFactoryImpl factory = new GraphServiceFactoryImpl(graphDbDir, profile, false);
+                createGraph(factory.getGraphService(), numberOfNodes);
+                factory.close();
+                stopWatch.stop();
+                long writeTime = stopWatch.getTime();
+
+                stopWatch.reset();
+                stopWatch.start();
+                factory = new GraphServiceFactoryImpl(graphDbDir, profile, profile.isWarmupRecommended());
+                for (int j = 0; j < 3; j++) {
+                    GraphServiceUtil.warmup(factory.getGraphService());
+                }
+                factory.close();
+                stopWatch.stop();
+
+                // first round only warms up the jvm
+                if (round > 0) {
+                    writeTimes.computeIfAbsent(profile, p -> new ArrayList<>()).add(writeTime);
+                    readTimes.computeIfAbsent(profile, p -> new ArrayList<>()).add(stopWatch.getTime());
+                }
+            }
+        }
+        for (GraphServiceProfile profile : profiles) {
+            System.out.println("[" + profile + "]: wrote [" + numberOfNodes + "] nodes in " + writeTimes.get(profile)
+                    + " ms (median [" + median(writeTimes.get(profile)) + "] ms), read them 3 times (warmup: " + profile.isWarmupRecommended() + ") in "
+                    + readTimes.get(profile) + " ms (median [" + median(readTimes.get(profile)) + "] ms)");
+        }
+    }
+
+    private static long median(List<Long> times) {
+        List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static void createGraph(GraphDatabaseService graphDb, int numberOfNodes) throws IOException {
+        Node previous = null;
+        Transaction tx = graphDb.beginTx();
+        for (int i = 0; i < numberOfNodes; i++) {
+            Node node = graphDb.createNode(Label.label("Thing"));
+            node.setProperty("name", "thing" + i);
+            if (previous != null) {
+                previous.createRelationshipTo(node, RelationshipType.withName("NEXT")).setProperty("index", i);
+            }
+            previous = node;
+            if (i % 10000 == 0) {
+                tx.success();
+                tx.close();
+                tx = graphDb.beginTx();
+            }
+        }
+        tx.success();
+        tx.close();
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.eol.globi.db;
+
+import org.junit.Test;
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class GraphServiceProfileTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Test
+    public void defaultSameAsBefore() {
+        Map<Setting<?>, String> settings = GraphServiceProfile.DEFAULT.getSettings(16 * GB, 4 * GB);
+        assertThat(settings.size(), is(3));
+        assertThat(settings.get(GraphDatabaseSettings.keep_logical_logs), is("keep_none"));
+        assertThat(settings.get(GraphDatabaseSettings.logical_log_rotation_threshold), is("250M"));
+        assertThat(settings.get(GraphDatabaseSettings.check_point_interval_time), is("60s"));
+        assertThat(GraphServiceProfile.DEFAULT.isWarmupRecommended(), is(false));
+    }
+
+    @Test
+    public void bulkWrite() {
+        Map<Setting<?>, String> settings = GraphServiceProfile.BULK_WRITE.getSettings(16 * GB, 4 * GB);
+        assertThat(settings.containsKey(GraphDatabaseSettings.pagecache_memory), is(false));
+        assertThat(settings.containsKey(GraphDatabaseSettings.tx_state_memory_allocation), is(false));
+        assertThat(settings.get(GraphDatabaseSettings.logical_log_rotation_threshold), is("1G"));
+        assertThat(settings.get(GraphDatabaseSettings.check_point_interval_time), is("15m"));
+        assertThat(settings.get(GraphDatabaseSettings.check_point_interval_tx), is("1000000"));
+    }
+
+    @Test
+    public void exportRead() {
+        Map<Setting<?>, String> settings = GraphServiceProfile.EXPORT_READ.getSettings(16 * GB, 4 * GB);
+        assertThat(settings.get(GraphDatabaseSettings.pagecache_memory), is("9216m"));
+        assertThat(settings.get(GraphDatabaseSettings.tx_state_memory_allocation), is("ON_HEAP"));
+        assertThat(GraphServiceProfile.EXPORT_READ.isWarmupRecommended(), is(true));
+    }
+
+    @Test
+    public void noPageCacheWithoutSpareMemory() {
+        Map<Setting<?>, String> settings = GraphServiceProfile.EXPORT_READ.getSettings(4 * GB, 4 * GB);
+        assertThat(settings.containsKey(GraphDatabaseSettings.pagecache_memory), is(false));
+        settings = GraphServiceProfile.EXPORT_READ.getSettings(0, 4 * GB);
+        assertThat(settings.containsKey(GraphDatabaseSettings.pagecache_memory), is(false));
+    }
+
+}
@@ -1,8 +1,11 @@
 package org.eol.globi.export;
 
+import org.apache.commons.io.IOUtils;
 import org.eol.globi.data.GraphDBNeo4jTestCase;
 import org.eol.globi.data.NodeFactoryException;
 import org.eol.globi.data.NodeFactoryWithDatasetContext;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.DatasetNode;
 import org.eol.globi.domain.Location;
 import org.eol.globi.domain.LocationImpl;
 import org.eol.globi.domain.PropertyAndValueDictionary;
@@ -10,27 +13,47 @@ import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.Specimen;
 import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.StudyNode;
 import org.eol.globi.domain.TaxonImpl;
 import org.eol.globi.domain.TermImpl;
+import org.eol.globi.util.MetricRegistry;
+import org.eol.globi.util.NodeUtil;
 import org.eol.globi.util.ResourceServiceLocalAndRemote;
+import org.globalbioticinteractions.dataset.DatasetConstant;
 import org.globalbioticinteractions.dataset.DatasetImpl;
 import org.globalbioticinteractions.dataset.DatasetWithResourceMapping;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.Direction;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.StringStartsWith.startsWith;
 
 public class ExportFlatInteractionsTest extends GraphDBNeo4jTestCase {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private NodeFactoryWithDatasetContext factory;
 
     @Before
@@ -100,6 +123,161 @@ public class ExportFlatInteractionsTest extends GraphDBNeo4jTestCase {
         assertThat(actualExport, containsString(firstRefute));
     }
 
+    @Test
+    public void exportPartitionedSameRowsAsSerial() throws NodeFactoryException, IOException, ParseException, StudyImporterException {
+        createTestData(12.0);
+        for (String namespace : Arrays.asList("other/namespace", "another/namespace")) {
+            DatasetImpl dataset = new DatasetWithResourceMapping(namespace, URI.create("http://example.com/" + namespace), new ResourceServiceLocalAndRemote(inStream -> inStream));
+            factory = new NodeFactoryWithDatasetContext(nodeFactory, dataset);
+            createTestData(13.0);
+        }
+        resolveNames();
+
+        ExportFlatInteractions export = new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz");
+        final StringWriter writer = new StringWriter();
+        export.export(getGraphDb(), ExportUtil.AppenderWriter.of(writer));
+
+        File exportDir = folder.newFolder();
+        export.export(getGraphDb(), exportDir, "2");
+
+        String partitionedExport = IOUtils.toString(new GZIPInputStream(new FileInputStream(new File(exportDir, "interactions.tsv.gz"))), StandardCharsets.UTF_8);
+        String[] partitionedLines = partitionedExport.split("\\n");
+        String[] serialLines = writer.toString().split("\\n");
+        assertThat(partitionedLines.length, is(55));
+        assertThat(partitionedLines[0], is(serialLines[0]));
+        Arrays.sort(partitionedLines, 1, partitionedLines.length);
+        Arrays.sort(serialLines, 1, serialLines.length);
+        assertThat(partitionedLines, is(serialLines));
+        assertThat(exportDir.list(), is(new String[]{"interactions.tsv.gz"}));
+    }
+
+    @Test
+    public void exportPartitionedNoDatasets() throws IOException, StudyImporterException {
+        File exportDir = folder.newFolder();
+        new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz")
+                .export(getGraphDb(), exportDir, "2");
+
+        String partitionedExport = IOUtils.toString(new GZIPInputStream(new FileInputStream(new File(exportDir, "interactions.tsv.gz"))), StandardCharsets.UTF_8);
+        assertThat(partitionedExport.split("\\n").length, is(1));
+        assertThat(partitionedExport, startsWith("sourceTaxonId\tsourceTaxonIds\t"));
+    }
+
+    @Test
+    public void exportSegmentsOfChangedDatasetsOnly() throws NodeFactoryException, IOException, ParseException, StudyImporterException {
+        DatasetImpl someDataset = new DatasetWithResourceMapping("some/namespace", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream));
+        DatasetImpl otherDataset = new DatasetWithResourceMapping("other/namespace", URI.create("http://example.com/other"), new ResourceServiceLocalAndRemote(inStream -> inStream));
+        createTestData(12.0);
+        factory = new NodeFactoryWithDatasetContext(nodeFactory, otherDataset);
+        createTestData(13.0);
+        resolveNames();
+        setImportedContentHash(someDataset, "hash1");
+        setImportedContentHash(otherDataset, "hash2");
+
+        File exportDir = folder.newFolder();
+        ExportFlatInteractions export = new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz")
+                .setSegmentDir(folder.newFolder());
+        export.export(getGraphDb(), exportDir, "2");
+
+        assertSameRowsAsSerialExport(export, new File(exportDir, "interactions.tsv.gz"), 37);
+        String[] changes = gunzipLines(new File(exportDir, "interactions-changes.tsv.gz"));
+        assertThat(changes.length, is(37));
+        assertThat(changes[0], startsWith("change\tsourceTaxonId\t"));
+        assertThat(changes[1], startsWith("added\tEOL:"));
+
+        Study newStudy = factory.createStudy(new StudyImpl("newStudy", null, null));
+        specimenEatCatAndDog(14.0, newStudy, "Homo habilis", "EOL:999", RelTypes.COLLECTED, RelTypes.SUPPORTS);
+        resolveNames();
+        setImportedContentHash(someDataset, "hash1");
+        setImportedContentHash(otherDataset, "hash3");
+
+        long reused = counter("export.segments.reused");
+        long exported = counter("export.segments.exported");
+        export.export(getGraphDb(), exportDir, "2");
+
+        assertThat(counter("export.segments.reused") - reused, is(1L));
+        assertThat(counter("export.segments.exported") - exported, is(1L));
+        assertSameRowsAsSerialExport(export, new File(exportDir, "interactions.tsv.gz"), 40);
+        changes = gunzipLines(new File(exportDir, "interactions-changes.tsv.gz"));
+        assertThat(changes.length, is(4));
+        for (int i = 1; i < changes.length; i++) {
+            assertThat(changes[i], startsWith("added\tEOL:999\t\tHomo habilis\t"));
+        }
+
+        ((StudyNode) newStudy).getUnderlyingNode()
+                .getSingleRelationship(NodeUtil.asNeo4j(RelTypes.IN_DATASET), Direction.OUTGOING)
+                .delete();
+        setImportedContentHash(otherDataset, "hash4");
+        export.export(getGraphDb(), exportDir, "2");
+
+        assertSameRowsAsSerialExport(export, new File(exportDir, "interactions.tsv.gz"), 37);
+        changes = gunzipLines(new File(exportDir, "interactions-changes.tsv.gz"));
+        assertThat(changes.length, is(4));
+        for (int i = 1; i < changes.length; i++) {
+            assertThat(changes[i], startsWith("removed\tEOL:999\t\tHomo habilis\t"));
+        }
+
+        setDatasetProperty(someDataset, DatasetConstant.LINKED_TAXON_CACHE_HASH, "otherTaxonCacheHash");
+        reused = counter("export.segments.reused");
+        exported = counter("export.segments.exported");
+        export.export(getGraphDb(), exportDir, "2");
+
+        assertThat(counter("export.segments.reused") - reused, is(1L));
+        assertThat(counter("export.segments.exported") - exported, is(1L));
+        assertThat(gunzipLines(new File(exportDir, "interactions-changes.tsv.gz")).length, is(1));
+    }
+
+    private void setImportedContentHash(DatasetImpl dataset, String contentHash) throws NodeFactoryException {
+        setDatasetProperty(dataset, DatasetConstant.IMPORTED_CONTENT_HASH, contentHash);
+    }
+
+    private void setDatasetProperty(DatasetImpl dataset, String key, String value) throws NodeFactoryException {
+        ((DatasetNode) nodeFactory.getOrCreateDataset(dataset))
+                .getUnderlyingNode()
+                .setProperty(key, value);
+    }
+
+    private void assertSameRowsAsSerialExport(ExportFlatInteractions export, File exportFile, int numberOfLines) throws IOException {
+        final StringWriter writer = new StringWriter();
+        export.export(getGraphDb(), ExportUtil.AppenderWriter.of(writer));
+        String[] serialLines = writer.toString().split("\\n");
+        String[] lines = gunzipLines(exportFile);
+        assertThat(lines.length, is(numberOfLines));
+        assertThat(lines[0], is(serialLines[0]));
+        Arrays.sort(lines, 1, lines.length);
+        Arrays.sort(serialLines, 1, serialLines.length);
+        assertThat(lines, is(serialLines));
+    }
+
+    private static String[] gunzipLines(File file) throws IOException {
+        return IOUtils.toString(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8).split("\\n");
+    }
+
+    private static long counter(String name) {
+        return MetricRegistry.getDefault().counter(name).getCount();
+    }
+
+    @Test
+    public void createPartitions() {
+        List<Map<String, Object>> partitions = ExportFlatInteractions.createPartitions(Arrays.asList(3L, 1L, 2L));
+        assertThat(partitions.size(), is(3));
+        assertThat(partitions.get(0).get("datasetIds"), is(Collections.singletonList(3L)));
+        assertThat(partitions.get(2).get("datasetIds"), is(Collections.singletonList(2L)));
+
+        List<Long> manyDatasetIds = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            manyDatasetIds.add(i);
+        }
+        partitions = ExportFlatInteractions.createPartitions(manyDatasetIds);
+        assertThat(partitions.size(), is(256));
+        List<Object> partitionedIds = new ArrayList<>();
+        for (Map<String, Object> partition : partitions) {
+            partitionedIds.addAll((List<?>) partition.get("datasetIds"));
+        }
+        assertThat(partitionedIds, is(new ArrayList<Object>(manyDatasetIds)));
+
+        assertThat(ExportFlatInteractions.createPartitions(Collections.emptyList()).get(0).get("datasetIds"), is(Collections.emptyList()));
+    }
+
     private void createTestData(Double length) throws NodeFactoryException, ParseException {
         Study myStudy = factory.createStudy(new StudyImpl("myStudy", null, null));
         specimenEatCatAndDog(length, myStudy, "Homo sapiens", "EOL:333", RelTypes.COLLECTED, RelTypes.SUPPORTS);
@@ -1,12 +1,15 @@
 package org.eol.globi.export;
 
+import org.apache.commons.lang3.time.StopWatch;
 import org.eol.globi.data.GraphDBNeo4jTestCase;
+import org.eol.globi.data.NodeFactoryException;
 import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.domain.Specimen;
 import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyImpl;
 import org.eol.globi.domain.TaxonImpl;
 import org.globalbioticinteractions.doi.DOI;
+import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -41,4 +44,25 @@ public class GraphExporterImplTest extends GraphDBNeo4jTestCase {
 
     }
 
-}
\ No newline at end of file
+    @Ignore("benchmark")
+    @Test
+    public void benchmark() throws StudyImporterException, IOException, NodeFactoryException {
+        int numberOfStudies = 2000;
+        int numberOfInteractionsPerStudy = 20;
+        for (int i = 0; i < numberOfStudies; i++) {
+            Study study = nodeFactory.getOrCreateStudy(new StudyImpl("study" + i, null, "citation" + i));
+            for (int j = 0; j < numberOfInteractionsPerStudy; j++) {
+                Specimen predator = nodeFactory.createSpecimen(study, new TaxonImpl("Genus" + (j % 10) + " species", "FOO:" + (j % 10)));
+                predator.ate(nodeFactory.createSpecimen(study, new TaxonImpl("Genus" + (i % 100) + " prey", "BAR:" + (i % 100))));
+            }
+        }
+        resolveNames();
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        new GraphExporterImpl().export(getGraphDb(), folder.newFolder(), "2");
+        stopWatch.stop();
+        System.out.println("exported [" + numberOfStudies + "] studies with [" + numberOfStudies * numberOfInteractionsPerStudy + "] interactions in [" + stopWatch.getTime() + "] ms");
+    }
+
+}
@@ -0,0 +1,146 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+public class ParallelGZIPOutputStreamTest {
+
+    @Test
+    public void writeManyBlocksInOrder() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            StringBuilder expected = new StringBuilder();
+            try (OutputStream os = new ParallelGZIPOutputStream(compressed, 100, executor, 3)) {
+                for (int i = 0; i < 1000; i++) {
+                    String line = "line\t" + i + "\n";
+                    expected.append(line);
+                    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                    if (i % 2 == 0) {
+                        os.write(bytes);
+                    } else {
+                        for (byte b : bytes) {
+                            os.write(b);
+                        }
+                    }
+                    if (i % 100 == 0) {
+                        os.flush();
+                    }
+                }
+            }
+            assertThat(gunzip(compressed.toByteArray()), is(expected.toString()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void boundPendingBlocksAcrossStreams() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger pendingTotal = new AtomicInteger();
+            ByteArrayOutputStream[] compressed = new ByteArrayOutputStream[5];
+            OutputStream[] streams = new OutputStream[compressed.length];
+            for (int i = 0; i < streams.length; i++) {
+                compressed[i] = new ByteArrayOutputStream();
+                streams[i] = new ParallelGZIPOutputStream(compressed[i], 100, executor, pendingTotal, 2);
+            }
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                String line = "line\t" + i + "\n";
+                expected.append(line);
+                // streams written by a single thread must not wait for each other
+                for (OutputStream stream : streams) {
+                    stream.write(line.getBytes(StandardCharsets.UTF_8));
+                }
+                // at most one more block per stream than the shared maximum
+                assertThat(pendingTotal.get(), lessThanOrEqualTo(2 + streams.length));
+            }
+            for (OutputStream stream : streams) {
+                stream.close();
+            }
+            assertThat(pendingTotal.get(), is(0));
+            for (ByteArrayOutputStream bytes : compressed) {
+                assertThat(gunzip(bytes.toByteArray()), is(expected.toString()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void writeNothing() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelGZIPOutputStream(compressed).close();
+        assertThat(gunzip(compressed.toByteArray()), is(""));
+    }
+
+    @Test
+    public void appendCompressedMembers() throws IOException {
+        byte[] row = "row\n".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(compressed)) {
+            os.write("header\n".getBytes(StandardCharsets.UTF_8));
+            os.appendMembers(new ByteArrayInputStream(ParallelGZIPOutputStream.compress(row, row.length)));
+            os.write("footer\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertThat(gunzip(compressed.toByteArray()), is("header\nrow\nfooter\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void writeAfterFinish() throws IOException {
+        ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(new ByteArrayOutputStream());
+        os.finish();
+        os.write(1);
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmark() throws IOException {
+        long numberOfLines = 20000000L;
+        for (boolean parallel : new boolean[]{false, true, false, true}) {
+            CountingOutputStream counting = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            long uncompressedBytes = 0;
+            try (OutputStream os = parallel ? new ParallelGZIPOutputStream(counting) : new GZIPOutputStream(counting)) {
+                for (long i = 0; i < numberOfLines; i++) {
+                    byte[] line = ("http://example.org/study/" + (i / 20) + "\tEOL:" + (i % 5003) + "\tGenus" + (i % 5003)
+                            + " species\thttp://purl.obolibrary.org/obo/RO_0002470\teats\tNCBI:" + (i % 7919)
+                            + "\tOtherGenus" + (i % 7919) + " species\tdoi:10.1234/" + (i / 20) + "\n")
+                            .getBytes(StandardCharsets.UTF_8);
+                    os.write(line);
+                    uncompressedBytes += line.length;
+                }
+            }
+            stopWatch.stop();
+            System.out.println((parallel ? "parallel" : "single") + ": [" + uncompressedBytes / (1024 * 1024)
+                    + "] MB compressed to [" + counting.getByteCount() / (1024 * 1024)
+                    + "] MB in [" + stopWatch.getTime() + "] ms");
+        }
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8);
+    }
+
+}
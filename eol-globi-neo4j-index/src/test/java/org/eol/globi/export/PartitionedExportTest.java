@@ -0,0 +1,110 @@
+package org.eol.globi.export;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class PartitionedExportTest {
+
+    private static final String QUERY = "MATCH (n:Thing) WHERE n.group IN {groups} RETURN n.group as group, n.name as name ORDER BY name";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GraphDatabaseService graphDb;
+
+    @Before
+    public void init() throws IOException {
+        graphDb = new GraphDatabaseFactory().newEmbeddedDatabase(folder.newFolder());
+        try (Transaction tx = graphDb.beginTx()) {
+            for (int i = 0; i < 100; i++) {
+                Node node = graphDb.createNode(() -> "Thing");
+                node.setProperty("group", i % 10);
+                node.setProperty("name", String.format("thing%03d", i));
+            }
+            tx.success();
+        }
+    }
+
+    @After
+    public void shutdown() {
+        graphDb.shutdown();
+    }
+
+    @Test
+    public void exportConcurrently() throws IOException {
+        File tmpDir = folder.newFolder();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PartitionedExport(QUERY, new ExportUtil.TsvValueJoiner(), 4)
+                .export(graphDb, partitions(), tmpDir, out);
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(expected()));
+        assertThat(tmpDir.list().length, is(0));
+    }
+
+    @Test
+    public void exportSeriallyInTransaction() throws IOException {
+        File tmpDir = folder.newFolder();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Transaction tx = graphDb.beginTx()) {
+            Node node = graphDb.createNode(() -> "Thing");
+            node.setProperty("group", 0);
+            node.setProperty("name", "thing100");
+            new PartitionedExport(QUERY, new ExportUtil.TsvValueJoiner(), 1)
+                    .export(graphDb, partitions(), tmpDir, out);
+            tx.success();
+        }
+
+        // uncommitted changes are visible to the calling thread only
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(expected() + "0\tthing100\n"));
+        assertThat(tmpDir.list().length, is(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void failedPartition() throws IOException {
+        File tmpDir = folder.newFolder();
+        try {
+            new PartitionedExport("RETURN 1 / size({groups}) as fails", new ExportUtil.TsvValueJoiner(), 4)
+                    .export(graphDb, Collections.singletonList(Collections.singletonMap("groups", Collections.emptyList())), tmpDir, new ByteArrayOutputStream());
+        } finally {
+            assertThat(tmpDir.list().length, is(0));
+        }
+    }
+
+    private static List<Map<String, Object>> partitions() {
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        for (int group = 9; group >= 0; group--) {
+            partitions.add(Collections.singletonMap("groups", Collections.singletonList(group)));
+        }
+        return partitions;
+    }
+
+    private static String expected() {
+        StringBuilder expected = new StringBuilder("group\tname\n");
+        for (int group = 9; group >= 0; group--) {
+            for (int i = group; i < 100; i += 10) {
+                expected.append(group).append("\t").append(String.format("thing%03d", i)).append("\n");
+            }
+        }
+        return expected.toString();
+    }
+
+}
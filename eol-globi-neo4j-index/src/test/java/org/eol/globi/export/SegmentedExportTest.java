@@ -0,0 +1,168 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.IOUtils;
+import org.eol.globi.util.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class SegmentedExportTest {
+
+    private static final String QUERY = "MATCH (n:Thing) WHERE n.group IN {groups} RETURN n.group as group, n.name as name ORDER BY name";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GraphDatabaseService graphDb;
+
+    @Before
+    public void init() throws IOException {
+        graphDb = new GraphDatabaseFactory().newEmbeddedDatabase(folder.newFolder());
+        try (Transaction tx = graphDb.beginTx()) {
+            for (int i = 0; i < 30; i++) {
+                createThing(i % 3, String.format("thing%02d", i));
+            }
+            tx.success();
+        }
+    }
+
+    @After
+    public void shutdown() {
+        graphDb.shutdown();
+    }
+
+    @Test
+    public void reuseSegmentsOfUnchangedGroups() throws IOException {
+        File segmentDir = folder.newFolder();
+        File exportDir = folder.newFolder();
+        File file = new File(exportDir, "things.tsv.gz");
+        File changesFile = new File(exportDir, "things-changes.tsv.gz");
+
+        long exported = counter("export.segments.exported");
+        long reused = counter("export.segments.reused");
+        newExport(segmentDir).export(graphDb, groups("hash0", "hash1", "hash2"), file, changesFile);
+
+        assertThat(counter("export.segments.exported") - exported, is(3L));
+        assertThat(counter("export.segments.reused") - reused, is(0L));
+        String[] lines = gunzipLines(file);
+        assertThat(lines.length, is(31));
+        assertThat(lines[0], is("group\tname"));
+        assertThat(lines[1], is("0\tthing00"));
+        assertThat(lines[11], is("1\tthing01"));
+        assertThat(gunzipLines(changesFile).length, is(31));
+
+        try (Transaction tx = graphDb.beginTx()) {
+            createThing(1, "thing30");
+            tx.success();
+        }
+
+        exported = counter("export.segments.exported");
+        reused = counter("export.segments.reused");
+        newExport(segmentDir).export(graphDb, groups("hash0", "hash1b", "hash2"), file, changesFile);
+
+        assertThat(counter("export.segments.exported") - exported, is(1L));
+        assertThat(counter("export.segments.reused") - reused, is(2L));
+        lines = gunzipLines(file);
+        assertThat(lines.length, is(32));
+        assertThat(lines[21], is("1\tthing30"));
+        assertThat(lines[22], is("2\tthing02"));
+        String[] changes = gunzipLines(changesFile);
+        assertThat(changes.length, is(2));
+        assertThat(changes[0], is("change\tgroup\tname"));
+        assertThat(changes[1], is("added\t1\tthing30"));
+
+        newExport(segmentDir).export(graphDb, groups("hash0", "hash1b"), file, changesFile);
+
+        assertThat(gunzipLines(file).length, is(22));
+        changes = gunzipLines(changesFile);
+        assertThat(changes.length, is(11));
+        assertThat(changes[1], is("removed\t2\tthing02"));
+        assertThat(segmentDir.list().length, is(3));
+    }
+
+    @Test
+    public void exportAgainWhenDatasetPropertiesChange() throws IOException {
+        File segmentDir = folder.newFolder();
+        File file = new File(folder.newFolder(), "things.tsv.gz");
+        File changesFile = new File(file.getParentFile(), "things-changes.tsv.gz");
+        newExport(segmentDir).export(graphDb, groups("hash0", "hash1"), file, changesFile);
+
+        List<SegmentedExport.DatasetSegment> groups = groups("hash0", "hash1");
+        groups.set(1, new SegmentedExport.DatasetSegment("group1", 1, "hash1", Collections.singletonMap("lastSeenAt", "2")));
+
+        long exported = counter("export.segments.exported");
+        long reused = counter("export.segments.reused");
+        newExport(segmentDir).export(graphDb, groups, file, changesFile);
+
+        assertThat(counter("export.segments.exported") - exported, is(1L));
+        assertThat(counter("export.segments.reused") - reused, is(1L));
+        assertThat(gunzipLines(file).length, is(21));
+        assertThat(gunzipLines(changesFile).length, is(1));
+    }
+
+    @Test
+    public void changesOfCsvRowsWithLineBreaks() throws IOException {
+        File segmentDir = folder.newFolder();
+        File file = new File(folder.newFolder(), "things.csv.gz");
+        File changesFile = new File(file.getParentFile(), "things-changes.csv.gz");
+        SegmentedExport export = new SegmentedExport(QUERY, "groups", new ExportUtil.CsvValueJoiner(), 2, new ExportSegments(segmentDir));
+        export.export(graphDb, groups("hash0"), file, changesFile);
+
+        try (Transaction tx = graphDb.beginTx()) {
+            createThing(0, "thing\n\"multi\" line");
+            createThing(0, "thing\nz");
+            tx.success();
+        }
+        export.export(graphDb, groups("hash0b"), file, changesFile);
+
+        String changes = IOUtils.toString(new GZIPInputStream(new FileInputStream(changesFile)), StandardCharsets.UTF_8);
+        assertThat(changes, is("change,group,name\n" +
+                "added,0,\"thing\n\"\"multi\"\" line\"\n" +
+                "added,0,\"thing\nz\"\n"));
+    }
+
+    private SegmentedExport newExport(File segmentDir) {
+        return new SegmentedExport(QUERY, "groups", new ExportUtil.TsvValueJoiner(), 2, new ExportSegments(segmentDir));
+    }
+
+    private void createThing(int group, String name) {
+        Node node = graphDb.createNode(() -> "Thing");
+        node.setProperty("group", (long) group);
+        node.setProperty("name", name);
+    }
+
+    private static List<SegmentedExport.DatasetSegment> groups(String... contentHashes) {
+        List<SegmentedExport.DatasetSegment> groups = new ArrayList<>();
+        for (int group = 0; group < contentHashes.length; group++) {
+            groups.add(new SegmentedExport.DatasetSegment("group" + group, group, contentHashes[group], Collections.singletonMap("lastSeenAt", "1")));
+        }
+        return groups;
+    }
+
+    private static String[] gunzipLines(File file) throws IOException {
+        return IOUtils.toString(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8).split("\n");
+    }
+
+    private static long counter(String name) {
+        return MetricRegistry.getDefault().counter(name).getCount();
+    }
+
+}
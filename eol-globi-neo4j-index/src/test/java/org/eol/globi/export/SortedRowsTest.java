@@ -0,0 +1,72 @@
+package org.eol.globi.export;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class SortedRowsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sortInMemory() throws IOException {
+        File tmpDir = folder.newFolder();
+        StringWriter writer = new StringWriter();
+        try (SortedRows rows = new SortedRows(() -> File.createTempFile("rows", ".tmp", tmpDir), 10)) {
+            rows.add("c");
+            rows.add("a");
+            rows.add("b");
+            rows.writeTo(writer);
+        }
+        assertThat(writer.toString(), is("a\nb\nc\n"));
+        assertThat(tmpDir.list().length, is(0));
+    }
+
+    @Test
+    public void sortBatches() throws IOException {
+        File tmpDir = folder.newFolder();
+        StringWriter writer = new StringWriter();
+        StringBuilder expected = new StringBuilder();
+        try (SortedRows rows = new SortedRows(() -> File.createTempFile("rows", ".tmp", tmpDir), 7)) {
+            for (int i = 99; i >= 0; i--) {
+                rows.add(String.format("row\t%02d", i % 50));
+            }
+            rows.writeTo(writer);
+            assertThat(tmpDir.list().length, is(15));
+        }
+        for (int i = 0; i < 100; i++) {
+            expected.append(String.format("row\t%02d\n", i / 2));
+        }
+        assertThat(writer.toString(), is(expected.toString()));
+        assertThat(tmpDir.list().length, is(0));
+    }
+
+    @Test
+    public void sortBatchesInMultipleMerges() throws IOException {
+        File tmpDir = folder.newFolder();
+        StringWriter writer = new StringWriter();
+        StringBuilder expected = new StringBuilder();
+        try (SortedRows rows = new SortedRows(() -> File.createTempFile("rows", ".tmp", tmpDir), 7, 3)) {
+            for (int i = 99; i >= 0; i--) {
+                rows.add(String.format("row\t%02d", i % 50));
+            }
+            rows.writeTo(writer);
+            // merged batches are removed, so at most 3 batches are left for the last merge
+            assertThat(tmpDir.list().length <= 3, is(true));
+        }
+        for (int i = 0; i < 100; i++) {
+            expected.append(String.format("row\t%02d\n", i / 2));
+        }
+        assertThat(writer.toString(), is(expected.toString()));
+        assertThat(tmpDir.list().length, is(0));
+    }
+
+}
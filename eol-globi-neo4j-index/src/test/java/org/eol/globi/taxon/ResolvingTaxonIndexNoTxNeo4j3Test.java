@@ -0,0 +1,141 @@
+package org.eol.globi.taxon;
+
+import org.eol.globi.data.GraphDBNeo4jTestCase;
+import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.domain.TaxonNode;
+import org.eol.globi.service.PropertyEnricherSingle;
+import org.eol.globi.service.TaxonUtil;
+import org.eol.globi.util.MetricRegistry;
+import org.eol.globi.util.NodeUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class ResolvingTaxonIndexNoTxNeo4j3Test extends GraphDBNeo4jTestCase {
+
+    private ResolvingTaxonIndexNoTxNeo4j3 taxonIndex;
+    private TaxonNode original;
+    private TaxonNode related;
+
+    @Before
+    public void init() {
+        taxonIndex = new ResolvingTaxonIndexNoTxNeo4j3(new PropertyEnricherSingle() {
+            @Override
+            public Map<String, String> enrichFirstMatch(Map<String, String> properties) {
+                Taxon resolved = new TaxonImpl("Homo sapiens", "NCBI:9606");
+                resolved.setPath("Animalia | Homo sapiens");
+                return TaxonUtil.taxonToMap(resolved);
+            }
+
+            @Override
+            public void shutdown() {
+
+            }
+        }, getGraphDb());
+
+        original = new TaxonNode(getGraphDb().createNode());
+        original.setName("Homo sapiens");
+        related = new TaxonNode(getGraphDb().createNode());
+        related.setName("Homo sapiens");
+        related.setExternalId("GBIF:2436436");
+        original.getUnderlyingNode().createRelationshipTo(related.getUnderlyingNode(), NodeUtil.asNeo4j(RelTypes.SAME_AS));
+    }
+
+    @Test
+    public void repeatedLookupSkipsTraversal() throws NodeFactoryException {
+        long hits = hits();
+        long misses = misses();
+
+        TaxonNode first = taxonIndex.findTaxonByName("Homo sapiens");
+        TaxonNode second = taxonIndex.findTaxonByName("Homo sapiens");
+
+        assertThat(first.getUnderlyingNode().getId(), is(related.getUnderlyingNode().getId()));
+        assertThat(second.getUnderlyingNode().getId(), is(related.getUnderlyingNode().getId()));
+        assertThat(misses() - misses, is(1L));
+        assertThat(hits() - hits, is(1L));
+    }
+
+    @Test
+    public void notFoundIsNotRemembered() throws NodeFactoryException {
+        assertThat(taxonIndex.findTaxonByName("Homo erectus"), is(nullValue()));
+
+        TaxonNode erectus = new TaxonNode(getGraphDb().createNode());
+        erectus.setName("Homo erectus");
+        erectus.getUnderlyingNode().createRelationshipTo(related.getUnderlyingNode(), NodeUtil.asNeo4j(RelTypes.SAME_AS));
+
+        assertThat(taxonIndex.findTaxonByName("Homo erectus").getUnderlyingNode().getId(), is(related.getUnderlyingNode().getId()));
+    }
+
+    @Test
+    public void deletedTaxonIsForgotten() throws NodeFactoryException {
+        assertThat(taxonIndex.findTaxonByName("Homo sapiens").getUnderlyingNode().getId(), is(related.getUnderlyingNode().getId()));
+
+        for (Relationship rel : related.getUnderlyingNode().getRelationships()) {
+            rel.delete();
+        }
+        related.getUnderlyingNode().delete();
+
+        assertThat(taxonIndex.findTaxonByName("Homo sapiens"), is(nullValue()));
+    }
+
+    @Test
+    public void renamedTaxonIsNoLongerFound() throws NodeFactoryException {
+        assertThat(taxonIndex.findTaxonByName("Homo sapiens").getUnderlyingNode().getId(), is(related.getUnderlyingNode().getId()));
+
+        original.getUnderlyingNode().setProperty(PropertyAndValueDictionary.NAME, "Homo erectus");
+        related.getUnderlyingNode().setProperty(PropertyAndValueDictionary.NAME, "Homo erectus");
+
+        long misses = misses();
+        assertThat(taxonIndex.findTaxonByName("Homo sapiens"), is(nullValue()));
+        assertThat(misses() - misses, is(1L));
+    }
+
+    @Test
+    public void replacedRelationshipIsLookedUpAgain() throws NodeFactoryException {
+        assertThat(taxonIndex.findTaxonByName("Homo sapiens").getUnderlyingNode().getId(), is(related.getUnderlyingNode().getId()));
+
+        for (Relationship rel : original.getUnderlyingNode().getRelationships()) {
+            rel.delete();
+        }
+        TaxonNode other = new TaxonNode(getGraphDb().createNode());
+        other.setName("Homo sapiens");
+        other.setExternalId("NCBI:9606");
+        original.getUnderlyingNode().createRelationshipTo(other.getUnderlyingNode(), NodeUtil.asNeo4j(RelTypes.SAME_AS));
+
+        long misses = misses();
+        assertThat(taxonIndex.findTaxonByName("Homo sapiens").getUnderlyingNode().getId(), is(other.getUnderlyingNode().getId()));
+        assertThat(misses() - misses, is(1L));
+    }
+
+    @Test
+    public void createdTaxonIsLookedUpAgain() throws NodeFactoryException {
+        taxonIndex.findTaxonByName("Homo sapiens");
+
+        TaxonNode created = taxonIndex.getOrCreateTaxon(new TaxonImpl("Homo sapiens sapiens"));
+        assertThat(created.getExternalId(), is("NCBI:9606"));
+
+        long misses = misses();
+        assertThat(taxonIndex.findTaxonByName("Homo sapiens"), is(not(nullValue())));
+        assertThat(misses() - misses, is(1L));
+    }
+
+    private static long hits() {
+        return MetricRegistry.getDefault().counter("taxonIndex.related.hits").getCount();
+    }
+
+    private static long misses() {
+        return MetricRegistry.getDefault().counter("taxonIndex.related.misses").getCount();
+    }
+
+}
@@ -1,9 +1,11 @@
 package org.eol.globi.tool;
 
+import org.apache.commons.lang3.time.StopWatch;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.eol.globi.data.GraphDBNeo4jTestCase;
 import org.eol.globi.data.NodeFactoryException;
 import org.eol.globi.db.GraphServiceFactory;
+import org.eol.globi.domain.DatasetNode;
 import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.Specimen;
 import org.eol.globi.domain.Study;
@@ -12,8 +14,10 @@ import org.eol.globi.domain.StudyImpl;
 import org.eol.globi.domain.TaxonImpl;
 import org.eol.globi.util.ResourceServiceLocalAndRemote;
 import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetConstant;
 import org.globalbioticinteractions.dataset.DatasetImpl;
 import org.globalbioticinteractions.dataset.DatasetWithResourceMapping;
+import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -23,6 +27,9 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.index.IndexHits;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -178,6 +185,142 @@ public class CmdGenerateReportNeo4j2Test extends GraphDBNeo4jTestCase {
         }
     }
 
+    @Test
+    public void generateCollectionReportFromStoredDatasetReports() throws NodeFactoryException {
+        DatasetImpl originatingDataset = new DatasetWithResourceMapping("some/namespace", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream));
+        Dataset originatingDatasetNode = nodeFactory.getOrCreateDataset(originatingDataset);
+        Node datasetNode = ((DatasetNode) originatingDatasetNode).getUnderlyingNode();
+        datasetNode.setProperty(DatasetConstant.IMPORTED_CONTENT_HASH, "hash1");
+        StudyImpl study1 = new StudyImpl("a title", null, "citation");
+        study1.setOriginatingDataset(originatingDatasetNode);
+        createStudy(study1);
+        resolveNames();
+
+        getCmdGenerateReport().generateReportForCollection();
+
+        assertThat(datasetNode.getProperty(DatasetReport.REPORT_CONTENT_HASH), is("hash1"));
+        assertThat(datasetNode.getProperty(DatasetReport.REPORT_STUDY_COUNT), is(1));
+        assertThat(getCollectionReport().getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(1));
+
+        StudyImpl study2 = new StudyImpl("another title", null, "citation");
+        study2.setOriginatingDataset(originatingDatasetNode);
+        createStudy(study2);
+        resolveNames();
+
+        getCmdGenerateReport().generateReportForCollection();
+        // dataset content did not change, so stored dataset report is used
+        assertThat(getCollectionReport().getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(1));
+
+        datasetNode.setProperty(DatasetConstant.IMPORTED_CONTENT_HASH, "hash2");
+        getCmdGenerateReport().generateReportForCollection();
+
+        Node reportNode = getCollectionReport();
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(1));
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(1));
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(2));
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(8));
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH), is(2));
+        assertThat(datasetNode.getProperty(DatasetReport.REPORT_CONTENT_HASH), is("hash2"));
+
+        StudyImpl study3 = new StudyImpl("yet another title", null, "citation");
+        study3.setOriginatingDataset(originatingDatasetNode);
+        createStudy(study3);
+        resolveNames();
+
+        getCmdGenerateReport().generateReportForCollection();
+        // dataset content did not change, so stored dataset report is used
+        assertThat(getCollectionReport().getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(2));
+
+        datasetNode.setProperty(DatasetConstant.LINKED_TAXON_CACHE_HASH, "linkedHash1");
+        getCmdGenerateReport().generateReportForCollection();
+        // names of dataset were linked again, so dataset report is computed again
+        assertThat(getCollectionReport().getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(3));
+        assertThat(datasetNode.getProperty(DatasetReport.REPORT_CONTENT_HASH), is("hash2:linkedHash1"));
+    }
+
+    @Test
+    public void generateCollectionReportForStudiesWithoutDataset() throws NodeFactoryException {
+        createStudy(new StudyImpl("a title", null, "citation"));
+        resolveNames();
+
+        getCmdGenerateReport().generateReportForCollection();
+
+        Node reportNode = getCollectionReport();
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(0));
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(1));
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(4));
+        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkIncrementalReport() throws NodeFactoryException {
+        int numberOfDatasets = 100;
+        int studiesPerDataset = 100;
+        List<Dataset> datasets = new ArrayList<>();
+        for (int i = 0; i < numberOfDatasets; i++) {
+            Dataset dataset = nodeFactory.getOrCreateDataset(
+                    new DatasetWithResourceMapping("some/namespace" + i, URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
+            createStudies(dataset, studiesPerDataset, "hash1");
+            datasets.add(dataset);
+        }
+        resolveNames();
+
+        // warm-up
+        timeReport();
+
+        // as if no dataset reports were stored by a previous run
+        for (Dataset dataset : datasets) {
+            ((DatasetNode) dataset).getUnderlyingNode().removeProperty(DatasetReport.REPORT_CONTENT_HASH);
+        }
+        long full = timeReport();
+        Map<String, Object> fullReport = getCollectionReport().getAllProperties();
+
+        long unchanged = timeReport();
+
+        // re-import a single dataset, as a compile does for a dataset with a new content hash
+        Dataset changed = datasets.get(numberOfDatasets / 2);
+        getNodeFactory().removeImported(changed);
+        createStudies(changed, studiesPerDataset, "hash2");
+        resolveNames();
+
+        long incremental = timeReport();
+        Map<String, Object> incrementalReport = getCollectionReport().getAllProperties();
+
+        System.out.println("report of [" + numberOfDatasets + "] datasets with [" + studiesPerDataset + "] studies each: full [" + full
+                + "] ms, unchanged [" + unchanged
+                + "] ms, one dataset re-imported [" + incremental + "] ms");
+        // totals do not change, because the re-imported dataset has the same records
+        assertThat(incrementalReport, is(fullReport));
+    }
+
+    private void createStudies(Dataset dataset, int numberOfStudies, String contentHash) throws NodeFactoryException {
+        for (int i = 0; i < numberOfStudies; i++) {
+            StudyImpl study = new StudyImpl("a title" + i, null, "citation" + i);
+            study.setOriginatingDataset(dataset);
+            createStudy(study);
+        }
+        ((DatasetNode) dataset).getUnderlyingNode().setProperty(DatasetConstant.IMPORTED_CONTENT_HASH, contentHash);
+    }
+
+    private long timeReport() {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        getCmdGenerateReport().run();
+        stopWatch.stop();
+        return stopWatch.getTime();
+    }
+
+    private Node getCollectionReport() {
+        try (IndexHits<Node> reports = getGraphDb()
+                .index()
+                .forNodes("reports")
+                .get(PropertyAndValueDictionary.COLLECTION, "Global Biotic Interactions")) {
+            return reports.getSingle();
+        }
+    }
+
     private CmdGenerateReportNeo4j2 getCmdGenerateReport() {
         CmdGenerateReportNeo4j2 cmdGenerateReport = new CmdGenerateReportNeo4j2();
         cmdGenerateReport.setNodeFactoryFactory(factory -> nodeFactory);
@@ -0,0 +1,163 @@
+package org.eol.globi.tool;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.db.GraphServiceFactory;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.domain.TaxonNode;
+import org.eol.globi.taxon.NonResolvingTaxonIndexNeo4j2;
+import org.eol.globi.taxon.TaxonFuzzySearchIndexNeo4j2;
+import org.eol.globi.util.NodeIdCollectorNeo4j2;
+import org.eol.globi.util.NodeUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class LinkerTaxonIndexNeo4j2ParallelTest {
+
+    private GraphServiceFactory sequential;
+    private GraphServiceFactory parallel;
+
+    @Before
+    public void startGraphs() {
+        sequential = graphServiceFactory();
+        parallel = graphServiceFactory();
+    }
+
+    @After
+    public void stopGraphs() throws Exception {
+        sequential.close();
+        parallel.close();
+    }
+
+    @Test
+    public void parallelSameAsSequential() throws NodeFactoryException {
+        populate(sequential.getGraphService(), 2000);
+        populate(parallel.getGraphService(), 2000);
+
+        new LinkerTaxonIndexNeo4j2(sequential, new NodeIdCollectorNeo4j2()).index();
+        new LinkerTaxonIndexNeo4j2(parallel, new NodeIdCollectorNeo4j2(), 4).index();
+
+        for (String query : Arrays.asList(
+                PropertyAndValueDictionary.PATH + ":FOO\\:12*",
+                PropertyAndValueDictionary.PATH + ":BAR\\:9",
+                PropertyAndValueDictionary.PATH + ":\"genus17 species17\"",
+                PropertyAndValueDictionary.PATH + ":Genus3")) {
+            List<String> expected = queryTaxonPaths(sequential.getGraphService(), query);
+            assertThat(expected.isEmpty(), is(false));
+            assertThat(query, queryTaxonPaths(parallel.getGraphService(), query), is(expected));
+        }
+
+        for (String query : Arrays.asList("name:genus3", "name:animalia")) {
+            List<String> expected = queryNameSuggestions(sequential.getGraphService(), query);
+            assertThat(expected.isEmpty(), is(false));
+            assertThat(query, queryNameSuggestions(parallel.getGraphService(), query), is(expected));
+        }
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmark() throws NodeFactoryException {
+        int numberOfTaxa = 10000;
+        populate(sequential.getGraphService(), numberOfTaxa);
+        populate(parallel.getGraphService(), numberOfTaxa);
+
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        new LinkerTaxonIndexNeo4j2(sequential, new NodeIdCollectorNeo4j2()).index();
+        stopWatch.stop();
+        System.out.println("indexed [" + numberOfTaxa + "] taxon paths using [1] thread in [" + stopWatch.getTime() + "] ms");
+
+        stopWatch.reset();
+        stopWatch.start();
+        new LinkerTaxonIndexNeo4j2(parallel, new NodeIdCollectorNeo4j2(), numberOfThreads).index();
+        stopWatch.stop();
+        System.out.println("indexed [" + numberOfTaxa + "] taxon paths using [" + numberOfThreads + "] threads in [" + stopWatch.getTime() + "] ms");
+    }
+
+    private static void populate(GraphDatabaseService graphDb, int numberOfTaxa) throws NodeFactoryException {
+        NonResolvingTaxonIndexNeo4j2 taxonIndex = new NonResolvingTaxonIndexNeo4j2(graphDb);
+        for (int i = 0; i < numberOfTaxa; i++) {
+            TaxonImpl taxon = new TaxonImpl("Genus" + (i % 50) + " species" + i, "FOO:" + i);
+            taxon.setPath("Animalia | Genus" + (i % 50) + " | Genus" + (i % 50) + " species" + i);
+            taxon.setPathIds("FOO:0 | FOO:" + (i % 50) + " | FOO:" + i);
+            TaxonNode taxonNode = taxonIndex.getOrCreateTaxon(taxon);
+            if (i % 3 == 0) {
+                try (Transaction tx = graphDb.beginTx()) {
+                    NodeUtil.connectTaxa(new TaxonImpl("Other" + i, "BAR:" + i), taxonNode, graphDb, RelTypes.SAME_AS);
+                    tx.success();
+                }
+            }
+        }
+    }
+
+    private static List<String> queryTaxonPaths(GraphDatabaseService graphDb, String query) {
+        List<String> names = new ArrayList<>();
+        try (Transaction tx = graphDb.beginTx()) {
+            try (IndexHits<Node> hits = graphDb.index().forNodes(LinkerTaxonIndexNeo4j2.INDEX_TAXON_NAMES_AND_IDS).query(query)) {
+                for (Node hit : hits) {
+                    names.add(new TaxonNode(hit).getName()
+                            + " " + hit.getProperty(PropertyAndValueDictionary.EXTERNAL_IDS)
+                            + " " + hit.getProperty(PropertyAndValueDictionary.NAME_IDS));
+                }
+            }
+            tx.success();
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static List<String> queryNameSuggestions(GraphDatabaseService graphDb, String query) {
+        List<String> names = new ArrayList<>();
+        try (Transaction tx = graphDb.beginTx()) {
+            try (ResourceIterator<Node> hits = new TaxonFuzzySearchIndexNeo4j2(graphDb).query(query)) {
+                hits.forEachRemaining(hit -> names.add(new TaxonNode(hit).getName()));
+            }
+            tx.success();
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static GraphServiceFactory graphServiceFactory() {
+        return new GraphServiceFactory() {
+
+            private GraphDatabaseService graphDb = null;
+
+            @Override
+            public GraphDatabaseService getGraphService() {
+                if (graphDb == null) {
+                    graphDb = new TestGraphDatabaseFactory().newImpermanentDatabase();
+                }
+                return graphDb;
+            }
+
+            @Override
+            public void close() {
+                if (graphDb != null) {
+                    graphDb.shutdown();
+                    graphDb = null;
+                }
+            }
+        };
+    }
+
+}
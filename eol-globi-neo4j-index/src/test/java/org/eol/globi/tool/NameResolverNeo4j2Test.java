@@ -2,23 +2,38 @@ package org.eol.globi.tool;
 
 import org.eol.globi.data.GraphDBNeo4jTestCase;
 import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.data.TaxonIndex;
 import org.eol.globi.db.GraphServiceFactory;
 import org.eol.globi.db.GraphServiceFactoryProxy;
+import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.SpecimenNode;
 import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.StudyNode;
 import org.eol.globi.domain.Taxon;
 import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.domain.TaxonNode;
 import org.eol.globi.service.PropertyEnricher;
 import org.eol.globi.service.PropertyEnricherException;
 import org.eol.globi.service.TaxonUtil;
+import org.eol.globi.util.NodeTypeDirection;
+import org.eol.globi.util.NodeUtil;
 import org.junit.Test;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.core.Is.is;
@@ -179,6 +194,112 @@ public class NameResolverNeo4j2Test extends GraphDBNeo4jTestCase {
         assertThat(resolvedTaxon2.getName(), is("Donald duckus"));
     }
 
+    @Test
+    public void resolveSameNameOnlyOnce() throws NodeFactoryException {
+        StudyNode study = getNodeFactory().createStudy(new StudyImpl("bla", null, null));
+        for (int i = 0; i < 5; i++) {
+            Specimen predator = nodeFactory.createSpecimen(study, new TaxonImpl("Homo sapiens", "NCBI:9606"));
+            Specimen prey = nodeFactory.createSpecimen(study, new TaxonImpl("Arius felis", null));
+            predator.ate(prey);
+        }
+
+        List<String> resolvedNames = new ArrayList<>();
+        TaxonIndex countingIndex = new TaxonIndex() {
+            @Override
+            public Taxon getOrCreateTaxon(Taxon taxon) throws NodeFactoryException {
+                resolvedNames.add(taxon.getName());
+                return getTaxonIndex().getOrCreateTaxon(taxon);
+            }
+
+            @Override
+            public Taxon findTaxonByName(String name) throws NodeFactoryException {
+                return getTaxonIndex().findTaxonByName(name);
+            }
+
+            @Override
+            public Taxon findTaxonById(String externalId) throws NodeFactoryException {
+                return getTaxonIndex().findTaxonById(externalId);
+            }
+        };
+
+        NameResolver nameResolver = new NameResolver(new GraphServiceFactoryProxy(getGraphDb()), getNodeIdCollector(), countingIndex);
+        nameResolver.setBatchSize(3L);
+        nameResolver.index();
+
+        Collections.sort(resolvedNames);
+        assertThat(resolvedNames, is(Arrays.asList("Arius felis", "Homo sapiens")));
+
+        AtomicInteger classified = new AtomicInteger(0);
+        NodeUtil.handleCollectedRelationships(new NodeTypeDirection(study.getUnderlyingNode()), relationship -> {
+            Relationship classifiedAs = relationship.getEndNode().getSingleRelationship(NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS), Direction.OUTGOING);
+            assertThat(classifiedAs, is(notNullValue()));
+            classified.incrementAndGet();
+        });
+        assertThat(classified.get(), is(10));
+    }
+
+    @Test
+    public void memoizedTaxonNoLongerFoundIsResolvedAgain() throws NodeFactoryException {
+        SpecimenNode specimen = getNodeFactory().createSpecimen(getNodeFactory().createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Homo sapiens", "NCBI:9606"));
+        Relationship describedAs = specimen.getUnderlyingNode().getSingleRelationship(NodeUtil.asNeo4j(RelTypes.ORIGINALLY_DESCRIBED_AS), Direction.OUTGOING);
+        TaxonNode original = new TaxonNode(describedAs.getEndNode());
+
+        NameResolver nameResolver = new NameResolver(new GraphServiceFactoryProxy(getGraphDb()), getNodeIdCollector(), getTaxonIndex());
+        Map<String, NameResolver.MemoizedTaxon> memo = new TreeMap<>();
+        TaxonNode resolved = (TaxonNode) nameResolver.getOrCreateTaxon(original, memo, getGraphDb());
+        TaxonNode memoized = (TaxonNode) nameResolver.getOrCreateTaxon(original, memo, getGraphDb());
+        assertThat(memoized.getUnderlyingNode().getId(), is(resolved.getUnderlyingNode().getId()));
+
+        // as if the transaction that created the resolved taxon was rolled back
+        Node resolvedNode = resolved.getUnderlyingNode();
+        for (Relationship rel : resolvedNode.getRelationships()) {
+            rel.delete();
+        }
+        resolvedNode.delete();
+
+        TaxonNode resolvedAgain = (TaxonNode) nameResolver.getOrCreateTaxon(original, memo, getGraphDb());
+        assertThat(resolvedAgain.getUnderlyingNode().getId(), is(not(resolvedNode.getId())));
+        assertThat(resolvedAgain.getName(), is("Homo sapiens"));
+    }
+
+    @Test
+    public void memoizedTaxonWithOtherNameIsResolvedAgain() throws NodeFactoryException {
+        SpecimenNode specimen = getNodeFactory().createSpecimen(getNodeFactory().createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Homo sapiens", "NCBI:9606"));
+        Relationship describedAs = specimen.getUnderlyingNode().getSingleRelationship(NodeUtil.asNeo4j(RelTypes.ORIGINALLY_DESCRIBED_AS), Direction.OUTGOING);
+        TaxonNode original = new TaxonNode(describedAs.getEndNode());
+
+        AtomicInteger resolved = new AtomicInteger(0);
+        TaxonIndex countingIndex = new TaxonIndex() {
+            @Override
+            public Taxon getOrCreateTaxon(Taxon taxon) throws NodeFactoryException {
+                resolved.incrementAndGet();
+                return getTaxonIndex().getOrCreateTaxon(taxon);
+            }
+
+            @Override
+            public Taxon findTaxonByName(String name) throws NodeFactoryException {
+                return getTaxonIndex().findTaxonByName(name);
+            }
+
+            @Override
+            public Taxon findTaxonById(String externalId) throws NodeFactoryException {
+                return getTaxonIndex().findTaxonById(externalId);
+            }
+        };
+
+        NameResolver nameResolver = new NameResolver(new GraphServiceFactoryProxy(getGraphDb()), getNodeIdCollector(), countingIndex);
+        Map<String, NameResolver.MemoizedTaxon> memo = new TreeMap<>();
+        TaxonNode resolvedTaxon = (TaxonNode) nameResolver.getOrCreateTaxon(original, memo, getGraphDb());
+        nameResolver.getOrCreateTaxon(original, memo, getGraphDb());
+        assertThat(resolved.get(), is(1));
+
+        // as if the id of a rolled back taxon node was reused
+        resolvedTaxon.getUnderlyingNode().setProperty(PropertyAndValueDictionary.NAME, "Mickeya mouseus");
+
+        nameResolver.getOrCreateTaxon(original, memo, getGraphDb());
+        assertThat(resolved.get(), is(2));
+    }
+
     @Test
     public void progressMessage() {
         assertThat(NameResolver.getProgressMsg(10000L, 5555), is("[1800.18] taxon/s over [5.56] s"));
@@ -0,0 +1,287 @@
+package org.eol.globi.tool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.lang3.time.StopWatch;
+import org.eol.globi.data.DatasetImportCheckpoints;
+import org.eol.globi.data.NodeFactory;
+import org.eol.globi.data.NodeLabel;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.db.GraphServiceFactory;
+import org.eol.globi.domain.LocationImpl;
+import org.eol.globi.domain.LocationNode;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.util.ResourceServiceLocal;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetConstant;
+import org.globalbioticinteractions.dataset.DatasetImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNotNull;
+
+public class NodeFactoryFactoryTransactingOnDatasetNeo4j3Test {
+
+    private static final int LARGE_CACHE_SIZE = 256 * 1024;
+
+    private GraphServiceFactory transactional;
+    private GraphServiceFactory largeCache;
+
+    @Before
+    public void startGraphs() {
+        transactional = graphServiceFactory();
+        largeCache = graphServiceFactory();
+    }
+
+    @After
+    public void stopGraphs() throws Exception {
+        transactional.close();
+        largeCache.close();
+    }
+
+    @Test
+    public void largeNodeIdCacheSameAsDefault() throws URISyntaxException, StudyImporterException {
+        index(new NodeFactoryFactoryTransactingOnDatasetNeo4j3(transactional), transactional);
+        index(new NodeFactoryFactoryTransactingOnDatasetNeo4j3(largeCache, LARGE_CACHE_SIZE), largeCache);
+
+        List<String> expected = describe(transactional.getGraphService());
+        assertThat(expected.size() > 10, is(true));
+        assertThat(describe(largeCache.getGraphService()), is(expected));
+        assertThat(describeSchema(largeCache.getGraphService()), is(describeSchema(transactional.getGraphService())));
+    }
+
+    @Test
+    public void createsIndexes() throws URISyntaxException, StudyImporterException {
+        index(new NodeFactoryFactoryTransactingOnDatasetNeo4j3(transactional), transactional);
+
+        GraphDatabaseService graphDb = transactional.getGraphService();
+        try (Transaction tx = graphDb.beginTx()) {
+            List<String> indexes = indexesOf(graphDb);
+            assertThat(indexes.contains("Location.locationKey"), is(true));
+            assertThat(indexes.contains("Dataset.namespace"), is(true));
+            assertThat(indexes.contains("ExternalId.externalId"), is(true));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void transactionalCreatesIndexesAndAddsMissingLocationKeys() throws Exception {
+        GraphDatabaseService graphDb = transactional.getGraphService();
+        Node legacyLocation;
+        try (Transaction tx = graphDb.beginTx()) {
+            legacyLocation = graphDb.createNode(NodeLabel.Location);
+            new LocationNode(legacyLocation, new LocationImpl(12.0d, 13.0d, null, null));
+            tx.success();
+        }
+
+        NodeFactory nodeFactory = new NodeFactoryFactoryTransactingOnDatasetNeo4j3(transactional).create(graphDb);
+
+        try (Transaction tx = graphDb.beginTx()) {
+            assertThat(indexesOf(graphDb).contains("Location.locationKey"), is(true));
+            LocationNode found = (LocationNode) nodeFactory.findLocation(new LocationImpl(12.0d, 13.0d, null, null));
+            assertNotNull(found);
+            assertThat(found.getUnderlyingNode().getId(), is(legacyLocation.getId()));
+            tx.success();
+        }
+        nodeFactory.close();
+    }
+
+    @Test
+    public void removeImportedCommitsInBatches() throws Exception {
+        GraphDatabaseService graphDb = transactional.getGraphService();
+        DatasetImpl dataset = new DatasetImpl("some/namespace", new ResourceServiceLocal(in -> in), URI.create("some:uri"));
+        ObjectNode config = new ObjectMapper().createObjectNode();
+        config.put(DatasetConstant.CONTENT_HASH, "some-hash");
+        dataset.setConfig(config);
+
+        NodeFactory nodeFactory = new NodeFactoryFactoryTransactingOnDatasetNeo4j3(transactional).create(graphDb);
+        StudyImpl study = new StudyImpl("some study", null, null);
+        study.setOriginatingDataset(nodeFactory.getOrCreateDataset(dataset));
+        for (int i = 0; i < 6000; i++) {
+            nodeFactory.createSpecimen(nodeFactory.getOrCreateStudy(study), new TaxonImpl("Donalda duckus", null));
+        }
+        ((DatasetImportCheckpoints) nodeFactory).setImported(dataset);
+        nodeFactory.close();
+        long nodesImported = countNodesCommitted(graphDb);
+
+        nodeFactory = new NodeFactoryFactoryTransactingOnDatasetNeo4j3(transactional).create(graphDb);
+        ((DatasetImportCheckpoints) nodeFactory).removeImported(dataset);
+        long nodesRemoving = countNodesCommitted(graphDb);
+        nodeFactory.close();
+        long nodesRemoved = countNodesCommitted(graphDb);
+
+        // the study, its specimens and their original taxa are removed in more than one transaction
+        assertThat(nodesImported - nodesRemoved, is(12001L));
+        assertThat(nodesRemoving < nodesImported, is(true));
+        assertThat(nodesRemoving > nodesRemoved, is(true));
+    }
+
+    private static long countNodesCommitted(GraphDatabaseService graphDb) throws Exception {
+        // reads from another thread, which only sees committed changes
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(() -> {
+                try (Transaction tx = graphDb.beginTx()) {
+                    long count = graphDb.getAllNodes().stream().count();
+                    tx.success();
+                    return count;
+                }
+            }).get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkCompile() throws Exception {
+        int datasets = 20;
+        int interactionsPerDataset = 5000;
+        // first round warms up
+        for (int round = 0; round < 3; round++) {
+            GraphServiceFactory defaultCacheRound = graphServiceFactory();
+            GraphServiceFactory largeCacheRound = graphServiceFactory();
+            try {
+                long largeCacheTime = timeCompile(new NodeFactoryFactoryTransactingOnDatasetNeo4j3(largeCacheRound, LARGE_CACHE_SIZE), largeCacheRound, datasets, interactionsPerDataset);
+                long defaultCacheTime = timeCompile(new NodeFactoryFactoryTransactingOnDatasetNeo4j3(defaultCacheRound), defaultCacheRound, datasets, interactionsPerDataset);
+                System.out.println("round [" + round + "]: compiled [" + datasets * interactionsPerDataset + "] interactions with default node id cache in [" + defaultCacheTime + "] ms, with large node id cache in [" + largeCacheTime + "] ms");
+            } finally {
+                defaultCacheRound.close();
+                largeCacheRound.close();
+            }
+        }
+    }
+
+    private static long timeCompile(NodeFactoryFactory nodeFactoryFactory, GraphServiceFactory graphServiceFactory, int datasets, int interactionsPerDataset) throws Exception {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        NodeFactory nodeFactory = nodeFactoryFactory.create(graphServiceFactory.getGraphService());
+        for (int i = 0; i < datasets; i++) {
+            Dataset dataset = nodeFactory.getOrCreateDataset(new DatasetImpl("some/namespace" + i, resourceName -> {
+                throw new IOException("no resources available");
+            }, URI.create("some:uri")));
+            for (int j = 0; j < interactionsPerDataset; j++) {
+                StudyImpl study = new StudyImpl("some title" + (j % 50));
+                study.setOriginatingDataset(dataset);
+                Specimen specimen = nodeFactory.createSpecimen(nodeFactory.getOrCreateStudy(study), new TaxonImpl("Homo sapiens"));
+                LocationImpl location = new LocationImpl(12.0d, (j % 500) / 10.0d, null, null);
+                specimen.caughtIn(nodeFactory.getOrCreateLocation(location));
+            }
+        }
+        nodeFactory.close();
+        stopWatch.stop();
+        return stopWatch.getTime();
+    }
+
+    private static void index(NodeFactoryFactory nodeFactoryFactory, GraphServiceFactory graphServiceFactory) throws URISyntaxException, StudyImporterException {
+        URL resource = NodeFactoryFactoryTransactingOnDatasetNeo4j3Test.class.getResource("datasets-test/globalbioticinteractions/template-dataset/access.tsv");
+        assertNotNull(resource);
+        String datasetDirTest = new File(resource.toURI()).getParentFile().getParentFile().getParentFile().getAbsolutePath();
+
+        new IndexerDataset(
+                DatasetRegistryUtil.getDatasetRegistry(datasetDirTest, new ResourceServiceLocal(inStream -> inStream)),
+                nodeFactoryFactory,
+                graphServiceFactory
+        ).index();
+    }
+
+    private static List<String> describeSchema(GraphDatabaseService graphDb) {
+        try (Transaction tx = graphDb.beginTx()) {
+            List<String> schema = new ArrayList<>(indexesOf(graphDb));
+            for (ConstraintDefinition constraint : graphDb.schema().getConstraints()) {
+                schema.add(constraint.toString());
+            }
+            tx.success();
+            return schema;
+        }
+    }
+
+    private static List<String> indexesOf(GraphDatabaseService graphDb) {
+        List<String> indexes = new ArrayList<>();
+        for (IndexDefinition index : graphDb.schema().getIndexes()) {
+            for (Label label : index.getLabels()) {
+                indexes.add(label.name() + "." + index.getPropertyKeys().iterator().next());
+            }
+        }
+        Collections.sort(indexes);
+        return indexes;
+    }
+
+    private static List<String> describe(GraphDatabaseService graphDb) {
+        List<String> descriptions = new ArrayList<>();
+        try (Transaction tx = graphDb.beginTx()) {
+            for (Node node : graphDb.getAllNodes()) {
+                descriptions.add(describe(node));
+            }
+            for (Relationship relationship : graphDb.getAllRelationships()) {
+                descriptions.add(describe(relationship.getStartNode())
+                        + " -[" + relationship.getType().name() + " " + new TreeMap<>(relationship.getAllProperties()) + "]-> "
+                        + describe(relationship.getEndNode()));
+            }
+            tx.success();
+        }
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+
+    private static String describe(Node node) {
+        List<String> labels = new ArrayList<>();
+        for (Label label : node.getLabels()) {
+            labels.add(label.name());
+        }
+        Collections.sort(labels);
+        Map<String, Object> properties = new TreeMap<>(node.getAllProperties());
+        return labels + " " + properties;
+    }
+
+    private static GraphServiceFactory graphServiceFactory() {
+        return new GraphServiceFactory() {
+
+            private GraphDatabaseService graphDb = null;
+
+            @Override
+            public GraphDatabaseService getGraphService() {
+                if (graphDb == null) {
+                    graphDb = new TestGraphDatabaseFactory().newImpermanentDatabase();
+                }
+                return graphDb;
+            }
+
+            @Override
+            public void close() {
+                if (graphDb != null) {
+                    graphDb.shutdown();
+                    graphDb = null;
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,165 @@
+package org.eol.globi.tool;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class StageSchedulerTest {
+
+    @Test
+    public void dependenciesFromReadsAndWrites() {
+        StageScheduler scheduler = linkStages(new CopyOnWriteArrayList<>());
+
+        assertThat(scheduler.getDependencies().get("interpret"), is(Collections.<String>emptyList()));
+        assertThat(scheduler.getDependencies().get("indexTaxa"), is(Collections.singletonList("interpret")));
+        assertThat(scheduler.getDependencies().get("indexTaxonStrings"), is(Collections.singletonList("indexTaxa")));
+        assertThat(scheduler.getDependencies().get("report"), is(Collections.singletonList("indexTaxa")));
+    }
+
+    @Test
+    public void readAfterWriteAndWriteAfterRead() {
+        StageScheduler scheduler = new StageScheduler()
+                .add("read", Collections.singletonList("a"), Collections.emptyList(), () -> {
+                })
+                .add("write", Collections.emptyList(), Collections.singletonList("a"), () -> {
+                })
+                .add("readAgain", Collections.singletonList("a"), Collections.emptyList(), () -> {
+                })
+                .add("other", Collections.singletonList("b"), Collections.singletonList("c"), () -> {
+                });
+
+        assertThat(scheduler.getDependencies().get("write"), is(Collections.singletonList("read")));
+        assertThat(scheduler.getDependencies().get("readAgain"), is(Collections.singletonList("write")));
+        assertThat(scheduler.getDependencies().get("other"), is(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void dependentStagesRunInOrder() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        linkStages(events).run();
+
+        assertThat(events.indexOf("interpret done") < events.indexOf("indexTaxa started"), is(true));
+        assertThat(events.indexOf("indexTaxa done") < events.indexOf("indexTaxonStrings started"), is(true));
+        assertThat(events.indexOf("indexTaxa done") < events.indexOf("report started"), is(true));
+        assertThat(events.size(), is(8));
+    }
+
+    @Test
+    public void runSeriallyInDeclarationOrder() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        linkStages(events).runSerially();
+
+        assertThat(events, is(Arrays.asList(
+                "interpret started", "interpret done",
+                "indexTaxa started", "indexTaxa done",
+                "indexTaxonStrings started", "indexTaxonStrings done",
+                "report started", "report done")));
+    }
+
+    @Test
+    public void independentStagesRunConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        AtomicBoolean overlapped = new AtomicBoolean(true);
+        Runnable awaitOther = () -> {
+            bothStarted.countDown();
+            try {
+                if (!bothStarted.await(10, TimeUnit.SECONDS)) {
+                    overlapped.set(false);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        new StageScheduler()
+                .add("exportTsv", Collections.singletonList("graph"), Collections.singletonList("tsv"), awaitOther)
+                .add("exportCsv", Collections.singletonList("graph"), Collections.singletonList("csv"), awaitOther)
+                .run();
+
+        assertThat(overlapped.get(), is(true));
+    }
+
+    @Test
+    public void criticalPath() {
+        StageScheduler scheduler = new StageScheduler()
+                .add("interpret", Collections.emptyList(), Collections.singletonList("taxa"), sleep(50))
+                .add("indexTaxonStrings", Collections.singletonList("taxa"), Collections.singletonList("taxonPaths"), sleep(200))
+                .add("report", Collections.singletonList("taxa"), Collections.singletonList("reports"), sleep(10));
+        scheduler.run();
+
+        assertThat(scheduler.getCriticalPath(), is(Arrays.asList("interpret", "indexTaxonStrings")));
+    }
+
+    @Test
+    public void failedStageSkipsDependents() {
+        AtomicBoolean dependentRan = new AtomicBoolean(false);
+        StageScheduler scheduler = new StageScheduler()
+                .add("interpret", Collections.emptyList(), Collections.singletonList("taxa"), () -> {
+                    throw new IllegalStateException("kaboom");
+                })
+                .add("indexTaxa", Collections.singletonList("taxa"), Collections.emptyList(), () -> dependentRan.set(true));
+        try {
+            scheduler.run();
+        } catch (IllegalStateException ex) {
+            assertThat(ex.getMessage(), is("kaboom"));
+        }
+        assertThat(dependentRan.get(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateStage() {
+        new StageScheduler()
+                .add("interpret", Collections.emptyList(), Collections.emptyList(), () -> {
+                })
+                .add("interpret", Collections.emptyList(), Collections.emptyList(), () -> {
+                });
+    }
+
+    private static StageScheduler linkStages(List<String> events) {
+        return new StageScheduler()
+                .add("interpret",
+                        Arrays.asList("studies", "specimens", "classifications"),
+                        Arrays.asList("datasets", "taxa", "classifications"),
+                        record(events, "interpret"))
+                .add("indexTaxa",
+                        Arrays.asList("studies", "specimens", "taxa", "classifications"),
+                        Arrays.asList("taxa", "classifications", "taxonInteractions"),
+                        record(events, "indexTaxa"))
+                .add("indexTaxonStrings",
+                        Collections.singletonList("taxa"),
+                        Arrays.asList("taxonIds", "taxonPaths", "taxonNameSuggestions"),
+                        record(events, "indexTaxonStrings"))
+                .add("report",
+                        Arrays.asList("datasets", "datasetReports", "studies", "specimens", "taxa", "classifications"),
+                        Arrays.asList("datasetReports", "reports"),
+                        record(events, "report"));
+    }
+
+    private static Runnable record(List<String> events, String name) {
+        return () -> {
+            events.add(name + " started");
+            sleep(10).run();
+            events.add(name + " done");
+        };
+    }
+
+    private static Runnable sleep(long millis) {
+        return () -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+}
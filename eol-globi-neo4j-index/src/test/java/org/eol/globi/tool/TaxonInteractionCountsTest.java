@@ -0,0 +1,127 @@
+package org.eol.globi.tool;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Fun;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class TaxonInteractionCountsTest {
+
+    @Test
+    public void increment() {
+        TaxonInteractionCounts counts = new TaxonInteractionCounts();
+        counts.increment(1L, (byte) 2, 3L);
+        counts.increment(1L, (byte) 2, 3L);
+        counts.increment(3L, (byte) 2, 1L);
+        counts.increment(1L, (byte) 3, 3L);
+
+        assertThat(counts.size(), is(3));
+        assertThat(counts.get(1L, (byte) 2, 3L), is(2L));
+        assertThat(counts.get(3L, (byte) 2, 1L), is(1L));
+        assertThat(counts.get(1L, (byte) 3, 3L), is(1L));
+        assertThat(counts.get(3L, (byte) 3, 1L), is(0L));
+    }
+
+    @Test
+    public void growSameAsHashMap() {
+        TaxonInteractionCounts counts = new TaxonInteractionCounts(4, 1 << 20);
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long source = random.nextInt(500);
+            byte type = (byte) random.nextInt(60);
+            long target = random.nextInt(500);
+            counts.increment(source, type, target);
+            expected.merge(source + "|" + type + "|" + target, 1L, Long::sum);
+        }
+
+        Map<String, Long> actual = new HashMap<>();
+        counts.forEach((source, type, target, count) -> actual.put(source + "|" + type + "|" + target, count));
+        assertThat(counts.size(), is(expected.size()));
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void spillSameAsHashMap() {
+        Map<String, Long> expected = new HashMap<>();
+        Map<String, Long> actual = new HashMap<>();
+        try (TaxonInteractionCounts counts = new TaxonInteractionCounts(4, 64)) {
+            Random random = new Random(42);
+            // all interactions of a source taxon are counted before those of the next
+            for (long source = 0; source < 500; source++) {
+                for (int i = 0; i < 200; i++) {
+                    byte type = (byte) random.nextInt(3);
+                    long target = random.nextInt(10);
+                    counts.increment(source, type, target);
+                    expected.merge(source + "|" + type + "|" + target, 1L, Long::sum);
+                }
+            }
+            counts.forEach((source, type, target, count) -> actual.merge(source + "|" + type + "|" + target, count, Long::sum));
+            assertThat(counts.size(), is(expected.size()));
+        }
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void singleSourceExceedsMaxSlots() {
+        try (TaxonInteractionCounts counts = new TaxonInteractionCounts(4, 8)) {
+            for (long target = 0; target < 100; target++) {
+                counts.increment(1L, (byte) 2, target);
+            }
+            assertThat(counts.size(), is(100));
+            assertThat(counts.get(1L, (byte) 2, 99L), is(1L));
+        }
+    }
+
+    @Test
+    public void maxSlotsPerTable() {
+        assertThat(TaxonInteractionCounts.maxSlotsPerTable(1), is(1 << 24));
+        assertThat(TaxonInteractionCounts.maxSlotsPerTable(3), is(1 << 22));
+        assertThat(TaxonInteractionCounts.maxSlotsPerTable(1024), is(1 << 16));
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmark() {
+        int increments = 5000000;
+        int taxa = 100000;
+
+        DB db = DBMaker
+                .newMemoryDirectDB()
+                .compressionEnable()
+                .transactionDisable()
+                .make();
+        Map<Fun.Tuple3<Long, String, Long>, Long> treeMap = db.createTreeMap("ottIdMap").make();
+        Random random = new Random(42);
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        for (int i = 0; i < increments; i++) {
+            Fun.Tuple3<Long, String, Long> key = new Fun.Tuple3<>((long) random.nextInt(taxa), "INTERACTS_WITH", (long) random.nextInt(taxa));
+            Long count = treeMap.get(key);
+            treeMap.put(key, count == null ? 1L : count + 1L);
+        }
+        stopWatch.stop();
+        System.out.println("counted [" + increments + "] interactions into [" + treeMap.size() + "] mapdb tree map entries in [" + stopWatch.getTime() + "] ms");
+        db.close();
+
+        TaxonInteractionCounts counts = new TaxonInteractionCounts();
+        random = new Random(42);
+        stopWatch.reset();
+        stopWatch.start();
+        for (int i = 0; i < increments; i++) {
+            counts.increment(random.nextInt(taxa), (byte) 1, random.nextInt(taxa));
+        }
+        stopWatch.stop();
+        System.out.println("counted [" + increments + "] interactions into [" + counts.size() + "] off-heap table entries in [" + stopWatch.getTime() + "] ms");
+    }
+
+}
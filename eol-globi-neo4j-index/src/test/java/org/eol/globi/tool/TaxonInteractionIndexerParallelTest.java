@@ -0,0 +1,122 @@
+package org.eol.globi.tool;
+
+import org.eol.globi.data.NodeLabel;
+import org.eol.globi.db.GraphServiceFactory;
+import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.util.NodeIdCollectorNeo4j3;
+import org.eol.globi.util.NodeUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class TaxonInteractionIndexerParallelTest {
+
+    private GraphServiceFactory sequential;
+    private GraphServiceFactory parallel;
+
+    @Before
+    public void startGraphs() {
+        sequential = graphServiceFactory();
+        parallel = graphServiceFactory();
+    }
+
+    @After
+    public void stopGraphs() throws Exception {
+        sequential.close();
+        parallel.close();
+    }
+
+    @Test
+    public void parallelSameAsSequential() {
+        populate(sequential.getGraphService());
+        populate(parallel.getGraphService());
+
+        new TaxonInteractionIndexer(sequential, new NodeIdCollectorNeo4j3()).index();
+        new TaxonInteractionIndexer(parallel, new NodeIdCollectorNeo4j3(), 4).index();
+
+        List<String> expected = describeTaxonInteractions(sequential.getGraphService());
+        assertThat(expected.size() > 100, is(true));
+        assertThat(describeTaxonInteractions(parallel.getGraphService()), is(expected));
+    }
+
+    private static void populate(GraphDatabaseService graphDb) {
+        Random random = new Random(42);
+        InteractType[] interactTypes = {InteractType.ATE, InteractType.PARASITE_OF, InteractType.POLLINATES};
+        try (Transaction tx = graphDb.beginTx()) {
+            List<Node> taxa = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                Node taxon = graphDb.createNode(NodeLabel.Taxon);
+                taxon.setProperty("name", "taxon" + i);
+                taxa.add(taxon);
+            }
+            for (int i = 0; i < 2000; i++) {
+                Node source = specimenOf(graphDb, taxa.get(random.nextInt(taxa.size())));
+                Node target = specimenOf(graphDb, taxa.get(random.nextInt(taxa.size())));
+                InteractType interactType = interactTypes[random.nextInt(interactTypes.length)];
+                source.createRelationshipTo(target, NodeUtil.asNeo4j(interactType));
+            }
+            tx.success();
+        }
+    }
+
+    private static Node specimenOf(GraphDatabaseService graphDb, Node taxon) {
+        Node specimen = graphDb.createNode();
+        specimen.createRelationshipTo(taxon, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
+        return specimen;
+    }
+
+    private static List<String> describeTaxonInteractions(GraphDatabaseService graphDb) {
+        List<String> descriptions = new ArrayList<>();
+        try (Transaction tx = graphDb.beginTx()) {
+            for (Relationship relationship : graphDb.getAllRelationships()) {
+                if (relationship.getStartNode().hasLabel(NodeLabel.Taxon)) {
+                    descriptions.add(relationship.getStartNode().getProperty("name")
+                            + " -[" + relationship.getType().name() + " " + new TreeMap<>(relationship.getAllProperties()) + "]-> "
+                            + relationship.getEndNode().getProperty("name"));
+                }
+            }
+            tx.success();
+        }
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+
+    private static GraphServiceFactory graphServiceFactory() {
+        return new GraphServiceFactory() {
+
+            private GraphDatabaseService graphDb = null;
+
+            @Override
+            public GraphDatabaseService getGraphService() {
+                if (graphDb == null) {
+                    graphDb = new TestGraphDatabaseFactory().newImpermanentDatabase();
+                }
+                return graphDb;
+            }
+
+            @Override
+            public void close() {
+                if (graphDb != null) {
+                    graphDb.shutdown();
+                    graphDb = null;
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,163 @@
+package org.eol.globi.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.StopWatch;
+import org.eol.globi.data.GraphDBNeo4jTestCase;
+import org.eol.globi.data.ImportLogger;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.LogContext;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.SpecimenNode;
+import org.eol.globi.domain.StudyNode;
+import org.eol.globi.domain.TaxonNode;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetWithResourceMapping;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class DatasetImportUtilTest extends GraphDBNeo4jTestCase {
+
+    @Test
+    public void replayMatchesDirectImport() throws StudyImporterException {
+        List<String> directLog = new ArrayList<>();
+        importDatasets("direct", 20, directLog, false);
+        List<String> replayedLog = new ArrayList<>();
+        importDatasets("replayed", 20, replayedLog, true);
+
+        List<String> direct = interactionsOf("direct");
+        assertThat(direct.size(), is(42));
+        assertThat(direct.contains("reference 3\tParasite 3\tPARASITE_OF\tHost 3"), is(true));
+        assertThat(interactionsOf("replayed"), is(direct));
+
+        assertThat(directLog.isEmpty(), is(false));
+        assertThat(replayedLog, is(directLog));
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkReplay() throws StudyImporterException {
+        int numberOfRows = 20000;
+        for (boolean replay : new boolean[]{false, true, false, true}) {
+            String namespace = (replay ? "replayed" : "direct") + System.nanoTime();
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            importDatasets(namespace, numberOfRows, new ArrayList<>(), replay);
+            stopWatch.stop();
+            System.out.println((replay ? "replayed" : "direct") + ": imported [" + numberOfRows + "] resolved interactions in [" + stopWatch.getTime() + "] ms");
+        }
+    }
+
+    private void importDatasets(String prefix, int numberOfRows, List<String> log, boolean replay) throws StudyImporterException {
+        StringBuilder dependency = new StringBuilder("sourceOccurrenceId\tsourceTaxonName\tinteractionTypeId\ttargetTaxonName\treferenceCitation\n");
+        StringBuilder interactions = new StringBuilder("sourceTaxonName\tinteractionTypeId\ttargetOccurrenceId\treferenceCitation\n");
+        for (int i = 0; i < numberOfRows; i++) {
+            dependency.append("occurrence:").append(i).append("\tHost ").append(i).append("\tRO:0002437\tPlant ").append(i).append("\treference dependency\n");
+            interactions.append("Parasite ").append(i).append("\tRO:0002444\toccurrence:").append(i).append("\treference ").append(i).append("\n");
+        }
+        // reference cannot be resolved, so should be logged by both direct and replayed imports
+        interactions.append("Parasite\tRO:0002444\toccurrence:unknown\treference unresolved\n");
+
+        Dataset datasetWithDependencies = datasetFor(prefix + "/interactions", interactions.toString(), false);
+        Dataset datasetDependency = datasetFor(prefix + "/dependency", dependency.toString(), true);
+
+        DatasetImportUtil.resolveAndImportDatasets(
+                Arrays.asList(datasetWithDependencies, datasetDependency),
+                Collections.singletonList(datasetWithDependencies),
+                new ImportLoggerRecording(log, prefix),
+                nodeFactory,
+                prefix,
+                replay);
+    }
+
+    private List<String> interactionsOf(String prefix) {
+        List<String> interactions = new ArrayList<>();
+        for (StudyNode study : NodeUtil.findAllStudies(getGraphDb())) {
+            if (StringUtils.startsWith(study.getOriginatingDataset().getNamespace(), prefix + "/")) {
+                String title = StringUtils.removeStart(study.getTitle(), study.getOriginatingDataset().getNamespace());
+                NodeUtil.handleCollectedRelationships(new NodeTypeDirection(study.getUnderlyingNode()), collected -> {
+                    Node source = collected.getEndNode();
+                    for (Relationship interaction : source.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j())) {
+                        interactions.add(title + "\t"
+                                + originalNameOf(source) + "\t"
+                                + interaction.getType().name() + "\t"
+                                + originalNameOf(interaction.getEndNode()));
+                    }
+                });
+            }
+        }
+        Collections.sort(interactions);
+        return interactions;
+    }
+
+    private static String originalNameOf(Node specimen) {
+        Relationship originallyDescribedAs = new SpecimenNode(specimen)
+                .getUnderlyingNode()
+                .getSingleRelationship(NodeUtil.asNeo4j(RelTypes.ORIGINALLY_DESCRIBED_AS), Direction.OUTGOING);
+        return originallyDescribedAs == null ? "" : new TaxonNode(originallyDescribedAs.getEndNode()).getName();
+    }
+
+    private static Dataset datasetFor(String namespace, String interactions, boolean isDependency) {
+        Dataset dataset = new DatasetWithResourceMapping(namespace, URI.create("http://example.org/" + namespace), new ResourceServiceLocalAndRemote(inStream -> inStream)) {
+            @Override
+            public InputStream retrieve(URI resource) throws IOException {
+                return StringUtils.equals(resource.toString(), "/interactions.tsv")
+                        ? IOUtils.toInputStream(interactions, StandardCharsets.UTF_8)
+                        : null;
+            }
+        };
+        ObjectNode config = new ObjectMapper().createObjectNode();
+        config.put("format", "globi");
+        config.put("hasDependencies", "true");
+        config.put("isDependency", Boolean.toString(isDependency));
+        dataset.setConfig(config);
+        return dataset;
+    }
+
+    private static class ImportLoggerRecording implements ImportLogger {
+        private final List<String> log;
+        private final String prefix;
+
+        ImportLoggerRecording(List<String> log, String prefix) {
+            this.log = log;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public void warn(LogContext ctx, String message) {
+            record("warn", ctx, message);
+        }
+
+        @Override
+        public void info(LogContext ctx, String message) {
+            record("info", ctx, message);
+        }
+
+        @Override
+        public void severe(LogContext ctx, String message) {
+            record("severe", ctx, message);
+        }
+
+        private void record(String level, LogContext ctx, String message) {
+            log.add(StringUtils.replace(level + "\t" + ctx + "\t" + message, prefix + "/", ""));
+        }
+    }
+
+}
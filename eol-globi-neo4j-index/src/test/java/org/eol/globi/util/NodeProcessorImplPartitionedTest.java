@@ -0,0 +1,66 @@
+package org.eol.globi.util;
+
+import org.eol.globi.data.NodeLabel;
+import org.eol.globi.tool.TransactionPerBatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class NodeProcessorImplPartitionedTest {
+
+    private GraphDatabaseService graphDb;
+
+    @Before
+    public void startGraph() {
+        graphDb = new TestGraphDatabaseFactory().newImpermanentDatabase();
+    }
+
+    @After
+    public void stopGraph() {
+        graphDb.shutdown();
+    }
+
+    @Test
+    public void processInPartitions() {
+        int numberOfReferences = 1001;
+        try (Transaction tx = graphDb.beginTx()) {
+            for (int i = 0; i < numberOfReferences; i++) {
+                graphDb.createNode(NodeLabel.Reference).setProperty("title", "title" + i);
+            }
+            tx.success();
+        }
+
+        Set<Long> processedIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        Set<String> threadNames = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        AtomicLong batches = new AtomicLong();
+
+        new NodeProcessorImpl(graphDb, 10L, "title", "*", "studies", new NodeIdCollectorNeo4j3())
+                .process(node -> {
+                            processedIds.add(node.getId());
+                            threadNames.add(Thread.currentThread().getName());
+                            node.getProperty("title");
+                        },
+                        () -> {
+                            batches.incrementAndGet();
+                            return new TransactionPerBatch(graphDb);
+                        },
+                        4);
+
+        assertThat(processedIds.size(), is(numberOfReferences));
+        assertThat(threadNames.size() > 1, is(true));
+        // one for collecting ids, one per partition
+        assertThat(batches.get(), is(5L));
+    }
+
+}
@@ -0,0 +1,173 @@
+package org.eol.globi.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.time.StopWatch;
+import org.eol.globi.data.GraphDBNeo4jTestCase;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.domain.TaxonNode;
+import org.eol.globi.service.TaxonUtil;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+
+public class TaxonNodePoolTest extends GraphDBNeo4jTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void identicalTaxaShareNode() {
+        TaxonNodePool pool = new TaxonNodePool(getGraphDb());
+        TaxonNode first = pool.getOrCreate(taxon("Homo sapiens", "NCBI:9606"));
+        TaxonNode second = pool.getOrCreate(taxon("Homo sapiens", "NCBI:9606"));
+
+        assertThat(first.getUnderlyingNode().getId(), is(second.getUnderlyingNode().getId()));
+        assertThat(second.getName(), is("Homo sapiens"));
+        assertThat(second.getPath(), is("Animalia | Homo sapiens"));
+    }
+
+    @Test
+    public void differentTaxaDoNotShareNode() {
+        TaxonNodePool pool = new TaxonNodePool(getGraphDb());
+        TaxonNode first = pool.getOrCreate(taxon("Homo sapiens", "NCBI:9606"));
+        TaxonNode second = pool.getOrCreate(taxon("Homo sapiens", "GBIF:2436436"));
+
+        assertThat(first.getUnderlyingNode().getId(), is(not(second.getUnderlyingNode().getId())));
+    }
+
+    @Test
+    public void useFirstOfDuplicatePooledNodes() {
+        Taxon taxon = taxon("Homo sapiens", "NCBI:9606");
+        // e.g., created by concurrent transactions
+        for (int i = 0; i < 2; i++) {
+            Node duplicate = getGraphDb().createNode();
+            TaxonUtil.copy(taxon, new TaxonNode(duplicate));
+            getGraphDb().index().forNodes(TaxonNodePool.INDEX_NAME).add(duplicate, TaxonNodePool.TAXON_HASH, TaxonNodePool.hashOf(taxon));
+        }
+
+        TaxonNodePool pool = new TaxonNodePool(getGraphDb());
+        TaxonNode first = pool.getOrCreate(taxon);
+        TaxonNode second = pool.getOrCreate(taxon);
+
+        assertThat(first.getUnderlyingNode().getId(), is(second.getUnderlyingNode().getId()));
+        assertThat(first.getName(), is("Homo sapiens"));
+    }
+
+    @Test
+    public void connectTaxaOnce() {
+        TaxonNode original = new TaxonNode(getGraphDb().createNode());
+        TaxonNode otherOriginal = new TaxonNode(getGraphDb().createNode());
+
+        NodeUtil.connectTaxa(taxon("Homo sapiens", "NCBI:9606"), original, getGraphDb(), RelTypes.SAME_AS);
+        NodeUtil.connectTaxa(taxon("Homo sapiens", "NCBI:9606"), original, getGraphDb(), RelTypes.SAME_AS);
+        NodeUtil.connectTaxa(taxon("Homo sapiens", "NCBI:9606"), otherOriginal, getGraphDb(), RelTypes.SAME_AS);
+
+        Node linked = original.getUnderlyingNode().getSingleRelationship(NodeUtil.asNeo4j(RelTypes.SAME_AS), Direction.OUTGOING).getEndNode();
+        Node otherLinked = otherOriginal.getUnderlyingNode().getSingleRelationship(NodeUtil.asNeo4j(RelTypes.SAME_AS), Direction.OUTGOING).getEndNode();
+        assertThat(linked.getId(), is(otherLinked.getId()));
+        assertThat(linked.getDegree(Direction.INCOMING), is(2));
+    }
+
+    @Test
+    public void hashIgnoresBlankProperties() {
+        Taxon taxon = taxon("Homo sapiens", "NCBI:9606");
+        Taxon taxonWithBlanks = taxon("Homo sapiens", "NCBI:9606");
+        taxonWithBlanks.setCommonNames("");
+        taxonWithBlanks.setThumbnailUrl(" ");
+
+        assertThat(TaxonNodePool.hashOf(taxon), is(TaxonNodePool.hashOf(taxonWithBlanks)));
+        assertThat(TaxonNodePool.hashOf(taxon).length(), is(64));
+        assertThat(TaxonNodePool.hashOf(taxon), is(not(TaxonNodePool.hashOf(taxon("Homo sapiens", "GBIF:2436436")))));
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmark() throws IOException {
+        benchmark(100000, 1000);
+        // closer to size of a full index: millions of original names, linked to (many) fewer taxa
+        benchmark(1000000, 100000);
+    }
+
+    private void benchmark(int numberOfOriginalTaxa, int numberOfLinkedTaxa) throws IOException {
+        for (boolean pooled : new boolean[]{false, true}) {
+            File storeDir = folder.newFolder((pooled ? "pooled" : "copied") + numberOfOriginalTaxa);
+            GraphDatabaseService graphDb = new GraphDatabaseFactory().newEmbeddedDatabase(storeDir);
+            try {
+                StopWatch stopWatch = new StopWatch();
+                stopWatch.start();
+                Transaction tx = graphDb.beginTx();
+                for (int i = 0; i < numberOfOriginalTaxa; i++) {
+                    TaxonNode original = new TaxonNode(graphDb.createNode());
+                    Taxon linked = taxon("Genus" + (i % numberOfLinkedTaxa) + " species", "FOO:" + (i % numberOfLinkedTaxa));
+                    if (pooled) {
+                        NodeUtil.connectTaxa(linked, original, graphDb, RelTypes.SAME_AS);
+                    } else {
+                        TaxonNode copy = new TaxonNode(graphDb.createNode());
+                        TaxonUtil.copy(linked, copy);
+                        original.getUnderlyingNode().createRelationshipTo(copy.getUnderlyingNode(), NodeUtil.asNeo4j(RelTypes.SAME_AS));
+                    }
+                    if (i % 10000 == 0) {
+                        tx.success();
+                        tx.close();
+                        tx = graphDb.beginTx();
+                    }
+                }
+                tx.success();
+                tx.close();
+                stopWatch.stop();
+                long linkTime = stopWatch.getTime();
+
+                stopWatch.reset();
+                stopWatch.start();
+                long numberOfNodes = 0;
+                long numberOfPaths = 0;
+                try (Transaction readTx = graphDb.beginTx()) {
+                    for (Node node : graphDb.getAllNodes()) {
+                        numberOfNodes++;
+                        for (Relationship sameAs : node.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.SAME_AS))) {
+                            numberOfPaths += new TaxonNode(sameAs.getEndNode()).getPath().length();
+                        }
+                    }
+                    readTx.success();
+                }
+                stopWatch.stop();
+                long exportTime = stopWatch.getTime();
+                graphDb.shutdown();
+                graphDb = null;
+
+                System.out.println((pooled ? "pooled" : "copied") + ": [" + numberOfOriginalTaxa + "] original taxa linked to [" + numberOfLinkedTaxa + "] taxa, [" + numberOfNodes + "] nodes, store size ["
+                        + FileUtils.sizeOfDirectory(storeDir) / 1024 + "] kB, linked in [" + linkTime + "] ms, exported in ["
+                        + exportTime + "] ms (" + numberOfPaths + " path chars)");
+            } finally {
+                if (graphDb != null) {
+                    graphDb.shutdown();
+                }
+            }
+        }
+    }
+
+    private static Taxon taxon(String name, String id) {
+        TaxonImpl taxon = new TaxonImpl(name, id);
+        taxon.setPath("Animalia | " + name);
+        taxon.setPathNames("kingdom | species");
+        taxon.setRank("species");
+        return taxon;
+    }
+
+}
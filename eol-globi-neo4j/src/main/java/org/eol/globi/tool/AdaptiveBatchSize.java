@@ -0,0 +1,77 @@
+package org.eol.globi.tool;
+
+/**
+ * Chooses the number of units of work (e.g., names, nodes) per transaction,
+ * so that commits take about a target amount of time, while keeping the heap from filling up with transaction state.
+ *
+ * Batches grow (doubling) while commits are well below the target latency,
+ * shrink (halving) when commits take longer than targeted, and are cut short when heap usage exceeds given limit.
+ *
+ * Batches hold at least {@link #MIN_SIZE} units: heap usage measured after garbage collection only changes
+ * with the next collection, so without a floor a full heap would lead to a commit after every unit.
+ */
+
+public class AdaptiveBatchSize {
+
+    private static final long MIN_SIZE = 100L;
+    private static final long MAX_SIZE = 1000000L;
+
+    private final long targetCommitMillis;
+    private final double maxHeapUsage;
+
+    private long size;
+
+    private long numberOfBatches = 0;
+    private long numberOfUnits = 0;
+    private long smallestBatch = Long.MAX_VALUE;
+    private long largestBatch = 0;
+
+    public AdaptiveBatchSize(long initialSize, long targetCommitMillis, double maxHeapUsage) {
+        this.size = clamp(initialSize);
+        this.targetCommitMillis = targetCommitMillis;
+        this.maxHeapUsage = maxHeapUsage;
+    }
+
+    public boolean shouldCommit(long unitsInBatch, double heapUsage) {
+        return unitsInBatch >= size || (heapUsage > maxHeapUsage && unitsInBatch >= MIN_SIZE);
+    }
+
+    public void onCommit(long unitsInBatch, long commitMillis, double heapUsage) {
+        if (unitsInBatch == 0) {
+            return;
+        }
+        numberOfBatches++;
+        numberOfUnits += unitsInBatch;
+        smallestBatch = Math.min(smallestBatch, unitsInBatch);
+        largestBatch = Math.max(largestBatch, unitsInBatch);
+
+        if (heapUsage > maxHeapUsage) {
+            size = clamp(unitsInBatch / 2);
+        } else if (commitMillis > targetCommitMillis) {
+            size = clamp(size / 2);
+        } else if (commitMillis < targetCommitMillis / 2 && unitsInBatch >= size) {
+            size = clamp(size * 2);
+        }
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getNumberOfBatches() {
+        return numberOfBatches;
+    }
+
+    public String getSummary() {
+        return numberOfBatches == 0
+                ? "no batches committed"
+                : "committed [" + numberOfUnits + "] units in [" + numberOfBatches + "] batches"
+                + " of [" + smallestBatch + "," + largestBatch + "] units (avg [" + numberOfUnits / numberOfBatches + "]),"
+                + " next batch size [" + size + "]";
+    }
+
+    private static long clamp(long size) {
+        return Math.max(MIN_SIZE, Math.min(MAX_SIZE, size));
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.eol.globi.tool;
+
+import org.eol.globi.util.BatchListener;
+import org.eol.globi.util.MetricRegistry;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Like {@link TransactionPerBatch}, but {@link #onStart()} is expected to be called after every unit of work:
+ * a transaction is only committed once an {@link AdaptiveBatchSize} says the batch is big enough.
+ */
+
+public class AdaptiveTransactionPerBatch implements BatchListener {
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveTransactionPerBatch.class);
+
+    private static final long TARGET_COMMIT_MILLIS = 250L;
+    private static final double MAX_HEAP_USAGE = 0.8;
+
+    // reading heap usage walks all memory pools, so it is read at commits and every so many units in between
+    private static final long HEAP_USAGE_SAMPLE_UNITS = 100L;
+
+    private final GraphDatabaseService graphDb;
+    private final String name;
+    private final AdaptiveBatchSize batchSize;
+    private final MetricRegistry.Timer commitTimer;
+    private final MetricRegistry.Histogram batchSizes;
+
+    private Transaction tx;
+    private long unitsInBatch = 0;
+    private double lastHeapUsage = 0.0;
+
+    public AdaptiveTransactionPerBatch(GraphDatabaseService graphDb, String name, long initialBatchSize) {
+        this(graphDb, name, new AdaptiveBatchSize(initialBatchSize, TARGET_COMMIT_MILLIS, MAX_HEAP_USAGE));
+    }
+
+    public AdaptiveTransactionPerBatch(GraphDatabaseService graphDb, String name, AdaptiveBatchSize batchSize) {
+        this.graphDb = graphDb;
+        this.name = name;
+        this.batchSize = batchSize;
+        this.commitTimer = MetricRegistry.getDefault().timer(name + ".commit");
+        this.batchSizes = MetricRegistry.getDefault().histogram(name + ".batchSize");
+    }
+
+    @Override
+    public void onStart() {
+        if (tx == null) {
+            tx = graphDb.beginTx();
+        } else {
+            if (++unitsInBatch % HEAP_USAGE_SAMPLE_UNITS == 0) {
+                lastHeapUsage = heapUsage();
+            }
+            if (batchSize.shouldCommit(unitsInBatch, lastHeapUsage)) {
+                commit();
+                tx = graphDb.beginTx();
+            }
+        }
+    }
+
+    @Override
+    public void onFinish() {
+        if (tx != null) {
+            commit();
+            if (batchSize.getNumberOfBatches() > 0) {
+                LOG.info("[" + name + "] " + batchSize.getSummary());
+            }
+        }
+    }
+
+    public long getBatchSize() {
+        return batchSize.getSize();
+    }
+
+    private void commit() {
+        double heapUsage = heapUsage();
+        lastHeapUsage = heapUsage;
+        long start = System.nanoTime();
+        tx.success();
+        tx.close();
+        tx = null;
+        long commitNanos = System.nanoTime() - start;
+        commitTimer.update(commitNanos, TimeUnit.NANOSECONDS);
+        batchSizes.update(unitsInBatch);
+        long commitMillis = TimeUnit.NANOSECONDS.toMillis(commitNanos);
+        batchSize.onCommit(unitsInBatch, commitMillis, heapUsage);
+        unitsInBatch = 0;
+    }
+
+    /**
+     * @return fraction of the heap in use right after the most recent garbage collection, so that garbage
+     * that is yet to be collected does not count as transaction state
+     */
+
+    static double heapUsage() {
+        long used = 0;
+        long max = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null && usage.getMax() > 0) {
+                    used += usage.getUsed();
+                    max += usage.getMax();
+                }
+            }
+        }
+        return max > 0 ? (double) used / max : 0.0;
+    }
+
+}
@@ -1,10 +1,13 @@
 package org.eol.globi.tool;
 
 import org.eol.globi.util.BatchListener;
+import org.eol.globi.util.MetricRegistry;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Transaction;
 
 public class TransactionPerBatch implements BatchListener {
+    private static final MetricRegistry.Timer COMMIT_TIMER = MetricRegistry.getDefault().timer("transactionPerBatch.commit");
+
     private final GraphDatabaseService graphDb;
     private Transaction tx;
 
@@ -21,8 +24,10 @@ public class TransactionPerBatch implements BatchListener {
     @Override
     public void onFinish() {
         if (tx != null) {
-            tx.success();
-            tx.close();
+            try (MetricRegistry.Timer.Context ignored = COMMIT_TIMER.time()) {
+                tx.success();
+                tx.close();
+            }
         }
     }
 }
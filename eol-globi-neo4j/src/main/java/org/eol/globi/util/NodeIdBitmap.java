@@ -0,0 +1,199 @@
+package org.eol.globi.util;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+
+/**
+ * Compressed set of node ids, in the spirit of Roaring bitmaps: ids are grouped by their upper 48 bits,
+ * and the lower 16 bits of each group are kept in a sorted char array while sparse,
+ * or in a fixed size 8kB bitmap once dense.
+ *
+ * Node ids handed out by neo4j are mostly dense, so a set of millions of ids takes a few bits per id,
+ * instead of a boxed long in a B-tree.
+ *
+ * Not thread-safe for writes; iterating from several threads once collected is fine.
+ */
+
+public class NodeIdBitmap extends AbstractSet<Long> {
+
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+    private long cardinality = 0;
+
+    public boolean add(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("node id [" + id + "] cannot be negative");
+        }
+        Container container = containers.computeIfAbsent(id >>> 16, high -> new Container());
+        boolean added = container.add((int) (id & 0xFFFF));
+        if (added) {
+            cardinality++;
+        }
+        return added;
+    }
+
+    @Override
+    public boolean add(Long id) {
+        return add(id.longValue());
+    }
+
+    public boolean contains(long id) {
+        Container container = id < 0 ? null : containers.get(id >>> 16);
+        return container != null && container.contains((int) (id & 0xFFFF));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && contains(((Long) o).longValue());
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(cardinality, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new IdIterator();
+    }
+
+    /**
+     * @return at most numberOfPartitions bitmaps, each holding a contiguous range of ids of (nearly) equal cardinality
+     */
+
+    public List<NodeIdBitmap> partition(int numberOfPartitions) {
+        long idsPerPartition = Math.max(1, (cardinality + numberOfPartitions - 1) / Math.max(1, numberOfPartitions));
+        List<NodeIdBitmap> partitions = new ArrayList<>();
+        NodeIdBitmap partition = null;
+        PrimitiveIterator.OfLong ids = iterator();
+        while (ids.hasNext()) {
+            if (partition == null || partition.cardinality() == idsPerPartition) {
+                partition = new NodeIdBitmap();
+                partitions.add(partition);
+            }
+            partition.add(ids.nextLong());
+        }
+        return partitions;
+    }
+
+    private static final class Container {
+        private static final int MAX_ARRAY_CARDINALITY = 4096;
+        private static final int BITMAP_WORDS = (1 << 16) / 64;
+
+        private char[] values = new char[4];
+        private long[] bits = null;
+        private int cardinality = 0;
+
+        boolean add(int low) {
+            if (bits != null) {
+                return addToBitmap(low);
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, (char) low);
+            if (index >= 0) {
+                return false;
+            }
+            if (cardinality == MAX_ARRAY_CARDINALITY) {
+                convertToBitmap();
+                return addToBitmap(low);
+            }
+            int insertAt = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(MAX_ARRAY_CARDINALITY, values.length * 2));
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, cardinality - insertAt);
+            values[insertAt] = (char) low;
+            cardinality++;
+            return true;
+        }
+
+        boolean contains(int low) {
+            return bits == null
+                    ? Arrays.binarySearch(values, 0, cardinality, (char) low) >= 0
+                    : (bits[low >>> 6] & (1L << low)) != 0;
+        }
+
+        // lowest value not less than given value, or -1 if none
+        int next(int from) {
+            if (bits == null) {
+                int index = Arrays.binarySearch(values, 0, cardinality, (char) from);
+                index = index < 0 ? -index - 1 : index;
+                return index < cardinality ? values[index] : -1;
+            }
+            int word = from >>> 6;
+            long remaining = bits[word] & (-1L << from);
+            while (remaining == 0) {
+                if (++word == BITMAP_WORDS) {
+                    return -1;
+                }
+                remaining = bits[word];
+            }
+            return word * 64 + Long.numberOfTrailingZeros(remaining);
+        }
+
+        private boolean addToBitmap(int low) {
+            long mask = 1L << low;
+            int word = low >>> 6;
+            if ((bits[word] & mask) != 0) {
+                return false;
+            }
+            bits[word] |= mask;
+            cardinality++;
+            return true;
+        }
+
+        private void convertToBitmap() {
+            bits = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            values = null;
+        }
+    }
+
+    private class IdIterator implements PrimitiveIterator.OfLong {
+        private final Iterator<Map.Entry<Long, Container>> entries = containers.entrySet().iterator();
+        private long high;
+        private Container container = null;
+        private int nextLow = -1;
+
+        IdIterator() {
+            advance(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLow >= 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long id = (high << 16) | nextLow;
+            advance(nextLow + 1);
+            return id;
+        }
+
+        private void advance(int from) {
+            nextLow = container != null && from <= 0xFFFF ? container.next(from) : -1;
+            while (nextLow < 0 && entries.hasNext()) {
+                Map.Entry<Long, Container> entry = entries.next();
+                high = entry.getKey();
+                container = entry.getValue();
+                nextLow = container.next(0);
+            }
+        }
+    }
+
+}
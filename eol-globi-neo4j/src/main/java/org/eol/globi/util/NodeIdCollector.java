@@ -2,10 +2,10 @@ package org.eol.globi.util;
 
 import org.neo4j.graphdb.GraphDatabaseService;
 
-import java.util.NavigableSet;
+import java.util.Set;
 
 public interface NodeIdCollector {
 
-    void collectIds(GraphDatabaseService graphService, String queryKey, String queryOrQueryObject, String indexName, NavigableSet<Long> ids);
+    void collectIds(GraphDatabaseService graphService, String queryKey, String queryOrQueryObject, String indexName, Set<Long> ids);
 
 }
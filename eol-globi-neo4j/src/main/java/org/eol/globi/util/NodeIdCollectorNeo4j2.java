@@ -5,12 +5,12 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexHits;
 
-import java.util.NavigableSet;
+import java.util.Set;
 
 public class NodeIdCollectorNeo4j2 implements NodeIdCollector {
 
     @Override
-    public void collectIds(GraphDatabaseService graphService, String queryKey, String queryOrQueryObject, String indexName, NavigableSet<Long> ids) {
+    public void collectIds(GraphDatabaseService graphService, String queryKey, String queryOrQueryObject, String indexName, Set<Long> ids) {
         Index<Node> index = graphService.index().forNodes(indexName);
         IndexHits<Node> studies = index.query(queryKey, queryOrQueryObject);
         studies
@@ -9,7 +9,7 @@ import org.neo4j.graphdb.index.IndexHits;
 
 import java.util.Collections;
 import java.util.Map;
-import java.util.NavigableSet;
+import java.util.Set;
 import java.util.TreeMap;
 
 public class NodeIdCollectorNeo4j3 implements NodeIdCollector {
@@ -17,10 +17,11 @@ public class NodeIdCollectorNeo4j3 implements NodeIdCollector {
     private static final Map<String, NodeLabel> INDEX_NAME_TO_LABEL = Collections.unmodifiableMap(new TreeMap<String, NodeLabel>() {{
         put("taxons", NodeLabel.Taxon);
         put("studies", NodeLabel.Reference);
+        put("locations", NodeLabel.Location);
     }});
 
     @Override
-    public void collectIds(GraphDatabaseService graphService, String queryKey, String queryOrQueryObject, String indexName, NavigableSet<Long> ids) {
+    public void collectIds(GraphDatabaseService graphService, String queryKey, String queryOrQueryObject, String indexName, Set<Long> ids) {
 
         if (!INDEX_NAME_TO_LABEL.containsKey(indexName)) {
             throw new IllegalArgumentException("indexName [" + indexName + "] not supported");
@@ -1,15 +1,19 @@
 package org.eol.globi.util;
 
 import org.apache.commons.lang3.time.StopWatch;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.NavigableSet;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 public class NodeProcessorImpl implements NodeProcessor<NodeListener> {
 
@@ -58,51 +62,104 @@ public class NodeProcessorImpl implements NodeProcessor<NodeListener> {
 
     public void process(NodeListener nodeListener, BatchListener batchListener) {
         final AtomicLong nodeCount = new AtomicLong(0L);
-        batchListener.onStart();
 
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
-        LOG.info("collecting [" + indexName + "] node ids...");
 
-        DB db = null;
+        NodeIdBitmap ids = collectIds(batchListener, stopWatch);
 
-        try {
-            db = DBMaker
-                    .newMemoryDirectDB()
-                    .make();
-            DB.BTreeSetMaker treeSet =
-                    db.createTreeSet(UUID.randomUUID().toString());
+        batchListener.onStart();
+
+        LOG.info("processing " + ids.cardinality() + " [" + indexName + "] nodes...");
+
+        processIds(ids, nodeListener, batchListener, nodeCount);
+
+        batchListener.onFinish();
+        logBatchFinishStats(stopWatch, nodeCount.get(), "processed", this.indexName);
+        stopWatch.stop();
+    }
 
-            NavigableSet<Long> ids = treeSet.makeLongSet();
+    /**
+     * Splits collected node ids into contiguous partitions, and processes each partition on its own thread
+     * using its own batch listener (e.g., a transaction per batch). So, the node listener must be thread-safe.
+     */
 
-            nodeIdCollector.collectIds(
-                    graphService,
-                    queryKey,
-                    queryOrQueryObject,
-                    indexName,
-                    ids
-            );
+    public void process(NodeListener nodeListener, Supplier<BatchListener> batchListenerFactory, int numberOfThreads) {
+        if (numberOfThreads < 2) {
+            process(nodeListener, batchListenerFactory.get());
+        } else {
+            processInParallel(nodeListener, batchListenerFactory, numberOfThreads);
+        }
+    }
 
-            logBatchFinishStats(stopWatch, ids.size(), "collected", this.indexName);
+    private void processInParallel(NodeListener nodeListener, Supplier<BatchListener> batchListenerFactory, int numberOfThreads) {
+        final AtomicLong nodeCount = new AtomicLong(0L);
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
 
-            batchListener.onStart();
+        BatchListener collectingBatchListener = batchListenerFactory.get();
+        NodeIdBitmap ids = collectIds(collectingBatchListener, stopWatch);
+        collectingBatchListener.onFinish();
 
-            LOG.info("processing " + ids.size() + " [" + indexName + "] nodes...");
+        List<NodeIdBitmap> partitions = ids.partition(numberOfThreads);
+        LOG.info("processing " + ids.cardinality() + " [" + indexName + "] nodes in [" + partitions.size() + "] partitions...");
 
-            for (Long nodeId : ids) {
-                nodeListener.on(graphService.getNodeById(nodeId));
-                nodeCount.incrementAndGet();
-                if (nodeCount.get() % batchSize == 0) {
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try {
+            List<Future<?>> processed = new ArrayList<>();
+            for (NodeIdBitmap partition : partitions) {
+                processed.add(executor.submit(() -> {
+                    BatchListener batchListener = batchListenerFactory.get();
                     batchListener.onStart();
-                }
+                    processIds(partition, nodeListener, batchListener, new AtomicLong(0L));
+                    batchListener.onFinish();
+                    nodeCount.addAndGet(partition.cardinality());
+                }));
             }
-
-            batchListener.onFinish();
-            logBatchFinishStats(stopWatch, nodeCount.get(), "processed", this.indexName);
-            stopWatch.stop();
+            for (Future<?> partition : processed) {
+                partition.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while processing [" + indexName + "] nodes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("failed to process [" + indexName + "] nodes", e.getCause());
         } finally {
-            if (db != null) {
-                db.close();
+            executor.shutdownNow();
+        }
+
+        logBatchFinishStats(stopWatch, nodeCount.get(), "processed", this.indexName);
+        stopWatch.stop();
+    }
+
+    private NodeIdBitmap collectIds(BatchListener batchListener, StopWatch stopWatch) {
+        batchListener.onStart();
+        LOG.info("collecting [" + indexName + "] node ids...");
+
+        NodeIdBitmap ids = new NodeIdBitmap();
+        nodeIdCollector.collectIds(
+                graphService,
+                queryKey,
+                queryOrQueryObject,
+                indexName,
+                ids
+        );
+
+        logBatchFinishStats(stopWatch, ids.cardinality(), "collected", this.indexName);
+        return ids;
+    }
+
+    private void processIds(NodeIdBitmap ids, NodeListener nodeListener, BatchListener batchListener, AtomicLong nodeCount) {
+        PrimitiveIterator.OfLong nodeIds = ids.iterator();
+        while (nodeIds.hasNext()) {
+            nodeListener.on(graphService.getNodeById(nodeIds.nextLong()));
+            nodeCount.incrementAndGet();
+            if (nodeCount.get() % batchSize == 0) {
+                batchListener.onStart();
             }
         }
     }
@@ -13,7 +13,6 @@ import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyNode;
 import org.eol.globi.domain.Taxon;
 import org.eol.globi.domain.TaxonNode;
-import org.eol.globi.service.TaxonUtil;
 import org.eol.globi.tool.TransactionPerBatch;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -46,10 +45,21 @@ public class NodeUtil {
     }
 
     public static void connectTaxa(Taxon taxon, TaxonNode taxonNode, GraphDatabaseService graphDb, RelTypes relType) {
-        Node node = graphDb.createNode();
-        TaxonNode sameAsTaxon = new TaxonNode(node);
-        TaxonUtil.copy(taxon, sameAsTaxon);
-        taxonNode.getUnderlyingNode().createRelationshipTo(sameAsTaxon.getUnderlyingNode(), asNeo4j(relType));
+        // identical linked taxa share a single node
+        Node linkedNode = new TaxonNodePool(graphDb).getOrCreate(taxon).getUnderlyingNode();
+        Node node = taxonNode.getUnderlyingNode();
+        if (!isConnected(node, linkedNode, relType)) {
+            node.createRelationshipTo(linkedNode, asNeo4j(relType));
+        }
+    }
+
+    private static boolean isConnected(Node node, Node linkedNode, RelTypes relType) {
+        for (Relationship rel : node.getRelationships(Direction.OUTGOING, asNeo4j(relType))) {
+            if (rel.getEndNode().getId() == linkedNode.getId()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public static List<StudyNode> findAllStudies(GraphDatabaseService graphService) {
@@ -5,7 +5,7 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexHits;
 
-import java.util.NavigableSet;
+import java.util.Set;
 
 public class NodeUtilNeo4j2 {
 
@@ -13,7 +13,7 @@ public class NodeUtilNeo4j2 {
         return graphDb.index().forNodes(indexName);
     }
 
-    static void collectIds(GraphDatabaseService graphService, String queryKey, String queryOrQueryObject, String indexName, NavigableSet<Long> ids) {
+    static void collectIds(GraphDatabaseService graphService, String queryKey, String queryOrQueryObject, String indexName, Set<Long> ids) {
         Index<Node> index = graphService.index().forNodes(indexName);
         IndexHits<Node> studies = index.query(queryKey, queryOrQueryObject);
         studies
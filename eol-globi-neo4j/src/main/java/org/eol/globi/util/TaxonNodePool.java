@@ -0,0 +1,71 @@
+package org.eol.globi.util;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.TaxonNode;
+import org.eol.globi.service.TaxonUtil;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.graphdb.index.IndexHits;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pool of canonical taxon nodes for linked (e.g., same as) taxa, keyed by a content hash of their taxon properties,
+ * so that identical taxa linked to many original taxa are only stored once.
+ *
+ * Pooled nodes are found through a legacy index, so lookups see the nodes created in the current transaction.
+ * Concurrent transactions may still both create a node for the same taxon: lookups then use the first
+ * of the pooled nodes, and the others are left as is.
+ */
+
+public class TaxonNodePool {
+
+    public static final String INDEX_NAME = "taxonPool";
+    public static final String TAXON_HASH = "taxonHash";
+
+    private final GraphDatabaseService graphDb;
+
+    public TaxonNodePool(GraphDatabaseService graphDb) {
+        this.graphDb = graphDb;
+    }
+
+    public TaxonNode getOrCreate(Taxon taxon) {
+        String hash = hashOf(taxon);
+        Index<Node> pool = graphDb.index().forNodes(INDEX_NAME);
+        Node node = first(pool.get(TAXON_HASH, hash));
+        if (node == null) {
+            node = graphDb.createNode();
+            TaxonUtil.copy(taxon, new TaxonNode(node));
+            node.setProperty(TAXON_HASH, hash);
+            pool.add(node, TAXON_HASH, hash);
+        }
+        return new TaxonNode(node);
+    }
+
+    static String hashOf(Taxon taxon) {
+        Map<String, String> properties = new TreeMap<>(TaxonUtil.taxonToMap(taxon));
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            if (StringUtils.isNotBlank(property.getValue())) {
+                content.append(property.getKey())
+                        .append('=')
+                        .append(property.getValue())
+                        .append('\n');
+            }
+        }
+        return DigestUtils.sha256Hex(content.toString());
+    }
+
+    private static Node first(IndexHits<Node> hits) {
+        try {
+            return hits.hasNext() ? hits.next() : null;
+        } finally {
+            hits.close();
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.eol.globi.tool;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class AdaptiveBatchSizeTest {
+
+    @Test
+    public void growWhileCommitsAreFast() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 200, 0.8);
+        assertThat(batchSize.shouldCommit(99, 0.1), is(false));
+        assertThat(batchSize.shouldCommit(100, 0.1), is(true));
+
+        batchSize.onCommit(100, 10, 0.1);
+        assertThat(batchSize.getSize(), is(200L));
+        batchSize.onCommit(200, 10, 0.1);
+        assertThat(batchSize.getSize(), is(400L));
+    }
+
+    @Test
+    public void keepSizeNearTarget() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 200, 0.8);
+        batchSize.onCommit(100, 150, 0.1);
+        assertThat(batchSize.getSize(), is(100L));
+    }
+
+    @Test
+    public void shrinkWhenCommitsAreSlow() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(400, 200, 0.8);
+        batchSize.onCommit(400, 500, 0.1);
+        assertThat(batchSize.getSize(), is(200L));
+    }
+
+    @Test
+    public void commitEarlyAndShrinkWhenHeapFillsUp() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(1000, 200, 0.8);
+        assertThat(batchSize.shouldCommit(300, 0.9), is(true));
+        batchSize.onCommit(300, 1, 0.9);
+        assertThat(batchSize.getSize(), is(150L));
+    }
+
+    @Test
+    public void commitNoEarlierThanMinimumBatchSizeWhenHeapIsFull() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(1000, 200, 0.8);
+        assertThat(batchSize.shouldCommit(99, 0.9), is(false));
+        assertThat(batchSize.shouldCommit(100, 0.9), is(true));
+        batchSize.onCommit(100, 1, 0.9);
+        assertThat(batchSize.getSize(), is(100L));
+    }
+
+    @Test
+    public void staysWithinBounds() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(1, 200, 0.8);
+        assertThat(batchSize.getSize(), is(100L));
+        batchSize.onCommit(100, 1000, 0.1);
+        assertThat(batchSize.getSize(), is(100L));
+
+        batchSize = new AdaptiveBatchSize(1000000, 200, 0.8);
+        batchSize.onCommit(1000000, 1, 0.1);
+        assertThat(batchSize.getSize(), is(1000000L));
+    }
+
+    @Test
+    public void summary() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 200, 0.8);
+        assertThat(batchSize.getSummary(), is("no batches committed"));
+        batchSize.onCommit(0, 1, 0.1);
+        batchSize.onCommit(100, 10, 0.1);
+        batchSize.onCommit(50, 10, 0.1);
+        assertThat(batchSize.getNumberOfBatches(), is(2L));
+        assertThat(batchSize.getSummary(), is("committed [150] units in [2] batches of [50,100] units (avg [75]), next batch size [200]"));
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.eol.globi.util;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class NodeIdBitmapTest {
+
+    @Test
+    public void addAndContains() {
+        NodeIdBitmap ids = new NodeIdBitmap();
+        assertThat(ids.add(3L), is(true));
+        assertThat(ids.add(3L), is(false));
+        assertThat(ids.add(1L << 40), is(true));
+        assertThat(ids.add(0L), is(true));
+
+        assertThat(ids.cardinality(), is(3L));
+        assertThat(ids.contains(3L), is(true));
+        assertThat(ids.contains(Long.valueOf(1L << 40)), is(true));
+        assertThat(ids.contains(4L), is(false));
+        assertThat(ids.contains("3"), is(false));
+        assertThat(new ArrayList<>(ids), is(listOf(0L, 3L, 1L << 40)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeId() {
+        new NodeIdBitmap().add(-1L);
+    }
+
+    @Test
+    public void empty() {
+        NodeIdBitmap ids = new NodeIdBitmap();
+        assertThat(ids.iterator().hasNext(), is(false));
+        assertThat(ids.partition(4).size(), is(0));
+    }
+
+    @Test
+    public void sameAsTreeSet() {
+        Random random = new Random(42);
+        NodeIdBitmap ids = new NodeIdBitmap();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 200000; i++) {
+            // mix of dense and sparse ranges, to exercise both array and bitmap containers
+            long id = i % 2 == 0 ? random.nextInt(100000) : random.nextInt(Integer.MAX_VALUE);
+            assertThat(ids.add(id), is(expected.add(id)));
+        }
+        assertThat(ids.cardinality(), is((long) expected.size()));
+        assertThat(new ArrayList<>(ids), is(new ArrayList<>(expected)));
+        for (Long id : expected) {
+            assertThat(ids.contains(id), is(true));
+        }
+    }
+
+    @Test
+    public void partition() {
+        NodeIdBitmap ids = new NodeIdBitmap();
+        for (long id = 0; id < 10; id++) {
+            ids.add(id * 100000L);
+        }
+
+        List<NodeIdBitmap> partitions = ids.partition(3);
+
+        assertThat(partitions.size(), is(3));
+        assertThat(new ArrayList<>(partitions.get(0)), is(listOf(0L, 100000L, 200000L, 300000L)));
+        assertThat(new ArrayList<>(partitions.get(1)), is(listOf(400000L, 500000L, 600000L, 700000L)));
+        assertThat(new ArrayList<>(partitions.get(2)), is(listOf(800000L, 900000L)));
+    }
+
+    @Test
+    public void partitionFewerIdsThanPartitions() {
+        NodeIdBitmap ids = new NodeIdBitmap();
+        ids.add(1L);
+        ids.add(2L);
+        assertThat(ids.partition(4).size(), is(2));
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmark() {
+        int numberOfIds = 10000000;
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        DB db = DBMaker.newMemoryDirectDB().make();
+        NavigableSet<Long> treeSet = db.createTreeSet("ids").makeLongSet();
+        for (long id = 0; id < numberOfIds; id++) {
+            treeSet.add(id * 3);
+        }
+        long sum = 0;
+        for (Long id : treeSet) {
+            sum += id;
+        }
+        stopWatch.stop();
+        db.close();
+        System.out.println("collected and iterated [" + numberOfIds + "] ids using mapdb tree set in [" + stopWatch.getTime() + "] ms (" + sum + ")");
+
+        stopWatch.reset();
+        stopWatch.start();
+        NodeIdBitmap bitmap = new NodeIdBitmap();
+        for (long id = 0; id < numberOfIds; id++) {
+            bitmap.add(id * 3);
+        }
+        sum = 0;
+        PrimitiveIterator.OfLong iterator = bitmap.iterator();
+        while (iterator.hasNext()) {
+            sum += iterator.nextLong();
+        }
+        stopWatch.stop();
+        System.out.println("collected and iterated [" + numberOfIds + "] ids using bitmap in [" + stopWatch.getTime() + "] ms (" + sum + ")");
+    }
+
+    private static List<Long> listOf(Long... ids) {
+        List<Long> list = new ArrayList<>();
+        for (Long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+}
@@ -18,6 +18,7 @@ import org.eol.globi.service.PropertyEnricherException;
 import org.eol.globi.service.ResourceService;
 import org.eol.globi.service.TaxonUtil;
 import org.eol.globi.tool.TermRequestImpl;
+import org.eol.globi.util.MetricRegistry;
 import org.eol.globi.util.ResourceServiceLocal;
 import org.globalbioticinteractions.taxon.TaxonSerializationUtil;
 import org.mapdb.BTreeKeySerializer;
@@ -46,6 +47,8 @@ import java.util.stream.Collectors;
 
 public class TaxonCacheService extends CacheService implements PropertyEnricher, TermMatcher {
     private static final Logger LOG = LoggerFactory.getLogger(TaxonCacheService.class);
+    private static final MetricRegistry.Counter HITS = MetricRegistry.getDefault().counter("taxonCache.hits");
+    private static final MetricRegistry.Counter MISSES = MetricRegistry.getDefault().counter("taxonCache.misses");
 
     private final ResourceService resourceService;
 
@@ -94,6 +97,7 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
         if (enriched == null) {
             enriched = getTaxon(getName(properties));
         }
+        (enriched == null ? MISSES : HITS).inc();
         return enriched;
     }
 
@@ -265,8 +269,13 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
             Long nodeId = term instanceof TermRequestImpl ? ((TermRequestImpl) term).getNodeId() : null;
             if (!resolveName(termMatchListener, term, term.getId(), nodeId)) {
                 if (StringUtils.isBlank(nodeIdAndName) || !resolveName(termMatchListener, term, term.getName(), nodeId)) {
+                    MISSES.inc();
                     termMatchListener.foundTaxonForTerm(nodeId, term, NameType.NONE, new TaxonImpl(term.getId(), term.getName()));
+                } else {
+                    HITS.inc();
                 }
+            } else {
+                HITS.inc();
             }
         }
     }